@@ -0,0 +1,89 @@
+#!/usr/bin/env sh
+# ===========================================
+# BENCHMARK DE ARRANQUE
+# ===========================================
+# Mide el tiempo hasta la primera respuesta HTTP (GET /) de:
+#   1. normal: java -jar con el JAR tal cual
+#   2. rapido: JAR descomprimido + archivo CDS + AOT + perfil "rapido"
+#
+# Las dos variantes usan los perfiles prod,rapido: son con los que el perfil
+# Maven inicio-rapido genera el código AOT, y con AOT los beans condicionales
+# quedan fijados a esos perfiles. La base de datos se cambia por una H2 en
+# memoria con argumentos, así que no necesita PostgreSQL.
+#
+# Uso:  ./scripts/benchmark-arranque.sh [repeticiones]   (por defecto 5)
+# Con BUZON_INFORME_ARRANQUE=true se añade el informe de beans lentos al log
+# (también se pasa al generar el código AOT, que si no lo dejaría fuera).
+
+set -eu
+
+REPETICIONES="${1:-5}"
+PUERTO="${PUERTO:-18080}"
+DIR="target/benchmark-arranque"
+
+cd "$(dirname "$0")/.."
+
+INFORME=""
+if [ "${BUZON_INFORME_ARRANQUE:-false}" = "true" ]; then
+    INFORME="-Dbuzon.arranque.informe=true"
+fi
+
+PERFILES="--spring.profiles.active=prod,rapido"
+H2="--spring.datasource.url=jdbc:h2:mem:benchmark --spring.datasource.driver-class-name=org.h2.Driver"
+H2="$H2 --spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+
+echo "==> Compilando con AOT (perfil Maven inicio-rapido)"
+./mvnw -q clean package -DskipTests -Pinicio-rapido -Dspring-boot.aot.jvmArguments="$INFORME"
+
+rm -rf "$DIR" && mkdir -p "$DIR"
+JAR="$(ls target/*.jar | grep -v plain | head -n 1)"
+java -Djarmode=tools -jar "$JAR" extract --destination "$DIR/extraido" > /dev/null
+
+echo "==> Entrenando el archivo CDS"
+java -XX:ArchiveClassesAtExit="$DIR/extraido/app.jsa" \
+     -Dspring.context.exit=onRefresh -Dspring.aot.enabled=true \
+     -jar "$DIR/extraido/app.jar" \
+     $PERFILES $H2 --spring.main.lazy-initialization=false \
+     > "$DIR/entrenamiento.log" 2>&1
+
+# Arranca la aplicación, espera a la primera respuesta y devuelve los milisegundos
+medir() {
+    nombre="$1"; shift
+    inicio=$(date +%s%N)
+    "$@" --server.port="$PUERTO" > "$DIR/$nombre.log" 2>&1 &
+    pid=$!
+    until curl -s -o /dev/null "http://localhost:$PUERTO/"; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "La aplicación ($nombre) terminó sin responder; ver $DIR/$nombre.log" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    fin=$(date +%s%N)
+    kill "$pid" && wait "$pid" 2> /dev/null || true
+    echo $(( (fin - inicio) / 1000000 ))
+}
+
+# Media de una lista de números
+media() {
+    echo "$@" | tr ' ' '\n' | awk '{ s += $1 } END { printf "%d", s / NR }'
+}
+
+TIEMPOS_NORMAL=""
+TIEMPOS_RAPIDO=""
+i=1
+while [ "$i" -le "$REPETICIONES" ]; do
+    # "normal" sin perezosa: lo que se mide es todo lo que aporta el modo rápido
+    t1=$(medir normal java $INFORME -jar "$JAR" $PERFILES $H2 --spring.main.lazy-initialization=false)
+    t2=$(medir rapido java $INFORME -XX:SharedArchiveFile="$DIR/extraido/app.jsa" -Dspring.aot.enabled=true \
+             -jar "$DIR/extraido/app.jar" $PERFILES $H2)
+    echo "Ronda $i: normal ${t1} ms, rapido ${t2} ms"
+    TIEMPOS_NORMAL="$TIEMPOS_NORMAL $t1"
+    TIEMPOS_RAPIDO="$TIEMPOS_RAPIDO $t2"
+    i=$((i + 1))
+done
+
+echo
+echo "Tiempo medio hasta la primera respuesta:"
+echo "  normal: $(media $TIEMPOS_NORMAL) ms"
+echo "  rapido: $(media $TIEMPOS_RAPIDO) ms"
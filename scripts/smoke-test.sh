@@ -0,0 +1,103 @@
+#!/usr/bin/env sh
+# ===========================================
+# SMOKE TEST DEL EJECUTABLE NATIVO
+# ===========================================
+# Arranca el binario nativo contra una H2 en memoria y recorre los flujos
+# principales (formulario, login, API, Swagger, panel admin). Si algo falta
+# en la imagen (reflexión, recursos, proxies) aquí aparece como un 500 o un 404.
+#
+# Uso:
+#   ./mvnw -Pnative native:compile -DskipTests
+#   ./scripts/smoke-test.sh [ruta-del-binario]          (por defecto target/buzon-mensajes)
+#
+# Contra una aplicación ya arrancada (p. ej. el contenedor nativo):
+#   BASE_URL=http://localhost:8080 ./scripts/smoke-test.sh
+
+set -eu
+
+cd "$(dirname "$0")/.."
+
+BINARIO="${1:-target/buzon-mensajes}"
+PUERTO="${PUERTO:-18081}"
+USUARIO="${USUARIO:-admin}"
+CLAVE="${CLAVE:-admin123}"
+TRABAJO="$(mktemp -d)"
+PID=""
+
+terminar() {
+    if [ -n "$PID" ]; then
+        kill "$PID" 2> /dev/null || true
+    fi
+    rm -rf "$TRABAJO"
+}
+trap terminar EXIT
+
+if [ -z "${BASE_URL:-}" ]; then
+    BASE_URL="http://localhost:$PUERTO"
+    inicio=$(date +%s%N)
+    "$BINARIO" --server.port="$PUERTO" \
+        --spring.profiles.active=prod \
+        --spring.datasource.url=jdbc:h2:mem:smoke \
+        --spring.datasource.driver-class-name=org.h2.Driver \
+        --spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect \
+        > "$TRABAJO/app.log" 2>&1 &
+    PID=$!
+    until curl -s -o /dev/null "$BASE_URL/"; do
+        if ! kill -0 "$PID" 2> /dev/null; then
+            cat "$TRABAJO/app.log" >&2
+            echo "FALLO: la aplicación terminó al arrancar" >&2
+            exit 1
+        fi
+        sleep 0.02
+    done
+    fin=$(date +%s%N)
+    echo "Primera respuesta en $(( (fin - inicio) / 1000000 )) ms"
+    echo "Memoria residente: $(awk '/VmRSS/ { print $2, $3 }' "/proc/$PID/status")"
+fi
+
+FALLOS=0
+
+# comprobar <descripcion> <codigo-esperado> <argumentos de curl...>
+comprobar() {
+    descripcion="$1"; esperado="$2"; shift 2
+    codigo=$(curl -s -o "$TRABAJO/respuesta" -w '%{http_code}' -b "$TRABAJO/cookies" -c "$TRABAJO/cookies" "$@")
+    if [ "$codigo" = "$esperado" ]; then
+        echo "OK     $descripcion ($codigo)"
+    else
+        echo "FALLO  $descripcion: esperado $esperado, recibido $codigo" >&2
+        head -c 500 "$TRABAJO/respuesta" >&2; echo >&2
+        FALLOS=$((FALLOS + 1))
+    fi
+}
+
+comprobar "Formulario público (Thymeleaf)" 200 "$BASE_URL/"
+comprobar "CSS estático" 200 "$BASE_URL/css/styles.css"
+comprobar "Crear mensaje" 201 -X POST "$BASE_URL/api/mensajes" \
+    -H 'Content-Type: application/json' \
+    -d '{"nombre":"Prueba Nativa","email":"nativo@example.com","contenido":"Mensaje del smoke test nativo"}'
+ID=$(sed -n 's/.*"id":\([0-9]*\).*/\1/p' "$TRABAJO/respuesta")
+
+comprobar "Validación (400)" 400 -X POST "$BASE_URL/api/mensajes" \
+    -H 'Content-Type: application/json' -d '{"nombre":"","email":"x","contenido":""}'
+comprobar "API privada sin login" 401 "$BASE_URL/api/mensajes"
+
+comprobar "Login" 302 -X POST "$BASE_URL/login" -d "username=$USUARIO&password=$CLAVE"
+comprobar "Panel admin" 200 "$BASE_URL/admin/mensajes"
+comprobar "Obtener mensaje" 200 "$BASE_URL/api/mensajes/$ID"
+comprobar "Listado paginado" 200 "$BASE_URL/api/mensajes/paginado?page=0&size=10"
+comprobar "Contar no leídos" 200 "$BASE_URL/api/mensajes/no-leidos/count"
+comprobar "Exportar NDJSON" 200 "$BASE_URL/api/mensajes/exportar"
+comprobar "Marcar como leído" 200 -X PATCH "$BASE_URL/api/mensajes/$ID/leido"
+comprobar "Similares" 200 "$BASE_URL/api/mensajes/$ID/similares"
+comprobar "Eliminar" 204 -X DELETE "$BASE_URL/api/mensajes/$ID"
+comprobar "Mensaje eliminado (404)" 404 "$BASE_URL/api/mensajes/$ID"
+
+comprobar "OpenAPI JSON" 200 "$BASE_URL/v3/api-docs"
+comprobar "Swagger UI" 200 "$BASE_URL/swagger-ui/index.html"
+
+echo
+if [ "$FALLOS" -gt 0 ]; then
+    echo "$FALLOS comprobaciones fallidas"
+    exit 1
+fi
+echo "Todas las comprobaciones correctas"
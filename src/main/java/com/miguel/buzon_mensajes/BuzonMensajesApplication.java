@@ -1,13 +1,25 @@
 package com.miguel.buzon_mensajes;
 
+import com.miguel.buzon_mensajes.config.InformeArranque;
+import com.miguel.buzon_mensajes.config.NativeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
+@ImportRuntimeHints(NativeHints.class)
 public class BuzonMensajesApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(BuzonMensajesApplication.class, args);
+		SpringApplication app = new SpringApplication(BuzonMensajesApplication.class);
+		// Anota los pasos del arranque para InformeArranque (-Dbuzon.arranque.informe=true)
+		if (Boolean.getBoolean("buzon.arranque.informe")) {
+			app.setApplicationStartup(new BufferingApplicationStartup(InformeArranque.CAPACIDAD));
+		}
+		app.run(args);
 	}
 
 }
@@ -0,0 +1,544 @@
+package com.miguel.buzon_mensajes.config;
+
+import com.miguel.buzon_mensajes.model.ResumenMensajes;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Propiedades propias de la aplicación (prefijo "buzon" en application.properties).
+ *
+ * Agrupa en un solo lugar la configuración de las tareas y funciones opcionales,
+ * con valores por defecto seguros para desarrollo.
+ *
+ * Ejemplo:
+ * <pre>
+ * buzon.particionado.habilitado=true
+ * buzon.particionado.meses-retencion=24
+ * </pre>
+ */
+@Data
+@ConfigurationProperties(prefix = "buzon")
+public class BuzonProperties {
+
+    private Particionado particionado = new Particionado();
+
+    private Archivo archivo = new Archivo();
+
+    private Shards shards = new Shards();
+
+    private Replicas replicas = new Replicas();
+
+    private Memoria memoria = new Memoria();
+
+    private Api api = new Api();
+
+    private Sesiones sesiones = new Sesiones();
+
+    private Notificaciones notificaciones = new Notificaciones();
+
+    private Resumenes resumenes = new Resumenes();
+
+    private Rollups rollups = new Rollups();
+
+    private Importacion importacion = new Importacion();
+
+    private Purga purga = new Purga();
+
+    private Compresion compresion = new Compresion();
+
+    private NoLeidos noLeidos = new NoLeidos();
+
+    /**
+     * Hay más de una instancia de la aplicación detrás del balanceador.
+     *
+     * Desactiva lo que se basa en estado en memoria que solo ve las escrituras
+     * de la propia instancia (los ETag de VersionBuzon y el índice de no leídos).
+     */
+    private boolean variasInstancias = false;
+
+    /**
+     * Particionado mensual de la tabla mensaje (solo PostgreSQL).
+     */
+    @Data
+    public static class Particionado {
+
+        /**
+         * Activa la tarea que crea y retira particiones.
+         * Requiere haber convertido la tabla con db/postgres/particionado-mensaje.sql.
+         */
+        private boolean habilitado = false;
+
+        /**
+         * Meses futuros para los que se crean particiones por adelantado.
+         */
+        private int mesesAdelantados = 2;
+
+        /**
+         * Meses que se conservan; las particiones más antiguas se retiran
+         * si todos sus mensajes están leídos. 0 desactiva la retención.
+         */
+        private int mesesRetencion = 24;
+
+        /**
+         * Si es true, la partición retirada se elimina; si es false solo se separa
+         * (DETACH) y queda como tabla independiente para archivarla a mano.
+         */
+        private boolean eliminarRetiradas = false;
+    }
+
+    /**
+     * Archivo en frío de mensajes antiguos en segmentos comprimidos.
+     */
+    @Data
+    public static class Archivo {
+
+        /**
+         * Activa la tarea que mueve mensajes de la tabla al archivo.
+         * La lectura del archivo funciona siempre que existan segmentos.
+         */
+        private boolean habilitado = false;
+
+        /**
+         * Carpeta donde se guardan los segmentos (.seg) y sus índices (.idx).
+         */
+        private String directorio = "archivo";
+
+        /**
+         * Antigüedad mínima, en días, de un mensaje leído para archivarlo.
+         */
+        private int diasAntiguedad = 180;
+
+        /**
+         * Mensajes por segmento (y por transacción de la tarea).
+         */
+        private int tamanoLote = 5000;
+    }
+
+    /**
+     * Reparto de mensajes entre varias bases de datos según el buzón.
+     */
+    @Data
+    public static class Shards {
+
+        /**
+         * Activa el enrutado por buzón. Si está desactivado se usa
+         * spring.datasource.* como siempre.
+         */
+        private boolean habilitado = false;
+
+        /**
+         * Bases de datos (shards). El shard 0 es el de por defecto.
+         *
+         * Ejemplo:
+         * <pre>
+         * buzon.shards.origenes[0].url=jdbc:postgresql://db0:5432/buzon
+         * buzon.shards.origenes[1].url=jdbc:postgresql://db1:5432/buzon
+         * </pre>
+         */
+        private List<OrigenDatos> origenes = new ArrayList<>();
+    }
+
+    /**
+     * Réplicas de solo lectura para las transacciones readOnly.
+     */
+    @Data
+    public static class Replicas {
+
+        /**
+         * Activa el reparto lectura/escritura. Se ignora si buzon.shards.habilitado=true.
+         */
+        private boolean habilitado = false;
+
+        /**
+         * Réplicas de spring.datasource.* (el primario). Se reparten por turnos.
+         */
+        private List<OrigenDatos> origenes = new ArrayList<>();
+
+        /**
+         * Retraso máximo de replicación, en segundos, para seguir usando una réplica.
+         * Si lo supera (o no responde) sus lecturas vuelven al primario.
+         */
+        private int retrasoMaximoSegundos = 5;
+
+        /**
+         * Segundos tras una escritura del admin durante los que sus lecturas
+         * van al primario, para que vea sus propios cambios.
+         */
+        private int lecturaPropiaSegundos = 10;
+    }
+
+    /**
+     * Presupuesto de memoria para contenedores pequeños (perfil "constrained").
+     */
+    @Data
+    public static class Memoria {
+
+        /**
+         * Máximo de mensajes que devuelven los listados sin paginar
+         * (los más recientes). 0 = sin límite.
+         * Para volcar todo el buzón está /api/mensajes/exportar, que no acumula en memoria.
+         */
+        private int maximoFilasListado = 0;
+
+        /**
+         * Si es true, al arrancar se dimensionan los hilos de Tomcat, el pool Hikari
+         * y la caché de consultas de Hibernate según la memoria máxima de la JVM.
+         * Las propiedades puestas a mano tienen prioridad.
+         */
+        private boolean autoDimensionar = false;
+
+        /**
+         * Si es true, con el heap por encima de umbralPresion tras una recolección
+         * se rechazan (503) las lecturas del panel de administración.
+         */
+        private boolean limitarPorPresion = false;
+
+        /**
+         * Fracción del heap ocupada tras el GC a partir de la cual hay presión (0-1).
+         */
+        private double umbralPresion = 0.85;
+    }
+
+    /**
+     * Sesiones HTTP guardadas en la base de datos (Spring Session JDBC).
+     */
+    @Data
+    public static class Sesiones {
+
+        /**
+         * Cuándo se borran las sesiones caducadas.
+         */
+        private String cronLimpieza = "0 */5 * * * *";
+
+        /**
+         * Sesiones caducadas que se borran por sentencia DELETE.
+         */
+        private int loteLimpieza = 500;
+
+        /**
+         * Sesiones sin usuario autenticado que puede crear una misma IP por ventana.
+         * 0 = sin límite.
+         */
+        private int maximoAnonimasPorIp = 20;
+
+        private int ventanaMinutos = 10;
+    }
+
+    /**
+     * Notificaciones de mensajes nuevos (tabla evento_outbox + DespachadorOutboxJob).
+     */
+    @Data
+    public static class Notificaciones {
+
+        /**
+         * Activa el despachador y los destinos. Desactivado, crear no escribe eventos.
+         */
+        private boolean habilitado = false;
+
+        /**
+         * Milisegundos entre el final de una pasada del despachador y la siguiente.
+         */
+        private long intervaloMs = 2000;
+
+        /**
+         * Eventos que se reclaman de una vez (y se marcan en una sola transacción).
+         */
+        private int tamanoLote = 100;
+
+        /**
+         * Entregas simultáneas como máximo.
+         */
+        private int paralelismo = 4;
+
+        /**
+         * Intentos antes de dar un evento por descartado.
+         */
+        private int maximoIntentos = 8;
+
+        /**
+         * Espera tras el primer fallo; se duplica en cada fallo siguiente.
+         */
+        private int esperaInicialSegundos = 5;
+
+        private int esperaMaximaSegundos = 3600;
+
+        /**
+         * Tiempo que un lote reclamado queda apartado. Si la instancia muere
+         * antes de anotar el resultado, los eventos se reintentan al vencer.
+         * Debe ser mayor que lo que tarda en entregarse un lote.
+         */
+        private int plazoReclamoSegundos = 120;
+
+        /**
+         * Días que se conservan los eventos ya entregados.
+         */
+        private int diasRetencion = 7;
+
+        private Webhook webhook = new Webhook();
+
+        private Correo correo = new Correo();
+    }
+
+    /**
+     * POST del mensaje en JSON a una URL externa.
+     */
+    @Data
+    public static class Webhook {
+
+        private boolean habilitado = false;
+
+        private String url;
+
+        /**
+         * Si se indica, cada petición lleva X-Buzon-Firma: sha256=HMAC(secreto, cuerpo).
+         */
+        private String secreto;
+
+        private int timeoutSegundos = 10;
+    }
+
+    /**
+     * Correo de aviso escrito como fichero .eml en una carpeta
+     * (sustituto local de un servidor SMTP).
+     */
+    @Data
+    public static class Correo {
+
+        private boolean habilitado = false;
+
+        private String directorio = "correo-saliente";
+
+        private String de = "buzon@localhost";
+
+        private String para = "admin@localhost";
+    }
+
+    /**
+     * Resúmenes por hora y por día de los mensajes nuevos (ResumenJob).
+     */
+    @Data
+    public static class Resumenes {
+
+        /**
+         * Activa la tarea. La primera vez empieza desde ese momento: no recorre
+         * los mensajes que ya había.
+         */
+        private boolean habilitado = false;
+
+        private String cron = "0 */5 * * * *";
+
+        /**
+         * Periodos que se resumen.
+         */
+        private List<ResumenMensajes.Periodo> periodos = new ArrayList<>(List.of(
+                ResumenMensajes.Periodo.HORA, ResumenMensajes.Periodo.DIA));
+
+        /**
+         * Mensajes que se leen por transacción.
+         */
+        private int tamanoLote = 1000;
+
+        /**
+         * Los mensajes más recientes que esto no se procesan todavía: da tiempo a
+         * confirmar a las transacciones que empezaron antes y aún no se ven.
+         */
+        private int margenSegundos = 60;
+
+        /**
+         * Remitentes vigilados por resumen (memoria del algoritmo Space-Saving).
+         */
+        private int remitentesVigilados = 10;
+
+        /**
+         * Remitentes que aparecen en el resumen enviado.
+         */
+        private int remitentesMostrados = 5;
+
+        /**
+         * Vistas previas por resumen (las más recientes del periodo).
+         */
+        private int vistasPrevias = 5;
+
+        private int longitudVistaPrevia = 120;
+
+        /**
+         * Buzones que solo reciben resúmenes: sus mensajes no generan un aviso cada uno.
+         */
+        private List<String> soloResumen = new ArrayList<>();
+    }
+
+    /**
+     * Tablas precalculadas de analítica (remitentes por día, mensajes por día,
+     * tiempo hasta la lectura).
+     */
+    @Data
+    public static class Rollups {
+
+        /**
+         * Activa RollupJob, la reconstrucción de lo anterior y los endpoints
+         * /api/mensajes/analitica.
+         */
+        private boolean habilitado = false;
+
+        /**
+         * Pausa entre pasadas de RollupJob.
+         */
+        private long intervaloMs = 60000;
+
+        /**
+         * Mensajes nuevos que se leen por transacción.
+         */
+        private int tamanoLote = 1000;
+
+        /**
+         * Igual que en los resúmenes: los mensajes más recientes que esto esperan
+         * a la siguiente pasada.
+         */
+        private int margenSegundos = 60;
+
+        /**
+         * Ids por tramo al reconstruir desde los mensajes que ya había.
+         */
+        private int tamanoTramo = 10000;
+
+        /**
+         * Tramos que se agregan a la vez al reconstruir.
+         */
+        private int paralelismo = 4;
+    }
+
+    /**
+     * Importación masiva (POST /api/mensajes/importar).
+     */
+    @Data
+    public static class Importacion {
+
+        /**
+         * Filas que se guardan por transacción; es también lo que se repite
+         * como mucho al reanudar una importación cortada.
+         */
+        private int tamanoLote = 5000;
+
+        /**
+         * Hilos que normalizan y validan cada lote; 0 = uno por núcleo.
+         */
+        private int paralelismo = 0;
+
+        /**
+         * Filas rechazadas que se detallan en la respuesta (el resto solo se cuentan).
+         */
+        private int maximoErrores = 100;
+    }
+
+    /**
+     * Borrado definitivo de los mensajes eliminados (PurgaMensajesJob).
+     */
+    @Data
+    public static class Purga {
+
+        /**
+         * Días que un mensaje eliminado se puede restaurar antes de borrarlo.
+         */
+        private int diasRetencion = 7;
+
+        /**
+         * Filas que se borran por sentencia; lotes pequeños, bloqueos cortos.
+         */
+        private int tamanoLote = 500;
+
+        /**
+         * Pausa entre lotes, para dejar sitio a las peticiones.
+         */
+        private long pausaMs = 200;
+
+        /**
+         * Fracción del pool de conexiones en uso por encima de la cual la
+         * purga se detiene hasta la siguiente ejecución (también se detiene
+         * si hay peticiones esperando conexión).
+         */
+        private double ocupacionMaxima = 0.5;
+    }
+
+    /**
+     * Contenido de los mensajes comprimido con diccionario (ver Mensaje#comprimirContenido).
+     */
+    @Data
+    public static class Compresion {
+
+        /**
+         * Guardar comprimido el contenido de los mensajes nuevos; los ya
+         * guardados se leen igual con cualquier valor.
+         */
+        private boolean habilitada = false;
+    }
+
+    /**
+     * Índice en memoria de los ids sin leer (IndiceNoLeidos).
+     */
+    @Data
+    public static class NoLeidos {
+
+        /**
+         * Contar y paginar los no leídos con el índice; con false, siempre
+         * con consultas a la tabla. Con varias instancias no se usa aunque
+         * esté a true.
+         */
+        private boolean habilitado = true;
+
+        /**
+         * Ids que lee cada consulta del recorrido que lo construye.
+         */
+        private int tamanoLote = 10000;
+
+        /**
+         * Cada cuánto se vuelve a recorrer un shard cuyos ids no están en el
+         * orden de las fechas (mientras tanto las páginas salen de la tabla).
+         */
+        private long revisionMs = 600000;
+    }
+
+    /**
+     * Claves de API para integraciones (lectura de /api/mensajes/** sin sesión).
+     */
+    @Data
+    public static class Api {
+
+        /**
+         * Clientes autorizados. Solo se guarda el hash SHA-256 de cada clave;
+         * se generan con util.ClavesApi (ver su main).
+         */
+        private List<ClaveApi> claves = new ArrayList<>();
+    }
+
+    /**
+     * Una clave de API: nombre del cliente (aparece en los logs) y hash de la clave.
+     */
+    @Data
+    public static class ClaveApi {
+
+        private String nombre;
+
+        /**
+         * SHA-256 de la clave en hexadecimal (64 caracteres).
+         */
+        private String hash;
+    }
+
+    /**
+     * Conexión a una base de datos adicional (shard o réplica), con su propio pool.
+     */
+    @Data
+    public static class OrigenDatos {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        private int maximoConexiones = 5;
+    }
+}
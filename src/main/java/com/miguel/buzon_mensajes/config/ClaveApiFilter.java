@@ -0,0 +1,102 @@
+package com.miguel.buzon_mensajes.config;
+
+import com.miguel.buzon_mensajes.util.ClavesApi;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Autenticación de integraciones con clave de API (sin sesión).
+ *
+ * La clave llega en la cabecera X-API-Key o como "Authorization: Bearer ...".
+ * Se calcula su SHA-256 y se busca en un mapa hash → cliente construido al
+ * arrancar con buzon.api.claves: unos microsegundos por petición, frente a
+ * las decenas de milisegundos de BCrypt o una sesión HTTP por cliente.
+ *
+ * - Clave válida: la petición se autentica con ROLE_API solo para ella. El
+ *   contexto de seguridad no se guarda, así que no se crea sesión.
+ * - Clave desconocida: 401 directamente (no se sigue como anónimo).
+ * - Sin clave: sigue la cadena normal (sesión del panel de administración).
+ *
+ * Solo actúa en /api/**. No es un @Component: se añade a la cadena de
+ * Spring Security en SecurityConfig (como bean se registraría dos veces).
+ */
+@Slf4j
+public class ClaveApiFilter extends OncePerRequestFilter {
+
+    static final String CABECERA_CLAVE = "X-API-Key";
+
+    private static final String PREFIJO_BEARER = "Bearer ";
+
+    private static final List<GrantedAuthority> ROLES_API = AuthorityUtils.createAuthorityList("ROLE_API");
+
+    /**
+     * Hash SHA-256 (hexadecimal, minúsculas) → nombre del cliente.
+     */
+    private final Map<String, String> clientesPorHash;
+
+    public ClaveApiFilter(BuzonProperties propiedades) {
+        this.clientesPorHash = propiedades.getApi().getClaves().stream()
+                .collect(Collectors.toUnmodifiableMap(
+                        clave -> clave.getHash().trim().toLowerCase(Locale.ROOT),
+                        BuzonProperties.ClaveApi::getNombre));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return clientesPorHash.isEmpty() || !request.getServletPath().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String clave = extraerClave(request);
+        if (clave == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String cliente = clientesPorHash.get(ClavesApi.hash(clave));
+        if (cliente == null) {
+            log.warn("Clave de API no válida desde {}", request.getRemoteAddr());
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Clave de API no válida");
+            return;
+        }
+
+        SecurityContext contexto = SecurityContextHolder.createEmptyContext();
+        contexto.setAuthentication(new PreAuthenticatedAuthenticationToken(cliente, null, ROLES_API));
+        SecurityContextHolder.setContext(contexto);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static String extraerClave(HttpServletRequest request) {
+        String clave = request.getHeader(CABECERA_CLAVE);
+        if (clave != null && !clave.isBlank()) {
+            return clave.trim();
+        }
+        String autorizacion = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (autorizacion != null && autorizacion.startsWith(PREFIJO_BEARER)) {
+            return autorizacion.substring(PREFIJO_BEARER.length()).trim();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,47 @@
+package com.miguel.buzon_mensajes.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.config.ConfigDataEnvironmentPostProcessor;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+/**
+ * Desactiva open-in-view solo cuando las conexiones se enrutan por transacción
+ * (buzon.shards.habilitado=true o buzon.replicas.habilitado=true).
+ *
+ * Con open-in-view, el EntityManager de la petición se queda con la primera
+ * conexión que pide y la reutiliza en todas las transacciones siguientes:
+ * una petición que lee de un shard (o de una réplica) y después escribe en
+ * otro acabaría escribiendo en la base de datos equivocada. Sin sharding ni
+ * réplicas se mantiene el valor por defecto de Spring Boot.
+ *
+ * El valor se añade con la MAYOR prioridad: con el enrutado activo no es una
+ * preferencia sino un requisito. Se registra en META-INF/spring.factories.
+ */
+public class EnrutadoConexionesEnvironmentPostProcessor implements EnvironmentPostProcessor, Ordered {
+
+    static final String NOMBRE_FUENTE = "buzonEnrutadoConexiones";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        boolean shards = environment.getProperty("buzon.shards.habilitado", Boolean.class, false);
+        boolean replicas = environment.getProperty("buzon.replicas.habilitado", Boolean.class, false);
+        if (!shards && !replicas) {
+            return;
+        }
+        environment.getPropertySources().addFirst(
+                new MapPropertySource(NOMBRE_FUENTE, Map.of("spring.jpa.open-in-view", false)));
+    }
+
+    /**
+     * Después de cargar application*.properties, para poder leer los interruptores.
+     */
+    @Override
+    public int getOrder() {
+        return ConfigDataEnvironmentPostProcessor.ORDER + 1;
+    }
+}
@@ -0,0 +1,73 @@
+package com.miguel.buzon_mensajes.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.stream.StreamSupport;
+
+/**
+ * Informe de arranque: qué beans tardan más en crearse.
+ *
+ * Se activa arrancando con -Dbuzon.arranque.informe=true; entonces
+ * BuzonMensajesApplication registra un {@link BufferingApplicationStartup}
+ * que anota cada paso del arranque, y al terminar se escriben en el log
+ * los más lentos.
+ *
+ * El tiempo de un bean incluye el de los beans que necesita (sus dependencias
+ * se crean dentro de su paso), así que conviene leer la lista de arriba abajo.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "buzon.arranque", name = "informe", havingValue = "true")
+public class InformeArranque {
+
+    /**
+     * Pasos del arranque que se guardan como máximo en memoria.
+     */
+    public static final int CAPACIDAD = 4096;
+
+    private static final int PASOS_MOSTRADOS = 20;
+
+    private final ApplicationStartup arranque;
+
+    public InformeArranque(ApplicationStartup arranque) {
+        this.arranque = arranque;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void escribirInforme(ApplicationReadyEvent evento) {
+        if (!(arranque instanceof BufferingApplicationStartup buffering)) {
+            log.warn("buzon.arranque.informe debe pasarse como propiedad del sistema (-Dbuzon.arranque.informe=true)");
+            return;
+        }
+        StartupTimeline linea = buffering.drainBufferedTimeline();
+
+        StringBuilder informe = new StringBuilder("Arranque en ")
+                .append(evento.getTimeTaken().toMillis()).append(" ms; pasos más lentos:");
+        linea.getEvents().stream()
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .limit(PASOS_MOSTRADOS)
+                .forEach(paso -> informe.append(System.lineSeparator())
+                        .append(String.format("%8d ms  %s %s",
+                                paso.getDuration().toMillis(),
+                                paso.getStartupStep().getName(),
+                                etiquetas(paso.getStartupStep()))));
+
+        log.info(informe.toString());
+    }
+
+    private String etiquetas(StartupStep paso) {
+        return StreamSupport.stream(paso.getTags().spliterator(), false)
+                .map(etiqueta -> etiqueta.getKey() + "=" + etiqueta.getValue())
+                .toList()
+                .toString();
+    }
+}
@@ -0,0 +1,32 @@
+package com.miguel.buzon_mensajes.config;
+
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.NativeDetector;
+
+/**
+ * Ajustes del ObjectMapper que Spring Boot crea para toda la aplicación.
+ *
+ * Blackbird sustituye la reflexión de Jackson (Method.invoke / Field.set) por
+ * lambdas generadas con LambdaMetafactory, que el JIT puede inlinear. Afecta a
+ * todos los tipos sin serializador propio (peticiones, errores, PagedModel);
+ * MensajeResponseDTO ya tiene el suyo ({@code MensajeResponseDTOSerializer}).
+ *
+ * En la imagen nativa no se registra: no hay JIT y las clases generadas en
+ * tiempo de ejecución no están permitidas.
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer blackbird() {
+        return builder -> {
+            if (!NativeDetector.inNativeImage()) {
+                // postConfigurer: modulesToInstall() reemplazaría los módulos de Spring Boot
+                builder.postConfigurer(mapper -> mapper.registerModule(new BlackbirdModule()));
+            }
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package com.miguel.buzon_mensajes.config;
+
+import com.miguel.buzon_mensajes.datasource.LecturaPropia;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * "Read-your-writes" para el panel de administración.
+ *
+ * - Después de un PATCH o DELETE correcto (marcar como leído, eliminar) guarda
+ *   en la sesión el instante de la escritura.
+ * - En las peticiones siguientes de esa misma sesión, si no ha pasado
+ *   buzon.replicas.lectura-propia-segundos, fuerza las lecturas al primario.
+ *
+ * Solo afecta a peticiones con sesión: las lecturas anónimas o sin escrituras
+ * recientes siguen yendo a las réplicas.
+ */
+public class LecturaPropiaInterceptor implements HandlerInterceptor {
+
+    static final String ATRIBUTO_ULTIMA_ESCRITURA = "buzon.ultimaEscritura";
+
+    private final long ventanaMillis;
+
+    public LecturaPropiaInterceptor(int lecturaPropiaSegundos) {
+        this.ventanaMillis = lecturaPropiaSegundos * 1000L;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        HttpSession sesion = request.getSession(false);
+        if (sesion != null && sesion.getAttribute(ATRIBUTO_ULTIMA_ESCRITURA) instanceof Long ultimaEscritura
+                && System.currentTimeMillis() - ultimaEscritura < ventanaMillis) {
+            LecturaPropia.forzarPrimario();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        try {
+            if (esEscritura(request) && ex == null && response.getStatus() < 400) {
+                HttpSession sesion = request.getSession(false);
+                if (sesion != null) {
+                    sesion.setAttribute(ATRIBUTO_ULTIMA_ESCRITURA, System.currentTimeMillis());
+                }
+            }
+        } finally {
+            LecturaPropia.limpiar();
+        }
+    }
+
+    private boolean esEscritura(HttpServletRequest request) {
+        String metodo = request.getMethod();
+        return "PATCH".equals(metodo) || "DELETE".equals(metodo);
+    }
+}
@@ -0,0 +1,116 @@
+package com.miguel.buzon_mensajes.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Límite de sesiones anónimas por IP.
+ *
+ * Cada sesión es una fila en SPRING_SESSION hasta que caduca. Un bot que
+ * manda miles de peticiones sin cookie podría crear miles de sesiones; aquí
+ * se cuentan, por IP y ventana de tiempo, las sesiones nuevas que terminan
+ * la petición sin usuario autenticado. Superado el máximo, las peticiones
+ * de esa IP sin sesión reciben 429 hasta que empieza la ventana siguiente.
+ *
+ * Los inicios de sesión correctos no cuentan, y las peticiones con sesión
+ * ya existente no se limitan.
+ *
+ * El mapa de ventanas está acotado a {@link #MAXIMO_IPS} entradas. Se añade
+ * a la cadena de Spring Security en SecurityConfig (por eso no es @Component).
+ */
+@Slf4j
+public class LimiteSesionesFilter extends OncePerRequestFilter {
+
+    static final int MAXIMO_IPS = 10_000;
+
+    private final int maximoPorIp;
+    private final long ventanaMillis;
+    private final Clock reloj;
+
+    private final Map<String, Ventana> ventanas = new ConcurrentHashMap<>();
+
+    /**
+     * Sesiones anónimas creadas por una IP desde el inicio de su ventana.
+     */
+    private record Ventana(long inicio, AtomicInteger sesiones) {
+    }
+
+    public LimiteSesionesFilter(BuzonProperties propiedades) {
+        this(propiedades.getSesiones().getMaximoAnonimasPorIp(),
+                Duration.ofMinutes(propiedades.getSesiones().getVentanaMinutos()),
+                Clock.systemUTC());
+    }
+
+    LimiteSesionesFilter(int maximoPorIp, Duration ventana, Clock reloj) {
+        this.maximoPorIp = maximoPorIp;
+        this.ventanaMillis = ventana.toMillis();
+        this.reloj = reloj;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return maximoPorIp <= 0;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (request.getSession(false) != null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String ip = request.getRemoteAddr();
+        Ventana ventana = ventanaActual(ip);
+        if (ventana.sesiones().get() >= maximoPorIp) {
+            long segundos = Math.max(1, (ventana.inicio() + ventanaMillis - reloj.millis()) / 1000);
+            log.debug("Límite de sesiones anónimas alcanzado para {}", ip);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(segundos));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Demasiadas sesiones desde esta IP");
+            return;
+        }
+
+        chain.doFilter(request, response);
+
+        if (request.getSession(false) != null && esAnonima(SecurityContextHolder.getContext().getAuthentication())) {
+            ventana.sesiones().incrementAndGet();
+        }
+    }
+
+    private Ventana ventanaActual(String ip) {
+        long ahora = reloj.millis();
+        if (ventanas.size() >= MAXIMO_IPS) {
+            ventanas.values().removeIf(v -> ahora - v.inicio() >= ventanaMillis);
+            if (ventanas.size() >= MAXIMO_IPS) {
+                // Demasiadas IPs a la vez: se empieza de cero antes que crecer sin límite
+                ventanas.clear();
+            }
+        }
+        return ventanas.compute(ip, (clave, actual) ->
+                actual == null || ahora - actual.inicio() >= ventanaMillis
+                        ? new Ventana(ahora, new AtomicInteger())
+                        : actual);
+    }
+
+    private static boolean esAnonima(Authentication autenticacion) {
+        return autenticacion == null
+                || autenticacion instanceof AnonymousAuthenticationToken
+                || !autenticacion.isAuthenticated();
+    }
+}
@@ -0,0 +1,26 @@
+package com.miguel.buzon_mensajes.config;
+
+import com.miguel.buzon_mensajes.service.memoria.MonitorMemoria;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Rechazo de lecturas del panel bajo presión de memoria
+ * (buzon.memoria.limitar-por-presion=true, activo en el perfil "constrained").
+ */
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "buzon.memoria", name = "limitar-por-presion", havingValue = "true")
+public class MemoriaConfig implements WebMvcConfigurer {
+
+    private final MonitorMemoria monitorMemoria;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new PresionMemoriaInterceptor(monitorMemoria))
+                .addPathPatterns("/api/mensajes/**", "/admin/**");
+    }
+}
@@ -0,0 +1,59 @@
+package com.miguel.buzon_mensajes.config;
+
+import com.miguel.buzon_mensajes.dto.MensajeImportacionDTO;
+import com.miguel.buzon_mensajes.dto.MensajeRequestDTO;
+import com.miguel.buzon_mensajes.dto.MensajeResponseDTO;
+import com.miguel.buzon_mensajes.dto.MensajeResponseDTOSerializer;
+import com.miguel.buzon_mensajes.dto.ResumenDTO;
+import com.miguel.buzon_mensajes.exception.ErrorResponse;
+import com.miguel.buzon_mensajes.util.SpaceSaving;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.data.web.PagedModel;
+
+import java.util.stream.Stream;
+
+/**
+ * Pistas (hints) para la imagen nativa de GraalVM (perfil Maven "native").
+ *
+ * En una imagen nativa solo existe lo que el análisis estático ve en tiempo de
+ * compilación: la reflexión y los recursos hay que declararlos. Spring AOT ya
+ * declara casi todo (entidades JPA, beans, tipos de los controllers); aquí va
+ * lo que no puede deducir:
+ * - DTOs que Jackson usa fuera de un controller (la exportación NDJSON usa
+ *   ObjectMapper.writerFor directamente y la importación readerFor; los
+ *   eventos de notificación y los resúmenes se guardan en JSON) y
+ *   PagedModel, el sobre de las páginas.
+ * - Plantillas Thymeleaf, recursos estáticos, scripts SQL y el diccionario
+ *   de compresión, que se leen como recursos del classpath.
+ * - Dialectos de Hibernate que se eligen por nombre en las propiedades.
+ *
+ * Se registra con @ImportRuntimeHints en BuzonMensajesApplication.
+ */
+public class NativeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        BindingReflectionHintsRegistrar binding = new BindingReflectionHintsRegistrar();
+        Stream.of(MensajeRequestDTO.class, MensajeResponseDTO.class, ErrorResponse.class,
+                        PagedModel.class, PagedModel.PageMetadata.class,
+                        ResumenDTO.class, SpaceSaving.Contador.class, MensajeImportacionDTO.class)
+                .forEach(tipo -> binding.registerReflectionHints(hints.reflection(), tipo));
+        // Jackson crea el serializador de @JsonSerialize(using = ...) por reflexión
+        hints.reflection().registerType(MensajeResponseDTOSerializer.class,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+
+        hints.resources()
+                .registerPattern("templates/*.html")
+                .registerPattern("static/**")
+                .registerPattern("db/postgres/*.sql")
+                .registerPattern("compresion/*.txt");
+
+        Stream.of("org.hibernate.dialect.H2Dialect", "org.hibernate.dialect.PostgreSQLDialect")
+                .forEach(dialecto -> hints.reflection().registerType(TypeReference.of(dialecto),
+                        MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS));
+    }
+}
@@ -0,0 +1,36 @@
+package com.miguel.buzon_mensajes.config;
+
+import com.miguel.buzon_mensajes.exception.ServicioSaturadoException;
+import com.miguel.buzon_mensajes.service.memoria.MonitorMemoria;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Descarta tráfico no esencial cuando el heap está bajo presión.
+ *
+ * Se registra solo para las lecturas del panel (GET /api/mensajes/** y /admin/**):
+ * son las que cargan listados en memoria y se pueden reintentar sin perder nada.
+ * El envío de mensajes desde el formulario público (POST) y las acciones del
+ * admin (PATCH/DELETE) siguen funcionando.
+ */
+public class PresionMemoriaInterceptor implements HandlerInterceptor {
+
+    private static final int REINTENTAR_EN_SEGUNDOS = 30;
+
+    private final MonitorMemoria monitorMemoria;
+
+    public PresionMemoriaInterceptor(MonitorMemoria monitorMemoria) {
+        this.monitorMemoria = monitorMemoria;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if ("GET".equals(request.getMethod()) && monitorMemoria.bajoPresion()) {
+            throw new ServicioSaturadoException(
+                    "Servidor con poca memoria disponible; inténtalo de nuevo en unos segundos",
+                    REINTENTAR_EN_SEGUNDOS);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,72 @@
+package com.miguel.buzon_mensajes.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.config.ConfigDataEnvironmentPostProcessor;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Dimensiona hilos, conexiones y cachés a partir de la memoria de la JVM
+ * (buzon.memoria.auto-dimensionar=true, activo en el perfil "constrained").
+ *
+ * La JVM ya calcula su heap máximo según la memoria del contenedor
+ * (-XX:MaxRAMPercentage), así que Runtime.maxMemory() es la medida del
+ * presupuesto. Cada hilo de Tomcat atendiendo una petición y cada conexión
+ * con su ResultSet ocupan heap; con 128 MB no tiene sentido aceptar los
+ * 200 hilos por defecto.
+ *
+ * Los valores se añaden con la MENOR prioridad: cualquier propiedad puesta
+ * en application*.properties, variables de entorno o argumentos gana.
+ *
+ * Se registra en META-INF/spring.factories (se ejecuta antes de crear el contexto).
+ */
+public class PresupuestoMemoriaEnvironmentPostProcessor implements EnvironmentPostProcessor, Ordered {
+
+    static final String NOMBRE_FUENTE = "buzonPresupuestoMemoria";
+
+    private static final long MB = 1024 * 1024;
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!environment.getProperty("buzon.memoria.auto-dimensionar", Boolean.class, false)) {
+            return;
+        }
+        Map<String, Object> valores = dimensionar(Runtime.getRuntime().maxMemory() / MB);
+        environment.getPropertySources().addLast(new MapPropertySource(NOMBRE_FUENTE, valores));
+    }
+
+    /**
+     * Propiedades para un heap máximo dado (en MB).
+     *
+     * Ejemplos: 128 MB → 16 hilos y 4 conexiones; 512 MB → 64 hilos y 10 conexiones.
+     */
+    static Map<String, Object> dimensionar(long heapMaximoMb) {
+        int hilos = (int) Math.clamp(heapMaximoMb / 8, 8, 200);
+        int conexiones = Math.clamp(hilos / 4, 2, 10);
+
+        Map<String, Object> valores = new LinkedHashMap<>();
+        valores.put("server.tomcat.threads.max", hilos);
+        valores.put("server.tomcat.threads.min-spare", Math.max(2, hilos / 4));
+        valores.put("server.tomcat.max-connections", hilos * 8);
+        valores.put("server.tomcat.accept-count", hilos);
+        valores.put("spring.datasource.hikari.maximum-pool-size", conexiones);
+        valores.put("spring.datasource.hikari.minimum-idle", 1);
+        // Caché de planes de consulta de Hibernate (2048 por defecto)
+        valores.put("spring.jpa.properties.hibernate.query.plan_cache_max_size",
+                Math.clamp(heapMaximoMb * 2, 64, 2048));
+        return valores;
+    }
+
+    /**
+     * Después de cargar application*.properties, para poder leer el interruptor.
+     */
+    @Override
+    public int getOrder() {
+        return ConfigDataEnvironmentPostProcessor.ORDER + 1;
+    }
+}
@@ -0,0 +1,44 @@
+package com.miguel.buzon_mensajes.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.web.WebProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.time.Duration;
+
+/**
+ * CSS y JavaScript con huella (fingerprint) y caché de un año.
+ *
+ * Las plantillas enlazan con th:href="@{/css/styles.css}" y el filtro
+ * ResourceUrlEncodingFilter (lo registra Spring Boot al activar
+ * spring.web.resources.chain.strategy.content) reescribe la URL a
+ * /css/styles-&lt;md5&gt;.css. Si el fichero cambia, cambia la URL, así que el
+ * navegador puede guardarlo como "immutable" sin volver a preguntar nunca.
+ *
+ * Las páginas HTML no se cachean (Spring Security añade no-cache), así que
+ * siempre apuntan a la huella actual.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class RecursosEstaticosConfig implements WebMvcConfigurer {
+
+    private static final Duration UN_ANO = Duration.ofDays(365);
+
+    private final WebProperties webProperties;
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        for (String carpeta : new String[]{"css", "js"}) {
+            registry.addResourceHandler("/" + carpeta + "/**")
+                    .addResourceLocations("classpath:/static/" + carpeta + "/")
+                    .setCacheControl(CacheControl.maxAge(UN_ANO).cachePublic().immutable())
+                    // Con devtools la caché de la cadena se desactiva y la huella se recalcula al editar
+                    .resourceChain(webProperties.getResources().getChain().isCache())
+                    .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+        }
+    }
+}
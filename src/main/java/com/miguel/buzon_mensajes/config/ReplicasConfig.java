@@ -0,0 +1,97 @@
+package com.miguel.buzon_mensajes.config;
+
+import com.miguel.buzon_mensajes.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reparto lectura/escritura entre el primario y sus réplicas
+ * (buzon.replicas.habilitado=true y sin sharding).
+ *
+ * El DataSource que ven JPA y los repositorios es un LazyConnectionDataSourceProxy:
+ * - La conexión física se pide al ejecutar la primera sentencia, cuando ya se sabe
+ *   si la transacción es @Transactional(readOnly = true).
+ * - Transacciones de escritura (y código sin transacción): primario.
+ * - Transacciones readOnly: {@link ReplicaRoutingDataSource} (réplica sana o primario).
+ *
+ * Cada origen tiene su propio pool Hikari; el primario sigue configurándose
+ * con spring.datasource.* y spring.datasource.hikari.*.
+ */
+@Configuration
+@ConditionalOnExpression("${buzon.replicas.habilitado:false} and !${buzon.shards.habilitado:false}")
+public class ReplicasConfig implements WebMvcConfigurer {
+
+    private final BuzonProperties propiedades;
+
+    public ReplicasConfig(BuzonProperties propiedades) {
+        this.propiedades = propiedades;
+    }
+
+    /**
+     * Pools de conexiones de las réplicas, en el orden de buzon.replicas.origenes.
+     */
+    public record PoolsReplica(List<HikariDataSource> pools) {
+
+        public void cerrar() {
+            pools.forEach(HikariDataSource::close);
+        }
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimario(DataSourceProperties dataSourceProperties) {
+        HikariDataSource primario = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        primario.setPoolName("primario");
+        return primario;
+    }
+
+    @Bean(destroyMethod = "cerrar")
+    public PoolsReplica poolsReplica() {
+        List<BuzonProperties.OrigenDatos> origenes = propiedades.getReplicas().getOrigenes();
+        if (origenes.isEmpty()) {
+            throw new IllegalStateException("buzon.replicas.habilitado=true requiere al menos buzon.replicas.origenes[0].url");
+        }
+
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (int i = 0; i < origenes.size(); i++) {
+            HikariDataSource pool = ShardingConfig.crearPool("replica-" + i, origenes.get(i));
+            pool.setReadOnly(true);
+            pools.add(pool);
+        }
+        return new PoolsReplica(List.copyOf(pools));
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource dataSourcePrimario,
+                                                             PoolsReplica poolsReplica) {
+        return new ReplicaRoutingDataSource(dataSourcePrimario, poolsReplica.pools());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource dataSourcePrimario,
+                                 ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(dataSourcePrimario);
+        proxy.setReadOnlyDataSource(replicaRoutingDataSource);
+        return proxy;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new LecturaPropiaInterceptor(propiedades.getReplicas().getLecturaPropiaSegundos()));
+    }
+}
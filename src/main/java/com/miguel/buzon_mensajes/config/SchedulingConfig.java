@@ -0,0 +1,33 @@
+package com.miguel.buzon_mensajes.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Habilita las tareas programadas (@Scheduled) de la aplicación.
+ *
+ * Cada tarea decide por su cuenta si está activa según sus propiedades
+ * en {@link BuzonProperties}, así que habilitar el planificador no
+ * cambia nada mientras no se active ninguna.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    /**
+     * Con spring.main.lazy-initialization=true (perfil "rapido") un bean que nadie
+     * usa nunca se crea, y sus métodos @Scheduled no llegarían a planificarse.
+     * Este filtro mantiene inmediatos los beans que tienen tareas programadas.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter tareasProgramadasSinLazy() {
+        return (nombre, definicion, tipo) -> !MethodIntrospector.selectMethods(tipo,
+                (MethodIntrospector.MetadataLookup<Scheduled>) metodo ->
+                        AnnotatedElementUtils.findMergedAnnotation(metodo, Scheduled.class)).isEmpty();
+    }
+}
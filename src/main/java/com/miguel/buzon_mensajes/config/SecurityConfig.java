@@ -3,6 +3,7 @@ package com.miguel.buzon_mensajes.config;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.core.userdetails.User;
@@ -12,14 +13,26 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.savedrequest.NullRequestCache;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, BuzonProperties propiedades) throws Exception {
         http
+                // Integraciones: clave de API por petición, sin sesión (ver ClaveApiFilter)
+                .addFilterBefore(new ClaveApiFilter(propiedades), UsernamePasswordAuthenticationFilter.class)
+                // Sesiones anónimas por IP acotadas (las sesiones viven en la BD, ver SesionesConfig)
+                .addFilterBefore(new LimiteSesionesFilter(propiedades), UsernamePasswordAuthenticationFilter.class)
+                // Tras el login siempre se va al panel: no hace falta guardar en sesión
+                // la petición original de cada visitante anónimo
+                .requestCache(cache -> cache.requestCache(new NullRequestCache()))
+
                 // DESHABILITAR CSRF PARA DESARROLLO (cambiar en producción)
                 .csrf(csrf -> csrf.disable())
 
@@ -29,21 +42,31 @@ public class SecurityConfig {
                         .requestMatchers("/css/**", "/js/**", "/images/**", "/favicon.ico").permitAll()
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
                         .requestMatchers("/h2-console/**").permitAll() // Para H2 console
+                        .requestMatchers("/actuator/health").permitAll()
 
                         // Solo POST a /api/mensajes es público
                         .requestMatchers(HttpMethod.POST, "/api/mensajes").permitAll()
 
-                        // Rutas privadas
-                        .requestMatchers("/admin/**").authenticated()
+                        // Rutas privadas: lectura con sesión o con clave de API (ROLE_API),
+                        // cambios y panel solo para el administrador
+                        .requestMatchers("/admin/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/api/mensajes/importar").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.GET, "/api/mensajes/**").authenticated()
-                        .requestMatchers(HttpMethod.PATCH, "/api/mensajes/**").authenticated()
-                        .requestMatchers(HttpMethod.DELETE, "/api/mensajes/**").authenticated()
+                        .requestMatchers(HttpMethod.PATCH, "/api/mensajes/**").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.DELETE, "/api/mensajes/**").hasRole("ADMIN")
 
                         .anyRequest().authenticated()
                 )
+                // La API responde 401 en lugar de redirigir al formulario de login
+                .exceptionHandling(ex -> ex.defaultAuthenticationEntryPointFor(
+                        new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED),
+                        request -> request.getServletPath().startsWith("/api/")
+                ))
                 .formLogin(form -> form
                         .permitAll()
                         .defaultSuccessUrl("/admin/mensajes", true)
+                        .failureHandler(loginFallido())
                 )
                 .logout(logout -> logout
                         .logoutUrl("/logout")
@@ -58,6 +81,16 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * Login fallido: vuelve a /login?error sin crear sesión
+     * (por defecto se guarda la excepción en una sesión nueva por intento).
+     */
+    private static SimpleUrlAuthenticationFailureHandler loginFallido() {
+        SimpleUrlAuthenticationFailureHandler handler = new SimpleUrlAuthenticationFailureHandler("/login?error");
+        handler.setAllowSessionCreation(false);
+        return handler;
+    }
+
     @Bean
     public UserDetailsService userDetailsService() {
         UserDetails admin = User.builder()
@@ -0,0 +1,72 @@
+package com.miguel.buzon_mensajes.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.support.GenericConversionService;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Formato de los atributos de sesión guardados en SPRING_SESSION_ATTRIBUTES.
+ *
+ * Spring Session JDBC serializa cada atributo con la serialización de Java.
+ * El atributo principal (SPRING_SECURITY_CONTEXT) repite nombres de clases
+ * y campos, así que comprimido con Deflate ocupa bastante menos: menos bytes
+ * por fila en la tabla y en cada lectura/escritura de la sesión.
+ *
+ * Spring Session busca el bean por su nombre, "springSessionConversionService".
+ *
+ * Al cambiar este formato las sesiones ya guardadas dejan de poder leerse
+ * (los administradores tendrán que volver a entrar).
+ */
+@Configuration
+public class SesionesConfig {
+
+    @Bean("springSessionConversionService")
+    public GenericConversionService conversionSesiones(ResourceLoader resourceLoader) {
+        SerializingConverter serializar = new SerializingConverter();
+        DeserializingConverter deserializar = new DeserializingConverter(resourceLoader.getClassLoader());
+
+        GenericConversionService conversion = new GenericConversionService();
+        conversion.addConverter(Object.class, byte[].class, valor -> comprimir(serializar.convert(valor)));
+        conversion.addConverter(byte[].class, Object.class, bytes -> deserializar.convert(descomprimir(bytes)));
+        return conversion;
+    }
+
+    static byte[] comprimir(byte[] datos) {
+        // BEST_SPEED: la sesión se escribe en cada petición que la modifica
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            ByteArrayOutputStream salida = new ByteArrayOutputStream(datos.length / 2);
+            try (DeflaterOutputStream comprimido = new DeflaterOutputStream(salida, deflater)) {
+                comprimido.write(datos);
+            }
+            return salida.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static byte[] descomprimir(byte[] datos) {
+        Inflater inflater = new Inflater();
+        try (InflaterInputStream entrada = new InflaterInputStream(new ByteArrayInputStream(datos), inflater)) {
+            return entrada.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
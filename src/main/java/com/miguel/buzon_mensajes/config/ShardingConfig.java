@@ -0,0 +1,151 @@
+package com.miguel.buzon_mensajes.config;
+
+import com.miguel.buzon_mensajes.datasource.ShardRouter;
+import com.miguel.buzon_mensajes.datasource.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.tool.schema.Action;
+import org.hibernate.tool.schema.spi.DelayedDropRegistryNotAvailableImpl;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuración del sharding por buzón (buzon.shards.habilitado=true).
+ *
+ * Sustituye el DataSource de Spring Boot por un {@link ShardRoutingDataSource}
+ * con un pool Hikari por shard. JPA y los repositorios no cambian: el shard
+ * se elige en {@code ShardedMensajeService} antes de abrir cada transacción.
+ *
+ * Al arrancar, para cada shard distinto del 0:
+ * - Se crea/actualiza el esquema (Hibernate solo lo hace en el shard por defecto).
+ * - Se mueve la columna identidad de mensaje al rango de ids del shard.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "buzon.shards", name = "habilitado", havingValue = "true")
+public class ShardingConfig {
+
+    /**
+     * Pools de conexiones de los shards, en el orden de buzon.shards.origenes.
+     */
+    public record PoolsShard(List<HikariDataSource> pools) {
+
+        public void cerrar() {
+            pools.forEach(HikariDataSource::close);
+        }
+    }
+
+    @Bean(destroyMethod = "cerrar")
+    public PoolsShard poolsShard(BuzonProperties propiedades) {
+        List<BuzonProperties.OrigenDatos> origenes = propiedades.getShards().getOrigenes();
+        if (origenes.isEmpty()) {
+            throw new IllegalStateException("buzon.shards.habilitado=true requiere al menos buzon.shards.origenes[0].url");
+        }
+
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (int i = 0; i < origenes.size(); i++) {
+            pools.add(crearPool("shard-" + i, origenes.get(i)));
+        }
+        return new PoolsShard(List.copyOf(pools));
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(PoolsShard poolsShard) {
+        Map<Object, Object> destinos = new HashMap<>();
+        for (int i = 0; i < poolsShard.pools().size(); i++) {
+            destinos.put(i, poolsShard.pools().get(i));
+        }
+
+        ShardRoutingDataSource enrutador = new ShardRoutingDataSource();
+        enrutador.setTargetDataSources(destinos);
+        enrutador.setDefaultTargetDataSource(poolsShard.pools().get(0));
+        return enrutador;
+    }
+
+    @Bean
+    public ShardRouter shardRouter(PoolsShard poolsShard) {
+        return new ShardRouter(poolsShard.pools().size());
+    }
+
+    @Bean
+    public ApplicationRunner inicializarShards(PoolsShard poolsShard,
+                                               EntityManagerFactory entityManagerFactory,
+                                               ShardRouter shardRouter) {
+        return args -> {
+            for (int i = 1; i < poolsShard.pools().size(); i++) {
+                DataSource shard = poolsShard.pools().get(i);
+                actualizarEsquema(shard, entityManagerFactory);
+                ajustarRangoDeIds(new JdbcTemplate(shard), shardRouter.primerIdDe(i), i);
+            }
+        };
+    }
+
+    /**
+     * Crea un pool Hikari independiente para una base de datos adicional.
+     */
+    static HikariDataSource crearPool(String nombre, BuzonProperties.OrigenDatos origen) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(nombre);
+        pool.setJdbcUrl(origen.getUrl());
+        pool.setUsername(origen.getUsername());
+        pool.setPassword(origen.getPassword());
+        pool.setMaximumPoolSize(origen.getMaximoConexiones());
+        return pool;
+    }
+
+    /**
+     * Aplica al shard el mismo "ddl-auto=update" que Hibernate aplica al shard 0,
+     * con las mismas entidades y propiedades (dialecto, estrategia de nombres...).
+     * Lo ejecuta SchemaManagementToolCoordinator, lo mismo que usa Hibernate
+     * al crear el EntityManagerFactory.
+     */
+    private void actualizarEsquema(DataSource shard, EntityManagerFactory entityManagerFactory) {
+        StandardServiceRegistry registro = new StandardServiceRegistryBuilder()
+                .applySettings(entityManagerFactory.getProperties())
+                .applySetting(AvailableSettings.DATASOURCE, shard)
+                .build();
+        try {
+            MetadataSources fuentes = new MetadataSources(registro);
+            entityManagerFactory.getMetamodel().getEntities()
+                    .forEach(entidad -> fuentes.addAnnotatedClass(entidad.getJavaType()));
+            Metadata metadata = fuentes.buildMetadata();
+            Map<String, Object> ajustes = new HashMap<>(entityManagerFactory.getProperties());
+            ajustes.put(AvailableSettings.JAKARTA_HBM2DDL_DATABASE_ACTION, Action.UPDATE);
+            SchemaManagementToolCoordinator.process(metadata, registro, ajustes,
+                    DelayedDropRegistryNotAvailableImpl.INSTANCE);
+        } finally {
+            StandardServiceRegistryBuilder.destroy(registro);
+        }
+    }
+
+    /**
+     * Hace que la identidad de mensaje genere ids dentro del rango del shard.
+     * Si el shard ya tiene ids en su rango no se toca.
+     */
+    private void ajustarRangoDeIds(JdbcTemplate jdbcTemplate, long primerId, int shard) {
+        Long maximo = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM mensaje", Long.class);
+        if (maximo != null && maximo >= primerId) {
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE mensaje ALTER COLUMN id RESTART WITH " + primerId);
+        log.info("Shard {}: ids de mensaje a partir de {}", shard, primerId);
+    }
+}
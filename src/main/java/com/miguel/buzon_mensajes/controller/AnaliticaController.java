@@ -0,0 +1,129 @@
+package com.miguel.buzon_mensajes.controller;
+
+import com.miguel.buzon_mensajes.dto.CubetaLatenciaDTO;
+import com.miguel.buzon_mensajes.dto.MensajesDiaDTO;
+import com.miguel.buzon_mensajes.dto.PercentilesLecturaDTO;
+import com.miguel.buzon_mensajes.dto.RemitenteFrecuenteDTO;
+import com.miguel.buzon_mensajes.service.analitica.AnaliticaService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Analítica del buzón a partir de las tablas de rollup.
+ *
+ * Todos los endpoints aceptan un intervalo de días (desde/hasta, ambos
+ * incluidos); por defecto los últimos 30 días y como mucho un año. Los
+ * datos van con el retraso de RollupJob (buzon.rollups.intervalo-ms más el
+ * margen). Solo existe con buzon.rollups.habilitado=true.
+ */
+@RestController
+@RequestMapping("/api/mensajes/analitica")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "buzon.rollups", name = "habilitado", havingValue = "true")
+@Tag(name = "Analítica", description = "Remitentes más frecuentes, mensajes por día y tiempo hasta la lectura")
+public class AnaliticaController {
+
+    private static final int DIAS_POR_DEFECTO = 30;
+    private static final int DIAS_MAXIMOS = 366;
+    private static final int LIMITE_MAXIMO = 100;
+
+    private final AnaliticaService analiticaService;
+
+    /**
+     * Endpoint: GET /api/mensajes/analitica/remitentes?desde=2025-10-01&hasta=2025-10-31&limite=10
+     */
+    @GetMapping("/remitentes")
+    @Operation(summary = "Remitentes más frecuentes",
+            description = "Emails (normalizados: sin espacios y en minúsculas) con más mensajes en el intervalo, de más a menos.")
+    public ResponseEntity<List<RemitenteFrecuenteDTO>> remitentes(
+            @Parameter(description = "Primer día (por defecto hace 30 días)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @Parameter(description = "Último día (por defecto hoy)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @Parameter(description = "Número de remitentes (máximo 100)")
+            @RequestParam(defaultValue = "10") int limite
+    ) {
+        LocalDate fin = fin(hasta);
+        int acotado = Math.clamp(limite, 1, LIMITE_MAXIMO);
+        return ResponseEntity.ok(analiticaService.remitentesFrecuentes(inicio(desde, fin), fin, acotado));
+    }
+
+    /**
+     * Endpoint: GET /api/mensajes/analitica/dias?desde=2025-10-01&hasta=2025-10-31
+     */
+    @GetMapping("/dias")
+    @Operation(summary = "Mensajes por día",
+            description = "Recibidos y leídos en cada día del intervalo, incluidos los días sin actividad.")
+    public ResponseEntity<List<MensajesDiaDTO>> dias(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta
+    ) {
+        LocalDate fin = fin(hasta);
+        return ResponseEntity.ok(analiticaService.mensajesPorDia(inicio(desde, fin), fin));
+    }
+
+    /**
+     * Endpoint: GET /api/mensajes/analitica/latencia?desde=2025-10-01&hasta=2025-10-31
+     */
+    @GetMapping("/latencia")
+    @Operation(summary = "Tiempo hasta la lectura",
+            description = """
+            Histograma de los mensajes marcados como leídos en el intervalo según cuánto
+            esperaron: cada barra cuenta los leídos en menos de hastaSegundos (1, 2, 4, 8...
+            segundos) y al menos la anterior; la última, con hastaSegundos null, el resto.
+            """)
+    public ResponseEntity<List<CubetaLatenciaDTO>> latencia(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta
+    ) {
+        LocalDate fin = fin(hasta);
+        return ResponseEntity.ok(analiticaService.latenciaLectura(inicio(desde, fin), fin));
+    }
+
+    /**
+     * Endpoint: GET /api/mensajes/analitica/latencia/percentiles?desde=2025-10-01&hasta=2025-10-31
+     */
+    @GetMapping("/latencia/percentiles")
+    @Operation(summary = "Percentiles del tiempo hasta la lectura",
+            description = """
+            Para cada día, cuántos mensajes se leyeron y en cuántos segundos se leyeron
+            el 50, el 95 y el 99 % de ellos (error menor del 6 %, nunca por debajo).
+            """)
+    public ResponseEntity<List<PercentilesLecturaDTO>> percentiles(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta
+    ) {
+        LocalDate fin = fin(hasta);
+        return ResponseEntity.ok(analiticaService.percentilesLectura(inicio(desde, fin), fin));
+    }
+
+    private static LocalDate fin(LocalDate hasta) {
+        return hasta != null ? hasta : LocalDate.now();
+    }
+
+    /**
+     * Inicio del intervalo, acotado a DIAS_MAXIMOS antes del fin.
+     */
+    private static LocalDate inicio(LocalDate desde, LocalDate fin) {
+        LocalDate minimo = fin.minusDays(DIAS_MAXIMOS - 1);
+        if (desde == null) {
+            return fin.minusDays(DIAS_POR_DEFECTO - 1);
+        }
+        if (desde.isBefore(minimo)) {
+            return minimo;
+        }
+        return desde.isAfter(fin) ? fin : desde;
+    }
+}
@@ -0,0 +1,79 @@
+package com.miguel.buzon_mensajes.controller;
+
+/**
+ * ETag de un mensaje individual: W/"<versión del buzón>.<versión del mensaje>".
+ *
+ * Las dos partes tienen usos distintos:
+ * - If-None-Match (GET): basta la versión del buzón. Si no ha cambiado no ha
+ *   habido ninguna escritura, así que el mensaje tampoco, y se responde 304
+ *   sin consultar la base de datos (como en los listados).
+ * - If-Match (PATCH, DELETE): solo cuenta la versión del mensaje. Escrituras
+ *   sobre otros mensajes cambian la del buzón pero no deben dar 412.
+ */
+final class EtagMensaje {
+
+    /**
+     * Versión esperada que nunca coincide: If-Match con un ETag que no es de
+     * un mensaje (por ejemplo el de un listado) siempre falla.
+     */
+    static final long NINGUNA = -1L;
+
+    private EtagMensaje() {
+    }
+
+    static String de(long versionBuzon, long versionMensaje) {
+        return "W/\"" + Long.toString(versionBuzon, 36) + "." + versionMensaje + "\"";
+    }
+
+    /**
+     * El ETag de If-None-Match que es de la versión del buzón actual, para
+     * devolverlo con el 304; null si ninguno lo es.
+     */
+    static String vigente(String ifNoneMatch, long versionBuzon) {
+        if (ifNoneMatch == null) {
+            return null;
+        }
+        String actual = Long.toString(versionBuzon, 36);
+        for (String etag : ifNoneMatch.split(",")) {
+            String valor = valor(etag);
+            int punto = valor.indexOf('.');
+            if (punto > 0 && valor.substring(0, punto).equals(actual)) {
+                return "W/\"" + valor + "\"";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Versión del mensaje que pide If-Match; null si no hay cabecera o es "*"
+     * (basta con que el mensaje exista). Con varios ETags se usa el primero.
+     * La comparación es débil (RFC 9110 la pide fuerte): el W/ solo indica que
+     * la representación puede variar, la versión identifica el estado.
+     */
+    static Long versionEsperada(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String valor = valor(ifMatch.split(",")[0]);
+        int punto = valor.indexOf('.');
+        try {
+            return punto < 0 ? NINGUNA : Long.parseLong(valor.substring(punto + 1));
+        } catch (NumberFormatException e) {
+            return NINGUNA;
+        }
+    }
+
+    /**
+     * El texto entre comillas, sin W/ ni espacios.
+     */
+    private static String valor(String etag) {
+        String valor = etag.trim();
+        if (valor.startsWith("W/")) {
+            valor = valor.substring(2);
+        }
+        if (valor.length() >= 2 && valor.startsWith("\"") && valor.endsWith("\"")) {
+            valor = valor.substring(1, valor.length() - 1);
+        }
+        return valor;
+    }
+}
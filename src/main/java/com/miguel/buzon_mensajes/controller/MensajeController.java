@@ -1,8 +1,17 @@
 package com.miguel.buzon_mensajes.controller;
 
+import com.miguel.buzon_mensajes.dto.EstadisticasDTO;
 import com.miguel.buzon_mensajes.dto.MensajeRequestDTO;
 import com.miguel.buzon_mensajes.dto.MensajeResponseDTO;
+import com.miguel.buzon_mensajes.dto.MensajeVersionadoDTO;
+import com.miguel.buzon_mensajes.dto.ResultadoImportacionDTO;
 import com.miguel.buzon_mensajes.service.MensajeService;
+import com.miguel.buzon_mensajes.service.VersionBuzon;
+import com.miguel.buzon_mensajes.service.importacion.ImportadorMensajes;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,13 +21,24 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
-import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.web.PagedModel;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Controlador REST para gestionar mensajes de contacto.
@@ -28,7 +48,6 @@ import java.util.List;
  */
 @RestController
 @RequestMapping("/api/mensajes")
-@RequiredArgsConstructor
 @Tag(
         name = "Mensajes",
         description = "API para gestionar mensajes de contacto. " +
@@ -37,6 +56,24 @@ import java.util.List;
 public class MensajeController {
 
     private final MensajeService mensajeService;
+    private final ObjectMapper objectMapper;
+    private final VersionBuzon versionBuzon;
+    private final ImportadorMensajes importadorMensajes;
+
+    /**
+     * Writer de la exportación, creado una sola vez: ObjectMapper.writerFor
+     * resuelve el serializador en cada llamada y la exportación se repite.
+     */
+    private final ObjectWriter escritorMensajes;
+
+    public MensajeController(MensajeService mensajeService, ObjectMapper objectMapper, VersionBuzon versionBuzon,
+                             ImportadorMensajes importadorMensajes) {
+        this.mensajeService = mensajeService;
+        this.objectMapper = objectMapper;
+        this.versionBuzon = versionBuzon;
+        this.importadorMensajes = importadorMensajes;
+        this.escritorMensajes = objectMapper.writerFor(MensajeResponseDTO.class);
+    }
 
     /**
      * Crear un nuevo mensaje.
@@ -203,6 +240,8 @@ public class MensajeController {
             description = """
             Busca y retorna un mensaje específico por su ID.
             
+            El ETag de la respuesta sirve para If-None-Match (304 si el buzón
+            no ha cambiado) y para If-Match en PATCH /leido y DELETE.
             Si el mensaje no existe, retorna error 404 (Not Found).
             """
     )
@@ -241,9 +280,25 @@ public class MensajeController {
                     required = true,
                     example = "1"
             )
-            @PathVariable Long id
+            @PathVariable Long id,
+            WebRequest request
     ) {
-        return ResponseEntity.ok(mensajeService.obtenerPorId(id));
+        // Como en condicional(): la versión del buzón se lee antes de consultar
+        long buzon = versionBuzon.actual();
+        String vigente = versionBuzon.isCondicional()
+                ? EtagMensaje.vigente(request.getHeader(HttpHeaders.IF_NONE_MATCH), buzon)
+                : null;
+        if (vigente != null) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(vigente)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        MensajeVersionadoDTO mensaje = mensajeService.obtenerVersionado(id);
+        return ResponseEntity.ok()
+                .eTag(EtagMensaje.de(buzon, mensaje.version()))
+                .cacheControl(CacheControl.noCache())
+                .body(mensaje.mensaje());
     }
 
     /**
@@ -286,7 +341,8 @@ public class MensajeController {
     @Operation(
             summary = "Obtener mensajes por email",
             description = """
-            Busca todos los mensajes enviados desde un email específico.
+            Busca todos los mensajes enviados desde un email específico,
+            sin distinguir mayúsculas (Ana@Example.com = ana@example.com).
             
             Útil para ver el historial de mensajes de un contacto.
             """
@@ -316,8 +372,10 @@ public class MensajeController {
      * Endpoint: PATCH /api/mensajes/{id}/leido
      *
      * @param id ID del mensaje a marcar
+     * @param ifMatch ETag de GET /api/mensajes/{id} (opcional)
      * @return Mensaje actualizado con leido = true
      * @throws "MensajeNotFoundException si el ID no existe (status 404)
+     * @throws "VersionNoCoincideException si el mensaje cambió desde ese ETag (status 412)
      */
     @PatchMapping("/{id}/leido")
     @Operation(
@@ -325,8 +383,12 @@ public class MensajeController {
             description = """
             Actualiza el estado del mensaje a 'leído'.
             
-            Cambia el campo 'leido' de false a true.
-            Si el mensaje no existe, retorna error 404.
+            Cambia el campo 'leido' de false a true. Repetirlo sobre un mensaje
+            ya leído no cambia nada y retorna 200.
+            
+            Con If-Match (el ETag de GET /api/mensajes/{id}) solo se marca si el
+            mensaje no ha cambiado desde entonces; si ha cambiado y sigue sin
+            leer, retorna 412. Si el mensaje no existe, retorna error 404.
             """
     )
     @ApiResponses(value = {
@@ -342,6 +404,11 @@ public class MensajeController {
                     responseCode = "404",
                     description = "Mensaje no encontrado",
                     content = @Content(mediaType = "application/json")
+            ),
+            @ApiResponse(
+                    responseCode = "412",
+                    description = "El mensaje ha cambiado desde el ETag de If-Match",
+                    content = @Content(mediaType = "application/json")
             )
     })
     public ResponseEntity<MensajeResponseDTO> marcarComoLeido(
@@ -350,9 +417,15 @@ public class MensajeController {
                     required = true,
                     example = "1"
             )
-            @PathVariable Long id
+            @PathVariable Long id,
+            @Parameter(description = "ETag del mensaje; sin él se marca sin comprobar la versión")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) {
-        return ResponseEntity.ok(mensajeService.marcarComoLeido(id));
+        MensajeVersionadoDTO mensaje = mensajeService.marcarComoLeido(id, EtagMensaje.versionEsperada(ifMatch));
+        // La transacción ya se ha confirmado: la versión del buzón incluye este cambio
+        return ResponseEntity.ok()
+                .eTag(EtagMensaje.de(versionBuzon.actual(), mensaje.version()))
+                .body(mensaje.mensaje());
     }
 
     /**
@@ -361,16 +434,22 @@ public class MensajeController {
      * Endpoint: DELETE /api/mensajes/{id}
      *
      * @param id ID del mensaje a eliminar
+     * @param ifMatch ETag de GET /api/mensajes/{id} (opcional)
      * @return Status 204 (No Content) si se eliminó exitosamente
      * @throws "MensajeNotFoundException si el ID no existe (status 404)
+     * @throws "VersionNoCoincideException si el mensaje cambió desde ese ETag (status 412)
      */
     @DeleteMapping("/{id}")
     @Operation(
             summary = "Eliminar un mensaje",
             description = """
-            Elimina permanentemente un mensaje del sistema.
+            Elimina un mensaje del sistema: deja de aparecer en todas las consultas.
+            
+            Durante buzon.purga.dias-retencion (7 días por defecto) se puede
+            deshacer con PATCH /api/mensajes/{id}/restaurar; después se borra.
             
-            Esta operación no se puede deshacer.
+            Con If-Match (el ETag de GET /api/mensajes/{id}) solo se elimina si
+            el mensaje no ha cambiado desde entonces; si no, retorna 412.
             Si el mensaje no existe, retorna error 404.
             """
     )
@@ -383,6 +462,11 @@ public class MensajeController {
                     responseCode = "404",
                     description = "Mensaje no encontrado",
                     content = @Content(mediaType = "application/json")
+            ),
+            @ApiResponse(
+                    responseCode = "412",
+                    description = "El mensaje ha cambiado desde el ETag de If-Match",
+                    content = @Content(mediaType = "application/json")
             )
     })
     public ResponseEntity<Void> eliminar(
@@ -391,12 +475,58 @@ public class MensajeController {
                     required = true,
                     example = "1"
             )
-            @PathVariable Long id
+            @PathVariable Long id,
+            @Parameter(description = "ETag del mensaje; sin él se elimina sin comprobar la versión")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) {
-        mensajeService.eliminar(id);
+        mensajeService.eliminar(id, EtagMensaje.versionEsperada(ifMatch));
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Restaurar un mensaje eliminado.
+     *
+     * Endpoint: PATCH /api/mensajes/{id}/restaurar
+     *
+     * @param id ID del mensaje eliminado
+     * @return Mensaje restaurado
+     * @throws "MensajeNotFoundException si no está eliminado o ya se purgó (status 404)
+     */
+    @PatchMapping("/{id}/restaurar")
+    @Operation(
+            summary = "Restaurar un mensaje eliminado",
+            description = """
+            Deshace la eliminación de un mensaje mientras no se haya purgado.
+            
+            Si el mensaje no está eliminado o ya se borró definitivamente, retorna error 404.
+            """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Mensaje restaurado",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = MensajeResponseDTO.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "No hay un mensaje eliminado con ese ID",
+                    content = @Content(mediaType = "application/json")
+            )
+    })
+    public ResponseEntity<MensajeResponseDTO> restaurar(
+            @Parameter(
+                    description = "ID del mensaje eliminado",
+                    required = true,
+                    example = "1"
+            )
+            @PathVariable Long id
+    ) {
+        return ResponseEntity.ok(mensajeService.restaurar(id));
+    }
+
     /**
      * Contar mensajes no leídos.
      *
@@ -424,8 +554,47 @@ public class MensajeController {
                     )
             )
     )
-    public ResponseEntity<Long> contarNoLeidos() {
-        return ResponseEntity.ok(mensajeService.contarNoLeidos());
+    public ResponseEntity<Long> contarNoLeidos(WebRequest request) {
+        return condicional(request, mensajeService::contarNoLeidos);
+    }
+
+    /**
+     * Contadores del panel de administración.
+     *
+     * Endpoint: GET /api/mensajes/estadisticas
+     *
+     * @return Total, no leídos y leídos (una sola consulta)
+     */
+    @GetMapping("/estadisticas")
+    @Operation(
+            summary = "Estadísticas del buzón",
+            description = """
+            Retorna el total de mensajes y cuántos están leídos y sin leer.
+
+            Se calcula en la base de datos con una sola consulta; es lo que usa el panel
+            de administración para refrescar los contadores.
+            """
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Contadores del buzón",
+            content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = EstadisticasDTO.class),
+                    examples = @ExampleObject(
+                            name = "Ejemplo de respuesta",
+                            value = """
+                        {
+                          "total": 50,
+                          "noLeidos": 5,
+                          "leidos": 45
+                        }
+                        """
+                    )
+            )
+    )
+    public ResponseEntity<EstadisticasDTO> obtenerEstadisticas(WebRequest request) {
+        return condicional(request, mensajeService::obtenerEstadisticas);
     }
 
     // Agregar estos nuevos endpoints AL FINAL de tu MensajeController.java
@@ -459,12 +628,10 @@ public class MensajeController {
             
             La respuesta incluye:
             - content: Array con los mensajes de la página actual
-            - totalElements: Total de mensajes en la BD
-            - totalPages: Total de páginas disponibles
-            - number: Página actual
-            - size: Tamaño de página
-            - first: Si es la primera página
-            - last: Si es la última página
+            - page.size: Tamaño de página
+            - page.number: Página actual
+            - page.totalElements: Total de mensajes en la BD
+            - page.totalPages: Total de páginas disponibles
             """
     )
     @ApiResponse(
@@ -483,34 +650,33 @@ public class MensajeController {
                           "email": "miguel@example.com",
                           "contenido": "Mensaje de ejemplo",
                           "fechaCreacion": "2025-10-21T01:00:00",
-                          "leido": false
+                          "leido": false,
+                          "buzon": "principal"
                         }
                       ],
-                      "totalElements": 50,
-                      "totalPages": 5,
-                      "number": 0,
-                      "size": 10,
-                      "first": true,
-                      "last": false
+                      "page": {
+                        "size": 10,
+                        "number": 0,
+                        "totalElements": 50,
+                        "totalPages": 5
+                      }
                     }
                     """
                     )
             )
     )
-    public ResponseEntity<Page<MensajeResponseDTO>> obtenerTodosPaginado(
+    public ResponseEntity<PagedModel<MensajeResponseDTO>> obtenerTodosPaginado(
             @Parameter(description = "Número de página (0-indexed)", example = "0")
             @RequestParam(defaultValue = "0") int page,
 
             @Parameter(description = "Tamaño de página", example = "10")
-            @RequestParam(defaultValue = "10") int size
-    ) {
-        // Validación del tamaño máximo
-        if (size > 100) {
-            size = 100; // Limitar a máximo 100 elementos por página
-        }
+            @RequestParam(defaultValue = "10") int size,
 
-        Page<MensajeResponseDTO> mensajes = mensajeService.obtenerTodosPaginado(page, size);
-        return ResponseEntity.ok(mensajes);
+            WebRequest request
+    ) {
+        // Validación del tamaño máximo (100 elementos por página)
+        int tamano = Math.min(size, 100);
+        return condicional(request, () -> new PagedModel<>(mensajeService.obtenerTodosPaginado(page, tamano)));
     }
 
     /**
@@ -527,7 +693,7 @@ public class MensajeController {
             Útil para mostrar solo mensajes pendientes o ya procesados.
             """
     )
-    public ResponseEntity<Page<MensajeResponseDTO>> obtenerFiltradosPaginado(
+    public ResponseEntity<PagedModel<MensajeResponseDTO>> obtenerFiltradosPaginado(
             @Parameter(description = "Filtrar por estado de lectura", example = "false")
             @RequestParam Boolean leido,
 
@@ -535,12 +701,12 @@ public class MensajeController {
             @RequestParam(defaultValue = "0") int page,
 
             @Parameter(description = "Tamaño de página", example = "10")
-            @RequestParam(defaultValue = "10") int size
-    ) {
-        if (size > 100) size = 100;
+            @RequestParam(defaultValue = "10") int size,
 
-        Page<MensajeResponseDTO> mensajes = mensajeService.obtenerNoLeidosPaginado(page, size, leido);
-        return ResponseEntity.ok(mensajes);
+            WebRequest request
+    ) {
+        int tamano = Math.min(size, 100);
+        return condicional(request, () -> new PagedModel<>(mensajeService.obtenerNoLeidosPaginado(page, tamano, leido)));
     }
 
     /**
@@ -551,9 +717,10 @@ public class MensajeController {
     @GetMapping("/paginado/email/{email}")
     @Operation(
             summary = "Buscar mensajes por email con paginación",
-            description = "Obtiene todos los mensajes de un email específico con soporte de paginación."
+            description = "Obtiene todos los mensajes de un email específico (sin distinguir mayúsculas) "
+                    + "con soporte de paginación."
     )
-    public ResponseEntity<Page<MensajeResponseDTO>> obtenerPorEmailPaginado(
+    public ResponseEntity<PagedModel<MensajeResponseDTO>> obtenerPorEmailPaginado(
             @Parameter(description = "Email del remitente", example = "miguel@example.com")
             @PathVariable String email,
 
@@ -561,12 +728,12 @@ public class MensajeController {
             @RequestParam(defaultValue = "0") int page,
 
             @Parameter(description = "Tamaño de página", example = "10")
-            @RequestParam(defaultValue = "10") int size
-    ) {
-        if (size > 100) size = 100;
+            @RequestParam(defaultValue = "10") int size,
 
-        Page<MensajeResponseDTO> mensajes = mensajeService.obtenerPorEmailPaginado(email, page, size);
-        return ResponseEntity.ok(mensajes);
+            WebRequest request
+    ) {
+        int tamano = Math.min(size, 100);
+        return condicional(request, () -> new PagedModel<>(mensajeService.obtenerPorEmailPaginado(email, page, tamano)));
     }
 
     /**
@@ -583,7 +750,7 @@ public class MensajeController {
             La búsqueda es case-sensitive.
             """
     )
-    public ResponseEntity<Page<MensajeResponseDTO>> buscarPorContenidoPaginado(
+    public ResponseEntity<PagedModel<MensajeResponseDTO>> buscarPorContenidoPaginado(
             @Parameter(description = "Palabra a buscar en el contenido", example = "proyecto")
             @RequestParam("q") String palabra,
 
@@ -591,13 +758,175 @@ public class MensajeController {
             @RequestParam(defaultValue = "0") int page,
 
             @Parameter(description = "Tamaño de página", example = "10")
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+
+            WebRequest request
     ) {
-        if (size > 100) size = 100;
+        int tamano = Math.min(size, 100);
+        return condicional(request, () -> new PagedModel<>(mensajeService.buscarPorContenido(palabra, page, tamano)));
+    }
+
+    /**
+     * Buscar mensajes casi idénticos a uno dado.
+     *
+     * Endpoint: GET /api/mensajes/{id}/similares?distancia=3
+     */
+    @GetMapping("/{id}/similares")
+    @Operation(
+            summary = "Buscar mensajes casi duplicados",
+            description = """
+            Retorna los mensajes cuyo contenido es casi idéntico al del mensaje indicado,
+            comparando huellas SimHash de 64 bits.
+
+            La distancia es el número de bits distintos entre huellas (0 = idénticos).
+            El máximo admitido es 3; valores mayores se limitan a 3.
+            Devuelve como mucho los 500 similares más recientes.
+            Útil para detectar campañas o envíos masivos con pequeñas variaciones.
+            """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Lista de mensajes similares",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = MensajeResponseDTO.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Mensaje no encontrado",
+                    content = @Content(mediaType = "application/json")
+            )
+    })
+    public ResponseEntity<List<MensajeResponseDTO>> buscarSimilares(
+            @Parameter(description = "ID del mensaje de referencia", required = true, example = "1")
+            @PathVariable Long id,
 
-        Page<MensajeResponseDTO> mensajes = mensajeService.buscarPorContenido(palabra, page, size);
-        return ResponseEntity.ok(mensajes);
+            @Parameter(description = "Distancia de Hamming máxima (0-3)", example = "3")
+            @RequestParam(defaultValue = "3") int distancia
+    ) {
+        return ResponseEntity.ok(mensajeService.buscarSimilares(id, distancia));
     }
 
+    /**
+     * Exportar todos los mensajes, incluidos los archivados, en formato NDJSON.
+     *
+     * Endpoint: GET /api/mensajes/exportar?desde=2025-01-01T00:00:00
+     *
+     * La respuesta se escribe mientras se leen los mensajes (un objeto JSON por línea),
+     * así que el tamaño del buzón no afecta a la memoria del servidor.
+     */
+    @GetMapping(value = "/exportar", produces = "application/x-ndjson")
+    @Operation(
+            summary = "Exportar mensajes (NDJSON)",
+            description = """
+            Descarga todos los mensajes, tanto los de la tabla como los del archivo en frío,
+            con un objeto JSON por línea.
+
+            Parámetro opcional:
+            - desde: solo mensajes creados desde esta fecha (ISO-8601)
+            """
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Mensajes exportados, uno por línea",
+            content = @Content(mediaType = "application/x-ndjson")
+    )
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @Parameter(description = "Fecha mínima de creación (ISO-8601)", example = "2025-01-01T00:00:00")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime desde
+    ) {
+        StreamingResponseBody cuerpo = salida -> {
+            try (JsonGenerator generador = objectMapper.getFactory().createGenerator(salida)) {
+                // Un objeto por línea en lugar de un único array JSON
+                generador.setRootValueSeparator(new SerializedString("\n"));
+                mensajeService.exportar(desde, mensaje -> {
+                    try {
+                        escritorMensajes.writeValue(generador, mensaje);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generador.writeRaw('\n');
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header("Content-Disposition", "attachment; filename=\"mensajes.ndjson\"")
+                .body(cuerpo);
+    }
 
-}
\ No newline at end of file
+    /**
+     * Importar mensajes en bloque desde NDJSON o CSV (solo administrador).
+     *
+     * Endpoint: POST /api/mensajes/importar?clave=migracion-2025
+     *
+     * El cuerpo se procesa mientras llega y se guarda por lotes; si la petición
+     * se corta, repetirla con la misma clave continúa donde se quedó.
+     */
+    @PostMapping(value = "/importar", consumes = {"application/x-ndjson", "text/csv"})
+    @Operation(
+            summary = "Importar mensajes (NDJSON o CSV)",
+            description = """
+            Carga muchos mensajes de una vez. El formato se indica con Content-Type:
+            - application/x-ndjson: un objeto JSON por línea (el de /exportar sirve tal cual)
+            - text/csv: con cabecera nombre,email,contenido y opcionalmente buzon,fechaCreacion,leido
+
+            Cada fila se valida como en POST /api/mensajes; las inválidas se
+            cuentan en la respuesta y no detienen la importación. Repetir la
+            petición con la misma clave salta las filas ya importadas.
+            """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Importación terminada"),
+            @ApiResponse(responseCode = "400", description = "Fichero o clave no válidos",
+                    content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "409", description = "Otra importación con la misma clave está en curso",
+                    content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<ResultadoImportacionDTO> importar(
+            @Parameter(description = "Identificador de la importación, para reanudarla", required = true,
+                    example = "migracion-2025")
+            @RequestParam String clave,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType tipo,
+            InputStream cuerpo
+    ) {
+        ImportadorMensajes.Formato formato = tipo.isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? ImportadorMensajes.Formato.CSV
+                : ImportadorMensajes.Formato.NDJSON;
+        return ResponseEntity.ok(importadorMensajes.importar(clave, formato, cuerpo));
+    }
+
+    /**
+     * Respuesta condicional con la versión del buzón como ETag.
+     *
+     * Si el cliente envía If-None-Match con la versión actual se responde
+     * 304 sin ejecutar la consulta. Cache-Control: no-cache obliga a
+     * revalidar siempre (nunca se sirve una copia sin preguntar).
+     *
+     * Si la versión no es fiable (varias instancias o réplicas, ver
+     * {@link VersionBuzon#isCondicional()}) no se envía ETag y siempre se consulta.
+     */
+    private <T> ResponseEntity<T> condicional(WebRequest request, Supplier<T> consulta) {
+        if (!versionBuzon.isCondicional()) {
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .body(consulta.get());
+        }
+        String etag = versionBuzon.etag();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(consulta.get());
+    }
+}
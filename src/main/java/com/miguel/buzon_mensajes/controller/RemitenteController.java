@@ -0,0 +1,55 @@
+package com.miguel.buzon_mensajes.controller;
+
+import com.miguel.buzon_mensajes.dto.PaginaRemitentesDTO;
+import com.miguel.buzon_mensajes.service.remitente.DirectorioRemitentes;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Directorio de remitentes con sus contadores.
+ *
+ * Lee la tabla remitente (una fila por email), no la tabla mensaje: listar
+ * los remitentes no depende de cuántos mensajes haya. Para ver los mensajes
+ * de uno, GET /api/mensajes/email/{email}.
+ */
+@RestController
+@RequestMapping("/api/mensajes/remitentes")
+@RequiredArgsConstructor
+@Tag(name = "Remitentes", description = "Directorio de remitentes con primer y último mensaje, total y no leídos")
+public class RemitenteController {
+
+    private static final int LIMITE_MAXIMO = 500;
+
+    private final DirectorioRemitentes directorioRemitentes;
+
+    /**
+     * Endpoint: GET /api/mensajes/remitentes?limite=50
+     *           GET /api/mensajes/remitentes?despues=ana@example.com&limite=50
+     *           GET /api/mensajes/remitentes?prefijo=ana
+     */
+    @GetMapping
+    @Operation(summary = "Listar remitentes",
+            description = """
+            Remitentes ordenados por email (normalizado: sin espacios y en minúsculas).
+            Para la página siguiente se pasa como "despues" el valor de "siguiente" de la
+            respuesta; cuando es null no hay más.
+            """)
+    public ResponseEntity<PaginaRemitentesDTO> listar(
+            @Parameter(description = "Último email de la página anterior")
+            @RequestParam(required = false) String despues,
+            @Parameter(description = "Solo los emails que empiezan por este texto")
+            @RequestParam(required = false) String prefijo,
+            @Parameter(description = "Remitentes por página (máximo 500)")
+            @RequestParam(defaultValue = "50") int limite
+    ) {
+        int acotado = Math.clamp(limite, 1, LIMITE_MAXIMO);
+        return ResponseEntity.ok(directorioRemitentes.listar(despues, prefijo, acotado));
+    }
+}
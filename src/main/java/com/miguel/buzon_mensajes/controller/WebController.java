@@ -1,14 +1,28 @@
 package com.miguel.buzon_mensajes.controller;
 
+import com.miguel.buzon_mensajes.service.MensajeService;
+import com.miguel.buzon_mensajes.service.VersionBuzon;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.web.PagedModel;
 import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 
 /**
  * Controlador para las vistas web (Thymeleaf).
  */
 @Controller
+@RequiredArgsConstructor
 public class WebController {
 
+    /**
+     * Mensajes de la primera página del panel (el mismo tamaño que usa app-admin.js).
+     */
+    static final int TAMANO_PAGINA_ADMIN = 10;
+
+    private final MensajeService mensajeService;
+    private final VersionBuzon versionBuzon;
+
     /**
      * Página principal: formulario de contacto PÚBLICO.
      *
@@ -23,11 +37,20 @@ public class WebController {
      * Panel de administración PRIVADO.
      *
      * Solo accesible con autenticación.
-     * Muestra todos los mensajes con paginación.
+     * La primera página de mensajes y los contadores se pintan en el servidor,
+     * así el panel muestra contenido con una sola petición. Los mismos datos
+     * van también como JSON en la página para que app-admin.js siga desde ahí
+     * (paginación, filtros) sin volver a pedirlos.
+     *
+     * El ETag se lee ANTES de las consultas: si entre medias llega una
+     * escritura, el navegador tendrá un ETag viejo y volverá a descargar.
      */
     @GetMapping("/admin/mensajes")
-    public String adminMensajes() {
-        return "admin"; // templates/admin.html (LO CREAREMOS)
+    public String adminMensajes(Model model) {
+        model.addAttribute("etag", versionBuzon.etag());
+        model.addAttribute("pagina", new PagedModel<>(mensajeService.obtenerTodosPaginado(0, TAMANO_PAGINA_ADMIN)));
+        model.addAttribute("estadisticas", mensajeService.obtenerEstadisticas());
+        return "admin"; // templates/admin.html
     }
 
     /**
@@ -0,0 +1,31 @@
+package com.miguel.buzon_mensajes.datasource;
+
+/**
+ * Marca la petición actual como "debe leer del primario".
+ *
+ * Tras marcar un mensaje como leído o eliminarlo, la réplica puede tardar
+ * unos instantes en recibir el cambio. Durante ese tiempo las lecturas del
+ * mismo admin se fuerzan al primario ("read-your-writes"); el resto de
+ * usuarios sigue leyendo de las réplicas.
+ *
+ * La activa y limpia {@code LecturaPropiaInterceptor} en cada petición.
+ */
+public final class LecturaPropia {
+
+    private static final ThreadLocal<Boolean> FORZADA = new ThreadLocal<>();
+
+    private LecturaPropia() {
+    }
+
+    public static void forzarPrimario() {
+        FORZADA.set(Boolean.TRUE);
+    }
+
+    public static boolean primarioForzado() {
+        return Boolean.TRUE.equals(FORZADA.get());
+    }
+
+    public static void limpiar() {
+        FORZADA.remove();
+    }
+}
@@ -0,0 +1,75 @@
+package com.miguel.buzon_mensajes.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * DataSource de las transacciones de solo lectura.
+ *
+ * Se registra como "readOnlyDataSource" de un LazyConnectionDataSourceProxy,
+ * así que solo recibe peticiones de conexión de transacciones readOnly.
+ * Decide entre:
+ * - Una réplica disponible, por turnos (round-robin).
+ * - El primario, si ninguna réplica está disponible (caída o con demasiado
+ *   retraso) o si la petición exige leer sus propias escrituras ({@link LecturaPropia}).
+ *
+ * Las réplicas empiezan como no disponibles hasta la primera comprobación
+ * de retraso, para no servir datos de una réplica desconectada al arrancar.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARIO = "primario";
+
+    private final int numeroReplicas;
+    private final AtomicIntegerArray disponibles;
+    private final AtomicInteger turno = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primario, List<? extends DataSource> replicas) {
+        this.numeroReplicas = replicas.size();
+        this.disponibles = new AtomicIntegerArray(numeroReplicas);
+
+        Map<Object, Object> destinos = new HashMap<>();
+        destinos.put(PRIMARIO, primario);
+        for (int i = 0; i < numeroReplicas; i++) {
+            destinos.put(i, replicas.get(i));
+        }
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primario);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Actualiza el estado de una réplica tras comprobar su retraso.
+     */
+    public void marcarDisponible(int replica, boolean disponible) {
+        disponibles.set(replica, disponible ? 1 : 0);
+    }
+
+    public boolean estaDisponible(int replica) {
+        return disponibles.get(replica) == 1;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (LecturaPropia.primarioForzado()) {
+            return PRIMARIO;
+        }
+
+        // Se prueba como mucho una vuelta completa empezando por el siguiente turno
+        int inicio = Math.floorMod(turno.getAndIncrement(), Math.max(numeroReplicas, 1));
+        for (int i = 0; i < numeroReplicas; i++) {
+            int replica = (inicio + i) % numeroReplicas;
+            if (estaDisponible(replica)) {
+                return replica;
+            }
+        }
+        return PRIMARIO;
+    }
+}
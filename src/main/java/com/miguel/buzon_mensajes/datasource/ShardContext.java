@@ -0,0 +1,57 @@
+package com.miguel.buzon_mensajes.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Shard activo en el hilo actual.
+ *
+ * {@link ShardRoutingDataSource} lo consulta al pedir una conexión, así que
+ * debe fijarse ANTES de abrir la transacción: una vez que la transacción
+ * tiene su conexión, cambiar de shard ya no tiene efecto.
+ *
+ * Ejemplo de uso:
+ * <pre>
+ * MensajeResponseDTO dto = ShardContext.ejecutarEn(1, () -> mensajeService.obtenerPorId(id));
+ * </pre>
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> ACTUAL = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * Shard fijado en el hilo, o null si no hay ninguno (se usa el de por defecto).
+     */
+    public static Integer actual() {
+        return ACTUAL.get();
+    }
+
+    /**
+     * Ejecuta una acción con el shard indicado y restaura el anterior al terminar.
+     */
+    public static <T> T ejecutarEn(int shard, Supplier<T> accion) {
+        Integer anterior = ACTUAL.get();
+        ACTUAL.set(shard);
+        try {
+            return accion.get();
+        } finally {
+            if (anterior == null) {
+                ACTUAL.remove();
+            } else {
+                ACTUAL.set(anterior);
+            }
+        }
+    }
+
+    /**
+     * Variante sin valor de retorno.
+     */
+    public static void ejecutarEn(int shard, Runnable accion) {
+        ejecutarEn(shard, () -> {
+            accion.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,53 @@
+package com.miguel.buzon_mensajes.datasource;
+
+/**
+ * Decide en qué shard vive cada mensaje.
+ *
+ * - Un mensaje nuevo va al shard de su buzón (hash del nombre del buzón).
+ * - Los ids son "conscientes del shard": cada shard genera ids en su propio rango
+ *   [shard * 2^40 + 1, (shard + 1) * 2^40], así que el shard se deduce del id
+ *   sin consultar ninguna tabla de enrutado.
+ */
+public class ShardRouter {
+
+    /**
+     * Bits del id reservados para la secuencia local de cada shard (~1 billón de ids).
+     */
+    public static final int BITS_ID_LOCAL = 40;
+
+    private final int numeroShards;
+
+    public ShardRouter(int numeroShards) {
+        if (numeroShards < 1) {
+            throw new IllegalArgumentException("Se necesita al menos un shard");
+        }
+        this.numeroShards = numeroShards;
+    }
+
+    public int getNumeroShards() {
+        return numeroShards;
+    }
+
+    /**
+     * Shard donde se guardan los mensajes de un buzón.
+     */
+    public int shardDeBuzon(String buzon) {
+        return Math.floorMod(buzon.hashCode(), numeroShards);
+    }
+
+    /**
+     * Shard al que pertenece un id generado por {@link #primerIdDe(int)}.
+     * Ids fuera de rango (datos anteriores al sharding) se atribuyen al shard 0.
+     */
+    public int shardDeId(long id) {
+        long shard = id >>> BITS_ID_LOCAL;
+        return shard < numeroShards ? (int) shard : 0;
+    }
+
+    /**
+     * Primer id del rango reservado a un shard.
+     */
+    public long primerIdDe(int shard) {
+        return ((long) shard << BITS_ID_LOCAL) + 1;
+    }
+}
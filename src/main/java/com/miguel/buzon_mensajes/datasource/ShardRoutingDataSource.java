@@ -0,0 +1,17 @@
+package com.miguel.buzon_mensajes.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * DataSource que entrega conexiones del shard fijado en {@link ShardContext}.
+ *
+ * Sin shard fijado se usa el de por defecto (shard 0), que es también
+ * donde Hibernate valida el esquema al arrancar.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.actual();
+    }
+}
@@ -0,0 +1,12 @@
+package com.miguel.buzon_mensajes.dto;
+
+import com.miguel.buzon_mensajes.model.ContenidoComprimido;
+
+import java.time.LocalDateTime;
+
+/**
+ * Un mensaje comprimido en la búsqueda por palabra: solo lo necesario para
+ * descomprimirlo y seguir el recorrido por (fechaCreacion, id).
+ */
+public record ContenidoComprimidoDTO(Long id, LocalDateTime fechaCreacion, ContenidoComprimido contenido) {
+}
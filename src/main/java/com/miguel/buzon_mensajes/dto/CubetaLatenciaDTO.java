@@ -0,0 +1,9 @@
+package com.miguel.buzon_mensajes.dto;
+
+/**
+ * Una barra del histograma de tiempo hasta la lectura: mensajes leídos
+ * en menos de "hastaSegundos" (y no menos que la barra anterior).
+ * hastaSegundos es null en la última barra (el resto).
+ */
+public record CubetaLatenciaDTO(int cubeta, Long hastaSegundos, long total) {
+}
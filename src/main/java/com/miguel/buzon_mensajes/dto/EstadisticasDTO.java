@@ -0,0 +1,29 @@
+package com.miguel.buzon_mensajes.dto;
+
+/**
+ * Contadores del panel de administración.
+ *
+ * Se calculan en una sola consulta (COUNT + SUM) en lugar de descargar
+ * todos los mensajes y contarlos en el navegador.
+ */
+public record EstadisticasDTO(long total, long noLeidos, long leidos) {
+
+    /**
+     * Constructor de la consulta JPQL ("SELECT new ...EstadisticasDTO(COUNT(m), SUM(...))").
+     * SUM devuelve null si la tabla está vacía.
+     */
+    public EstadisticasDTO(Long total, Long noLeidos) {
+        this(valor(total), valor(noLeidos), valor(total) - valor(noLeidos));
+    }
+
+    /**
+     * Suma de los contadores de varias fuentes (shards).
+     */
+    public EstadisticasDTO mas(EstadisticasDTO otras) {
+        return new EstadisticasDTO(total + otras.total, noLeidos + otras.noLeidos, leidos + otras.leidos);
+    }
+
+    private static long valor(Long numero) {
+        return numero == null ? 0 : numero;
+    }
+}
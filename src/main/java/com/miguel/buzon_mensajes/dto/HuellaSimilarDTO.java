@@ -0,0 +1,11 @@
+package com.miguel.buzon_mensajes.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Un candidato a mensaje similar: solo su huella y lo necesario para seguir
+ * el recorrido por (fechaCreacion, id). El mensaje completo solo se carga
+ * si la huella está dentro de la distancia pedida.
+ */
+public record HuellaSimilarDTO(Long id, LocalDateTime fechaCreacion, Long simhash) {
+}
@@ -0,0 +1,23 @@
+package com.miguel.buzon_mensajes.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.LocalDateTime;
+
+/**
+ * Un mensaje de una importación masiva (una línea NDJSON o una fila CSV).
+ *
+ * fechaCreacion y leido son opcionales: si faltan se usan la fecha de la
+ * importación y false. Los campos desconocidos (por ejemplo el id) se ignoran,
+ * así que el fichero de /api/mensajes/exportar se puede importar tal cual.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record MensajeImportacionDTO(
+        String nombre,
+        String email,
+        String contenido,
+        String buzon,
+        LocalDateTime fechaCreacion,
+        Boolean leido
+) {
+}
@@ -24,4 +24,10 @@ public class MensajeRequestDTO {
     @NotBlank(message = "El contenido es obligatorio")
     @Size(min = 10, max = 1000, message = "El contenido debe tener entre 10 y 1000 caracteres")
     private String contenido;
+
+    /**
+     * Buzón de destino (opcional). Si no se indica se usa el buzón principal.
+     */
+    @Size(max = 50, message = "El buzón no puede exceder 50 caracteres")
+    private String buzon;
 }
\ No newline at end of file
@@ -1,25 +1,36 @@
 package com.miguel.buzon_mensajes.dto;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.miguel.buzon_mensajes.model.ContenidoComprimido;
 
 import java.time.LocalDateTime;
 
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-public class MensajeResponseDTO {
-
-    private Long id;
-
-    private String nombre;
-
-    private String email;
-
-    private String contenido;
-
-    private LocalDateTime fechaCreacion;
-
-    private Boolean leido;
-}
\ No newline at end of file
+/**
+ * Mensaje tal como lo devuelve la API.
+ *
+ * Es un record inmutable: los listados lo crean directamente desde la consulta
+ * JPQL ("SELECT new ...MensajeResponseDTO(...)"), sin pasar por la entidad
+ * ni por setters, y Jackson lo escribe con {@link MensajeResponseDTOSerializer}.
+ */
+@JsonSerialize(using = MensajeResponseDTOSerializer.class)
+public record MensajeResponseDTO(
+        Long id,
+        String nombre,
+        String email,
+        String contenido,
+        LocalDateTime fechaCreacion,
+        Boolean leido,
+        String buzon
+) {
+
+    /**
+     * Con el contenido completo aunque esté comprimido (exportación): la
+     * consulta trae las dos columnas y solo se descomprime la que lo está.
+     */
+    public MensajeResponseDTO(Long id, String nombre, String email, String contenido,
+                              ContenidoComprimido comprimido, LocalDateTime fechaCreacion,
+                              Boolean leido, String buzon) {
+        this(id, nombre, email, comprimido != null ? comprimido.texto() : contenido,
+                fechaCreacion, leido, buzon);
+    }
+}
@@ -0,0 +1,83 @@
+package com.miguel.buzon_mensajes.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Serializador de {@link MensajeResponseDTO} escrito a mano.
+ *
+ * Es el objeto que más se serializa (cada fila de cada listado), así que se
+ * evita todo lo que asigna memoria por fila:
+ * - Nombres de campo pre-codificados (SerializedString guarda los bytes UTF-8
+ *   ya escapados; se escriben con una copia de bytes).
+ * - Sin reflexión ni introspección de propiedades.
+ * - La fecha se formatea directamente al texto final (mismo formato ISO que
+ *   el JavaTimeModule de Spring Boot: "2025-10-19T02:40:15").
+ *
+ * Si se añade un campo al record hay que añadirlo también aquí.
+ */
+public class MensajeResponseDTOSerializer extends StdSerializer<MensajeResponseDTO> {
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString NOMBRE = new SerializedString("nombre");
+    private static final SerializableString EMAIL = new SerializedString("email");
+    private static final SerializableString CONTENIDO = new SerializedString("contenido");
+    private static final SerializableString FECHA_CREACION = new SerializedString("fechaCreacion");
+    private static final SerializableString LEIDO = new SerializedString("leido");
+    private static final SerializableString BUZON = new SerializedString("buzon");
+
+    public MensajeResponseDTOSerializer() {
+        super(MensajeResponseDTO.class);
+    }
+
+    @Override
+    public void serialize(MensajeResponseDTO dto, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(dto);
+
+        gen.writeFieldName(ID);
+        if (dto.id() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(dto.id());
+        }
+
+        gen.writeFieldName(NOMBRE);
+        gen.writeString(dto.nombre());
+
+        gen.writeFieldName(EMAIL);
+        gen.writeString(dto.email());
+
+        gen.writeFieldName(CONTENIDO);
+        gen.writeString(dto.contenido());
+
+        gen.writeFieldName(FECHA_CREACION);
+        escribirFecha(gen, dto.fechaCreacion());
+
+        gen.writeFieldName(LEIDO);
+        if (dto.leido() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeBoolean(dto.leido());
+        }
+
+        gen.writeFieldName(BUZON);
+        gen.writeString(dto.buzon());
+
+        gen.writeEndObject();
+    }
+
+    private void escribirFecha(JsonGenerator gen, LocalDateTime fecha) throws IOException {
+        if (fecha == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(fecha));
+        }
+    }
+}
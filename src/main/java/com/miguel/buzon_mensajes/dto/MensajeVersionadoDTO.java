@@ -0,0 +1,10 @@
+package com.miguel.buzon_mensajes.dto;
+
+/**
+ * Un mensaje junto con su versión (columna version de Mensaje).
+ *
+ * El controlador la usa para el ETag del mensaje, que los clientes devuelven
+ * en If-Match al marcarlo o eliminarlo. No forma parte del JSON.
+ */
+public record MensajeVersionadoDTO(MensajeResponseDTO mensaje, long version) {
+}
@@ -0,0 +1,9 @@
+package com.miguel.buzon_mensajes.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Mensajes recibidos y leídos en un día.
+ */
+public record MensajesDiaDTO(LocalDate dia, long recibidos, long leidos) {
+}
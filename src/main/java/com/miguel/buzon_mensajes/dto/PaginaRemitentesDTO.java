@@ -0,0 +1,12 @@
+package com.miguel.buzon_mensajes.dto;
+
+import java.util.List;
+
+/**
+ * Una página del directorio de remitentes, ordenada por email.
+ *
+ * "siguiente" es el valor a pasar como "despues" para pedir la página
+ * siguiente; null si no hay más.
+ */
+public record PaginaRemitentesDTO(List<RemitenteDTO> remitentes, String siguiente) {
+}
@@ -0,0 +1,10 @@
+package com.miguel.buzon_mensajes.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Tiempo hasta la lectura de los mensajes leídos un día, en segundos.
+ * Los percentiles son null si ese día no se leyó ninguno.
+ */
+public record PercentilesLecturaDTO(LocalDate dia, long leidos, Long p50, Long p95, Long p99) {
+}
@@ -0,0 +1,17 @@
+package com.miguel.buzon_mensajes.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Mensajes de un remitente en un día dentro de un tramo de ids
+ * (reconstrucción de los rollups).
+ */
+public record RecuentoRemitenteDiaDTO(LocalDate dia, String email, long total) {
+
+    /**
+     * Constructor de la consulta JPQL (COUNT devuelve Long).
+     */
+    public RecuentoRemitenteDiaDTO(LocalDate dia, String email, Long total) {
+        this(dia, email, total == null ? 0 : total.longValue());
+    }
+}
@@ -0,0 +1,16 @@
+package com.miguel.buzon_mensajes.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Un remitente del directorio con sus contadores.
+ */
+public record RemitenteDTO(
+        String email,
+        String nombre,
+        LocalDateTime primerMensaje,
+        LocalDateTime ultimoMensaje,
+        long total,
+        long noLeidos
+) {
+}
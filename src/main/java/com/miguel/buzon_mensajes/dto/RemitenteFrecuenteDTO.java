@@ -0,0 +1,14 @@
+package com.miguel.buzon_mensajes.dto;
+
+/**
+ * Un remitente y cuántos mensajes envió en el intervalo consultado.
+ */
+public record RemitenteFrecuenteDTO(String email, long total) {
+
+    /**
+     * Constructor de la consulta JPQL (SUM devuelve Long).
+     */
+    public RemitenteFrecuenteDTO(String email, Long total) {
+        this(email, total == null ? 0 : total.longValue());
+    }
+}
@@ -0,0 +1,31 @@
+package com.miguel.buzon_mensajes.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de una importación masiva.
+ *
+ * yaImportados son las filas que una ejecución anterior con la misma clave
+ * ya había confirmado (se saltan al reanudar). De las filas rechazadas solo
+ * se detallan las primeras (buzon.importacion.maximo-errores), cada una con
+ * todos sus motivos.
+ */
+public record ResultadoImportacionDTO(
+        String clave,
+        long procesados,
+        long importados,
+        long yaImportados,
+        long invalidos,
+        List<Rechazo> errores
+) {
+
+    public record Rechazo(long linea, List<Motivo> motivos) {
+    }
+
+    /**
+     * Un problema de una fila: el campo (null si es la fila entera, por
+     * ejemplo JSON mal formado) y el mensaje de error.
+     */
+    public record Motivo(String campo, String mensaje) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.miguel.buzon_mensajes.dto;
+
+import com.miguel.buzon_mensajes.model.ResumenMensajes;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Resumen cerrado de un buzón, tal como se envía a los destinos de notificación.
+ *
+ * Los remitentes vienen del algoritmo Space-Saving: "cuenta" puede pasarse
+ * como mucho en "error" (la cuenta real está entre cuenta - error y cuenta).
+ */
+public record ResumenDTO(
+        ResumenMensajes.Periodo periodo,
+        LocalDateTime inicio,
+        LocalDateTime fin,
+        String buzon,
+        long total,
+        List<Remitente> remitentes,
+        List<VistaPrevia> vistasPrevias
+) {
+
+    public record Remitente(String email, long cuenta, long error) {
+    }
+
+    public record VistaPrevia(Long id, String nombre, String texto, LocalDateTime fechaCreacion) {
+    }
+}
@@ -1,5 +1,6 @@
 package com.miguel.buzon_mensajes.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -140,6 +141,110 @@ public class GlobalExceptionHandler {
                 .body(errorResponse);
     }
 
+    /**
+     * Maneja ServicioSaturadoException (rechazo para proteger el servidor).
+     *
+     * @param ex La excepción con el motivo y los segundos sugeridos de espera
+     * @param request La petición HTTP rechazada
+     * @return ResponseEntity con ErrorResponse, status 503 y cabecera Retry-After
+     */
+    @ExceptionHandler(ServicioSaturadoException.class)
+    public ResponseEntity<ErrorResponse> manejarServicioSaturado(
+            ServicioSaturadoException ex,
+            WebRequest request
+    ) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.SERVICE_UNAVAILABLE.value(),           // 503
+                HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase(), // "Service Unavailable"
+                ex.getMessage(),
+                request.getDescription(false).replace("uri=", "")
+        );
+
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getReintentarEnSegundos()))
+                .body(errorResponse);
+    }
+
+    /**
+     * Maneja ImportacionRechazadaException (fichero de importación que no se
+     * puede procesar).
+     *
+     * @param ex La excepción con el motivo
+     * @param request La petición HTTP que causó el error
+     * @return ResponseEntity con ErrorResponse y status 400 (Bad Request)
+     */
+    @ExceptionHandler(ImportacionRechazadaException.class)
+    public ResponseEntity<ErrorResponse> manejarImportacionRechazada(
+            ImportacionRechazadaException ex,
+            WebRequest request
+    ) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.value(),           // 400
+                HttpStatus.BAD_REQUEST.getReasonPhrase(), // "Bad Request"
+                ex.getMessage(),
+                request.getDescription(false).replace("uri=", "")
+        );
+
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(errorResponse);
+    }
+
+    /**
+     * Maneja ImportacionEnCursoException (otra importación con la misma clave
+     * avanzando a la vez).
+     *
+     * @param ex La excepción con la clave en conflicto
+     * @param request La petición HTTP que causó el error
+     * @return ResponseEntity con ErrorResponse y status 409 (Conflict)
+     */
+    @ExceptionHandler(ImportacionEnCursoException.class)
+    public ResponseEntity<ErrorResponse> manejarImportacionEnCurso(
+            ImportacionEnCursoException ex,
+            WebRequest request
+    ) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.CONFLICT.value(),           // 409
+                HttpStatus.CONFLICT.getReasonPhrase(), // "Conflict"
+                ex.getMessage(),
+                request.getDescription(false).replace("uri=", "")
+        );
+
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(errorResponse);
+    }
+
+    /**
+     * Maneja VersionNoCoincideException (If-Match con una versión que ya no
+     * es la del mensaje).
+     *
+     * @param ex La excepción con el ID del mensaje
+     * @param request La petición HTTP que causó el error
+     * @return ResponseEntity con ErrorResponse y status 412 (Precondition Failed)
+     */
+    @ExceptionHandler(VersionNoCoincideException.class)
+    public ResponseEntity<ErrorResponse> manejarVersionNoCoincide(
+            VersionNoCoincideException ex,
+            WebRequest request
+    ) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.PRECONDITION_FAILED.value(),           // 412
+                HttpStatus.PRECONDITION_FAILED.getReasonPhrase(), // "Precondition Failed"
+                ex.getMessage(),
+                request.getDescription(false).replace("uri=", "")
+        );
+
+        return ResponseEntity
+                .status(HttpStatus.PRECONDITION_FAILED)
+                .body(errorResponse);
+    }
+
     /**
      * Maneja CUALQUIER excepción no capturada por otros @ExceptionHandler.
      *
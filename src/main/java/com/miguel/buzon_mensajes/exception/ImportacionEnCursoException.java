@@ -0,0 +1,16 @@
+package com.miguel.buzon_mensajes.exception;
+
+/**
+ * Excepción que se lanza cuando otra importación con la misma clave ha
+ * confirmado filas mientras esta avanzaba (dos envíos simultáneos del mismo
+ * fichero).
+ *
+ * GlobalExceptionHandler la convierte en una respuesta 409 (Conflict). Lo ya
+ * confirmado se conserva: basta con reintentar cuando la otra termine.
+ */
+public class ImportacionEnCursoException extends RuntimeException {
+
+    public ImportacionEnCursoException(String clave) {
+        super("Hay otra importación en curso con la clave: " + clave);
+    }
+}
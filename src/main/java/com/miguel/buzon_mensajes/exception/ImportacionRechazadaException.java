@@ -0,0 +1,16 @@
+package com.miguel.buzon_mensajes.exception;
+
+/**
+ * Excepción que se lanza cuando un fichero de importación no se puede
+ * procesar en absoluto (formato no admitido, cabecera CSV sin las columnas
+ * obligatorias, clave vacía...).
+ *
+ * Las filas inválidas sueltas no la lanzan: se cuentan en el resultado.
+ * GlobalExceptionHandler la convierte en una respuesta 400 (Bad Request).
+ */
+public class ImportacionRechazadaException extends RuntimeException {
+
+    public ImportacionRechazadaException(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,33 @@
+package com.miguel.buzon_mensajes.exception;
+
+/**
+ * Excepción que se lanza cuando el servidor rechaza una petición no esencial
+ * para protegerse (por ejemplo, por presión de memoria).
+ *
+ * GlobalExceptionHandler la convierte en una respuesta 503 (Service Unavailable)
+ * con la cabecera Retry-After, para que el cliente reintente más tarde.
+ *
+ * Ejemplo de uso:
+ * <pre>
+ * if (monitorMemoria.bajoPresion()) {
+ *     throw new ServicioSaturadoException("Servidor con poca memoria", 30);
+ * }
+ * </pre>
+ */
+public class ServicioSaturadoException extends RuntimeException {
+
+    private final int reintentarEnSegundos;
+
+    /**
+     * @param mensaje Motivo del rechazo
+     * @param reintentarEnSegundos Segundos sugeridos antes de reintentar (cabecera Retry-After)
+     */
+    public ServicioSaturadoException(String mensaje, int reintentarEnSegundos) {
+        super(mensaje);
+        this.reintentarEnSegundos = reintentarEnSegundos;
+    }
+
+    public int getReintentarEnSegundos() {
+        return reintentarEnSegundos;
+    }
+}
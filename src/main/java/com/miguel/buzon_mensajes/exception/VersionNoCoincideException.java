@@ -0,0 +1,16 @@
+package com.miguel.buzon_mensajes.exception;
+
+/**
+ * Excepción que se lanza cuando una petición con If-Match llega y el mensaje
+ * ya ha cambiado: otro administrador lo ha marcado o eliminado entre medias.
+ *
+ * GlobalExceptionHandler la convierte en una respuesta 412 (Precondition
+ * Failed). El cliente debe volver a leer el mensaje (GET, con su ETag nuevo)
+ * y decidir si repite la operación.
+ */
+public class VersionNoCoincideException extends RuntimeException {
+
+    public VersionNoCoincideException(Long id) {
+        super("El mensaje con ID " + id + " ha cambiado; vuelve a leerlo antes de modificarlo");
+    }
+}
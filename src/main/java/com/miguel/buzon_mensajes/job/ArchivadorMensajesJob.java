@@ -0,0 +1,127 @@
+package com.miguel.buzon_mensajes.job;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.model.Mensaje;
+import com.miguel.buzon_mensajes.repository.MensajeRepository;
+import com.miguel.buzon_mensajes.service.VersionBuzon;
+import com.miguel.buzon_mensajes.service.archivo.ArchivoMensajes;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Mueve los mensajes leídos y antiguos de la tabla mensaje al archivo en frío.
+ *
+ * Cada lote se procesa en su propia transacción:
+ * 1. Se leen hasta tamanoLote mensajes leídos más antiguos que diasAntiguedad.
+ * 2. Se escriben en un segmento nuevo (ficheros sincronizados en disco).
+ * 3. Se borran de la tabla.
+ * El segmento se escribe con nombre temporal y solo se renombra y se hace
+ * visible al confirmar la transacción; si falla, se descarta. Así un mensaje
+ * nunca está a la vez en la tabla y en el archivo para las lecturas.
+ *
+ * Si la aplicación cae entre el commit y el renombrado, al arrancar
+ * se revisan los segmentos temporales: si alguno de sus mensajes sigue
+ * en la tabla la transacción no confirmó y se descarta; si no, se publica.
+ *
+ * Solo se activa con buzon.archivo.habilitado=true.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "buzon.archivo", name = "habilitado", havingValue = "true")
+public class ArchivadorMensajesJob {
+
+    private final MensajeRepository mensajeRepository;
+    private final ArchivoMensajes archivo;
+    private final BuzonProperties propiedades;
+    private final TransactionTemplate transactionTemplate;
+    private final VersionBuzon versionBuzon;
+
+    /**
+     * Resuelve los segmentos temporales que dejó una caída.
+     */
+    @PostConstruct
+    void recuperarPendientes() {
+        for (ArchivoMensajes.Segmento pendiente : archivo.pendientes()) {
+            if (mensajeRepository.existsByIdIn(archivo.ids(pendiente))) {
+                log.warn("Descartando segmento sin confirmar {}", pendiente.datos());
+                archivo.descartar(pendiente);
+            } else {
+                publicar(pendiente);
+            }
+        }
+    }
+
+    /**
+     * Se ejecuta todos los días a las 03:30 (después del mantenimiento de particiones).
+     */
+    @Scheduled(cron = "${buzon.archivo.cron:0 30 3 * * *}")
+    public void archivar() {
+        LocalDateTime limite = LocalDateTime.now().minusDays(propiedades.getArchivo().getDiasAntiguedad());
+
+        int total = 0;
+        Integer movidos;
+        do {
+            movidos = transactionTemplate.execute(status -> archivarLote(limite));
+            total += movidos == null ? 0 : movidos;
+        } while (movidos != null && movidos > 0);
+
+        if (total > 0) {
+            log.info("Archivados {} mensajes leídos anteriores a {}", total, limite);
+        }
+    }
+
+    private int archivarLote(LocalDateTime limite) {
+        List<Mensaje> lote = mensajeRepository.findByLeidoTrueAndFechaCreacionBefore(
+                limite,
+                PageRequest.of(0, propiedades.getArchivo().getTamanoLote(), Sort.by("id"))
+        );
+        if (lote.isEmpty()) {
+            return 0;
+        }
+
+        ArchivoMensajes.Segmento segmento;
+        try {
+            segmento = archivo.escribirSegmento(lote);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir el segmento de archivo", e);
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    publicar(segmento);
+                } else {
+                    archivo.descartar(segmento);
+                }
+            }
+        });
+
+        mensajeRepository.deleteAllByIdInBatch(lote.stream().map(Mensaje::getId).toList());
+        versionBuzon.incrementar();
+        return lote.size();
+    }
+
+    private void publicar(ArchivoMensajes.Segmento segmento) {
+        try {
+            archivo.registrar(segmento);
+        } catch (IOException e) {
+            log.error("No se pudo publicar el segmento {}; se reintentará al arrancar", segmento.datos(), e);
+        }
+    }
+}
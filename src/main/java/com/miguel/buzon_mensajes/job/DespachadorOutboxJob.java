@@ -0,0 +1,260 @@
+package com.miguel.buzon_mensajes.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.datasource.ShardContext;
+import com.miguel.buzon_mensajes.datasource.ShardRouter;
+import com.miguel.buzon_mensajes.dto.MensajeResponseDTO;
+import com.miguel.buzon_mensajes.dto.ResumenDTO;
+import com.miguel.buzon_mensajes.model.EventoOutbox;
+import com.miguel.buzon_mensajes.repository.EventoOutboxRepository;
+import com.miguel.buzon_mensajes.service.notificacion.DestinoNotificacion;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Entrega los eventos de evento_outbox a sus destinos.
+ *
+ * Cada pasada, por lotes de tamanoLote:
+ * 1. Reclama los eventos pendientes cuyo turno ha llegado (transacción corta).
+ * 2. Los entrega en paralelo, como mucho "paralelismo" a la vez, sin
+ *    transacción ni conexión abiertas mientras espera a los destinos.
+ * 3. Anota el resultado (otra transacción corta): los entregados pasan a
+ *    ENVIADO; los fallidos se reprograman con espera exponencial
+ *    (esperaInicial, x2, x4... hasta esperaMaxima) o se descartan al
+ *    agotar maximoIntentos.
+ *
+ * Entrega "al menos una vez": si la instancia muere entre 2 y 3, los eventos
+ * siguen PENDIENTE y se reintentan al vencer el plazo de reclamo. Varias
+ * instancias pueden despachar a la vez; el reclamo evita que dos entreguen
+ * el mismo evento en la misma pasada.
+ *
+ * Con sharding cada shard tiene su propia tabla evento_outbox (el evento se
+ * escribe junto a su mensaje) y se recorren todos. Los eventos ENVIADO se
+ * borran tras diasRetencion.
+ *
+ * Solo se activa con buzon.notificaciones.habilitado=true.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "buzon.notificaciones", name = "habilitado", havingValue = "true")
+public class DespachadorOutboxJob {
+
+    /**
+     * Resultado de una entrega: error es null si fue bien.
+     */
+    private record Entrega(EventoOutbox evento, Exception error) {
+    }
+
+    private final EventoOutboxRepository eventoOutboxRepository;
+    private final Map<String, DestinoNotificacion> destinos;
+    private final BuzonProperties propiedades;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ShardRouter shardRouter;
+    private final Clock reloj;
+
+    /**
+     * Hilos virtuales (las entregas esperan a la red), pero un número fijo:
+     * el pool limita las entregas simultáneas a "paralelismo".
+     */
+    private final ExecutorService ejecutor;
+
+    @Autowired
+    public DespachadorOutboxJob(EventoOutboxRepository eventoOutboxRepository,
+                                List<DestinoNotificacion> destinos,
+                                BuzonProperties propiedades,
+                                TransactionTemplate transactionTemplate,
+                                ObjectMapper objectMapper,
+                                ObjectProvider<ShardRouter> shardRouter) {
+        this(eventoOutboxRepository, destinos, propiedades, transactionTemplate, objectMapper,
+                shardRouter.getIfAvailable(), Clock.systemDefaultZone());
+    }
+
+    DespachadorOutboxJob(EventoOutboxRepository eventoOutboxRepository,
+                         List<DestinoNotificacion> destinos,
+                         BuzonProperties propiedades,
+                         TransactionTemplate transactionTemplate,
+                         ObjectMapper objectMapper,
+                         ShardRouter shardRouter,
+                         Clock reloj) {
+        this.eventoOutboxRepository = eventoOutboxRepository;
+        this.destinos = destinos.stream()
+                .collect(Collectors.toMap(DestinoNotificacion::nombre, Function.identity()));
+        this.propiedades = propiedades;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.shardRouter = shardRouter;
+        this.reloj = reloj;
+        this.ejecutor = Executors.newFixedThreadPool(
+                Math.max(1, propiedades.getNotificaciones().getParalelismo()),
+                Thread.ofVirtual().name("notificacion-", 0).factory());
+    }
+
+    @PreDestroy
+    void cerrar() {
+        ejecutor.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${buzon.notificaciones.intervalo-ms:2000}")
+    public void despachar() {
+        enCadaShard(() -> {
+            int lote = propiedades.getNotificaciones().getTamanoLote();
+            int entregados;
+            do {
+                entregados = despacharLote();
+            } while (entregados == lote);
+        });
+    }
+
+    /**
+     * Borra los eventos ya entregados hace más de diasRetencion días.
+     */
+    @Scheduled(cron = "${buzon.notificaciones.cron-limpieza:0 15 4 * * *}")
+    public void limpiar() {
+        LocalDateTime limite = LocalDateTime.now(reloj).minusDays(propiedades.getNotificaciones().getDiasRetencion());
+        enCadaShard(() -> {
+            Integer borrados = transactionTemplate.execute(status ->
+                    eventoOutboxRepository.borrarEnviadosAntesDe(EventoOutbox.Estado.ENVIADO, limite));
+            if (borrados != null && borrados > 0) {
+                log.info("Borrados {} eventos de notificación entregados antes de {}", borrados, limite);
+            }
+        });
+    }
+
+    /**
+     * Reclama, entrega y anota un lote. Devuelve cuántos eventos se reclamaron.
+     */
+    int despacharLote() {
+        BuzonProperties.Notificaciones config = propiedades.getNotificaciones();
+        LocalDateTime ahora = LocalDateTime.now(reloj);
+        String reclamo = UUID.randomUUID().toString();
+
+        List<EventoOutbox> eventos = transactionTemplate.execute(status -> {
+            List<Long> ids = eventoOutboxRepository.buscarListos(
+                    EventoOutbox.Estado.PENDIENTE, ahora, PageRequest.of(0, config.getTamanoLote()));
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            eventoOutboxRepository.reclamar(ids, reclamo, EventoOutbox.Estado.PENDIENTE, ahora,
+                    ahora.plusSeconds(config.getPlazoReclamoSegundos()));
+            return eventoOutboxRepository.findByReclamo(reclamo);
+        });
+        if (eventos == null || eventos.isEmpty()) {
+            return 0;
+        }
+
+        List<Entrega> entregas = eventos.stream()
+                .map(evento -> CompletableFuture.supplyAsync(() -> entregar(evento), ejecutor))
+                .toList()
+                .stream()
+                .map(CompletableFuture::join)
+                .toList();
+
+        anotar(entregas, LocalDateTime.now(reloj));
+        return eventos.size();
+    }
+
+    private Entrega entregar(EventoOutbox evento) {
+        DestinoNotificacion destino = destinos.get(evento.getDestino());
+        if (destino == null) {
+            return new Entrega(evento, new IllegalStateException("Destino no configurado: " + evento.getDestino()));
+        }
+        try {
+            if (EventoOutbox.RESUMEN.equals(evento.getTipo())) {
+                destino.enviarResumen(evento, objectMapper.readValue(evento.getPayload(), ResumenDTO.class));
+            } else {
+                destino.enviar(evento, objectMapper.readValue(evento.getPayload(), MensajeResponseDTO.class));
+            }
+            return new Entrega(evento, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Entrega(evento, e);
+        } catch (Exception e) {
+            return new Entrega(evento, e);
+        }
+    }
+
+    private void anotar(List<Entrega> entregas, LocalDateTime ahora) {
+        BuzonProperties.Notificaciones config = propiedades.getNotificaciones();
+
+        List<Long> enviados = new ArrayList<>();
+        List<Entrega> fallidas = new ArrayList<>();
+        for (Entrega entrega : entregas) {
+            if (entrega.error() == null) {
+                enviados.add(entrega.evento().getId());
+            } else {
+                fallidas.add(entrega);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!enviados.isEmpty()) {
+                eventoOutboxRepository.marcarEnviados(enviados, EventoOutbox.Estado.ENVIADO, ahora);
+            }
+            for (Entrega fallida : fallidas) {
+                EventoOutbox evento = fallida.evento();
+                int intentos = evento.getIntentos() + 1;
+                boolean descartar = intentos >= config.getMaximoIntentos()
+                        || !destinos.containsKey(evento.getDestino());
+                EventoOutbox.Estado estado = descartar ? EventoOutbox.Estado.DESCARTADO : EventoOutbox.Estado.PENDIENTE;
+
+                eventoOutboxRepository.registrarFallo(evento.getId(), estado, intentos,
+                        ahora.plus(esperaTras(intentos, config)), resumir(fallida.error()));
+
+                if (descartar) {
+                    log.warn("Evento {} ({}) descartado tras {} intentos: {}",
+                            evento.getId(), evento.getDestino(), intentos, fallida.error().toString());
+                } else {
+                    log.debug("Evento {} ({}) falló, intento {}: {}",
+                            evento.getId(), evento.getDestino(), intentos, fallida.error().toString());
+                }
+            }
+        });
+    }
+
+    /**
+     * Espera antes del siguiente intento: esperaInicial * 2^(intentos - 1), con tope.
+     */
+    static Duration esperaTras(int intentos, BuzonProperties.Notificaciones config) {
+        long maxima = config.getEsperaMaximaSegundos();
+        int exponente = Math.min(Math.max(intentos - 1, 0), 30);
+        long segundos = Math.min((long) config.getEsperaInicialSegundos() << exponente, maxima);
+        return Duration.ofSeconds(segundos);
+    }
+
+    private void enCadaShard(Runnable accion) {
+        if (shardRouter == null) {
+            accion.run();
+            return;
+        }
+        for (int shard = 0; shard < shardRouter.getNumeroShards(); shard++) {
+            ShardContext.ejecutarEn(shard, accion);
+        }
+    }
+
+    private static String resumir(Exception error) {
+        String texto = error.toString();
+        return texto.length() <= 500 ? texto : texto.substring(0, 500);
+    }
+}
@@ -0,0 +1,53 @@
+package com.miguel.buzon_mensajes.job;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Borra las sesiones HTTP caducadas de SPRING_SESSION por lotes.
+ *
+ * La limpieza incluida en Spring Session hace un único
+ * DELETE ... WHERE EXPIRY_TIME &lt; ?: tras una oleada de bots puede borrar
+ * cientos de miles de filas (y sus atributos, por ON DELETE CASCADE) en una
+ * sola transacción larga. Aquí cada sentencia borra como mucho loteLimpieza
+ * sesiones y se confirma por separado (auto-commit de JdbcTemplate).
+ *
+ * Se desactiva la limpieza incluida con spring.session.jdbc.cleanup-cron=-
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LimpiezaSesionesJob {
+
+    private static final String BORRAR_LOTE = """
+            DELETE FROM SPRING_SESSION WHERE PRIMARY_ID IN (
+                SELECT PRIMARY_ID FROM SPRING_SESSION
+                WHERE EXPIRY_TIME < ?
+                FETCH FIRST ? ROWS ONLY
+            )
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BuzonProperties propiedades;
+
+    @Scheduled(cron = "${buzon.sesiones.cron-limpieza:0 */5 * * * *}")
+    public void limpiar() {
+        int lote = propiedades.getSesiones().getLoteLimpieza();
+        long ahora = System.currentTimeMillis();
+
+        int total = 0;
+        int borradas;
+        do {
+            borradas = jdbcTemplate.update(BORRAR_LOTE, ahora, lote);
+            total += borradas;
+        } while (borradas == lote);
+
+        if (total > 0) {
+            log.info("Borradas {} sesiones caducadas", total);
+        }
+    }
+}
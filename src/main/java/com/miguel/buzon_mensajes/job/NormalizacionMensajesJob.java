@@ -0,0 +1,122 @@
+package com.miguel.buzon_mensajes.job;
+
+import com.miguel.buzon_mensajes.datasource.ShardContext;
+import com.miguel.buzon_mensajes.datasource.ShardRouter;
+import com.miguel.buzon_mensajes.util.Normalizacion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Rellena email_normalizado y nombre_normalizado en los mensajes guardados
+ * antes de que existieran esas columnas.
+ *
+ * Hibernate (ddl-auto=update) añade las columnas vacías; los mensajes nuevos
+ * ya llegan con ellas (Mensaje.setEmail / setNombre). Esta tarea recorre los
+ * antiguos por id (keyset, sin OFFSET) en lotes de {@link #LOTE}, calculando
+ * los valores con {@link Normalizacion} en Java (así coinciden exactamente con
+ * los que se buscan) y confirmando cada lote por separado: no hay una
+ * transacción larga ni un UPDATE de toda la tabla, y si se interrumpe sigue
+ * en el siguiente arranque. Cuando un shard ya no tiene filas pendientes deja
+ * de consultarse.
+ *
+ * Hasta que termine, las búsquedas por email no encuentran los mensajes
+ * antiguos aún sin rellenar.
+ */
+@Slf4j
+@Component
+public class NormalizacionMensajesJob {
+
+    static final int LOTE = 1000;
+
+    private static final String PENDIENTES = """
+            SELECT id, fecha_creacion, nombre, email FROM mensaje
+            WHERE id > ? AND (email_normalizado IS NULL OR nombre_normalizado IS NULL)
+            ORDER BY id
+            FETCH FIRST ? ROWS ONLY
+            """;
+
+    /**
+     * Con fecha_creacion en el WHERE, en la tabla particionada solo se toca una partición.
+     */
+    private static final String RELLENAR = """
+            UPDATE mensaje SET email_normalizado = ?, nombre_normalizado = ?
+            WHERE id = ? AND fecha_creacion = ?
+            """;
+
+    private record Pendiente(long id, Timestamp fechaCreacion, String nombre, String email) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+
+    private final boolean[] terminado;
+
+    @Autowired
+    public NormalizacionMensajesJob(JdbcTemplate jdbcTemplate, ObjectProvider<ShardRouter> shardRouter) {
+        this(jdbcTemplate, shardRouter.getIfAvailable());
+    }
+
+    NormalizacionMensajesJob(JdbcTemplate jdbcTemplate, ShardRouter shardRouter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.terminado = new boolean[shardRouter == null ? 1 : shardRouter.getNumeroShards()];
+    }
+
+    @Scheduled(initialDelayString = "${buzon.normalizacion.espera-inicial-ms:30000}",
+            fixedDelayString = "${buzon.normalizacion.intervalo-ms:600000}")
+    public void rellenar() {
+        for (int shard = 0; shard < terminado.length; shard++) {
+            if (terminado[shard]) {
+                continue;
+            }
+            int s = shard;
+            long rellenados = shardRouter == null
+                    ? rellenarShard()
+                    : ShardContext.ejecutarEn(s, this::rellenarShard);
+            terminado[s] = true;
+            if (rellenados > 0) {
+                log.info("Normalizados email y nombre de {} mensajes antiguos (shard {})", rellenados, s);
+            }
+        }
+    }
+
+    /**
+     * Si el shard ya no tiene mensajes sin normalizar (desde este arranque).
+     */
+    boolean terminado(int shard) {
+        return terminado[shard];
+    }
+
+    /**
+     * Rellena todo lo pendiente del shard actual, lote a lote.
+     */
+    long rellenarShard() {
+        long total = 0;
+        long ultimoId = 0;
+        List<Pendiente> lote;
+        do {
+            lote = jdbcTemplate.query(PENDIENTES,
+                    (rs, fila) -> new Pendiente(rs.getLong("id"), rs.getTimestamp("fecha_creacion"),
+                            rs.getString("nombre"), rs.getString("email")),
+                    ultimoId, LOTE);
+            if (lote.isEmpty()) {
+                break;
+            }
+
+            jdbcTemplate.batchUpdate(RELLENAR, lote.stream()
+                    .map(p -> new Object[]{Normalizacion.email(p.email()), Normalizacion.nombre(p.nombre()),
+                            p.id(), p.fechaCreacion()})
+                    .toList());
+            ultimoId = lote.get(lote.size() - 1).id();
+            total += lote.size();
+        } while (lote.size() == LOTE);
+        return total;
+    }
+}
@@ -0,0 +1,211 @@
+package com.miguel.buzon_mensajes.job;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.service.VersionBuzon;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mantenimiento del particionado mensual de la tabla mensaje (PostgreSQL).
+ *
+ * La tabla se particiona por rango de fecha_creacion, una partición por mes
+ * (mensaje_p2025_10, mensaje_p2025_11, ...). Esta tarea:
+ * - Crea por adelantado las particiones de los próximos meses.
+ * - Vacía la partición por defecto: las filas que caen fuera de los meses
+ *   creados (una importación con fechas antiguas) se llevan a la partición
+ *   de su mes, que se crea entonces.
+ * - Retira las particiones más antiguas que el periodo de retención, pero solo
+ *   si todos sus mensajes están leídos. Retirar una partición es un DETACH
+ *   (cambio de metadatos, O(1)) en lugar de un DELETE masivo fila a fila.
+ *
+ * Solo se activa con buzon.particionado.habilitado=true. En H2 (desarrollo)
+ * no se particiona: la tabla es pequeña y vive en memoria.
+ *
+ * La conversión inicial de la tabla se hace una sola vez con
+ * src/main/resources/db/postgres/particionado-mensaje.sql.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "buzon.particionado", name = "habilitado", havingValue = "true")
+public class ParticionesMensajeJob {
+
+    private static final Pattern NOMBRE_PARTICION = Pattern.compile("mensaje_p(\\d{4})_(\\d{2})");
+
+    static final String PARTICION_DEFECTO = "mensaje_pdefault";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BuzonProperties propiedades;
+    private final VersionBuzon versionBuzon;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Al arrancar se asegura de que exista la partición del mes actual,
+     * así el primer INSERT nunca cae en la partición por defecto.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        mantenerParticiones();
+    }
+
+    /**
+     * Se ejecuta todos los días a las 03:00 (hora de poco tráfico).
+     */
+    @Scheduled(cron = "${buzon.particionado.cron:0 0 3 * * *}")
+    public void mantenerParticiones() {
+        if (!tablaParticionada()) {
+            log.warn("La tabla mensaje no está particionada; ejecuta db/postgres/particionado-mensaje.sql "
+                    + "o desactiva buzon.particionado.habilitado");
+            return;
+        }
+
+        BuzonProperties.Particionado config = propiedades.getParticionado();
+        YearMonth actual = YearMonth.now();
+
+        for (int i = 0; i <= config.getMesesAdelantados(); i++) {
+            crearParticion(actual.plusMonths(i));
+        }
+        vaciarParticionDefecto();
+
+        if (config.getMesesRetencion() > 0) {
+            retirarParticionesAntiguas(actual.minusMonths(config.getMesesRetencion()), config.isEliminarRetiradas());
+        }
+    }
+
+    // ===== MÉTODOS PRIVADOS =====
+
+    private boolean tablaParticionada() {
+        Boolean particionada = jdbcTemplate.queryForObject("""
+                SELECT EXISTS (
+                    SELECT 1 FROM pg_partitioned_table pt
+                    JOIN pg_class c ON c.oid = pt.partrelid
+                    WHERE c.relname = 'mensaje'
+                )
+                """, Boolean.class);
+        return Boolean.TRUE.equals(particionada);
+    }
+
+    /**
+     * Crea la partición de un mes si no existe.
+     *
+     * PostgreSQL no deja crear una partición si la partición por defecto ya
+     * tiene filas de ese rango. En ese caso, en una sola transacción: se
+     * separa la partición por defecto, se crea la del mes, se le pasan sus
+     * filas y se vuelve a unir. Mientras dura, mensaje queda bloqueada (un
+     * mes de filas sueltas, a las 03:00).
+     */
+    void crearParticion(YearMonth mes) {
+        String particion = nombreParticion(mes);
+        if (existe(particion)) {
+            return;
+        }
+        Date desde = Date.valueOf(mes.atDay(1));
+        Date hasta = Date.valueOf(mes.plusMonths(1).atDay(1));
+        // Los identificadores no admiten parámetros: se construyen solo a partir de fechas
+        String crear = String.format("CREATE TABLE %s PARTITION OF mensaje FOR VALUES FROM ('%s') TO ('%s')",
+                particion, desde, hasta);
+
+        if (!existe(PARTICION_DEFECTO) || !tieneFilas(desde, hasta)) {
+            jdbcTemplate.execute(crear);
+            return;
+        }
+
+        Integer movidos = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("ALTER TABLE mensaje DETACH PARTITION " + PARTICION_DEFECTO);
+            jdbcTemplate.execute(crear);
+            int filas = jdbcTemplate.update("INSERT INTO " + particion + " SELECT * FROM " + PARTICION_DEFECTO
+                    + " WHERE fecha_creacion >= ? AND fecha_creacion < ?", desde, hasta);
+            jdbcTemplate.update("DELETE FROM " + PARTICION_DEFECTO
+                    + " WHERE fecha_creacion >= ? AND fecha_creacion < ?", desde, hasta);
+            jdbcTemplate.execute("ALTER TABLE mensaje ATTACH PARTITION " + PARTICION_DEFECTO + " DEFAULT");
+            return filas;
+        });
+        log.info("Partición {} creada con {} mensajes de la partición por defecto", particion, movidos);
+    }
+
+    /**
+     * Crea la partición de cada mes que tenga filas en la partición por defecto.
+     */
+    private void vaciarParticionDefecto() {
+        if (!existe(PARTICION_DEFECTO)) {
+            return;
+        }
+        List<LocalDate> meses = jdbcTemplate.queryForList(
+                "SELECT DISTINCT CAST(date_trunc('month', fecha_creacion) AS date) FROM " + PARTICION_DEFECTO,
+                LocalDate.class);
+        meses.forEach(mes -> crearParticion(YearMonth.from(mes)));
+    }
+
+    private boolean tieneFilas(Date desde, Date hasta) {
+        Boolean hay = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM " + PARTICION_DEFECTO
+                + " WHERE fecha_creacion >= ? AND fecha_creacion < ?)", Boolean.class, desde, hasta);
+        return Boolean.TRUE.equals(hay);
+    }
+
+    private boolean existe(String tabla) {
+        Boolean existe = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, tabla);
+        return Boolean.TRUE.equals(existe);
+    }
+
+    /**
+     * Retira las particiones cuyo mes termina antes del límite.
+     *
+     * Una partición con mensajes sin leer se conserva: la retención solo
+     * descarta mensajes que el administrador ya vio.
+     */
+    private void retirarParticionesAntiguas(YearMonth limite, boolean eliminar) {
+        List<String> particiones = jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                JOIN pg_class p ON p.oid = i.inhparent
+                WHERE p.relname = 'mensaje'
+                """, String.class);
+
+        for (String particion : particiones) {
+            Matcher matcher = NOMBRE_PARTICION.matcher(particion);
+            if (!matcher.matches()) {
+                continue; // partición por defecto u otras creadas a mano
+            }
+
+            YearMonth mes = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (!mes.isBefore(limite)) {
+                continue;
+            }
+
+            Boolean tieneNoLeidos = jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM " + particion + " WHERE leido = false AND eliminado_en IS NULL)",
+                    Boolean.class);
+            if (Boolean.TRUE.equals(tieneNoLeidos)) {
+                log.warn("La partición {} tiene mensajes sin leer; se conserva", particion);
+                continue;
+            }
+
+            jdbcTemplate.execute("ALTER TABLE mensaje DETACH PARTITION " + particion);
+            versionBuzon.incrementar();
+            if (eliminar) {
+                jdbcTemplate.execute("DROP TABLE " + particion);
+                log.info("Partición {} retirada y eliminada", particion);
+            } else {
+                log.info("Partición {} separada de mensaje (queda como tabla independiente)", particion);
+            }
+        }
+    }
+
+    private static String nombreParticion(YearMonth mes) {
+        return String.format("mensaje_p%04d_%02d", mes.getYear(), mes.getMonthValue());
+    }
+}
@@ -0,0 +1,174 @@
+package com.miguel.buzon_mensajes.job;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.config.ShardingConfig;
+import com.miguel.buzon_mensajes.datasource.ShardContext;
+import com.miguel.buzon_mensajes.datasource.ShardRouter;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Borra de verdad los mensajes eliminados hace más de buzon.purga.dias-retencion.
+ *
+ * Eliminar un mensaje solo rellena eliminado_en; esta tarea hace los DELETE
+ * en segundo plano, como LimpiezaSesionesJob: cada sentencia borra como mucho
+ * tamanoLote filas (los eliminados más antiguos, por idx_mensaje_eliminado_en)
+ * y se confirma por separado, así que nunca hay una transacción larga ni un
+ * bloqueo amplio sobre la tabla.
+ *
+ * Solo trabaja en los ratos tranquilos: antes de cada lote mira el pool de
+ * conexiones del shard y, si hay peticiones esperando conexión o más de
+ * ocupacionMaxima de las conexiones en uso, lo deja para la siguiente
+ * ejecución. Entre lote y lote espera pausaMs.
+ *
+ * Los contadores (remitente, etc.) ya se ajustaron al eliminar: aquí no se
+ * toca nada más. Un mensaje restaurado justo a la vez no se borra, porque el
+ * DELETE vuelve a comprobar eliminado_en.
+ */
+@Slf4j
+@Component
+public class PurgaMensajesJob {
+
+    private static final String BORRAR_LOTE = """
+            DELETE FROM mensaje
+            WHERE eliminado_en IS NOT NULL AND eliminado_en < ? AND id IN (
+                SELECT id FROM mensaje
+                WHERE eliminado_en IS NOT NULL AND eliminado_en < ?
+                ORDER BY eliminado_en
+                FETCH FIRST ? ROWS ONLY
+            )
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BuzonProperties propiedades;
+    private final ShardRouter shardRouter;
+    private final IntPredicate tranquilo;
+    private final Clock reloj;
+
+    @Autowired
+    public PurgaMensajesJob(JdbcTemplate jdbcTemplate,
+                            BuzonProperties propiedades,
+                            ObjectProvider<ShardRouter> shardRouter,
+                            ObjectProvider<ShardingConfig.PoolsShard> poolsShard,
+                            DataSource dataSource) {
+        this(jdbcTemplate, propiedades, shardRouter.getIfAvailable(),
+                poolTranquilo(poolsShard.getIfAvailable(), dataSource, propiedades),
+                Clock.systemDefaultZone());
+    }
+
+    PurgaMensajesJob(JdbcTemplate jdbcTemplate,
+                     BuzonProperties propiedades,
+                     ShardRouter shardRouter,
+                     IntPredicate tranquilo,
+                     Clock reloj) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.propiedades = propiedades;
+        this.shardRouter = shardRouter;
+        this.tranquilo = tranquilo;
+        this.reloj = reloj;
+    }
+
+    @Scheduled(initialDelayString = "${buzon.purga.espera-inicial-ms:120000}",
+            fixedDelayString = "${buzon.purga.intervalo-ms:300000}")
+    public void purgar() {
+        int shards = shardRouter == null ? 1 : shardRouter.getNumeroShards();
+        for (int shard = 0; shard < shards; shard++) {
+            int s = shard;
+            long borrados = shardRouter == null
+                    ? purgarShard(s)
+                    : ShardContext.ejecutarEn(s, () -> purgarShard(s));
+            if (borrados > 0) {
+                log.info("Purgados {} mensajes eliminados (shard {})", borrados, s);
+            }
+        }
+    }
+
+    /**
+     * Borra lotes del shard actual mientras queden y el pool esté tranquilo.
+     */
+    long purgarShard(int shard) {
+        BuzonProperties.Purga purga = propiedades.getPurga();
+        Timestamp limite = Timestamp.valueOf(LocalDateTime.now(reloj).minusDays(purga.getDiasRetencion()));
+
+        long total = 0;
+        int borrados;
+        do {
+            if (!tranquilo.test(shard)) {
+                log.debug("Purga aplazada: el pool del shard {} está ocupado", shard);
+                break;
+            }
+            borrados = jdbcTemplate.update(BORRAR_LOTE, limite, limite, purga.getTamanoLote());
+            total += borrados;
+            if (borrados == purga.getTamanoLote() && !pausa(purga.getPausaMs())) {
+                break;
+            }
+        } while (borrados == purga.getTamanoLote());
+        return total;
+    }
+
+    private static boolean pausa(long milisegundos) {
+        try {
+            Thread.sleep(milisegundos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Pool de cada shard (o el del DataSource principal) y su regla de "tranquilo".
+     */
+    private static IntPredicate poolTranquilo(ShardingConfig.PoolsShard poolsShard,
+                                              DataSource dataSource,
+                                              BuzonProperties propiedades) {
+        List<HikariDataSource> pools = poolsShard != null
+                ? poolsShard.pools()
+                : List.of(poolPrincipal(dataSource));
+        return shard -> shard >= pools.size()
+                || tranquilo(pools.get(shard), propiedades.getPurga().getOcupacionMaxima());
+    }
+
+    /**
+     * Pool Hikari en el que escribe el DataSource principal. Se saca de él y
+     * no buscando un HikariDataSource por tipo: con réplicas hay más de uno
+     * (el primario es el que hay detrás de LazyConnectionDataSourceProxy).
+     *
+     * @throws IllegalStateException si no es un pool Hikari: la purga no
+     *         sabría cuándo está ocupado y competiría con las peticiones
+     */
+    static HikariDataSource poolPrincipal(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("No se pudo obtener el pool del DataSource principal", e);
+        }
+        throw new IllegalStateException("La purga de mensajes necesita un pool Hikari como DataSource principal, no "
+                + dataSource.getClass().getName());
+    }
+
+    static boolean tranquilo(HikariDataSource pool, double ocupacionMaxima) {
+        HikariPoolMXBean estado = pool.getHikariPoolMXBean();
+        if (estado == null) {
+            return true; // el pool aún no ha arrancado
+        }
+        return estado.getThreadsAwaitingConnection() == 0
+                && estado.getActiveConnections() < ocupacionMaxima * pool.getMaximumPoolSize();
+    }
+}
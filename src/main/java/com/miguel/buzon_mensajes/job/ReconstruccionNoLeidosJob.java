@@ -0,0 +1,108 @@
+package com.miguel.buzon_mensajes.job;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.datasource.ShardContext;
+import com.miguel.buzon_mensajes.datasource.ShardRouter;
+import com.miguel.buzon_mensajes.service.noleidos.IndiceNoLeidos;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Construye el {@link IndiceNoLeidos} de cada shard que no lo tenga: al
+ * arrancar y después de una importación. También vuelve a recorrer los que
+ * no están en el orden de las fechas cuando el índice lo pide.
+ *
+ * Recorre los ids sin leer por keyset (id > último, tamanoLote por consulta)
+ * y los va añadiendo al mapa: no hay una consulta larga ni una lista con
+ * todos los ids en memoria. Cada consulta es su propia transacción corta.
+ * Los cambios que se confirman mientras tanto los anota el índice y se
+ * aplican al terminar.
+ *
+ * Si falla, el shard se queda sin índice (se sigue consultando la tabla) y
+ * se reintenta en la siguiente ejecución.
+ */
+@Slf4j
+@Component
+public class ReconstruccionNoLeidosJob {
+
+    private static final String IDS_NO_LEIDOS = """
+            SELECT id, fecha_creacion FROM mensaje
+            WHERE leido = false AND eliminado_en IS NULL AND id > ?
+            ORDER BY id
+            FETCH FIRST ? ROWS ONLY
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IndiceNoLeidos indice;
+    private final BuzonProperties propiedades;
+    private final ShardRouter shardRouter;
+
+    @Autowired
+    public ReconstruccionNoLeidosJob(JdbcTemplate jdbcTemplate,
+                                     IndiceNoLeidos indice,
+                                     BuzonProperties propiedades,
+                                     ObjectProvider<ShardRouter> shardRouter) {
+        this(jdbcTemplate, indice, propiedades, shardRouter.getIfAvailable());
+    }
+
+    ReconstruccionNoLeidosJob(JdbcTemplate jdbcTemplate,
+                              IndiceNoLeidos indice,
+                              BuzonProperties propiedades,
+                              ShardRouter shardRouter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.indice = indice;
+        this.propiedades = propiedades;
+        this.shardRouter = shardRouter;
+    }
+
+    @Scheduled(initialDelayString = "${buzon.no-leidos.espera-inicial-ms:0}",
+            fixedDelayString = "${buzon.no-leidos.intervalo-ms:5000}")
+    public void reconstruir() {
+        int shards = shardRouter == null ? 1 : shardRouter.getNumeroShards();
+        for (int shard = 0; shard < shards; shard++) {
+            if (!indice.necesitaReconstruir(shard)) {
+                continue;
+            }
+            int s = shard;
+            long generacion = indice.empezarReconstruccion(s);
+            IndiceNoLeidos.IdsShard recorrido;
+            try {
+                recorrido = shardRouter == null ? recorrer() : ShardContext.ejecutarEn(s, this::recorrer);
+            } catch (RuntimeException e) {
+                indice.abandonarReconstruccion(s);
+                log.warn("No se pudo construir el índice de no leídos (shard {})", s, e);
+                continue;
+            }
+            if (indice.terminarReconstruccion(s, generacion, recorrido)) {
+                log.info("Índice de no leídos construido: {} mensajes, {} KB (shard {})",
+                        recorrido.cardinalidad(), indice.bytesAproximados(s) / 1024, s);
+            }
+        }
+    }
+
+    /**
+     * Ids sin leer del shard actual con su fecha, en orden creciente (el
+     * orden que más barato le sale al mapa y el que sirve para comprobar
+     * que las fechas crecen con los ids).
+     */
+    IndiceNoLeidos.IdsShard recorrer() {
+        int lote = propiedades.getNoLeidos().getTamanoLote();
+        IndiceNoLeidos.IdsShard ids = new IndiceNoLeidos.IdsShard();
+        long[] ultimoId = {0};
+        int leidos;
+        do {
+            int[] enLote = {0};
+            jdbcTemplate.query(IDS_NO_LEIDOS, rs -> {
+                ultimoId[0] = rs.getLong(1);
+                ids.agregar(ultimoId[0], rs.getTimestamp(2).toLocalDateTime());
+                enLote[0]++;
+            }, ultimoId[0], lote);
+            leidos = enLote[0];
+        } while (leidos == lote);
+        return ids;
+    }
+}
@@ -0,0 +1,137 @@
+package com.miguel.buzon_mensajes.job;
+
+import com.miguel.buzon_mensajes.datasource.ShardContext;
+import com.miguel.buzon_mensajes.datasource.ShardRouter;
+import com.miguel.buzon_mensajes.model.MarcaAgua;
+import com.miguel.buzon_mensajes.repository.MarcaAguaRepository;
+import com.miguel.buzon_mensajes.service.remitente.EscritorRemitentes;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+
+/**
+ * Rellena la tabla remitente con los mensajes que ya había cuando se creó.
+ *
+ * Los mensajes nuevos ya actualizan su remitente al crearse; aquí se recorren
+ * los remitentes de la tabla mensaje por email_normalizado (keyset sobre
+ * idx_mensaje_email_normalizado, tramos de {@link #LOTE} remitentes) y
+ * {@link EscritorRemitentes#recontar} fija sus contadores con los valores
+ * absolutos del GROUP BY, en la misma sentencia que los escribe. Fijar en
+ * lugar de sumar hace que repetir un tramo no cuente nada dos veces, así que
+ * si se interrumpe basta con empezar de nuevo. Cada tramo se confirma por
+ * separado.
+ *
+ * Espera a que NormalizacionMensajesJob termine en el shard (antes, los
+ * mensajes antiguos aún no tienen email_normalizado) y al acabar deja la
+ * marca {@link #MARCA}: en los siguientes arranques no vuelve a recorrer nada.
+ *
+ * Los mensajes que se crean o eliminan mientras corre cuentan bien: recontar
+ * bloquea las filas del tramo antes de contar (ver su documentación). Los
+ * mensajes ya archivados en frío no se cuentan.
+ */
+@Slf4j
+@Component
+public class ReconstruccionRemitentesJob {
+
+    static final String MARCA = "remitentes";
+
+    static final int LOTE = 500;
+
+    /**
+     * Último email del siguiente tramo: a lo sumo LOTE remitentes distintos.
+     */
+    private static final String FIN_TRAMO = """
+            SELECT MAX(email_normalizado) FROM (
+                SELECT DISTINCT email_normalizado FROM mensaje
+                WHERE email_normalizado > ?
+                ORDER BY email_normalizado
+                FETCH FIRST ? ROWS ONLY) t
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EscritorRemitentes escritorRemitentes;
+    private final MarcaAguaRepository marcaAguaRepository;
+    private final NormalizacionMensajesJob normalizacion;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+    private final Clock reloj;
+
+    private final boolean[] terminado;
+
+    @Autowired
+    public ReconstruccionRemitentesJob(JdbcTemplate jdbcTemplate,
+                                       EscritorRemitentes escritorRemitentes,
+                                       MarcaAguaRepository marcaAguaRepository,
+                                       NormalizacionMensajesJob normalizacion,
+                                       TransactionTemplate transactionTemplate,
+                                       ObjectProvider<ShardRouter> shardRouter) {
+        this(jdbcTemplate, escritorRemitentes, marcaAguaRepository, normalizacion, transactionTemplate,
+                shardRouter.getIfAvailable(), Clock.systemDefaultZone());
+    }
+
+    ReconstruccionRemitentesJob(JdbcTemplate jdbcTemplate,
+                                EscritorRemitentes escritorRemitentes,
+                                MarcaAguaRepository marcaAguaRepository,
+                                NormalizacionMensajesJob normalizacion,
+                                TransactionTemplate transactionTemplate,
+                                ShardRouter shardRouter,
+                                Clock reloj) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.escritorRemitentes = escritorRemitentes;
+        this.marcaAguaRepository = marcaAguaRepository;
+        this.normalizacion = normalizacion;
+        this.transactionTemplate = transactionTemplate;
+        this.shardRouter = shardRouter;
+        this.reloj = reloj;
+        this.terminado = new boolean[shardRouter == null ? 1 : shardRouter.getNumeroShards()];
+    }
+
+    @Scheduled(initialDelayString = "${buzon.remitentes.espera-inicial-ms:60000}",
+            fixedDelayString = "${buzon.remitentes.intervalo-ms:600000}")
+    public void reconstruir() {
+        for (int shard = 0; shard < terminado.length; shard++) {
+            if (terminado[shard] || !normalizacion.terminado(shard)) {
+                continue;
+            }
+            int s = shard;
+            long remitentes = shardRouter == null
+                    ? reconstruirShard()
+                    : ShardContext.ejecutarEn(s, this::reconstruirShard);
+            terminado[s] = true;
+            if (remitentes > 0) {
+                log.info("Directorio de remitentes reconstruido: {} remitentes (shard {})", remitentes, s);
+            }
+        }
+    }
+
+    /**
+     * Reconstruye el shard actual si aún no tiene la marca; devuelve cuántos
+     * remitentes ha fijado.
+     */
+    long reconstruirShard() {
+        if (marcaAguaRepository.existsById(MARCA)) {
+            return 0;
+        }
+
+        long total = 0;
+        String desde = "";
+        String hasta;
+        while ((hasta = jdbcTemplate.queryForObject(FIN_TRAMO, String.class, desde, LOTE)) != null) {
+            String inicio = desde;
+            String fin = hasta;
+            Integer escritos = transactionTemplate.execute(status -> escritorRemitentes.recontar(inicio, fin));
+            total += escritos == null ? 0 : escritos;
+            desde = hasta;
+        }
+
+        marcaAguaRepository.save(new MarcaAgua(MARCA, LocalDateTime.now(reloj), 0L));
+        return total;
+    }
+}
@@ -0,0 +1,216 @@
+package com.miguel.buzon_mensajes.job;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.datasource.ShardContext;
+import com.miguel.buzon_mensajes.datasource.ShardRouter;
+import com.miguel.buzon_mensajes.dto.RecuentoRemitenteDiaDTO;
+import com.miguel.buzon_mensajes.model.MarcaAgua;
+import com.miguel.buzon_mensajes.repository.MarcaAguaRepository;
+import com.miguel.buzon_mensajes.repository.MensajeRepository;
+import com.miguel.buzon_mensajes.service.analitica.EscritorRollups;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Agrega a los rollups los mensajes que ya había cuando se activaron.
+ *
+ * RollupJob deja apuntado el límite la primera vez (marca
+ * "rollups-reconstruccion"): aquí se agregan los mensajes con fecha hasta ese
+ * límite, y RollupJob los posteriores, así que ninguno se cuenta dos veces.
+ *
+ * Se recorre la tabla por tramos de ids (tamanoTramo): en cada ronda se
+ * agregan paralelismo tramos a la vez con un GROUP BY por día y remitente
+ * sobre la clave primaria, y el resultado de la ronda se suma a los rollups
+ * junto con el avance de la marca, en una transacción que también bloquea la
+ * marca de RollupJob (un solo escritor). Si se interrumpe, sigue desde la
+ * última ronda confirmada; si otra instancia avanzó la marca entre medias,
+ * esta ronda se descarta. Antes de darla por terminada se vuelve a mirar el
+ * máximo id bajo ese bloqueo: una importación de mensajes antiguos confirmada
+ * durante la reconstrucción la alarga en vez de quedarse sin contar
+ * (ImportadorMensajes solo los suma él mismo cuando ya ha terminado).
+ *
+ * Corre en un hilo propio para no ocupar el planificador (un solo hilo por
+ * defecto) durante la reconstrucción. No recupera los mensajes ya archivados
+ * en frío ni la latencia de las lecturas anteriores: esa se registra desde
+ * que se activan los rollups.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "buzon.rollups", name = "habilitado", havingValue = "true")
+public class ReconstruccionRollupsJob {
+
+    private final MensajeRepository mensajeRepository;
+    private final MarcaAguaRepository marcaAguaRepository;
+    private final EscritorRollups escritorRollups;
+    private final BuzonProperties propiedades;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+
+    /**
+     * Hilos virtuales: cada tramo pasa casi todo el tiempo esperando a la BD.
+     */
+    private final ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicBoolean enCurso = new AtomicBoolean();
+
+    /**
+     * Todos los shards reconstruidos: no hace falta volver a mirar.
+     */
+    private volatile boolean terminada;
+
+    public ReconstruccionRollupsJob(MensajeRepository mensajeRepository,
+                                    MarcaAguaRepository marcaAguaRepository,
+                                    EscritorRollups escritorRollups,
+                                    BuzonProperties propiedades,
+                                    TransactionTemplate transactionTemplate,
+                                    ObjectProvider<ShardRouter> shardRouter) {
+        this.mensajeRepository = mensajeRepository;
+        this.marcaAguaRepository = marcaAguaRepository;
+        this.escritorRollups = escritorRollups;
+        this.propiedades = propiedades;
+        this.transactionTemplate = transactionTemplate;
+        this.shardRouter = shardRouter.getIfAvailable();
+    }
+
+    @PreDestroy
+    void cerrar() {
+        ejecutor.shutdownNow();
+    }
+
+    /**
+     * Lanza la reconstrucción en segundo plano si queda algo y no está ya en marcha.
+     */
+    @Scheduled(fixedDelayString = "${buzon.rollups.intervalo-ms:60000}")
+    public void comprobar() {
+        if (terminada || !enCurso.compareAndSet(false, true)) {
+            return;
+        }
+        ejecutor.execute(() -> {
+            try {
+                boolean completa = true;
+                if (shardRouter == null) {
+                    completa = reconstruir();
+                } else {
+                    for (int shard = 0; shard < shardRouter.getNumeroShards(); shard++) {
+                        completa &= ShardContext.ejecutarEn(shard, this::reconstruir);
+                    }
+                }
+                terminada = completa;
+            } catch (RuntimeException e) {
+                log.error("Error reconstruyendo los rollups; se reintentará", e);
+            } finally {
+                enCurso.set(false);
+            }
+        });
+    }
+
+    /**
+     * Reconstruye el shard actual. Devuelve true si ya no le queda nada.
+     */
+    boolean reconstruir() {
+        MarcaAgua marca = transactionTemplate.execute(status ->
+                marcaAguaRepository.findById(RollupJob.MARCA_RECONSTRUCCION).orElse(null));
+        if (marca == null) {
+            // RollupJob aún no ha fijado el límite
+            return false;
+        }
+        if (marca.getUltimoId() == Long.MAX_VALUE) {
+            return true;
+        }
+
+        LocalDateTime limite = marca.getFecha();
+        Long maxId = mensajeRepository.maxIdHasta(limite);
+        long desde = marca.getUltimoId();
+        long maximo = maxId == null ? desde : maxId;
+        log.info("Reconstruyendo rollups: ids {} a {} (mensajes hasta {})", desde, maximo, limite);
+
+        BuzonProperties.Rollups config = propiedades.getRollups();
+        long tramo = Math.max(1, config.getTamanoTramo());
+        int paralelismo = Math.max(1, config.getParalelismo());
+        Integer shard = ShardContext.actual();
+
+        do {
+            List<CompletableFuture<List<RecuentoRemitenteDiaDTO>>> ronda = new ArrayList<>(paralelismo);
+            long inicio = desde;
+            for (int i = 0; i < paralelismo && inicio < maximo; i++) {
+                long desdeId = inicio;
+                long hastaId = Math.min(inicio + tramo, maximo);
+                ronda.add(CompletableFuture.supplyAsync(enShard(shard,
+                        () -> mensajeRepository.contarPorDiaYRemitente(desdeId, hastaId, limite)), ejecutor));
+                inicio = hastaId;
+            }
+
+            Map<LocalDate, Long> porDia = new HashMap<>();
+            Map<EscritorRollups.RemitenteDia, Long> porRemitente = new HashMap<>();
+            for (CompletableFuture<List<RecuentoRemitenteDiaDTO>> futuro : ronda) {
+                for (RecuentoRemitenteDiaDTO recuento : futuro.join()) {
+                    porDia.merge(recuento.dia(), recuento.total(), Long::sum);
+                    porRemitente.merge(new EscritorRollups.RemitenteDia(recuento.dia(), recuento.email()),
+                            recuento.total(), Long::sum);
+                }
+            }
+
+            long anterior = desde;
+            long siguiente = inicio;
+            long tope = maximo;
+            Long nuevoMaximo = transactionTemplate.execute(status ->
+                    aplicar(porDia, porRemitente, anterior, siguiente, tope, limite));
+            if (nuevoMaximo == null) {
+                log.info("Otra instancia está reconstruyendo los rollups");
+                return false;
+            }
+            desde = siguiente;
+            maximo = nuevoMaximo;
+        } while (desde < maximo);
+
+        log.info("Rollups reconstruidos hasta {}", limite);
+        return true;
+    }
+
+    /**
+     * Suma una ronda y avanza la marca si nadie la ha movido desde "anterior".
+     * Devuelve el máximo id con el que seguir (null si la ronda se descarta).
+     */
+    private Long aplicar(Map<LocalDate, Long> porDia, Map<EscritorRollups.RemitenteDia, Long> porRemitente,
+                         long anterior, long siguiente, long maximo, LocalDateTime limite) {
+        // Primero la marca de RollupJob, en el mismo orden que él: un solo escritor
+        marcaAguaRepository.bloquear(RollupJob.MARCA);
+        MarcaAgua marca = marcaAguaRepository.bloquear(RollupJob.MARCA_RECONSTRUCCION).orElseThrow();
+        if (marca.getUltimoId() != anterior) {
+            return null;
+        }
+        escritorRollups.sumarRecibidos(porDia, porRemitente);
+
+        long tope = maximo;
+        if (siguiente >= maximo) {
+            // Una importación confirmada desde que se calculó el máximo puede haber
+            // añadido mensajes anteriores al límite: se cuentan antes de terminar
+            Long actual = mensajeRepository.maxIdHasta(limite);
+            tope = actual == null ? maximo : Math.max(maximo, actual);
+        }
+        marca.setUltimoId(siguiente >= tope ? Long.MAX_VALUE : siguiente);
+        marcaAguaRepository.save(marca);
+        return tope;
+    }
+
+    private static <T> Supplier<T> enShard(Integer shard, Supplier<T> consulta) {
+        return shard == null ? consulta : () -> ShardContext.ejecutarEn(shard, consulta);
+    }
+}
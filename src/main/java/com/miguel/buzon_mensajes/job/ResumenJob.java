@@ -0,0 +1,287 @@
+package com.miguel.buzon_mensajes.job;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.datasource.ShardContext;
+import com.miguel.buzon_mensajes.datasource.ShardRouter;
+import com.miguel.buzon_mensajes.dto.MensajeResponseDTO;
+import com.miguel.buzon_mensajes.dto.ResumenDTO;
+import com.miguel.buzon_mensajes.model.MarcaAgua;
+import com.miguel.buzon_mensajes.model.ResumenMensajes;
+import com.miguel.buzon_mensajes.repository.MarcaAguaRepository;
+import com.miguel.buzon_mensajes.repository.MensajeRepository;
+import com.miguel.buzon_mensajes.repository.ResumenMensajesRepository;
+import com.miguel.buzon_mensajes.service.notificacion.PublicadorEventos;
+import com.miguel.buzon_mensajes.util.Normalizacion;
+import com.miguel.buzon_mensajes.util.SpaceSaving;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resúmenes por hora y por día de los mensajes nuevos de cada buzón.
+ *
+ * Recorre la tabla mensaje de forma incremental desde una marca de agua
+ * ({@link MarcaAgua} "resumenes"): cada lote lee los siguientes tamanoLote
+ * mensajes en orden (fecha_creacion, id) por el índice de fecha, los suma a
+ * los resúmenes abiertos de su periodo y avanza la marca, todo en la misma
+ * transacción. Nunca vuelve a leer un mensaje ya resumido y, tras un
+ * reinicio, continúa exactamente desde el último lote confirmado. La fila
+ * de la marca queda bloqueada durante el lote, así que con varias
+ * instancias un mensaje tampoco se cuenta dos veces.
+ *
+ * Memoria acotada: por resumen solo se guardan el total, los contadores
+ * Space-Saving de remitentes (remitentesVigilados) y las últimas vistas
+ * previas; por lote, los mensajes del lote.
+ *
+ * Cuando la marca pasa el final de un periodo, su resumen se cierra y se
+ * publica en evento_outbox para los destinos de notificación. Los buzones de
+ * buzon.resumenes.solo-resumen solo reciben estos resúmenes.
+ *
+ * Los mensajes de los últimos margenSegundos no se leen todavía: una
+ * transacción más lenta que ese margen podría confirmar un mensaje con fecha
+ * ya superada por la marca, y no se contaría.
+ *
+ * Con sharding cada shard tiene su marca y sus resúmenes (un buzón vive
+ * siempre en el mismo shard). Solo se activa con buzon.resumenes.habilitado=true.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "buzon.resumenes", name = "habilitado", havingValue = "true")
+public class ResumenJob {
+
+    static final String MARCA = "resumenes";
+
+    private static final TypeReference<List<SpaceSaving.Contador>> CONTADORES = new TypeReference<>() {
+    };
+    private static final TypeReference<List<ResumenDTO.VistaPrevia>> VISTAS_PREVIAS = new TypeReference<>() {
+    };
+
+    /**
+     * Resumen de un buzón en un periodo concreto.
+     */
+    private record Clave(ResumenMensajes.Periodo periodo, LocalDateTime inicio, String buzon) {
+    }
+
+    private final MensajeRepository mensajeRepository;
+    private final MarcaAguaRepository marcaAguaRepository;
+    private final ResumenMensajesRepository resumenRepository;
+    private final PublicadorEventos publicadorEventos;
+    private final BuzonProperties propiedades;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ShardRouter shardRouter;
+    private final Clock reloj;
+
+    @Autowired
+    public ResumenJob(MensajeRepository mensajeRepository,
+                      MarcaAguaRepository marcaAguaRepository,
+                      ResumenMensajesRepository resumenRepository,
+                      PublicadorEventos publicadorEventos,
+                      BuzonProperties propiedades,
+                      TransactionTemplate transactionTemplate,
+                      ObjectMapper objectMapper,
+                      ObjectProvider<ShardRouter> shardRouter) {
+        this(mensajeRepository, marcaAguaRepository, resumenRepository, publicadorEventos, propiedades,
+                transactionTemplate, objectMapper, shardRouter.getIfAvailable(), Clock.systemDefaultZone());
+    }
+
+    ResumenJob(MensajeRepository mensajeRepository,
+               MarcaAguaRepository marcaAguaRepository,
+               ResumenMensajesRepository resumenRepository,
+               PublicadorEventos publicadorEventos,
+               BuzonProperties propiedades,
+               TransactionTemplate transactionTemplate,
+               ObjectMapper objectMapper,
+               ShardRouter shardRouter,
+               Clock reloj) {
+        this.mensajeRepository = mensajeRepository;
+        this.marcaAguaRepository = marcaAguaRepository;
+        this.resumenRepository = resumenRepository;
+        this.publicadorEventos = publicadorEventos;
+        this.propiedades = propiedades;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.shardRouter = shardRouter;
+        this.reloj = reloj;
+    }
+
+    @Scheduled(cron = "${buzon.resumenes.cron:0 */5 * * * *}")
+    public void resumir() {
+        enCadaShard(() -> {
+            int lote = propiedades.getResumenes().getTamanoLote();
+            Integer leidos;
+            do {
+                leidos = transactionTemplate.execute(status -> procesarLote());
+            } while (leidos != null && leidos == lote);
+
+            transactionTemplate.executeWithoutResult(status -> cerrarTerminados());
+        });
+    }
+
+    /**
+     * Suma el siguiente lote de mensajes a sus resúmenes y avanza la marca.
+     * Devuelve cuántos mensajes se leyeron. Debe llamarse dentro de una transacción.
+     */
+    int procesarLote() {
+        BuzonProperties.Resumenes config = propiedades.getResumenes();
+        LocalDateTime hasta = LocalDateTime.now(reloj).minusSeconds(config.getMargenSegundos());
+
+        MarcaAgua marca = marcaAguaRepository.bloquear(MARCA).orElse(null);
+        if (marca == null) {
+            // Primera vez: se empieza desde ahora, sin recorrer los mensajes que ya había
+            marca = new MarcaAgua(MARCA, null, null);
+            marca.completarHasta(hasta);
+            marcaAguaRepository.save(marca);
+            return 0;
+        }
+
+        List<MensajeResponseDTO> mensajes = mensajeRepository.buscarDesdeMarca(
+                marca.getFecha(), marca.getUltimoId(), hasta, PageRequest.of(0, config.getTamanoLote()));
+
+        Map<Clave, Acumulador> abiertos = new HashMap<>();
+        for (MensajeResponseDTO mensaje : mensajes) {
+            for (ResumenMensajes.Periodo periodo : config.getPeriodos()) {
+                Clave clave = new Clave(periodo, periodo.inicioDe(mensaje.fechaCreacion()), mensaje.buzon());
+                abiertos.computeIfAbsent(clave, this::abrir).agregar(mensaje);
+            }
+        }
+        abiertos.values().forEach(acumulador -> resumenRepository.save(acumulador.volcar()));
+
+        if (mensajes.size() < config.getTamanoLote()) {
+            // No queda nada más hasta "hasta": la marca puede llegar hasta ahí
+            marca.completarHasta(hasta);
+        } else {
+            MensajeResponseDTO ultimo = mensajes.get(mensajes.size() - 1);
+            marca.setFecha(ultimo.fechaCreacion());
+            marca.setUltimoId(ultimo.id());
+        }
+        marcaAguaRepository.save(marca);
+        return mensajes.size();
+    }
+
+    /**
+     * Cierra y publica los resúmenes cuyo periodo ya queda detrás de la marca.
+     * Debe llamarse dentro de una transacción.
+     */
+    void cerrarTerminados() {
+        MarcaAgua marca = marcaAguaRepository.bloquear(MARCA).orElse(null);
+        if (marca == null) {
+            return;
+        }
+
+        for (ResumenMensajes resumen : resumenRepository.findByCerradoFalseAndFinLessThanEqual(marca.getFecha())) {
+            resumen.setCerrado(true);
+            ResumenDTO dto = aDTO(resumen);
+            publicadorEventos.resumenCerrado(dto);
+            log.info("Resumen {} de {} desde {}: {} mensajes", resumen.getPeriodo(), resumen.getBuzon(),
+                    resumen.getInicio(), resumen.getTotal());
+        }
+    }
+
+    private Acumulador abrir(Clave clave) {
+        ResumenMensajes resumen = resumenRepository
+                .findByPeriodoAndInicioAndBuzon(clave.periodo(), clave.inicio(), clave.buzon())
+                .orElseGet(() -> {
+                    ResumenMensajes nuevo = new ResumenMensajes();
+                    nuevo.setPeriodo(clave.periodo());
+                    nuevo.setInicio(clave.inicio());
+                    nuevo.setFin(clave.periodo().finDe(clave.inicio()));
+                    nuevo.setBuzon(clave.buzon());
+                    return nuevo;
+                });
+        return new Acumulador(resumen);
+    }
+
+    private ResumenDTO aDTO(ResumenMensajes resumen) {
+        int mostrados = propiedades.getResumenes().getRemitentesMostrados();
+        List<ResumenDTO.Remitente> remitentes = new SpaceSaving(
+                propiedades.getResumenes().getRemitentesVigilados(), leer(resumen.getRemitentes(), CONTADORES))
+                .top(mostrados).stream()
+                .map(c -> new ResumenDTO.Remitente(c.elemento(), c.cuenta(), c.error()))
+                .toList();
+        return new ResumenDTO(resumen.getPeriodo(), resumen.getInicio(), resumen.getFin(), resumen.getBuzon(),
+                resumen.getTotal(), remitentes, leer(resumen.getVistasPrevias(), VISTAS_PREVIAS));
+    }
+
+    private <T> T leer(String json, TypeReference<T> tipo) {
+        try {
+            return objectMapper.readValue(json, tipo);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Resumen con JSON inválido", e);
+        }
+    }
+
+    private String escribir(Object valor) {
+        try {
+            return objectMapper.writeValueAsString(valor);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el resumen", e);
+        }
+    }
+
+    private void enCadaShard(Runnable accion) {
+        if (shardRouter == null) {
+            accion.run();
+            return;
+        }
+        for (int shard = 0; shard < shardRouter.getNumeroShards(); shard++) {
+            ShardContext.ejecutarEn(shard, accion);
+        }
+    }
+
+    /**
+     * Estado en memoria de un resumen mientras se procesa un lote.
+     */
+    private final class Acumulador {
+
+        private final ResumenMensajes resumen;
+        private final SpaceSaving remitentes;
+        private final Deque<ResumenDTO.VistaPrevia> vistasPrevias;
+
+        Acumulador(ResumenMensajes resumen) {
+            BuzonProperties.Resumenes config = propiedades.getResumenes();
+            this.resumen = resumen;
+            this.remitentes = new SpaceSaving(config.getRemitentesVigilados(), leer(resumen.getRemitentes(), CONTADORES));
+            this.vistasPrevias = new ArrayDeque<>(leer(resumen.getVistasPrevias(), VISTAS_PREVIAS));
+        }
+
+        void agregar(MensajeResponseDTO mensaje) {
+            BuzonProperties.Resumenes config = propiedades.getResumenes();
+            resumen.setTotal(resumen.getTotal() + 1);
+            remitentes.agregar(Normalizacion.email(mensaje.email()));
+
+            String texto = mensaje.contenido();
+            if (texto.length() > config.getLongitudVistaPrevia()) {
+                texto = texto.substring(0, config.getLongitudVistaPrevia()) + "…";
+            }
+            vistasPrevias.addLast(new ResumenDTO.VistaPrevia(mensaje.id(), mensaje.nombre(), texto,
+                    mensaje.fechaCreacion()));
+            while (vistasPrevias.size() > config.getVistasPrevias()) {
+                vistasPrevias.removeFirst();
+            }
+        }
+
+        ResumenMensajes volcar() {
+            resumen.setRemitentes(escribir(remitentes.estado()));
+            resumen.setVistasPrevias(escribir(new ArrayList<>(vistasPrevias)));
+            return resumen;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.miguel.buzon_mensajes.job;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.config.ReplicasConfig;
+import com.miguel.buzon_mensajes.datasource.ReplicaRoutingDataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Comprueba periódicamente el retraso de replicación de cada réplica.
+ *
+ * - PostgreSQL: segundos desde la última transacción aplicada; 0 si la réplica
+ *   ya ha aplicado todo lo recibido (un primario sin escrituras no cuenta como retraso).
+ * - Otras bases de datos (H2 en local): solo se comprueba que respondan.
+ *
+ * Una réplica que no responde o supera buzon.replicas.retraso-maximo-segundos
+ * deja de recibir lecturas hasta la siguiente comprobación correcta.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnExpression("${buzon.replicas.habilitado:false} and !${buzon.shards.habilitado:false}")
+public class RetrasoReplicasJob {
+
+    private static final String CONSULTA_RETRASO_POSTGRES = """
+            SELECT CASE
+                     WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                     ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+                   END""";
+
+    private final ReplicasConfig.PoolsReplica poolsReplica;
+    private final ReplicaRoutingDataSource replicaRoutingDataSource;
+    private final BuzonProperties propiedades;
+
+    @Scheduled(fixedDelayString = "${buzon.replicas.intervalo-comprobacion-ms:5000}")
+    public void comprobarReplicas() {
+        int retrasoMaximo = propiedades.getReplicas().getRetrasoMaximoSegundos();
+
+        for (int i = 0; i < poolsReplica.pools().size(); i++) {
+            boolean antes = replicaRoutingDataSource.estaDisponible(i);
+            boolean ahora;
+            try {
+                double retraso = medirRetraso(poolsReplica.pools().get(i));
+                ahora = retraso <= retrasoMaximo;
+                if (!ahora && antes) {
+                    log.warn("Réplica {} con {} s de retraso; sus lecturas pasan al primario", i, retraso);
+                }
+            } catch (Exception e) {
+                ahora = false;
+                if (antes) {
+                    log.warn("Réplica {} no disponible; sus lecturas pasan al primario: {}", i, e.getMessage());
+                }
+            }
+
+            if (ahora && !antes) {
+                log.info("Réplica {} disponible para lecturas", i);
+            }
+            replicaRoutingDataSource.marcarDisponible(i, ahora);
+        }
+    }
+
+    private double medirRetraso(DataSource replica) throws SQLException {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(replica);
+        if (!esPostgres(replica)) {
+            jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+            return 0;
+        }
+        Double retraso = jdbcTemplate.queryForObject(CONSULTA_RETRASO_POSTGRES, Double.class);
+        return retraso == null ? 0 : retraso;
+    }
+
+    private boolean esPostgres(DataSource replica) throws SQLException {
+        try (Connection conexion = replica.getConnection()) {
+            return "PostgreSQL".equals(conexion.getMetaData().getDatabaseProductName());
+        }
+    }
+}
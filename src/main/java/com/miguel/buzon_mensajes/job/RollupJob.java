@@ -0,0 +1,200 @@
+package com.miguel.buzon_mensajes.job;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.datasource.ShardContext;
+import com.miguel.buzon_mensajes.datasource.ShardRouter;
+import com.miguel.buzon_mensajes.dto.MensajeResponseDTO;
+import com.miguel.buzon_mensajes.model.LatenciaLecturaDia;
+import com.miguel.buzon_mensajes.model.MarcaAgua;
+import com.miguel.buzon_mensajes.repository.LatenciaLecturaDiaRepository;
+import com.miguel.buzon_mensajes.repository.MarcaAguaRepository;
+import com.miguel.buzon_mensajes.repository.MensajeRepository;
+import com.miguel.buzon_mensajes.service.analitica.EscritorRollups;
+import com.miguel.buzon_mensajes.service.analitica.LecturasPendientes;
+import com.miguel.buzon_mensajes.util.HistogramaLatencia;
+import com.miguel.buzon_mensajes.util.Normalizacion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mantiene al día las tablas de rollup (rollup_dia, rollup_remitente_dia,
+ * latencia_lectura_dia) que leen los endpoints de analítica.
+ *
+ * Mensajes recibidos: recorre la tabla mensaje desde una marca de agua
+ * ("rollups"), igual que ResumenJob: cada lote se agrega en memoria por día
+ * y por remitente y se suma a los rollups en la misma transacción que avanza
+ * la marca. Así crear un mensaje no escribe en ninguna tabla más y cada
+ * mensaje se cuenta exactamente una vez.
+ *
+ * Lecturas: marcarComoLeido las anota en {@link LecturasPendientes} y aquí se
+ * vuelcan al histograma de latencia del día, bajo el mismo bloqueo de la marca.
+ *
+ * La primera vez la marca empieza en ese momento y deja apuntado el límite
+ * para ReconstruccionRollupsJob, que agrega en paralelo los mensajes
+ * anteriores. Con sharding cada shard tiene su marca y sus rollups; las
+ * lecturas de memoria se vuelcan en el primer shard (los endpoints suman
+ * todos). Solo se activa con buzon.rollups.habilitado=true.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "buzon.rollups", name = "habilitado", havingValue = "true")
+public class RollupJob {
+
+    static final String MARCA = EscritorRollups.MARCA;
+
+    static final String MARCA_RECONSTRUCCION = EscritorRollups.MARCA_RECONSTRUCCION;
+
+    private final MensajeRepository mensajeRepository;
+    private final MarcaAguaRepository marcaAguaRepository;
+    private final EscritorRollups escritorRollups;
+    private final LecturasPendientes lecturasPendientes;
+    private final LatenciaLecturaDiaRepository latenciaRepository;
+    private final BuzonProperties propiedades;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+    private final Clock reloj;
+
+    @Autowired
+    public RollupJob(MensajeRepository mensajeRepository,
+                     MarcaAguaRepository marcaAguaRepository,
+                     EscritorRollups escritorRollups,
+                     LecturasPendientes lecturasPendientes,
+                     LatenciaLecturaDiaRepository latenciaRepository,
+                     BuzonProperties propiedades,
+                     TransactionTemplate transactionTemplate,
+                     ObjectProvider<ShardRouter> shardRouter) {
+        this(mensajeRepository, marcaAguaRepository, escritorRollups, lecturasPendientes, latenciaRepository,
+                propiedades, transactionTemplate, shardRouter.getIfAvailable(), Clock.systemDefaultZone());
+    }
+
+    RollupJob(MensajeRepository mensajeRepository,
+              MarcaAguaRepository marcaAguaRepository,
+              EscritorRollups escritorRollups,
+              LecturasPendientes lecturasPendientes,
+              LatenciaLecturaDiaRepository latenciaRepository,
+              BuzonProperties propiedades,
+              TransactionTemplate transactionTemplate,
+              ShardRouter shardRouter,
+              Clock reloj) {
+        this.mensajeRepository = mensajeRepository;
+        this.marcaAguaRepository = marcaAguaRepository;
+        this.escritorRollups = escritorRollups;
+        this.lecturasPendientes = lecturasPendientes;
+        this.latenciaRepository = latenciaRepository;
+        this.propiedades = propiedades;
+        this.transactionTemplate = transactionTemplate;
+        this.shardRouter = shardRouter;
+        this.reloj = reloj;
+    }
+
+    @Scheduled(fixedDelayString = "${buzon.rollups.intervalo-ms:60000}")
+    public void actualizar() {
+        if (shardRouter == null) {
+            actualizarShard(true);
+            return;
+        }
+        for (int shard = 0; shard < shardRouter.getNumeroShards(); shard++) {
+            boolean primero = shard == 0;
+            ShardContext.ejecutarEn(shard, () -> actualizarShard(primero));
+        }
+    }
+
+    private void actualizarShard(boolean volcarLecturas) {
+        int lote = propiedades.getRollups().getTamanoLote();
+        Integer leidos;
+        do {
+            leidos = transactionTemplate.execute(status -> procesarLote());
+        } while (leidos != null && leidos == lote);
+
+        if (!volcarLecturas) {
+            return;
+        }
+        Map<LocalDate, HistogramaLatencia> lecturas = lecturasPendientes.vaciar();
+        LocalDate hoy = LocalDate.now(reloj);
+        HistogramaLatencia delDia;
+        try {
+            delDia = transactionTemplate.execute(status -> volcarLecturas(lecturas, hoy));
+        } catch (RuntimeException e) {
+            // Se reintentan en la siguiente pasada
+            lecturasPendientes.devolver(lecturas);
+            throw e;
+        }
+        lecturasPendientes.volcado(hoy, delDia);
+    }
+
+    /**
+     * Suma el siguiente lote de mensajes a los rollups y avanza la marca.
+     * Devuelve cuántos mensajes se leyeron. Debe llamarse dentro de una transacción.
+     */
+    int procesarLote() {
+        BuzonProperties.Rollups config = propiedades.getRollups();
+        LocalDateTime hasta = LocalDateTime.now(reloj).minusSeconds(config.getMargenSegundos());
+
+        MarcaAgua marca = marcaAguaRepository.bloquear(MARCA).orElse(null);
+        if (marca == null) {
+            // Primera vez: desde ahora; lo anterior lo agrega la reconstrucción
+            marca = new MarcaAgua(MARCA, null, null);
+            marca.completarHasta(hasta);
+            marcaAguaRepository.save(marca);
+            marcaAguaRepository.save(new MarcaAgua(MARCA_RECONSTRUCCION, hasta, 0L));
+            log.info("Rollups iniciados; los mensajes hasta {} se agregarán en segundo plano", hasta);
+            return 0;
+        }
+
+        List<MensajeResponseDTO> mensajes = mensajeRepository.buscarDesdeMarca(
+                marca.getFecha(), marca.getUltimoId(), hasta, PageRequest.of(0, config.getTamanoLote()));
+
+        Map<LocalDate, Long> porDia = new HashMap<>();
+        Map<EscritorRollups.RemitenteDia, Long> porRemitente = new HashMap<>();
+        for (MensajeResponseDTO mensaje : mensajes) {
+            LocalDate dia = mensaje.fechaCreacion().toLocalDate();
+            porDia.merge(dia, 1L, Long::sum);
+            porRemitente.merge(new EscritorRollups.RemitenteDia(dia, Normalizacion.email(mensaje.email())),
+                    1L, Long::sum);
+        }
+        escritorRollups.sumarRecibidos(porDia, porRemitente);
+
+        if (mensajes.size() < config.getTamanoLote()) {
+            marca.completarHasta(hasta);
+        } else {
+            MensajeResponseDTO ultimo = mensajes.get(mensajes.size() - 1);
+            marca.setFecha(ultimo.fechaCreacion());
+            marca.setUltimoId(ultimo.id());
+        }
+        marcaAguaRepository.save(marca);
+        return mensajes.size();
+    }
+
+    /**
+     * Vuelca lecturas pendientes bajo el bloqueo de la marca y devuelve el
+     * histograma guardado de "hoy" (para las métricas).
+     * Debe llamarse dentro de una transacción.
+     */
+    HistogramaLatencia volcarLecturas(Map<LocalDate, HistogramaLatencia> lecturas, LocalDate hoy) {
+        marcaAguaRepository.bloquear(MARCA);
+        Map<LocalDate, HistogramaLatencia> guardados = lecturas.isEmpty()
+                ? Map.of()
+                : escritorRollups.sumarLecturas(lecturas);
+
+        HistogramaLatencia delDia = guardados.get(hoy);
+        if (delDia == null) {
+            delDia = latenciaRepository.findById(hoy)
+                    .map(LatenciaLecturaDia::leer)
+                    .orElseGet(HistogramaLatencia::new);
+        }
+        return delDia;
+    }
+}
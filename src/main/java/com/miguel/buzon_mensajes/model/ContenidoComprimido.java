@@ -0,0 +1,66 @@
+package com.miguel.buzon_mensajes.model;
+
+import com.miguel.buzon_mensajes.util.CompresionTexto;
+
+import java.util.Arrays;
+
+/**
+ * Contenido de un mensaje guardado comprimido ({@link CompresionTexto}).
+ *
+ * Al leer la fila solo se guardan los bytes: el texto se descomprime la
+ * primera vez que se pide (y se conserva). Las consultas que cargan muchas
+ * entidades para usar solo unas pocas (candidatos a similar, archivo) no
+ * descomprimen las que descartan.
+ *
+ * Inmutable: Hibernate compara por equals() para saber si ha cambiado.
+ */
+public final class ContenidoComprimido {
+
+    private final byte[] datos;
+    private String texto;
+
+    private ContenidoComprimido(byte[] datos, String texto) {
+        this.datos = datos;
+        this.texto = texto;
+    }
+
+    public static ContenidoComprimido de(String texto) {
+        return new ContenidoComprimido(CompresionTexto.comprimir(texto), texto);
+    }
+
+    static ContenidoComprimido leido(byte[] datos) {
+        return new ContenidoComprimido(datos, null);
+    }
+
+    public String texto() {
+        if (texto == null) {
+            texto = CompresionTexto.descomprimir(datos);
+        }
+        return texto;
+    }
+
+    /**
+     * Lo que se guarda en la columna (la escritura JDBC de la importación también lo usa).
+     */
+    public byte[] datos() {
+        return datos;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ContenidoComprimido otro && Arrays.equals(datos, otro.datos);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(datos);
+    }
+
+    /**
+     * Sin descomprimir: lo usa el toString() de Mensaje.
+     */
+    @Override
+    public String toString() {
+        return "ContenidoComprimido[" + datos.length + " bytes]";
+    }
+}
@@ -0,0 +1,24 @@
+package com.miguel.buzon_mensajes.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Columna contenido_comprimido (bytea en PostgreSQL) ↔ {@link ContenidoComprimido}.
+ *
+ * No comprime ni descomprime: comprimir se hace al crear el valor y
+ * descomprimir, solo cuando alguien pide el texto.
+ */
+@Converter
+public class ContenidoComprimidoConverter implements AttributeConverter<ContenidoComprimido, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(ContenidoComprimido contenido) {
+        return contenido == null ? null : contenido.datos();
+    }
+
+    @Override
+    public ContenidoComprimido convertToEntityAttribute(byte[] datos) {
+        return datos == null ? null : ContenidoComprimido.leido(datos);
+    }
+}
@@ -0,0 +1,124 @@
+package com.miguel.buzon_mensajes.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Notificación pendiente de entregar (patrón "transactional outbox").
+ *
+ * Se inserta en la misma transacción que el mensaje que la origina: si la
+ * transacción se deshace, tampoco queda evento; si se confirma, el evento
+ * se entregará tarde o temprano aunque la aplicación se caiga justo después.
+ * La entrega la hace DespachadorOutboxJob, fuera de la petición web.
+ *
+ * Hay una fila por destino (webhook, correo...), así cada destino se
+ * reintenta por su cuenta sin repetir los que ya funcionaron.
+ */
+@Entity
+@Table(
+        name = "evento_outbox",
+        indexes = {
+                // Lo único que consulta el despachador: pendientes cuyo turno ha llegado
+                @Index(name = "idx_evento_outbox_pendientes", columnList = "estado, proximo_intento"),
+                @Index(name = "idx_evento_outbox_reclamo", columnList = "reclamo")
+        }
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoOutbox {
+
+    public static final String MENSAJE_CREADO = "MENSAJE_CREADO";
+
+    /**
+     * Resumen de un periodo cerrado por ResumenJob (payload: ResumenDTO).
+     */
+    public static final String RESUMEN = "RESUMEN";
+
+    public enum Estado {
+        PENDIENTE,
+        ENVIADO,
+        /**
+         * Agotó los reintentos (o su destino ya no está configurado).
+         */
+        DESCARTADO
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 50)
+    private String tipo;
+
+    /**
+     * Nombre del destino que debe entregarlo (ver DestinoNotificacion#nombre).
+     */
+    @Column(nullable = false, length = 30)
+    private String destino;
+
+    /**
+     * Mensaje que lo originó (null en los resúmenes).
+     */
+    @Column(name = "mensaje_id")
+    private Long mensajeId;
+
+    /**
+     * Copia en JSON del mensaje (o del resumen) en el momento de crearse: el
+     * evento se puede entregar aunque el mensaje se haya borrado o archivado
+     * entretanto.
+     */
+    @Column(nullable = false, length = 4000)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Estado estado = Estado.PENDIENTE;
+
+    @Column(nullable = false)
+    private int intentos = 0;
+
+    /**
+     * Cuándo puede intentarse la entrega. Al reclamar un lote se adelanta al
+     * final del plazo de reclamo: si la instancia muere a mitad, el evento
+     * vuelve a estar disponible al vencer ese plazo.
+     */
+    @Column(name = "proximo_intento", nullable = false)
+    private LocalDateTime proximoIntento;
+
+    /**
+     * Identificador del lote que lo ha reclamado por última vez.
+     */
+    @Column(length = 36)
+    private String reclamo;
+
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+
+    @Column(name = "fecha_creacion", nullable = false, updatable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "fecha_envio")
+    private LocalDateTime fechaEnvio;
+
+    public static EventoOutbox nuevo(String tipo, String destino, Long mensajeId, String payload) {
+        EventoOutbox evento = new EventoOutbox();
+        evento.setTipo(tipo);
+        evento.setDestino(destino);
+        evento.setMensajeId(mensajeId);
+        evento.setPayload(payload);
+        return evento;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        fechaCreacion = LocalDateTime.now();
+        if (proximoIntento == null) {
+            proximoIntento = fechaCreacion;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.miguel.buzon_mensajes.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progreso de una importación masiva, identificada por la clave que elige el
+ * cliente.
+ *
+ * lineaConfirmada es la última línea del fichero cuyas filas ya están
+ * guardadas; se actualiza en la misma transacción que cada tramo de filas.
+ * Si la importación se corta, repetirla con la misma clave y el mismo fichero
+ * salta lo confirmado y sigue desde ahí, sin duplicar mensajes. Con sharding
+ * cada shard guarda su propio progreso.
+ */
+@Entity
+@Table(name = "importacion")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Importacion {
+
+    @Id
+    @Column(length = 100)
+    private String clave;
+
+    @Column(name = "linea_confirmada", nullable = false)
+    private long lineaConfirmada;
+
+    @Column(nullable = false)
+    private long importados;
+
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime fechaActualizacion;
+}
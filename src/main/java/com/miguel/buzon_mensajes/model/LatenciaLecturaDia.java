@@ -0,0 +1,46 @@
+package com.miguel.buzon_mensajes.model;
+
+import com.miguel.buzon_mensajes.util.HistogramaLatencia;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Tiempo hasta la lectura de los mensajes leídos en un día: un
+ * {@link HistogramaLatencia} codificado, del que salen los percentiles y el
+ * histograma por potencias de 2.
+ *
+ * Una fila por día de tamaño acotado (unas decenas de bytes habitualmente),
+ * sea cual sea el número de lecturas. La alimenta RollupJob.
+ */
+@Entity
+@Table(name = "latencia_lectura_dia")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LatenciaLecturaDia {
+
+    @Id
+    private LocalDate dia;
+
+    @Column(nullable = false)
+    private long total;
+
+    @Column(nullable = false, length = 8192)
+    private byte[] histograma;
+
+    public HistogramaLatencia leer() {
+        return HistogramaLatencia.decodificar(histograma);
+    }
+
+    public void escribir(HistogramaLatencia valor) {
+        this.total = valor.total();
+        this.histograma = valor.codificar();
+    }
+}
@@ -0,0 +1,50 @@
+package com.miguel.buzon_mensajes.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Hasta dónde ha procesado la tabla mensaje una tarea incremental.
+ *
+ * La posición es el par (fecha, ultimoId) del último mensaje procesado, en el
+ * mismo orden en que se recorre (fecha_creacion, id): varios mensajes con la
+ * misma fecha no se saltan ni se repiten. Se guarda en la misma transacción
+ * que el resultado de cada lote, así que tras un reinicio la tarea sigue justo
+ * donde lo dejó.
+ */
+@Entity
+@Table(name = "marca_agua")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MarcaAgua {
+
+    /**
+     * Tarea a la que pertenece (una fila por tarea).
+     */
+    @Id
+    @Column(length = 50)
+    private String nombre;
+
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+
+    @Column(name = "ultimo_id", nullable = false)
+    private Long ultimoId;
+
+    /**
+     * Marca el instante como procesado por completo: no quedan mensajes con
+     * fecha anterior o igual sin procesar.
+     */
+    public void completarHasta(LocalDateTime instante) {
+        this.fecha = instante;
+        this.ultimoId = Long.MAX_VALUE;
+    }
+}
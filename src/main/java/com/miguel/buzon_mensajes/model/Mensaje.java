@@ -1,18 +1,52 @@
 package com.miguel.buzon_mensajes.model;
 
+import com.miguel.buzon_mensajes.util.Normalizacion;
+import com.miguel.buzon_mensajes.util.SimHash;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Mutability;
+import org.hibernate.annotations.SQLRestriction;
+import org.hibernate.type.descriptor.java.Immutability;
+
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "mensaje")
+@Table(
+        name = "mensaje",
+        indexes = {
+                // Orden habitual de los listados; con la tabla particionada por mes
+                // permite recorrer las particiones en orden y parar al llenar la página
+                @Index(name = "idx_mensaje_fecha_creacion", columnList = "fecha_creacion"),
+                // Búsquedas por remitente sin distinguir mayúsculas, ya en el orden del listado
+                @Index(name = "idx_mensaje_email_normalizado", columnList = "email_normalizado, fecha_creacion"),
+                @Index(name = "idx_mensaje_nombre_normalizado", columnList = "nombre_normalizado"),
+                // Una columna indexada por banda del SimHash para la búsqueda de similares
+                @Index(name = "idx_mensaje_simhash_b0", columnList = "simhash_banda0"),
+                @Index(name = "idx_mensaje_simhash_b1", columnList = "simhash_banda1"),
+                @Index(name = "idx_mensaje_simhash_b2", columnList = "simhash_banda2"),
+                @Index(name = "idx_mensaje_simhash_b3", columnList = "simhash_banda3"),
+                // Cola de PurgaMensajesJob (los eliminados pendientes de borrar)
+                @Index(name = "idx_mensaje_eliminado_en", columnList = "eliminado_en")
+        }
+)
+// Los eliminados no existen para JPA: toda consulta sobre Mensaje lleva este filtro.
+// En PostgreSQL los índices son parciales con la misma condición (db/postgres/indices-parciales-mensaje.sql)
+@SQLRestriction("eliminado_en IS NULL")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Mensaje {
 
+    /**
+     * Buzón por defecto cuando el formulario no indica ninguno.
+     */
+    public static final String BUZON_PRINCIPAL = "principal";
+
+    public static final int LONGITUD_VISTA_PREVIA = 200;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -23,17 +57,162 @@ public class Mensaje {
     @Column(nullable = false, length = 150)
     private String email;
 
-    @Column(nullable = false, length = 1000)
+    /**
+     * Contenido en texto plano, o null si se guardó en contenidoComprimido
+     * (buzon.compresion.habilitada). getContenido() devuelve el texto en los
+     * dos casos.
+     */
+    @Column(length = 1000)
     private String contenido;
 
+    /**
+     * Contenido comprimido con el diccionario compartido. Solo se usa con los
+     * mensajes más largos que la vista previa: los cortos ya caben enteros en
+     * ella y no ganan nada.
+     */
+    @Convert(converter = ContenidoComprimidoConverter.class)
+    @Mutability(Immutability.class)
+    @Column(name = "contenido_comprimido", length = 4000)
+    private ContenidoComprimido contenidoComprimido;
+
+    /**
+     * Principio del contenido ({@link #LONGITUD_VISTA_PREVIA} caracteres,
+     * con "…" si sigue): los listados la usan cuando el contenido está
+     * comprimido, así que nunca descomprimen. Se rellena al asignar el
+     * contenido; es null en los mensajes anteriores a esta columna.
+     */
+    @Column(name = "vista_previa", length = LONGITUD_VISTA_PREVIA)
+    private String vistaPrevia;
+
+    /**
+     * Email y nombre en su forma de comparación ({@link Normalizacion}): las
+     * búsquedas usan estas columnas indexadas en lugar de upper()/lower(),
+     * que no pueden usar un índice normal. Se rellenan al asignar email y
+     * nombre; las filas anteriores las completa NormalizacionMensajesJob.
+     */
+    @Column(name = "email_normalizado", length = 150)
+    private String emailNormalizado;
+
+    @Column(name = "nombre_normalizado", length = 100)
+    private String nombreNormalizado;
+
     @Column(name = "fecha_creacion", nullable = false, updatable = false)
     private LocalDateTime fechaCreacion;
 
     @Column(nullable = false)
     private Boolean leido = false;
 
+    /**
+     * Cuándo se marcó como leído (null si no lo está o se leyó antes de
+     * existir esta columna).
+     */
+    @Column(name = "fecha_lectura")
+    private LocalDateTime fechaLectura;
+
+    /**
+     * Cuándo se eliminó (null si no lo está). Eliminar solo rellena esta
+     * columna; el borrado real lo hace PurgaMensajesJob pasado el plazo de
+     * buzon.purga.dias-retencion, y hasta entonces se puede restaurar.
+     */
+    @Column(name = "eliminado_en")
+    private LocalDateTime eliminadoEn;
+
+    /**
+     * Versión para el bloqueo optimista: sube con cada cambio de estado
+     * (leído, eliminado, restaurado). Los cambios se hacen con UPDATE
+     * condicionales sobre esta columna en lugar de leer y guardar, y es la
+     * parte del ETag que se compara con If-Match. El valor por defecto en BD
+     * permite añadir la columna a tablas con datos (y a las filas importadas).
+     * Null hasta guardarlo: así Spring Data lo reconoce como nuevo.
+     */
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
+
+    /**
+     * Buzón (marca o formulario) al que llegó el mensaje; es la clave de sharding.
+     * El valor por defecto en BD permite añadir la columna a tablas con datos.
+     */
+    @Column(nullable = false, length = 50)
+    @ColumnDefault("'" + BUZON_PRINCIPAL + "'")
+    private String buzon = BUZON_PRINCIPAL;
+
+    /**
+     * Huella SimHash del contenido (ver {@link SimHash}).
+     */
+    @Column(name = "simhash")
+    private Long simhash;
+
+    @Column(name = "simhash_banda0")
+    private Integer simhashBanda0;
+
+    @Column(name = "simhash_banda1")
+    private Integer simhashBanda1;
+
+    @Column(name = "simhash_banda2")
+    private Integer simhashBanda2;
+
+    @Column(name = "simhash_banda3")
+    private Integer simhashBanda3;
+
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+        this.nombreNormalizado = Normalizacion.nombre(nombre);
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+        this.emailNormalizado = Normalizacion.email(email);
+    }
+
+    public String getContenido() {
+        if (contenido == null && contenidoComprimido != null) {
+            return contenidoComprimido.texto();
+        }
+        return contenido;
+    }
+
+    public void setContenido(String contenido) {
+        this.contenido = contenido;
+        this.contenidoComprimido = null;
+        if (contenido == null || contenido.length() <= LONGITUD_VISTA_PREVIA) {
+            this.vistaPrevia = contenido;
+        } else {
+            int corte = LONGITUD_VISTA_PREVIA - 1;
+            if (Character.isHighSurrogate(contenido.charAt(corte - 1))) {
+                corte--; // sin partir un emoji (par sustituto) por la mitad
+            }
+            this.vistaPrevia = contenido.substring(0, corte) + "…";
+        }
+    }
+
+    /**
+     * Pasa el contenido a contenidoComprimido si es más largo que la vista previa.
+     */
+    public void comprimirContenido() {
+        if (contenido != null && contenido.length() > LONGITUD_VISTA_PREVIA) {
+            this.contenidoComprimido = ContenidoComprimido.de(contenido);
+            this.contenido = null;
+        }
+    }
+
+    /**
+     * Asigna la huella y mantiene sincronizadas sus bandas indexadas. La
+     * huella de un texto sin palabras se guarda sin bandas: así no aparece
+     * como candidata en ninguna búsqueda de similares.
+     */
+    public void setSimhash(Long simhash) {
+        this.simhash = simhash;
+        boolean indexar = simhash != null && SimHash.comparable(simhash);
+        this.simhashBanda0 = indexar ? SimHash.banda(simhash, 0) : null;
+        this.simhashBanda1 = indexar ? SimHash.banda(simhash, 1) : null;
+        this.simhashBanda2 = indexar ? SimHash.banda(simhash, 2) : null;
+        this.simhashBanda3 = indexar ? SimHash.banda(simhash, 3) : null;
+    }
+
     @PrePersist
     protected void onCreate() {
         fechaCreacion = LocalDateTime.now();
     }
-}
\ No newline at end of file
+}
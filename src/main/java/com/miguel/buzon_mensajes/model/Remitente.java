@@ -0,0 +1,53 @@
+package com.miguel.buzon_mensajes.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Una fila por remitente (email normalizado) con sus contadores.
+ *
+ * Se mantiene al crear, leer y eliminar mensajes (EscritorRemitentes), así el
+ * directorio de remitentes se lee por la clave primaria en lugar de hacer un
+ * DISTINCT sobre toda la tabla mensaje.
+ *
+ * Los mensajes archivados en frío siguen contando: solo resta eliminar.
+ */
+@Entity
+@Table(name = "remitente")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Remitente {
+
+    /**
+     * Email normalizado (ver Normalizacion.email).
+     */
+    @Id
+    @Column(length = 150)
+    private String email;
+
+    /**
+     * Nombre del mensaje más reciente, tal como llegó.
+     */
+    @Column(length = 100)
+    private String nombre;
+
+    @Column(name = "primer_mensaje", nullable = false)
+    private LocalDateTime primerMensaje;
+
+    @Column(name = "ultimo_mensaje", nullable = false)
+    private LocalDateTime ultimoMensaje;
+
+    @Column(nullable = false)
+    private long total;
+
+    @Column(name = "no_leidos", nullable = false)
+    private long noLeidos;
+}
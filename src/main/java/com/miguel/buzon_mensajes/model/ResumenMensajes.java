@@ -0,0 +1,92 @@
+package com.miguel.buzon_mensajes.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Resumen de los mensajes que llegaron a un buzón en una hora o un día.
+ *
+ * Lo va completando ResumenJob por lotes mientras el periodo está abierto;
+ * al terminar el periodo se cierra y se envía como notificación.
+ * Los remitentes y las vistas previas se guardan como JSON, con tamaño
+ * acotado (ver buzon.resumenes.*).
+ */
+@Entity
+@Table(
+        name = "resumen_mensajes",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_resumen_periodo_inicio_buzon",
+                columnNames = {"periodo", "inicio", "buzon"}
+        ),
+        indexes = @Index(name = "idx_resumen_abiertos", columnList = "cerrado, fin")
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumenMensajes {
+
+    public enum Periodo {
+        HORA(ChronoUnit.HOURS),
+        DIA(ChronoUnit.DAYS);
+
+        private final ChronoUnit unidad;
+
+        Periodo(ChronoUnit unidad) {
+            this.unidad = unidad;
+        }
+
+        /**
+         * Inicio del periodo que contiene el instante.
+         */
+        public LocalDateTime inicioDe(LocalDateTime instante) {
+            return instante.truncatedTo(unidad);
+        }
+
+        public LocalDateTime finDe(LocalDateTime inicio) {
+            return inicio.plus(1, unidad);
+        }
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Periodo periodo;
+
+    @Column(nullable = false)
+    private LocalDateTime inicio;
+
+    /**
+     * Inicio del periodo siguiente (exclusivo).
+     */
+    @Column(nullable = false)
+    private LocalDateTime fin;
+
+    @Column(nullable = false, length = 50)
+    private String buzon;
+
+    @Column(nullable = false)
+    private long total;
+
+    /**
+     * Contadores Space-Saving de remitentes (email) en JSON.
+     */
+    @Column(nullable = false, length = 4000)
+    private String remitentes = "[]";
+
+    /**
+     * Últimos mensajes del periodo, recortados, en JSON.
+     */
+    @Column(name = "vistas_previas", nullable = false, length = 4000)
+    private String vistasPrevias = "[]";
+
+    @Column(nullable = false)
+    private boolean cerrado;
+}
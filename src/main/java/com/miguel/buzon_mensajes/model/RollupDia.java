@@ -0,0 +1,34 @@
+package com.miguel.buzon_mensajes.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Mensajes recibidos y leídos en un día (tabla precalculada por RollupJob).
+ *
+ * "leidos" cuenta los mensajes marcados como leídos ese día, sea cual sea
+ * el día en que llegaron.
+ */
+@Entity
+@Table(name = "rollup_dia")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupDia {
+
+    @Id
+    private LocalDate dia;
+
+    @Column(nullable = false)
+    private long recibidos;
+
+    @Column(nullable = false)
+    private long leidos;
+}
@@ -0,0 +1,38 @@
+package com.miguel.buzon_mensajes.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Mensajes de un remitente (email normalizado, como en remitente) en un día.
+ *
+ * Las consultas de "quién escribe más" agrupan esta tabla, que tiene una fila
+ * por remitente y día, en lugar de la tabla mensaje.
+ */
+@Entity
+@Table(
+        name = "rollup_remitente_dia",
+        uniqueConstraints = @UniqueConstraint(name = "uk_rollup_remitente_dia", columnNames = {"dia", "email"})
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupRemitenteDia {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate dia;
+
+    @Column(nullable = false, length = 150)
+    private String email;
+
+    @Column(nullable = false)
+    private long total;
+}
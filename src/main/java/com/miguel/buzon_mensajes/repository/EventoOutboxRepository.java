@@ -0,0 +1,93 @@
+package com.miguel.buzon_mensajes.repository;
+
+import com.miguel.buzon_mensajes.model.EventoOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EventoOutboxRepository extends JpaRepository<EventoOutbox, Long> {
+
+    /**
+     * Ids de los eventos pendientes cuyo turno ya ha llegado, los más atrasados primero.
+     */
+    @Query("""
+            SELECT e.id FROM EventoOutbox e
+            WHERE e.estado = :estado AND e.proximoIntento <= :ahora
+            ORDER BY e.proximoIntento
+            """)
+    List<Long> buscarListos(
+            @Param("estado") EventoOutbox.Estado estado,
+            @Param("ahora") LocalDateTime ahora,
+            Pageable pageable
+    );
+
+    /**
+     * Reclamar eventos para un lote: los aparta hasta "hasta".
+     *
+     * La condición sobre proximoIntento se vuelve a comprobar en el UPDATE,
+     * así que si dos instancias leyeron los mismos ids solo una se queda con
+     * cada fila (la otra actualiza 0 filas para ella).
+     */
+    @Modifying
+    @Query("""
+            UPDATE EventoOutbox e
+            SET e.reclamo = :reclamo, e.proximoIntento = :hasta
+            WHERE e.id IN :ids AND e.estado = :estado AND e.proximoIntento <= :ahora
+            """)
+    int reclamar(
+            @Param("ids") Collection<Long> ids,
+            @Param("reclamo") String reclamo,
+            @Param("estado") EventoOutbox.Estado estado,
+            @Param("ahora") LocalDateTime ahora,
+            @Param("hasta") LocalDateTime hasta
+    );
+
+    List<EventoOutbox> findByReclamo(String reclamo);
+
+    @Modifying
+    @Query("""
+            UPDATE EventoOutbox e
+            SET e.estado = :estado, e.fechaEnvio = :fecha, e.intentos = e.intentos + 1, e.ultimoError = NULL
+            WHERE e.id IN :ids
+            """)
+    int marcarEnviados(
+            @Param("ids") Collection<Long> ids,
+            @Param("estado") EventoOutbox.Estado estado,
+            @Param("fecha") LocalDateTime fecha
+    );
+
+    /**
+     * Anotar un intento fallido: nuevo estado, siguiente intento y el error.
+     */
+    @Modifying
+    @Query("""
+            UPDATE EventoOutbox e
+            SET e.estado = :estado, e.intentos = :intentos, e.proximoIntento = :proximo, e.ultimoError = :error
+            WHERE e.id = :id
+            """)
+    int registrarFallo(
+            @Param("id") Long id,
+            @Param("estado") EventoOutbox.Estado estado,
+            @Param("intentos") int intentos,
+            @Param("proximo") LocalDateTime proximo,
+            @Param("error") String error
+    );
+
+    /**
+     * Borrar los eventos ya entregados antes de una fecha.
+     */
+    @Modifying
+    @Query("DELETE FROM EventoOutbox e WHERE e.estado = :estado AND e.fechaEnvio < :limite")
+    int borrarEnviadosAntesDe(
+            @Param("estado") EventoOutbox.Estado estado,
+            @Param("limite") LocalDateTime limite
+    );
+}
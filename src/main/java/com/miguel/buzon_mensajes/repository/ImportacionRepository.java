@@ -0,0 +1,23 @@
+package com.miguel.buzon_mensajes.repository;
+
+import com.miguel.buzon_mensajes.model.Importacion;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ImportacionRepository extends JpaRepository<Importacion, String> {
+
+    /**
+     * Leer el progreso bloqueando su fila hasta el final de la transacción:
+     * dos importaciones con la misma clave no confirman el mismo tramo.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Importacion i WHERE i.clave = :clave")
+    Optional<Importacion> bloquear(@Param("clave") String clave);
+}
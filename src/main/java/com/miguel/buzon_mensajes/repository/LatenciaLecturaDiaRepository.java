@@ -0,0 +1,17 @@
+package com.miguel.buzon_mensajes.repository;
+
+import com.miguel.buzon_mensajes.model.LatenciaLecturaDia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LatenciaLecturaDiaRepository extends JpaRepository<LatenciaLecturaDia, LocalDate> {
+
+    List<LatenciaLecturaDia> findByDiaIn(Collection<LocalDate> dias);
+
+    List<LatenciaLecturaDia> findByDiaBetweenOrderByDia(LocalDate desde, LocalDate hasta);
+}
@@ -0,0 +1,25 @@
+package com.miguel.buzon_mensajes.repository;
+
+import com.miguel.buzon_mensajes.model.MarcaAgua;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface MarcaAguaRepository extends JpaRepository<MarcaAgua, String> {
+
+    /**
+     * Leer la marca bloqueando su fila hasta el final de la transacción.
+     *
+     * Con varias instancias, la segunda espera a que la primera confirme y
+     * lee la marca ya avanzada: ningún lote se procesa dos veces.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM MarcaAgua m WHERE m.nombre = :nombre")
+    Optional<MarcaAgua> bloquear(@Param("nombre") String nombre);
+}
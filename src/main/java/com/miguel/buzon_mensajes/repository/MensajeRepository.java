@@ -1,13 +1,23 @@
 package com.miguel.buzon_mensajes.repository;
 
+import com.miguel.buzon_mensajes.dto.ContenidoComprimidoDTO;
+import com.miguel.buzon_mensajes.dto.EstadisticasDTO;
+import com.miguel.buzon_mensajes.dto.HuellaSimilarDTO;
+import com.miguel.buzon_mensajes.dto.MensajeResponseDTO;
+import com.miguel.buzon_mensajes.dto.RecuentoRemitenteDiaDTO;
 import com.miguel.buzon_mensajes.model.Mensaje;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface MensajeRepository extends JpaRepository<Mensaje, Long> {
@@ -26,9 +36,11 @@ public interface MensajeRepository extends JpaRepository<Mensaje, Long> {
     Page<Mensaje> findByLeido(Boolean leido, Pageable pageable);
 
     /**
-     * Buscar mensajes por email con paginación.
+     * Buscar mensajes por email con paginación. Recibe el email ya
+     * normalizado (Normalizacion.email), igual que el resto de búsquedas por
+     * remitente: así se resuelven con idx_mensaje_email_normalizado.
      */
-    Page<Mensaje> findByEmail(String email, Pageable pageable);
+    Page<Mensaje> findByEmailNormalizado(String emailNormalizado, Pageable pageable);
 
     /**
      * Buscar mensajes por contenido con paginación.
@@ -38,11 +50,301 @@ public interface MensajeRepository extends JpaRepository<Mensaje, Long> {
     // ===== MÉTODOS SIN PAGINACIÓN (mantener para casos específicos) =====
 
     List<Mensaje> findByLeido(Boolean leido);
-    List<Mensaje> findByEmail(String email);
+    List<Mensaje> findByEmailNormalizado(String emailNormalizado);
     Long countByLeido(Boolean leido);
-    List<Mensaje> findByNombreIgnoreCase(String nombre);
-    List<Mensaje> findByEmailAndLeido(String email, Boolean leido);
+
+    /**
+     * Total y no leídos en un solo recorrido de la tabla.
+     */
+    @Query("""
+            SELECT new com.miguel.buzon_mensajes.dto.EstadisticasDTO(
+                COUNT(m), SUM(CASE WHEN m.leido = false THEN 1L ELSE 0L END))
+            FROM Mensaje m
+            """)
+    EstadisticasDTO obtenerEstadisticas();
+    /**
+     * Por nombre sin distinguir mayúsculas (Normalizacion.nombre), con índice.
+     */
+    List<Mensaje> findByNombreNormalizado(String nombreNormalizado);
+    List<Mensaje> findByEmailNormalizadoAndLeido(String emailNormalizado, Boolean leido);
     List<Mensaje> findByContenidoContaining(String palabra);
+    /**
+     * Filtra por fecha_creacion, la columna de partición en PostgreSQL:
+     * solo se leen las particiones de los meses implicados.
+     */
     List<Mensaje> findByFechaCreacionAfter(LocalDateTime fecha);
     List<Mensaje> findTop10ByLeidoOrderByFechaCreacionDesc(Boolean leido);
-}
\ No newline at end of file
+
+    // ===== PROYECCIONES DIRECTAS A DTO (LISTADOS DE LA API) =====
+
+    /**
+     * SELECT común de los listados: construye el DTO en la propia consulta
+     * (constructor expression), sin entidades gestionadas ni copia campo a campo.
+     * De los mensajes con el contenido comprimido trae la vista previa: un
+     * listado nunca descomprime.
+     */
+    String SELECT_DTO = """
+            SELECT new com.miguel.buzon_mensajes.dto.MensajeResponseDTO(
+                m.id, m.nombre, m.email, COALESCE(m.contenido, m.vistaPrevia), m.fechaCreacion, m.leido, m.buzon)
+            FROM Mensaje m
+            """;
+
+    /**
+     * Como SELECT_DTO pero con el contenido completo (descomprimido si hace falta).
+     */
+    String SELECT_DTO_COMPLETO = """
+            SELECT new com.miguel.buzon_mensajes.dto.MensajeResponseDTO(
+                m.id, m.nombre, m.email, m.contenido, m.contenidoComprimido, m.fechaCreacion, m.leido, m.buzon)
+            FROM Mensaje m
+            """;
+
+    @Query(value = SELECT_DTO, countQuery = "SELECT COUNT(m) FROM Mensaje m")
+    Page<MensajeResponseDTO> paginarDTO(Pageable pageable);
+
+    @Query(value = SELECT_DTO + "WHERE m.leido = :leido",
+            countQuery = "SELECT COUNT(m) FROM Mensaje m WHERE m.leido = :leido")
+    Page<MensajeResponseDTO> paginarDTOPorLeido(@Param("leido") Boolean leido, Pageable pageable);
+
+    @Query(value = SELECT_DTO + "WHERE m.emailNormalizado = :email",
+            countQuery = "SELECT COUNT(m) FROM Mensaje m WHERE m.emailNormalizado = :email")
+    Page<MensajeResponseDTO> paginarDTOPorEmail(@Param("email") String emailNormalizado, Pageable pageable);
+
+    /**
+     * Solo los mensajes con el contenido en texto: los comprimidos (contenido
+     * a null) no se pueden filtrar en SQL y se buscan con {@link #buscarComprimidos}.
+     */
+    @Query(value = SELECT_DTO + "WHERE m.contenido LIKE CONCAT('%', :palabra, '%')",
+            countQuery = "SELECT COUNT(m) FROM Mensaje m WHERE m.contenido LIKE CONCAT('%', :palabra, '%')")
+    Page<MensajeResponseDTO> paginarDTOPorContenido(@Param("palabra") String palabra, Pageable pageable);
+
+    /**
+     * Indica si hay algún mensaje comprimido (en PostgreSQL lo resuelve
+     * idx_mensaje_comprimido sin recorrer la tabla).
+     */
+    boolean existsByContenidoComprimidoIsNotNull();
+
+    /**
+     * Primeros mensajes comprimidos, de más reciente a más antiguo.
+     */
+    @Query("""
+            SELECT new com.miguel.buzon_mensajes.dto.ContenidoComprimidoDTO(m.id, m.fechaCreacion, m.contenidoComprimido)
+            FROM Mensaje m
+            WHERE m.contenidoComprimido IS NOT NULL
+            ORDER BY m.fechaCreacion DESC, m.id DESC
+            """)
+    List<ContenidoComprimidoDTO> buscarComprimidos(Pageable limite);
+
+    /**
+     * Mensajes comprimidos anteriores a (fecha, id) en el mismo orden: la
+     * búsqueda por palabra los recorre por lotes sin OFFSET.
+     */
+    @Query("""
+            SELECT new com.miguel.buzon_mensajes.dto.ContenidoComprimidoDTO(m.id, m.fechaCreacion, m.contenidoComprimido)
+            FROM Mensaje m
+            WHERE m.contenidoComprimido IS NOT NULL
+              AND (m.fechaCreacion < :fecha OR (m.fechaCreacion = :fecha AND m.id < :id))
+            ORDER BY m.fechaCreacion DESC, m.id DESC
+            """)
+    List<ContenidoComprimidoDTO> buscarComprimidosAntesDe(
+            @Param("fecha") LocalDateTime fecha,
+            @Param("id") Long id,
+            Pageable limite
+    );
+
+    @Query(SELECT_DTO + "WHERE m.id IN :ids")
+    List<MensajeResponseDTO> listarDTOPorIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Listados sin paginar, más recientes primero. El Pageable solo aporta el
+     * límite de filas (buzon.memoria.maximo-filas-listado) o Pageable.unpaged().
+     */
+    @Query(SELECT_DTO + "ORDER BY m.fechaCreacion DESC")
+    List<MensajeResponseDTO> listarDTO(Pageable limite);
+
+    @Query(SELECT_DTO + "WHERE m.leido = :leido ORDER BY m.fechaCreacion DESC, m.id DESC")
+    List<MensajeResponseDTO> listarDTOPorLeido(@Param("leido") Boolean leido, Pageable limite);
+
+    @Query(SELECT_DTO + "WHERE m.emailNormalizado = :email ORDER BY m.fechaCreacion DESC")
+    List<MensajeResponseDTO> listarDTOPorEmail(@Param("email") String emailNormalizado, Pageable limite);
+
+    /**
+     * Los no leídos de una lista de ids (la página que da IndiceNoLeidos), en
+     * cualquier orden. Vuelve a comprobar leido: un id que se acaba de leer
+     * y aún sigue en el índice no sale.
+     */
+    @Query(SELECT_DTO + "WHERE m.id IN :ids AND m.leido = false")
+    List<MensajeResponseDTO> listarDTONoLeidosPorIds(@Param("ids") Collection<Long> ids);
+
+    // ===== ARCHIVO Y EXPORTACIÓN =====
+
+    /**
+     * Mensajes leídos anteriores a una fecha (candidatos a archivar).
+     */
+    List<Mensaje> findByLeidoTrueAndFechaCreacionBefore(LocalDateTime fecha, Pageable pageable);
+
+    /**
+     * Indica si alguno de los ids sigue en la tabla (segmentos de archivo sin confirmar).
+     */
+    boolean existsByIdIn(Collection<Long> ids);
+
+    /**
+     * Recorrido por id (keyset) para exportar sin OFFSET: cada página
+     * continúa donde terminó la anterior.
+     */
+    @Query(SELECT_DTO_COMPLETO + "WHERE m.id > :id AND m.fechaCreacion >= :desde ORDER BY m.id")
+    List<MensajeResponseDTO> paginarDTODesdeId(@Param("id") Long id, @Param("desde") LocalDateTime desde, Pageable pageable);
+
+    /**
+     * Mensajes posteriores a una marca de agua (fecha, id), en orden de llegada.
+     *
+     * Es findByFechaCreacionAfter con desempate por id: los mensajes con la
+     * misma fecha que el último procesado tampoco se saltan ni se repiten.
+     * "hasta" deja fuera los más recientes, que aún podrían tener compañeros
+     * sin confirmar con fecha anterior. Usa idx_mensaje_fecha_creacion.
+     */
+    @Query(SELECT_DTO + """
+            WHERE (m.fechaCreacion > :fecha OR (m.fechaCreacion = :fecha AND m.id > :ultimoId))
+              AND m.fechaCreacion <= :hasta
+            ORDER BY m.fechaCreacion, m.id
+            """)
+    List<MensajeResponseDTO> buscarDesdeMarca(
+            @Param("fecha") LocalDateTime fecha,
+            @Param("ultimoId") Long ultimoId,
+            @Param("hasta") LocalDateTime hasta,
+            Pageable pageable
+    );
+
+    /**
+     * Mayor id entre los mensajes creados hasta una fecha: límite de la
+     * reconstrucción de los rollups.
+     */
+    @Query("SELECT MAX(m.id) FROM Mensaje m WHERE m.fechaCreacion <= :hasta")
+    Long maxIdHasta(@Param("hasta") LocalDateTime hasta);
+
+    /**
+     * Mensajes por día y remitente (email_normalizado, la misma clave que
+     * remitente) en un tramo de ids (desdeId, hastaId]. Recorre el tramo por
+     * la clave primaria, así que varios tramos se pueden agregar a la vez sin
+     * pisarse. Las filas que NormalizacionMensajesJob aún no ha completado
+     * usan lo más parecido que se puede calcular en SQL.
+     */
+    @Query("""
+            SELECT new com.miguel.buzon_mensajes.dto.RecuentoRemitenteDiaDTO(
+                cast(m.fechaCreacion as LocalDate), COALESCE(m.emailNormalizado, lower(trim(m.email))), COUNT(m))
+            FROM Mensaje m
+            WHERE m.id > :desdeId AND m.id <= :hastaId AND m.fechaCreacion <= :hasta
+            GROUP BY cast(m.fechaCreacion as LocalDate), COALESCE(m.emailNormalizado, lower(trim(m.email)))
+            """)
+    List<RecuentoRemitenteDiaDTO> contarPorDiaYRemitente(
+            @Param("desdeId") long desdeId,
+            @Param("hastaId") long hastaId,
+            @Param("hasta") LocalDateTime hasta
+    );
+
+    // ===== DETECCIÓN DE CASI DUPLICADOS (SIMHASH) =====
+
+    /**
+     * Buscar candidatos a mensaje similar: los que comparten al menos una banda del SimHash.
+     *
+     * Cada banda tiene su propio índice, así que la consulta se resuelve con
+     * búsquedas por igualdad en lugar de recorrer toda la tabla.
+     * El filtro final por distancia de Hamming se hace en el servicio, que
+     * recorre los candidatos por lotes con {@link #buscarCandidatosSimilaresAntesDe}.
+     */
+    @Query("""
+            SELECT new com.miguel.buzon_mensajes.dto.HuellaSimilarDTO(m.id, m.fechaCreacion, m.simhash)
+            FROM Mensaje m
+            WHERE m.id <> :id
+              AND (m.simhashBanda0 = :b0 OR m.simhashBanda1 = :b1
+                   OR m.simhashBanda2 = :b2 OR m.simhashBanda3 = :b3)
+            ORDER BY m.fechaCreacion DESC, m.id DESC
+            """)
+    List<HuellaSimilarDTO> buscarCandidatosSimilares(
+            @Param("id") Long id,
+            @Param("b0") Integer b0,
+            @Param("b1") Integer b1,
+            @Param("b2") Integer b2,
+            @Param("b3") Integer b3,
+            Pageable limite
+    );
+
+    /**
+     * Candidatos anteriores a (fecha, ultimoId) en el mismo orden: el
+     * siguiente lote sin OFFSET.
+     */
+    @Query("""
+            SELECT new com.miguel.buzon_mensajes.dto.HuellaSimilarDTO(m.id, m.fechaCreacion, m.simhash)
+            FROM Mensaje m
+            WHERE m.id <> :id
+              AND (m.simhashBanda0 = :b0 OR m.simhashBanda1 = :b1
+                   OR m.simhashBanda2 = :b2 OR m.simhashBanda3 = :b3)
+              AND (m.fechaCreacion < :fecha OR (m.fechaCreacion = :fecha AND m.id < :ultimoId))
+            ORDER BY m.fechaCreacion DESC, m.id DESC
+            """)
+    List<HuellaSimilarDTO> buscarCandidatosSimilaresAntesDe(
+            @Param("id") Long id,
+            @Param("b0") Integer b0,
+            @Param("b1") Integer b1,
+            @Param("b2") Integer b2,
+            @Param("b3") Integer b3,
+            @Param("fecha") LocalDateTime fecha,
+            @Param("ultimoId") Long ultimoId,
+            Pageable limite
+    );
+
+    // ===== CAMBIOS DE ESTADO (UPDATE CONDICIONALES) =====
+    //
+    // Cada cambio es un único UPDATE que comprueba el estado de partida y,
+    // si se pide, la versión (If-Match), y sube la versión. No se lee la fila
+    // para guardarla después: dos administradores a la vez no se pisan y no
+    // hace falta bloquearla. Devuelven las filas cambiadas (0 o 1); con
+    // version null no se comprueba la versión.
+    //
+    // Con la tabla particionada (PostgreSQL), estas consultas y findById
+    // filtran solo por id y no pueden descartar particiones: hacen una
+    // búsqueda en la clave primaria (id, fecha_creacion) de cada partición,
+    // una por mes conservado. Para que solo miraran una, la API tendría que
+    // recibir la fecha del mensaje además del id.
+
+    /**
+     * Marca como leído un mensaje no leído. 0 si no existe, ya estaba leído
+     * o su versión no es la esperada.
+     */
+    @Modifying
+    @Query("""
+            UPDATE Mensaje m SET m.leido = true, m.fechaLectura = :ahora, m.version = m.version + 1
+            WHERE m.id = :id AND m.leido = false AND m.eliminadoEn IS NULL
+              AND (:version IS NULL OR m.version = :version)
+            """)
+    int marcarLeido(@Param("id") Long id, @Param("version") Long version, @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Marca un mensaje como eliminado: un UPDATE de una fila en lugar de un
+     * DELETE. 0 si no existe, ya estaba eliminado (así dos peticiones a la
+     * vez no lo descuentan dos veces) o su versión no es la esperada.
+     */
+    @Modifying
+    @Query("""
+            UPDATE Mensaje m SET m.eliminadoEn = :ahora, m.version = m.version + 1
+            WHERE m.id = :id AND m.eliminadoEn IS NULL
+              AND (:version IS NULL OR m.version = :version)
+            """)
+    int marcarEliminado(@Param("id") Long id, @Param("version") Long version, @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Un mensaje eliminado que aún no se ha purgado. Es SQL nativo porque
+     * las consultas JPQL sobre Mensaje siempre excluyen los eliminados.
+     */
+    @Query(value = "SELECT * FROM mensaje WHERE id = :id AND eliminado_en IS NOT NULL", nativeQuery = true)
+    Optional<Mensaje> buscarEliminado(@Param("id") Long id);
+
+    /**
+     * Deshace la eliminación; 0 si ya no estaba eliminado (o se purgó).
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE mensaje SET eliminado_en = NULL, version = version + 1
+            WHERE id = :id AND eliminado_en IS NOT NULL
+            """, nativeQuery = true)
+    int restaurar(@Param("id") Long id);
+}
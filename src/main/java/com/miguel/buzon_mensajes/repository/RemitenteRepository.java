@@ -0,0 +1,40 @@
+package com.miguel.buzon_mensajes.repository;
+
+import com.miguel.buzon_mensajes.dto.RemitenteDTO;
+import com.miguel.buzon_mensajes.model.Remitente;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Lectura del directorio de remitentes. Las escrituras van por
+ * EscritorRemitentes (upsert atómico en SQL).
+ */
+@Repository
+public interface RemitenteRepository extends JpaRepository<Remitente, String> {
+
+    /**
+     * Remitentes con email mayor que "despues" (keyset sobre la clave
+     * primaria, sin OFFSET) que empiezan por el prefijo.
+     *
+     * El patrón es el prefijo escapado seguido de '%'; con "desde" igual al
+     * prefijo el recorrido del índice empieza directamente en él.
+     */
+    @Query("""
+            SELECT new com.miguel.buzon_mensajes.dto.RemitenteDTO(
+                r.email, r.nombre, r.primerMensaje, r.ultimoMensaje, r.total, r.noLeidos)
+            FROM Remitente r
+            WHERE r.email > :despues AND r.email >= :desde AND r.email LIKE :patron ESCAPE '\\'
+            ORDER BY r.email
+            """)
+    List<RemitenteDTO> paginar(
+            @Param("despues") String despues,
+            @Param("desde") String desde,
+            @Param("patron") String patron,
+            Pageable limite
+    );
+}
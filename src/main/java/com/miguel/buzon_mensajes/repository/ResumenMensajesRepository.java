@@ -0,0 +1,22 @@
+package com.miguel.buzon_mensajes.repository;
+
+import com.miguel.buzon_mensajes.model.ResumenMensajes;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ResumenMensajesRepository extends JpaRepository<ResumenMensajes, Long> {
+
+    Optional<ResumenMensajes> findByPeriodoAndInicioAndBuzon(ResumenMensajes.Periodo periodo,
+                                                             LocalDateTime inicio,
+                                                             String buzon);
+
+    /**
+     * Resúmenes abiertos cuyo periodo ya ha terminado.
+     */
+    List<ResumenMensajes> findByCerradoFalseAndFinLessThanEqual(LocalDateTime instante);
+}
@@ -0,0 +1,14 @@
+package com.miguel.buzon_mensajes.repository;
+
+import com.miguel.buzon_mensajes.model.RollupDia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface RollupDiaRepository extends JpaRepository<RollupDia, LocalDate> {
+
+    List<RollupDia> findByDiaBetweenOrderByDia(LocalDate desde, LocalDate hasta);
+}
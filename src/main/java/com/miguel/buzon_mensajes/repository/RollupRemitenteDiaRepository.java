@@ -0,0 +1,35 @@
+package com.miguel.buzon_mensajes.repository;
+
+import com.miguel.buzon_mensajes.dto.RemitenteFrecuenteDTO;
+import com.miguel.buzon_mensajes.model.RollupRemitenteDia;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RollupRemitenteDiaRepository extends JpaRepository<RollupRemitenteDia, Long> {
+
+    List<RollupRemitenteDia> findByDiaAndEmailIn(LocalDate dia, Collection<String> emails);
+
+    /**
+     * Remitentes con más mensajes entre dos días (ambos incluidos).
+     */
+    @Query("""
+            SELECT new com.miguel.buzon_mensajes.dto.RemitenteFrecuenteDTO(r.email, SUM(r.total))
+            FROM RollupRemitenteDia r
+            WHERE r.dia BETWEEN :desde AND :hasta
+            GROUP BY r.email
+            ORDER BY SUM(r.total) DESC, r.email
+            """)
+    List<RemitenteFrecuenteDTO> masFrecuentes(
+            @Param("desde") LocalDate desde,
+            @Param("hasta") LocalDate hasta,
+            Pageable limite
+    );
+}
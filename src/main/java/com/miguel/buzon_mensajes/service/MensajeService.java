@@ -1,10 +1,14 @@
 package com.miguel.buzon_mensajes.service;
 
+import com.miguel.buzon_mensajes.dto.EstadisticasDTO;
 import com.miguel.buzon_mensajes.dto.MensajeRequestDTO;
 import com.miguel.buzon_mensajes.dto.MensajeResponseDTO;
+import com.miguel.buzon_mensajes.dto.MensajeVersionadoDTO;
 import org.springframework.data.domain.Page;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface MensajeService {
 
@@ -24,7 +28,7 @@ public interface MensajeService {
     Page<MensajeResponseDTO> obtenerNoLeidosPaginado(int page, int size, Boolean leido);
 
     /**
-     * Obtener mensajes por email paginados.
+     * Obtener mensajes por email paginados (sin distinguir mayúsculas).
      */
     Page<MensajeResponseDTO> obtenerPorEmailPaginado(String email, int page, int size);
 
@@ -40,7 +44,61 @@ public interface MensajeService {
     MensajeResponseDTO obtenerPorId(Long id);
     List<MensajeResponseDTO> obtenerNoLeidos();
     List<MensajeResponseDTO> obtenerPorEmail(String email);
-    MensajeResponseDTO marcarComoLeido(Long id);
-    void eliminar(Long id);
+
+    /**
+     * Un mensaje con su versión, para el ETag.
+     */
+    MensajeVersionadoDTO obtenerVersionado(Long id);
+
+    /**
+     * Marcar como leído. Si versionEsperada no es null y el mensaje ha
+     * cambiado, lanza VersionNoCoincideException. Marcar uno ya leído no
+     * cambia nada y no es un conflicto.
+     */
+    MensajeVersionadoDTO marcarComoLeido(Long id, Long versionEsperada);
+
+    default MensajeResponseDTO marcarComoLeido(Long id) {
+        return marcarComoLeido(id, null).mensaje();
+    }
+
+    /**
+     * Eliminar (borrado lógico). Si versionEsperada no es null y el mensaje
+     * ha cambiado, lanza VersionNoCoincideException.
+     */
+    void eliminar(Long id, Long versionEsperada);
+
+    default void eliminar(Long id) {
+        eliminar(id, null);
+    }
+
+    /**
+     * Deshacer la eliminación de un mensaje que aún no se ha purgado.
+     */
+    MensajeResponseDTO restaurar(Long id);
+
     Long contarNoLeidos();
+
+    /**
+     * Contadores del panel (total, no leídos y leídos) en una sola consulta.
+     */
+    EstadisticasDTO obtenerEstadisticas();
+
+    // ===== CASI DUPLICADOS =====
+
+    /**
+     * Buscar mensajes casi idénticos a uno dado (SimHash).
+     * @param id ID del mensaje de referencia
+     * @param distanciaMaxima Bits de diferencia permitidos entre huellas
+     * @return Mensajes similares, más recientes primero
+     */
+    List<MensajeResponseDTO> buscarSimilares(Long id, int distanciaMaxima);
+
+    // ===== EXPORTACIÓN =====
+
+    /**
+     * Recorrer todos los mensajes (tabla y archivo en frío) sin cargarlos a la vez en memoria.
+     * @param desde Solo mensajes creados desde esta fecha (null = todos)
+     * @param destino Recibe cada mensaje según se lee
+     */
+    void exportar(LocalDateTime desde, Consumer<MensajeResponseDTO> destino);
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.miguel.buzon_mensajes.service;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versión global del buzón: cambia con cada escritura (crear, marcar, eliminar,
+ * archivar, retirar particiones).
+ *
+ * Sirve de ETag para los listados, el contador y los mensajes individuales:
+ * si la versión no ha cambiado, nada de lo que devuelven ha cambiado, así que
+ * se puede responder 304 sin consultar la base de datos.
+ *
+ * - Empieza en la hora de arranque (milisegundos): tras un reinicio no se
+ *   repiten ETags de la ejecución anterior.
+ * - Se incrementa DESPUÉS del commit. Si se incrementara antes, una lectura
+ *   concurrente podría guardar la versión nueva con los datos viejos y el
+ *   cliente recibiría 304 sobre datos obsoletos hasta la siguiente escritura.
+ *
+ * La versión vive en memoria, así que solo es fiable si todas las escrituras
+ * pasan por esta instancia y todas las lecturas ven ya sus datos:
+ * - Con varias instancias (buzon.varias-instancias=true) una escritura en
+ *   otra instancia no la cambiaría y se responderían 304 con datos viejos.
+ * - Con réplicas de lectura (buzon.replicas.habilitado=true) la versión
+ *   cambia al confirmar en el primario, pero la lectura que la acompaña
+ *   puede venir de una réplica con retraso y quedaría guardada con ella.
+ * En esos casos {@link #isCondicional()} es false y los controllers no
+ * responden 304 (la versión se sigue usando en el ETag de cada mensaje,
+ * donde para If-Match solo cuenta la versión del propio mensaje).
+ */
+@Component
+public class VersionBuzon {
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    private final boolean condicional;
+
+    @Autowired
+    public VersionBuzon(BuzonProperties propiedades) {
+        this(!propiedades.isVariasInstancias() && !propiedades.getReplicas().isHabilitado());
+    }
+
+    /**
+     * Una sola instancia y sin réplicas (tests).
+     */
+    public VersionBuzon() {
+        this(true);
+    }
+
+    VersionBuzon(boolean condicional) {
+        this.condicional = condicional;
+    }
+
+    /**
+     * Si se puede responder 304 comparando If-None-Match con esta versión.
+     */
+    public boolean isCondicional() {
+        return condicional;
+    }
+
+    public long actual() {
+        return version.get();
+    }
+
+    /**
+     * ETag débil (W/"...") de la versión actual: la misma versión puede
+     * serializarse con distinta compresión o codificación.
+     */
+    public String etag() {
+        return "W/\"" + Long.toString(actual(), 36) + "\"";
+    }
+
+    /**
+     * Marcar que el buzón ha cambiado, al confirmar la transacción activa
+     * (o en el momento, si no hay ninguna).
+     */
+    public void incrementar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    version.incrementAndGet();
+                }
+            });
+        } else {
+            version.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.miguel.buzon_mensajes.service.analitica;
+
+import com.miguel.buzon_mensajes.datasource.ShardContext;
+import com.miguel.buzon_mensajes.datasource.ShardRouter;
+import com.miguel.buzon_mensajes.dto.CubetaLatenciaDTO;
+import com.miguel.buzon_mensajes.dto.MensajesDiaDTO;
+import com.miguel.buzon_mensajes.dto.PercentilesLecturaDTO;
+import com.miguel.buzon_mensajes.dto.RemitenteFrecuenteDTO;
+import com.miguel.buzon_mensajes.model.LatenciaLecturaDia;
+import com.miguel.buzon_mensajes.model.RollupDia;
+import com.miguel.buzon_mensajes.repository.LatenciaLecturaDiaRepository;
+import com.miguel.buzon_mensajes.repository.RollupDiaRepository;
+import com.miguel.buzon_mensajes.repository.RollupRemitenteDiaRepository;
+import com.miguel.buzon_mensajes.util.HistogramaLatencia;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Consultas de analítica. Solo leen las tablas de rollup, nunca la tabla
+ * mensaje: el coste depende del número de días consultados, no de mensajes.
+ *
+ * Con sharding se consulta cada shard y se suman los resultados. No es
+ * transaccional a propósito: el shard se fija antes de que cada consulta
+ * abra su transacción (ver {@link ShardContext}).
+ */
+@Service
+@ConditionalOnProperty(prefix = "buzon.rollups", name = "habilitado", havingValue = "true")
+public class AnaliticaService {
+
+    private final RollupDiaRepository rollupDiaRepository;
+    private final RollupRemitenteDiaRepository rollupRemitenteRepository;
+    private final LatenciaLecturaDiaRepository latenciaRepository;
+    private final ShardRouter shardRouter;
+
+    public AnaliticaService(RollupDiaRepository rollupDiaRepository,
+                            RollupRemitenteDiaRepository rollupRemitenteRepository,
+                            LatenciaLecturaDiaRepository latenciaRepository,
+                            ObjectProvider<ShardRouter> shardRouter) {
+        this.rollupDiaRepository = rollupDiaRepository;
+        this.rollupRemitenteRepository = rollupRemitenteRepository;
+        this.latenciaRepository = latenciaRepository;
+        this.shardRouter = shardRouter.getIfAvailable();
+    }
+
+    /**
+     * Remitentes con más mensajes entre dos días (ambos incluidos).
+     *
+     * Con sharding, cada shard aporta sus "limite" primeros: un remitente que
+     * escribe a buzones de varios shards puede aparecer con menos mensajes de
+     * los que tiene si en alguno no llega a ese corte.
+     */
+    public List<RemitenteFrecuenteDTO> remitentesFrecuentes(LocalDate desde, LocalDate hasta, int limite) {
+        Map<String, Long> totales = new HashMap<>();
+        for (List<RemitenteFrecuenteDTO> parcial : enCadaShard(() ->
+                rollupRemitenteRepository.masFrecuentes(desde, hasta, PageRequest.of(0, limite)))) {
+            parcial.forEach(r -> totales.merge(r.email(), r.total(), Long::sum));
+        }
+        return totales.entrySet().stream()
+                .map(e -> new RemitenteFrecuenteDTO(e.getKey(), e.getValue().longValue()))
+                .sorted(Comparator.comparingLong(RemitenteFrecuenteDTO::total).reversed()
+                        .thenComparing(RemitenteFrecuenteDTO::email))
+                .limit(limite)
+                .toList();
+    }
+
+    /**
+     * Mensajes recibidos y leídos por día; los días sin actividad salen a cero.
+     */
+    public List<MensajesDiaDTO> mensajesPorDia(LocalDate desde, LocalDate hasta) {
+        Map<LocalDate, long[]> totales = new HashMap<>();
+        for (List<RollupDia> parcial : enCadaShard(() -> rollupDiaRepository.findByDiaBetweenOrderByDia(desde, hasta))) {
+            for (RollupDia rollup : parcial) {
+                long[] suma = totales.computeIfAbsent(rollup.getDia(), dia -> new long[2]);
+                suma[0] += rollup.getRecibidos();
+                suma[1] += rollup.getLeidos();
+            }
+        }
+
+        List<MensajesDiaDTO> dias = new ArrayList<>();
+        for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+            long[] suma = totales.getOrDefault(dia, new long[2]);
+            dias.add(new MensajesDiaDTO(dia, suma[0], suma[1]));
+        }
+        return dias;
+    }
+
+    /**
+     * Histograma del tiempo hasta la lectura de los mensajes leídos entre dos
+     * días, por potencias de 2 en segundos, hasta la última barra con datos.
+     */
+    public List<CubetaLatenciaDTO> latenciaLectura(LocalDate desde, LocalDate hasta) {
+        HistogramaLatencia total = new HistogramaLatencia();
+        latenciasPorDia(desde, hasta).values().forEach(total::sumar);
+
+        long[] cuentas = total.cubetas();
+        int ultima = cuentas.length - 1;
+        while (ultima > 0 && cuentas[ultima] == 0) {
+            ultima--;
+        }
+        List<CubetaLatenciaDTO> cubetas = new ArrayList<>(ultima + 1);
+        for (int cubeta = 0; cubeta <= ultima; cubeta++) {
+            cubetas.add(new CubetaLatenciaDTO(cubeta, HistogramaLatencia.limiteSegundos(cubeta), cuentas[cubeta]));
+        }
+        return cubetas;
+    }
+
+    /**
+     * Percentiles 50, 95 y 99 del tiempo hasta la lectura, día a día.
+     */
+    public List<PercentilesLecturaDTO> percentilesLectura(LocalDate desde, LocalDate hasta) {
+        Map<LocalDate, HistogramaLatencia> porDia = latenciasPorDia(desde, hasta);
+
+        List<PercentilesLecturaDTO> dias = new ArrayList<>();
+        for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+            HistogramaLatencia histograma = porDia.getOrDefault(dia, new HistogramaLatencia());
+            dias.add(new PercentilesLecturaDTO(dia, histograma.total(), histograma.percentil(0.50),
+                    histograma.percentil(0.95), histograma.percentil(0.99)));
+        }
+        return dias;
+    }
+
+    /**
+     * Histograma de cada día, sumando los de todos los shards.
+     */
+    private Map<LocalDate, HistogramaLatencia> latenciasPorDia(LocalDate desde, LocalDate hasta) {
+        Map<LocalDate, HistogramaLatencia> porDia = new HashMap<>();
+        for (List<LatenciaLecturaDia> parcial : enCadaShard(() ->
+                latenciaRepository.findByDiaBetweenOrderByDia(desde, hasta))) {
+            for (LatenciaLecturaDia latencia : parcial) {
+                porDia.computeIfAbsent(latencia.getDia(), dia -> new HistogramaLatencia()).sumar(latencia.leer());
+            }
+        }
+        return porDia;
+    }
+
+    private <T> List<T> enCadaShard(Supplier<T> consulta) {
+        if (shardRouter == null) {
+            return List.of(consulta.get());
+        }
+        List<T> resultados = new ArrayList<>(shardRouter.getNumeroShards());
+        for (int shard = 0; shard < shardRouter.getNumeroShards(); shard++) {
+            resultados.add(ShardContext.ejecutarEn(shard, consulta));
+        }
+        return resultados;
+    }
+}
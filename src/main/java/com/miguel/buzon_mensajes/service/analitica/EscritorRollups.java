@@ -0,0 +1,116 @@
+package com.miguel.buzon_mensajes.service.analitica;
+
+import com.miguel.buzon_mensajes.model.LatenciaLecturaDia;
+import com.miguel.buzon_mensajes.model.RollupDia;
+import com.miguel.buzon_mensajes.model.RollupRemitenteDia;
+import com.miguel.buzon_mensajes.repository.LatenciaLecturaDiaRepository;
+import com.miguel.buzon_mensajes.repository.RollupDiaRepository;
+import com.miguel.buzon_mensajes.repository.RollupRemitenteDiaRepository;
+import com.miguel.buzon_mensajes.util.HistogramaLatencia;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Suma recuentos ya agregados a las tablas de rollup (y de latencia de lectura).
+ *
+ * Lee las filas afectadas, les suma y guarda (creando las que faltan). No es
+ * seguro con dos escritores a la vez: quien llama debe tener bloqueada la
+ * marca de RollupJob, así que RollupJob y la reconstrucción nunca escriben
+ * al mismo tiempo. Debe llamarse dentro de una transacción.
+ */
+@Component
+@RequiredArgsConstructor
+public class EscritorRollups {
+
+    /**
+     * Marca de agua de RollupJob; también es el bloqueo de un solo escritor.
+     */
+    public static final String MARCA = "rollups";
+
+    /**
+     * Marca de la reconstrucción: fecha es el límite (incluido) y ultimoId
+     * el último id agregado; Long.MAX_VALUE cuando ha terminado.
+     */
+    public static final String MARCA_RECONSTRUCCION = "rollups-reconstruccion";
+
+    /**
+     * Fila de rollup_remitente_dia.
+     */
+    public record RemitenteDia(LocalDate dia, String email) {
+    }
+
+    private final RollupDiaRepository rollupDiaRepository;
+    private final RollupRemitenteDiaRepository rollupRemitenteRepository;
+    private final LatenciaLecturaDiaRepository latenciaRepository;
+
+    /**
+     * Mensajes recibidos por día y por remitente (email ya normalizado con Normalizacion.email).
+     */
+    public void sumarRecibidos(Map<LocalDate, Long> porDia, Map<RemitenteDia, Long> porRemitente) {
+        porDia.forEach((dia, cantidad) -> {
+            RollupDia rollup = dia(dia);
+            rollup.setRecibidos(rollup.getRecibidos() + cantidad);
+            rollupDiaRepository.save(rollup);
+        });
+
+        Map<LocalDate, List<String>> emailsPorDia = porRemitente.keySet().stream()
+                .collect(Collectors.groupingBy(RemitenteDia::dia,
+                        Collectors.mapping(RemitenteDia::email, Collectors.toList())));
+
+        List<RollupRemitenteDia> guardar = new ArrayList<>(porRemitente.size());
+        emailsPorDia.forEach((dia, emails) -> {
+            Map<String, RollupRemitenteDia> existentes = rollupRemitenteRepository.findByDiaAndEmailIn(dia, emails)
+                    .stream()
+                    .collect(Collectors.toMap(RollupRemitenteDia::getEmail, Function.identity()));
+            for (String email : emails) {
+                RollupRemitenteDia rollup = existentes.get(email);
+                if (rollup == null) {
+                    rollup = new RollupRemitenteDia(null, dia, email, 0);
+                }
+                rollup.setTotal(rollup.getTotal() + porRemitente.get(new RemitenteDia(dia, email)));
+                guardar.add(rollup);
+            }
+        });
+        rollupRemitenteRepository.saveAll(guardar);
+    }
+
+    /**
+     * Histogramas de espera por día de lectura; también suman a rollup_dia.leidos.
+     * Devuelve cómo queda cada día tras sumar.
+     */
+    public Map<LocalDate, HistogramaLatencia> sumarLecturas(Map<LocalDate, HistogramaLatencia> lecturas) {
+        Map<LocalDate, LatenciaLecturaDia> existentes = latenciaRepository.findByDiaIn(lecturas.keySet()).stream()
+                .collect(Collectors.toMap(LatenciaLecturaDia::getDia, Function.identity()));
+
+        Map<LocalDate, HistogramaLatencia> resultado = new HashMap<>();
+        lecturas.forEach((dia, histograma) -> {
+            RollupDia rollup = dia(dia);
+            rollup.setLeidos(rollup.getLeidos() + histograma.total());
+            rollupDiaRepository.save(rollup);
+
+            LatenciaLecturaDia latencia = existentes.get(dia);
+            HistogramaLatencia suma = latencia == null ? new HistogramaLatencia() : latencia.leer();
+            suma.sumar(histograma);
+            if (latencia == null) {
+                latencia = new LatenciaLecturaDia();
+                latencia.setDia(dia);
+            }
+            latencia.escribir(suma);
+            latenciaRepository.save(latencia);
+            resultado.put(dia, suma);
+        });
+        return resultado;
+    }
+
+    private RollupDia dia(LocalDate dia) {
+        return rollupDiaRepository.findById(dia).orElseGet(() -> new RollupDia(dia, 0, 0));
+    }
+}
@@ -0,0 +1,128 @@
+package com.miguel.buzon_mensajes.service.analitica;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.util.HistogramaLatencia;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lecturas de mensajes aún no volcadas a latencia_lectura_dia / rollup_dia.
+ *
+ * marcarComoLeido solo suma en memoria (tras confirmar su transacción): el
+ * volcado lo hace RollupJob, único escritor de las tablas de rollup, así la
+ * petición del administrador no compite por las filas del día.
+ *
+ * Un {@link HistogramaLatencia} por día pendiente (memoria constante por
+ * muchas lecturas que haya). Lo que no se haya volcado se pierde si la
+ * aplicación se detiene de golpe; la fecha de lectura sí queda en el mensaje.
+ *
+ * También guarda el histograma ya volcado del día en curso, para que las
+ * métricas den el día completo sin consultar la BD.
+ *
+ * Las lecturas se anotan siempre, también con buzon.rollups.habilitado=false:
+ * así la métrica buzon.lectura.espera funciona sin las tablas de rollup. En ese
+ * caso nadie las vacía y solo se conserva el día en curso.
+ */
+@Component
+public class LecturasPendientes {
+
+    private final Map<LocalDate, HistogramaLatencia> pendientes = new HashMap<>();
+
+    /**
+     * Sin RollupJob que vacíe lo pendiente: se descartan los días anteriores.
+     */
+    private final boolean soloHoy;
+
+    private LocalDate diaVolcado;
+    private HistogramaLatencia volcado;
+
+    @Autowired
+    public LecturasPendientes(BuzonProperties propiedades) {
+        this(!propiedades.getRollups().isHabilitado());
+    }
+
+    /**
+     * Con RollupJob vaciando lo pendiente (tests).
+     */
+    public LecturasPendientes() {
+        this(false);
+    }
+
+    LecturasPendientes(boolean soloHoy) {
+        this.soloHoy = soloHoy;
+    }
+
+    /**
+     * Anotar una lectura. Dentro de una transacción cuenta solo si se confirma.
+     */
+    public void registrar(LocalDateTime fechaCreacion, LocalDateTime fechaLectura) {
+        LocalDate dia = fechaLectura.toLocalDate();
+        long segundos = Duration.between(fechaCreacion, fechaLectura).toSeconds();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    sumar(dia, segundos);
+                }
+            });
+        } else {
+            sumar(dia, segundos);
+        }
+    }
+
+    /**
+     * Retira todo lo pendiente para volcarlo.
+     */
+    public synchronized Map<LocalDate, HistogramaLatencia> vaciar() {
+        Map<LocalDate, HistogramaLatencia> copia = new HashMap<>(pendientes);
+        pendientes.clear();
+        return copia;
+    }
+
+    /**
+     * Devuelve lo retirado si el volcado falló, para el siguiente intento.
+     */
+    public synchronized void devolver(Map<LocalDate, HistogramaLatencia> retiradas) {
+        retiradas.forEach((dia, histograma) ->
+                pendientes.computeIfAbsent(dia, d -> new HistogramaLatencia()).sumar(histograma));
+    }
+
+    /**
+     * Lo que ya está guardado de un día (RollupJob tras cada volcado).
+     */
+    public synchronized void volcado(LocalDate dia, HistogramaLatencia guardado) {
+        this.diaVolcado = dia;
+        this.volcado = guardado;
+    }
+
+    /**
+     * Histograma completo de un día: lo guardado más lo pendiente.
+     */
+    public synchronized HistogramaLatencia delDia(LocalDate dia) {
+        HistogramaLatencia resultado = new HistogramaLatencia();
+        if (dia.equals(diaVolcado)) {
+            resultado.sumar(volcado);
+        }
+        HistogramaLatencia pendiente = pendientes.get(dia);
+        if (pendiente != null) {
+            resultado.sumar(pendiente);
+        }
+        return resultado;
+    }
+
+    private synchronized void sumar(LocalDate dia, long segundos) {
+        if (soloHoy) {
+            pendientes.keySet().removeIf(anterior -> anterior.isBefore(dia));
+        }
+        pendientes.computeIfAbsent(dia, d -> new HistogramaLatencia()).agregar(segundos);
+    }
+}
@@ -0,0 +1,40 @@
+package com.miguel.buzon_mensajes.service.analitica;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Métricas del tiempo hasta la lectura en el día en curso
+ * (/actuator/metrics/buzon.lectura.espera?tag=percentil:0.95).
+ *
+ * Se calculan al consultarlas a partir de {@link LecturasPendientes}: lo ya
+ * volcado hoy más lo pendiente, sin ir a la BD. Con varias instancias, cada
+ * una publica lo volcado (común a todas) más sus propias lecturas pendientes.
+ * Sin rollups no hay nada volcado: cada instancia publica solo sus lecturas de hoy.
+ */
+@Component
+public class MetricasLectura {
+
+    private static final double[] PERCENTILES = {0.50, 0.95, 0.99};
+
+    public MetricasLectura(MeterRegistry registro, LecturasPendientes lecturasPendientes) {
+        for (double percentil : PERCENTILES) {
+            Gauge.builder("buzon.lectura.espera", lecturasPendientes, lecturas -> {
+                        Long segundos = lecturas.delDia(LocalDate.now()).percentil(percentil);
+                        return segundos == null ? Double.NaN : segundos;
+                    })
+                    .tag("percentil", String.valueOf(percentil))
+                    .baseUnit("seconds")
+                    .description("Tiempo hasta la lectura de los mensajes leídos hoy")
+                    .register(registro);
+        }
+
+        Gauge.builder("buzon.lectura.leidos", lecturasPendientes,
+                        lecturas -> lecturas.delDia(LocalDate.now()).total())
+                .description("Mensajes marcados como leídos hoy")
+                .register(registro);
+    }
+}
@@ -0,0 +1,430 @@
+package com.miguel.buzon_mensajes.service.archivo;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.model.Mensaje;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Almacén en frío de mensajes antiguos: segmentos comprimidos de solo escritura.
+ *
+ * Cada segmento son dos ficheros:
+ * - segmento-*.seg: cabecera + bloques comprimidos (Deflate) de hasta 64 mensajes.
+ * - segmento-*.idx: índice disperso con una entrada por bloque
+ *   (primer/último id, primera/última fecha, posición y tamaños).
+ *
+ * Los índices se cargan en memoria al arrancar (una entrada por cada 64 mensajes)
+ * y los .seg se abren con memoria mapeada. Buscar un id solo descomprime
+ * el bloque que lo contiene, nunca el segmento completo.
+ *
+ * Un segmento se escribe en ficheros temporales (.seg.tmp / .idx.tmp) y solo
+ * se renombra a su nombre definitivo cuando la transacción que borra sus
+ * mensajes de la tabla ha confirmado. El .idx se renombra el último, así que
+ * al arrancar nunca se carga un segmento a medias ni uno cuya transacción
+ * no llegó a confirmarse. Los temporales que sobreviven a una caída se
+ * resuelven con {@link #pendientes()} (ver ArchivadorMensajesJob).
+ */
+@Slf4j
+@Component
+public class ArchivoMensajes {
+
+    static final int MENSAJES_POR_BLOQUE = 64;
+
+    private static final int MAGIA = 0x425A4D31; // "BZM1"
+    private static final String TEMPORAL = ".tmp";
+
+    private final Path directorio;
+    private final List<Segmento> segmentos = new CopyOnWriteArrayList<>();
+
+    public ArchivoMensajes(BuzonProperties propiedades) {
+        this.directorio = Path.of(propiedades.getArchivo().getDirectorio());
+    }
+
+    /**
+     * Carga los índices de los segmentos existentes.
+     */
+    @PostConstruct
+    void cargarSegmentos() {
+        if (!Files.isDirectory(directorio)) {
+            return;
+        }
+        try (Stream<Path> ficheros = Files.list(directorio)) {
+            for (Path indice : ficheros.filter(p -> p.toString().endsWith(".idx")).sorted().toList()) {
+                segmentos.add(Segmento.abrir(indice));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el archivo de mensajes en " + directorio, e);
+        }
+        log.info("Archivo de mensajes: {} segmentos cargados desde {}", segmentos.size(), directorio.toAbsolutePath());
+    }
+
+    // ===== ESCRITURA =====
+
+    /**
+     * Escribe un segmento nuevo con los mensajes dados (ordenados por id).
+     *
+     * El segmento queda en disco con nombre temporal y NO visible para las
+     * lecturas hasta llamar a {@link #registrar(Segmento)}; si la transacción
+     * que borra los mensajes de la tabla falla, se descarta con {@link #descartar(Segmento)}.
+     */
+    public Segmento escribirSegmento(List<Mensaje> mensajes) throws IOException {
+        Files.createDirectories(directorio);
+        String base = String.format("segmento-%d-%d", System.currentTimeMillis(), mensajes.get(0).getId());
+        Path datosTmp = directorio.resolve(base + ".seg" + TEMPORAL);
+        Path indiceTmp = directorio.resolve(base + ".idx" + TEMPORAL);
+
+        List<EntradaIndice> entradas = new ArrayList<>();
+        try (FileChannel canal = FileChannel.open(datosTmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            canal.write(ByteBuffer.allocate(4).putInt(MAGIA).flip());
+
+            for (int desde = 0; desde < mensajes.size(); desde += MENSAJES_POR_BLOQUE) {
+                List<Mensaje> bloque = mensajes.subList(desde, Math.min(desde + MENSAJES_POR_BLOQUE, mensajes.size()));
+                byte[] original = serializar(bloque);
+                byte[] comprimido = comprimir(original);
+
+                entradas.add(new EntradaIndice(
+                        bloque.get(0).getId(),
+                        bloque.get(bloque.size() - 1).getId(),
+                        aSegundos(bloque.stream().map(Mensaje::getFechaCreacion).min(LocalDateTime::compareTo).orElseThrow()),
+                        aSegundos(bloque.stream().map(Mensaje::getFechaCreacion).max(LocalDateTime::compareTo).orElseThrow()),
+                        canal.position(),
+                        comprimido.length,
+                        original.length
+                ));
+                canal.write(ByteBuffer.wrap(comprimido));
+            }
+            canal.force(true);
+        }
+
+        try (FileChannel canal = FileChannel.open(indiceTmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(entradas.size() * EntradaIndice.TAMANO);
+            entradas.forEach(e -> e.escribir(buffer));
+            canal.write(buffer.flip());
+            canal.force(true);
+        }
+
+        return new Segmento(datosTmp, indiceTmp, List.copyOf(entradas));
+    }
+
+    /**
+     * Renombra un segmento temporal a su nombre definitivo y lo hace visible
+     * para las lecturas. Se llama solo después de confirmar el borrado en la tabla.
+     *
+     * Si el renombrado falla el segmento sigue en disco como temporal y se
+     * recupera en el próximo arranque.
+     */
+    public void registrar(Segmento pendiente) throws IOException {
+        Path datos = sinSufijoTemporal(pendiente.datos());
+        Path indice = sinSufijoTemporal(pendiente.indice());
+        Files.move(pendiente.datos(), datos, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(pendiente.indice(), indice, StandardCopyOption.ATOMIC_MOVE);
+        segmentos.add(new Segmento(datos, indice, pendiente.entradas()));
+    }
+
+    /**
+     * Segmentos temporales que quedaron en disco por una caída entre la escritura
+     * y el renombrado. Los .seg.tmp sin .idx.tmp no llegaron a terminarse
+     * (el borrado en la tabla va después) y se eliminan directamente.
+     */
+    public List<Segmento> pendientes() {
+        if (!Files.isDirectory(directorio)) {
+            return List.of();
+        }
+        List<Segmento> pendientes = new ArrayList<>();
+        try (Stream<Path> ficheros = Files.list(directorio)) {
+            for (Path fichero : ficheros.filter(p -> p.toString().endsWith(TEMPORAL)).sorted().toList()) {
+                String nombre = fichero.getFileName().toString();
+                if (nombre.endsWith(".idx" + TEMPORAL)) {
+                    pendientes.add(Segmento.abrir(fichero));
+                } else if (!Files.exists(fichero.resolveSibling(nombre.replace(".seg" + TEMPORAL, ".idx" + TEMPORAL)))) {
+                    Files.deleteIfExists(fichero);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el archivo de mensajes en " + directorio, e);
+        }
+        return pendientes;
+    }
+
+    /**
+     * Ids de todos los mensajes de un segmento (descomprime todos sus bloques).
+     */
+    public List<Long> ids(Segmento segmento) {
+        List<Long> ids = new ArrayList<>();
+        for (EntradaIndice entrada : segmento.entradas()) {
+            leerBloque(segmento, entrada).forEach(m -> ids.add(m.getId()));
+        }
+        return ids;
+    }
+
+    /**
+     * Borra del disco un segmento que no llegó a confirmarse.
+     */
+    public void descartar(Segmento segmento) {
+        try {
+            Files.deleteIfExists(segmento.indice());
+            Files.deleteIfExists(segmento.datos());
+        } catch (IOException e) {
+            log.error("No se pudo descartar el segmento {}", segmento.datos(), e);
+        }
+    }
+
+    // ===== LECTURA =====
+
+    /**
+     * Busca un mensaje archivado por id descomprimiendo un único bloque.
+     */
+    public Optional<Mensaje> buscar(Long id) {
+        for (Segmento segmento : segmentos) {
+            Optional<EntradaIndice> entrada = segmento.bloqueDe(id);
+            if (entrada.isPresent()) {
+                Optional<Mensaje> encontrado = leerBloque(segmento, entrada.get()).stream()
+                        .filter(m -> m.getId().equals(id))
+                        .findFirst();
+                if (encontrado.isPresent()) {
+                    return encontrado;
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Recorre los mensajes archivados creados desde una fecha, bloque a bloque.
+     *
+     * Los bloques cuyo rango de fechas queda antes de "desde" se saltan
+     * sin descomprimirlos gracias al índice.
+     */
+    public void recorrer(LocalDateTime desde, Consumer<Mensaje> destino) {
+        long desdeSegundos = aSegundos(desde);
+        for (Segmento segmento : segmentos) {
+            for (EntradaIndice entrada : segmento.entradas()) {
+                if (entrada.ultimaFecha() < desdeSegundos) {
+                    continue;
+                }
+                leerBloque(segmento, entrada).stream()
+                        .filter(m -> !m.getFechaCreacion().isBefore(desde))
+                        .forEach(destino);
+            }
+        }
+    }
+
+    // ===== FORMATO =====
+
+    private List<Mensaje> leerBloque(Segmento segmento, EntradaIndice entrada) {
+        ByteBuffer comprimido = segmento.mapa().slice((int) entrada.posicion(), entrada.longitudComprimida());
+        byte[] original = new byte[entrada.longitudOriginal()];
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(comprimido);
+            int leidos = 0;
+            while (leidos < original.length && !inflater.finished()) {
+                leidos += inflater.inflate(original, leidos, original.length - leidos);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Bloque corrupto en " + segmento.datos(), e);
+        } finally {
+            inflater.end();
+        }
+
+        List<Mensaje> mensajes = new ArrayList<>(MENSAJES_POR_BLOQUE);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(original))) {
+            while (true) {
+                Mensaje mensaje = new Mensaje();
+                try {
+                    mensaje.setId(in.readLong());
+                } catch (EOFException fin) {
+                    return mensajes;
+                }
+                mensaje.setNombre(in.readUTF());
+                mensaje.setEmail(in.readUTF());
+                mensaje.setContenido(in.readUTF());
+                mensaje.setFechaCreacion(LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC));
+                mensaje.setLeido(in.readBoolean());
+                mensajes.add(mensaje);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] serializar(List<Mensaje> bloque) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (Mensaje m : bloque) {
+                out.writeLong(m.getId());
+                out.writeUTF(m.getNombre());
+                out.writeUTF(m.getEmail());
+                out.writeUTF(m.getContenido());
+                out.writeLong(aSegundos(m.getFechaCreacion()));
+                out.writeInt(m.getFechaCreacion().getNano());
+                out.writeBoolean(Boolean.TRUE.equals(m.getLeido()));
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] comprimir(byte[] original) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(original);
+            deflater.finish();
+            ByteArrayOutputStream salida = new ByteArrayOutputStream(original.length / 2);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                salida.write(buffer, 0, n);
+            }
+            return salida.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static Path sinSufijoTemporal(Path fichero) {
+        String nombre = fichero.getFileName().toString();
+        return fichero.resolveSibling(nombre.substring(0, nombre.length() - TEMPORAL.length()));
+    }
+
+    private static long aSegundos(LocalDateTime fecha) {
+        return fecha.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    // ===== TIPOS INTERNOS =====
+
+    /**
+     * Entrada del índice disperso: describe un bloque del .seg (48 bytes en disco).
+     */
+    record EntradaIndice(long primerId, long ultimoId, long primeraFecha, long ultimaFecha,
+                         long posicion, int longitudComprimida, int longitudOriginal) {
+
+        static final int TAMANO = 48;
+
+        void escribir(ByteBuffer buffer) {
+            buffer.putLong(primerId).putLong(ultimoId)
+                    .putLong(primeraFecha).putLong(ultimaFecha)
+                    .putLong(posicion)
+                    .putInt(longitudComprimida).putInt(longitudOriginal);
+        }
+
+        static EntradaIndice leer(ByteBuffer buffer) {
+            return new EntradaIndice(
+                    buffer.getLong(), buffer.getLong(),
+                    buffer.getLong(), buffer.getLong(),
+                    buffer.getLong(),
+                    buffer.getInt(), buffer.getInt()
+            );
+        }
+    }
+
+    /**
+     * Segmento del archivo: ficheros, índice en memoria y mapa del .seg (perezoso).
+     */
+    public static final class Segmento {
+
+        private final Path datos;
+        private final Path indice;
+        private final List<EntradaIndice> entradas;
+        private volatile MappedByteBuffer mapa;
+
+        Segmento(Path datos, Path indice, List<EntradaIndice> entradas) {
+            this.datos = datos;
+            this.indice = indice;
+            this.entradas = entradas;
+        }
+
+        static Segmento abrir(Path indice) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(indice));
+            List<EntradaIndice> entradas = new ArrayList<>(buffer.remaining() / EntradaIndice.TAMANO);
+            while (buffer.remaining() >= EntradaIndice.TAMANO) {
+                entradas.add(EntradaIndice.leer(buffer));
+            }
+            String nombre = indice.getFileName().toString();
+            Path datos = indice.resolveSibling(nombre.replace(".idx", ".seg"));
+            return new Segmento(datos, indice, List.copyOf(entradas));
+        }
+
+        public Path datos() {
+            return datos;
+        }
+
+        Path indice() {
+            return indice;
+        }
+
+        List<EntradaIndice> entradas() {
+            return entradas;
+        }
+
+        /**
+         * Búsqueda binaria del bloque cuyo rango de ids contiene el id pedido.
+         * Los mensajes de un segmento están ordenados por id.
+         */
+        Optional<EntradaIndice> bloqueDe(long id) {
+            int bajo = 0;
+            int alto = entradas.size() - 1;
+            while (bajo <= alto) {
+                int medio = (bajo + alto) >>> 1;
+                EntradaIndice entrada = entradas.get(medio);
+                if (id < entrada.primerId()) {
+                    alto = medio - 1;
+                } else if (id > entrada.ultimoId()) {
+                    bajo = medio + 1;
+                } else {
+                    return Optional.of(entrada);
+                }
+            }
+            return Optional.empty();
+        }
+
+        /**
+         * Mapea el .seg en memoria la primera vez que se lee.
+         * Cada lectura usa slice(), así que el mapa se comparte entre hilos sin bloqueos.
+         */
+        MappedByteBuffer mapa() {
+            MappedByteBuffer actual = mapa;
+            if (actual == null) {
+                synchronized (this) {
+                    actual = mapa;
+                    if (actual == null) {
+                        try (FileChannel canal = FileChannel.open(datos, StandardOpenOption.READ)) {
+                            actual = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        mapa = actual;
+                    }
+                }
+            }
+            return actual;
+        }
+    }
+}
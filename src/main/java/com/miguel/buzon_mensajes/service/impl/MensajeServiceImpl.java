@@ -1,29 +1,103 @@
 package com.miguel.buzon_mensajes.service.impl;
 
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.dto.ContenidoComprimidoDTO;
+import com.miguel.buzon_mensajes.dto.EstadisticasDTO;
+import com.miguel.buzon_mensajes.dto.HuellaSimilarDTO;
 import com.miguel.buzon_mensajes.dto.MensajeRequestDTO;
 import com.miguel.buzon_mensajes.dto.MensajeResponseDTO;
+import com.miguel.buzon_mensajes.dto.MensajeVersionadoDTO;
 import com.miguel.buzon_mensajes.model.Mensaje;
 import com.miguel.buzon_mensajes.repository.MensajeRepository;
 import com.miguel.buzon_mensajes.service.MensajeService;
+import com.miguel.buzon_mensajes.service.VersionBuzon;
+import com.miguel.buzon_mensajes.service.analitica.LecturasPendientes;
+import com.miguel.buzon_mensajes.service.archivo.ArchivoMensajes;
+import com.miguel.buzon_mensajes.service.noleidos.IndiceNoLeidos;
+import com.miguel.buzon_mensajes.service.notificacion.PublicadorEventos;
+import com.miguel.buzon_mensajes.service.remitente.EscritorRemitentes;
+import com.miguel.buzon_mensajes.util.Normalizacion;
+import com.miguel.buzon_mensajes.util.SimHash;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.miguel.buzon_mensajes.exception.MensajeNotFoundException;
+import com.miguel.buzon_mensajes.exception.VersionNoCoincideException;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class MensajeServiceImpl implements MensajeService {
 
+    /**
+     * Máximo de mensajes similares que se devuelven (los más recientes).
+     */
+    private static final int MAX_SIMILARES = 500;
+
+    /**
+     * Candidatos (solo su huella) que se leen por consulta al buscar similares.
+     */
+    static final int LOTE_CANDIDATOS_SIMILARES = 500;
+
+    /**
+     * Mensajes por página al exportar desde la tabla.
+     */
+    private static final int TAMANO_PAGINA_EXPORTACION = 500;
+
+    private static final LocalDateTime INICIO_EXPORTACION = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    /**
+     * Ids por consulta al leer los mensajes de una página del índice de no leídos.
+     */
+    private static final int LOTE_IDS = 1000;
+
+    /**
+     * Mensajes comprimidos que se descomprimen por consulta al buscar por palabra.
+     */
+    private static final int LOTE_COMPRIMIDOS = 500;
+
+    /**
+     * Orden de la búsqueda por palabra y de los no leídos, con desempate por
+     * id: la mezcla de mensajes en texto y comprimidos (o de shards) y las
+     * páginas del índice de no leídos coinciden con las de la tabla.
+     */
+    private static final Sort ORDEN_MAS_RECIENTES =
+            Sort.by("fechaCreacion").descending().and(Sort.by("id").descending());
+
+    private static final Comparator<MensajeResponseDTO> MAS_RECIENTES_PRIMERO =
+            Comparator.comparing(MensajeResponseDTO::fechaCreacion)
+                    .thenComparing(MensajeResponseDTO::id)
+                    .reversed();
+
     private final MensajeRepository mensajeRepository;
+    private final ArchivoMensajes archivoMensajes;
+    private final BuzonProperties propiedades;
+    private final VersionBuzon versionBuzon;
+    private final PublicadorEventos publicadorEventos;
+    private final LecturasPendientes lecturasPendientes;
+    private final EscritorRemitentes escritorRemitentes;
+    private final IndiceNoLeidos indiceNoLeidos;
 
     // ===== MÉTODOS CON PAGINACIÓN (NUEVOS) =====
 
@@ -42,27 +116,36 @@ public class MensajeServiceImpl implements MensajeService {
                 Sort.by("fechaCreacion").descending()
         );
 
-        // Obtener página de mensajes
-        Page<Mensaje> mensajes = mensajeRepository.findAll(pageable);
-
-        // Convertir Page<Mensaje> a Page<MensajeResponseDTO>
-        return mensajes.map(this::convertirAResponseDTO);
+        // La consulta construye directamente los DTO (sin entidades intermedias)
+        return mensajeRepository.paginarDTO(pageable);
     }
 
     /**
      * Obtener mensajes filtrados por estado con paginación.
+     *
+     * Los no leídos salen del índice en memoria si ya está construido: los ids
+     * de la página y el total sin consultar la tabla, y después los mensajes
+     * de esos ids. En la última página PageImpl ajusta el total a las páginas
+     * anteriores más lo devuelto, por si algún id se acaba de leer. El índice solo da páginas si sus ids están en el orden de
+     * las fechas, así que por los dos caminos el orden es el mismo
+     * (fechaCreacion y después id, de más reciente a más antiguo), que es
+     * también el que usa ShardedMensajeService para mezclar los shards.
      */
     @Override
     @Transactional(readOnly = true)
     public Page<MensajeResponseDTO> obtenerNoLeidosPaginado(int page, int size, Boolean leido) {
-        Pageable pageable = PageRequest.of(
-                page,
-                size,
-                Sort.by("fechaCreacion").descending()
-        );
+        if (Boolean.FALSE.equals(leido)) {
+            Optional<long[]> ids = indiceNoLeidos.pagina((long) page * size, size);
+            OptionalLong total = indiceNoLeidos.contar();
+            if (ids.isPresent() && total.isPresent()) {
+                return new PageImpl<>(noLeidosPorIds(ids.get()),
+                        PageRequest.of(page, size, ORDEN_MAS_RECIENTES), total.getAsLong());
+            }
+        }
+
+        Pageable pageable = PageRequest.of(page, size, ORDEN_MAS_RECIENTES);
 
-        Page<Mensaje> mensajes = mensajeRepository.findByLeido(leido, pageable);
-        return mensajes.map(this::convertirAResponseDTO);
+        return mensajeRepository.paginarDTOPorLeido(leido, pageable);
     }
 
     /**
@@ -77,24 +160,40 @@ public class MensajeServiceImpl implements MensajeService {
                 Sort.by("fechaCreacion").descending()
         );
 
-        Page<Mensaje> mensajes = mensajeRepository.findByEmail(email, pageable);
-        return mensajes.map(this::convertirAResponseDTO);
+        return mensajeRepository.paginarDTOPorEmail(Normalizacion.email(email), pageable);
     }
 
     /**
      * Buscar mensajes por palabra en el contenido con paginación.
+     *
+     * Los mensajes en texto se filtran con LIKE en la base de datos. Los
+     * comprimidos (buzon.compresion.habilitada) no se pueden filtrar en SQL:
+     * se recorren por lotes, de más reciente a más antiguo, buscando en su
+     * texto descomprimido, y se mezclan con los primeros (page + 1) * size
+     * de los de texto. Como el LIKE sin índice, recorre todos los candidatos
+     * para dar el total; si no hay ningún comprimido es una sola consulta.
      */
     @Override
     @Transactional(readOnly = true)
     public Page<MensajeResponseDTO> buscarPorContenido(String palabra, int page, int size) {
-        Pageable pageable = PageRequest.of(
-                page,
-                size,
-                Sort.by("fechaCreacion").descending()
-        );
+        Pageable pageable = PageRequest.of(page, size, ORDEN_MAS_RECIENTES);
+        if (!mensajeRepository.existsByContenidoComprimidoIsNotNull()) {
+            return mensajeRepository.paginarDTOPorContenido(palabra, pageable);
+        }
 
-        Page<Mensaje> mensajes = mensajeRepository.findByContenidoContaining(palabra, pageable);
-        return mensajes.map(this::convertirAResponseDTO);
+        int ventana = Math.toIntExact((long) (page + 1) * size);
+        Page<MensajeResponseDTO> enTexto = mensajeRepository.paginarDTOPorContenido(
+                palabra, PageRequest.of(0, ventana, pageable.getSort()));
+        List<Long> idsComprimidos = new ArrayList<>();
+        long totalComprimidos = buscarEnComprimidos(palabra, ventana, idsComprimidos);
+
+        List<MensajeResponseDTO> pagina = Stream.concat(enTexto.getContent().stream(),
+                        dtosPorIds(idsComprimidos).stream())
+                .sorted(MAS_RECIENTES_PRIMERO)
+                .skip(pageable.getOffset())
+                .limit(size)
+                .toList();
+        return new PageImpl<>(pagina, pageable, enTexto.getTotalElements() + totalComprimidos);
     }
 
     // ===== MÉTODOS SIN PAGINACIÓN (MANTENER) =====
@@ -106,82 +205,351 @@ public class MensajeServiceImpl implements MensajeService {
         mensaje.setEmail(request.getEmail());
         mensaje.setContenido(request.getContenido());
         mensaje.setLeido(false);
+        mensaje.setBuzon(request.getBuzon() == null || request.getBuzon().isBlank()
+                ? Mensaje.BUZON_PRINCIPAL
+                : request.getBuzon().trim());
+        mensaje.setSimhash(SimHash.calcular(request.getContenido()));
+        if (propiedades.getCompresion().isHabilitada()) {
+            mensaje.comprimirContenido();
+        }
 
         Mensaje guardado = mensajeRepository.save(mensaje);
-        return convertirAResponseDTO(guardado);
+        MensajeResponseDTO respuesta = convertirAResponseDTO(guardado);
+
+        // Misma transacción: el aviso y el contador del remitente existen si y solo si el mensaje se guardó
+        escritorRemitentes.mensajeCreado(guardado);
+        publicadorEventos.mensajeCreado(respuesta);
+        versionBuzon.incrementar();
+        indiceNoLeidos.agregar(guardado.getId(), guardado.getFechaCreacion());
+        return respuesta;
     }
 
+    /**
+     * Todos los mensajes, o solo los más recientes si hay buzon.memoria.maximo-filas-listado.
+     */
     @Override
     @Transactional(readOnly = true)
     public List<MensajeResponseDTO> obtenerTodos() {
-        return mensajeRepository.findAll()
-                .stream()
-                .map(this::convertirAResponseDTO)
-                .collect(Collectors.toList());
+        return mensajeRepository.listarDTO(limiteListado());
     }
 
     @Override
     @Transactional(readOnly = true)
     public MensajeResponseDTO obtenerPorId(Long id) {
+        return obtenerVersionado(id).mensaje();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public MensajeVersionadoDTO obtenerVersionado(Long id) {
+        // Si ya no está en la tabla puede estar en el archivo en frío
         Mensaje mensaje = mensajeRepository.findById(id)
+                .or(() -> archivoMensajes.buscar(id))
                 .orElseThrow(() -> new MensajeNotFoundException(id));
 
-        return convertirAResponseDTO(mensaje);
+        return versionado(mensaje);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<MensajeResponseDTO> obtenerNoLeidos() {
-        return mensajeRepository.findByLeido(false)
-                .stream()
-                .map(this::convertirAResponseDTO)
-                .collect(Collectors.toList());
+        Pageable limite = limiteListado();
+        int maximo = limite.isPaged() ? limite.getPageSize() : Integer.MAX_VALUE;
+        return indiceNoLeidos.pagina(0, maximo)
+                .map(this::noLeidosPorIds)
+                .orElseGet(() -> mensajeRepository.listarDTOPorLeido(false, limite));
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<MensajeResponseDTO> obtenerPorEmail(String email) {
-        return mensajeRepository.findByEmail(email)
-                .stream()
-                .map(this::convertirAResponseDTO)
-                .collect(Collectors.toList());
+        return mensajeRepository.listarDTOPorEmail(Normalizacion.email(email), limiteListado());
     }
 
+    /**
+     * Marcar como leído con un UPDATE condicional (leido = false y, con
+     * If-Match, la versión esperada) en lugar de leer y guardar: dos
+     * administradores a la vez no se pisan y no hace falta bloquear la fila.
+     *
+     * Si el UPDATE no cambia nada se mira por qué: si el mensaje ya estaba
+     * leído la petición ya está cumplida y se devuelve tal cual (sin contar
+     * otra lectura); si sigue sin leer, su versión no era la esperada.
+     */
     @Override
-    public MensajeResponseDTO marcarComoLeido(Long id) {
+    public MensajeVersionadoDTO marcarComoLeido(Long id, Long versionEsperada) {
+        LocalDateTime ahora = LocalDateTime.now();
+        int cambiados = mensajeRepository.marcarLeido(id, versionEsperada, ahora);
+
+        // Se lee después del UPDATE: así se devuelve ya con la versión nueva
         Mensaje mensaje = mensajeRepository.findById(id)
                 .orElseThrow(() -> new MensajeNotFoundException(id));
+        if (cambiados == 0) {
+            if (!Boolean.TRUE.equals(mensaje.getLeido())) {
+                throw new VersionNoCoincideException(id);
+            }
+            return versionado(mensaje);
+        }
 
-        mensaje.setLeido(true);
-        Mensaje actualizado = mensajeRepository.save(mensaje);
+        escritorRemitentes.mensajeLeido(mensaje);
+        versionBuzon.incrementar();
+        indiceNoLeidos.quitar(id);
+        // Solo en memoria: la métrica del día lo lee de ahí y, con rollups,
+        // RollupJob lo vuelca al histograma de latencia
+        lecturasPendientes.registrar(mensaje.getFechaCreacion(), ahora);
+        return versionado(mensaje);
+    }
 
-        return convertirAResponseDTO(actualizado);
+    /**
+     * Borrado lógico: rellena eliminadoEn con un UPDATE de una fila. Desde ese
+     * momento el mensaje no aparece en ninguna consulta; PurgaMensajesJob lo
+     * borra de verdad pasado buzon.purga.dias-retencion.
+     */
+    @Override
+    public void eliminar(Long id, Long versionEsperada) {
+        // Se carga entero: el contador del remitente necesita su email y si estaba leído
+        Mensaje mensaje = mensajeRepository.findById(id)
+                .orElseThrow(() -> new MensajeNotFoundException(id));
+        if (versionEsperada != null && !versionEsperada.equals(mensaje.getVersion())) {
+            throw new VersionNoCoincideException(id);
+        }
+        if (mensajeRepository.marcarEliminado(id, versionEsperada, LocalDateTime.now()) == 0) {
+            // Otra petición lo cambió o lo eliminó entre medias
+            if (versionEsperada != null) {
+                throw new VersionNoCoincideException(id);
+            }
+            throw new MensajeNotFoundException(id);
+        }
+        escritorRemitentes.mensajeEliminado(mensaje);
+        versionBuzon.incrementar();
+        indiceNoLeidos.quitar(id);
     }
 
     @Override
-    public void eliminar(Long id) {
-        if (!mensajeRepository.existsById(id)) {
+    public MensajeResponseDTO restaurar(Long id) {
+        Mensaje mensaje = mensajeRepository.buscarEliminado(id)
+                .orElseThrow(() -> new MensajeNotFoundException(id));
+        if (mensajeRepository.restaurar(id) == 0) {
             throw new MensajeNotFoundException(id);
         }
-        mensajeRepository.deleteById(id);
+        escritorRemitentes.mensajeCreado(mensaje);
+        versionBuzon.incrementar();
+        if (!Boolean.TRUE.equals(mensaje.getLeido())) {
+            indiceNoLeidos.agregar(id, mensaje.getFechaCreacion());
+        }
+        return convertirAResponseDTO(mensaje);
     }
 
     @Override
     @Transactional(readOnly = true)
     public Long contarNoLeidos() {
-        return mensajeRepository.countByLeido(false);
+        // Con el índice construido no se cuenta la tabla
+        OptionalLong enIndice = indiceNoLeidos.contar();
+        return enIndice.isPresent() ? enIndice.getAsLong() : mensajeRepository.countByLeido(false);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public EstadisticasDTO obtenerEstadisticas() {
+        return mensajeRepository.obtenerEstadisticas();
+    }
+
+    private MensajeVersionadoDTO versionado(Mensaje mensaje) {
+        // Los mensajes del archivo en frío no tienen versión
+        long version = mensaje.getVersion() != null ? mensaje.getVersion() : 0L;
+        return new MensajeVersionadoDTO(convertirAResponseDTO(mensaje), version);
+    }
+
+    // ===== CASI DUPLICADOS =====
+
+    /**
+     * Buscar mensajes casi idénticos usando las bandas del SimHash.
+     *
+     * La distancia se limita a {@link SimHash#DISTANCIA_MAXIMA_GARANTIZADA}:
+     * por encima de ese valor las bandas ya no garantizan encontrar todos los similares.
+     * Un mensaje sin palabras (vacío o solo signos) no tiene similares.
+     *
+     * Los candidatos que comparten banda se recorren por lotes, de más
+     * reciente a más antiguo, leyendo solo su huella, y se filtran por
+     * distancia antes de aplicar el límite: se devuelven los
+     * {@link #MAX_SIMILARES} similares más recientes, aunque una plantilla
+     * muy repetida llene los primeros lotes de candidatos que no lo son.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<MensajeResponseDTO> buscarSimilares(Long id, int distanciaMaxima) {
+        Mensaje referencia = mensajeRepository.findById(id)
+                .orElseThrow(() -> new MensajeNotFoundException(id));
+
+        // Los mensajes anteriores a la huella no la tienen guardada: se calcula al vuelo
+        long huella = referencia.getSimhash() != null
+                ? referencia.getSimhash()
+                : SimHash.calcular(referencia.getContenido());
+        if (!SimHash.comparable(huella)) {
+            return List.of();
+        }
+        int distancia = Math.max(0, Math.min(distanciaMaxima, SimHash.DISTANCIA_MAXIMA_GARANTIZADA));
+
+        int b0 = SimHash.banda(huella, 0);
+        int b1 = SimHash.banda(huella, 1);
+        int b2 = SimHash.banda(huella, 2);
+        int b3 = SimHash.banda(huella, 3);
+        Pageable lote = PageRequest.of(0, LOTE_CANDIDATOS_SIMILARES);
+
+        List<Long> similares = new ArrayList<>();
+        List<HuellaSimilarDTO> candidatos = mensajeRepository.buscarCandidatosSimilares(id, b0, b1, b2, b3, lote);
+        while (!candidatos.isEmpty()) {
+            for (HuellaSimilarDTO candidato : candidatos) {
+                // Los guardados antes de excluir las huellas vacías aún tienen sus bandas a 0
+                if (candidato.simhash() != null && SimHash.comparable(candidato.simhash())
+                        && SimHash.distancia(huella, candidato.simhash()) <= distancia) {
+                    similares.add(candidato.id());
+                    if (similares.size() == MAX_SIMILARES) {
+                        return mensajesPorIds(similares);
+                    }
+                }
+            }
+            if (candidatos.size() < LOTE_CANDIDATOS_SIMILARES) {
+                break;
+            }
+            HuellaSimilarDTO ultimo = candidatos.get(candidatos.size() - 1);
+            candidatos = mensajeRepository.buscarCandidatosSimilaresAntesDe(
+                    id, b0, b1, b2, b3, ultimo.fechaCreacion(), ultimo.id(), lote);
+        }
+        return mensajesPorIds(similares);
+    }
+
+    // ===== EXPORTACIÓN =====
+
+    /**
+     * Exportar primero la tabla (por páginas de id) y después el archivo en frío.
+     *
+     * Sin transacción propia: cada página usa la transacción corta del repositorio,
+     * así las entidades ya exportadas no se acumulan en el contexto de persistencia.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void exportar(LocalDateTime desde, Consumer<MensajeResponseDTO> destino) {
+        exportarTabla(desde, destino);
+        exportarArchivo(desde, destino);
+    }
+
+    /**
+     * Exportar solo los mensajes de la tabla (del shard activo, si hay sharding).
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void exportarTabla(LocalDateTime desde, Consumer<MensajeResponseDTO> destino) {
+        LocalDateTime inicio = desde != null ? desde : INICIO_EXPORTACION;
+
+        Long ultimoId = 0L;
+        List<MensajeResponseDTO> pagina;
+        do {
+            pagina = mensajeRepository.paginarDTODesdeId(
+                    ultimoId,
+                    inicio,
+                    PageRequest.of(0, TAMANO_PAGINA_EXPORTACION)
+            );
+            pagina.forEach(destino);
+            if (!pagina.isEmpty()) {
+                ultimoId = pagina.get(pagina.size() - 1).id();
+            }
+        } while (pagina.size() == TAMANO_PAGINA_EXPORTACION);
+    }
+
+    /**
+     * Exportar solo los mensajes del archivo en frío.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void exportarArchivo(LocalDateTime desde, Consumer<MensajeResponseDTO> destino) {
+        LocalDateTime inicio = desde != null ? desde : INICIO_EXPORTACION;
+        archivoMensajes.recorrer(inicio, mensaje -> destino.accept(convertirAResponseDTO(mensaje)));
     }
 
     // ===== MÉTODOS PRIVADOS =====
 
+    /**
+     * Límite de filas de los listados sin paginar (buzon.memoria.maximo-filas-listado).
+     */
+    private Pageable limiteListado() {
+        int maximo = propiedades.getMemoria().getMaximoFilasListado();
+        return maximo > 0 ? PageRequest.of(0, maximo) : Pageable.unpaged();
+    }
+
+    /**
+     * Recorre los mensajes comprimidos buscando la palabra en su texto.
+     * Guarda en "ids" las "maximo" coincidencias más recientes y devuelve
+     * cuántas hay en total.
+     */
+    private long buscarEnComprimidos(String palabra, int maximo, List<Long> ids) {
+        long total = 0;
+        List<ContenidoComprimidoDTO> lote = mensajeRepository.buscarComprimidos(PageRequest.of(0, LOTE_COMPRIMIDOS));
+        while (!lote.isEmpty()) {
+            for (ContenidoComprimidoDTO comprimido : lote) {
+                if (comprimido.contenido().texto().contains(palabra)) {
+                    total++;
+                    if (ids.size() < maximo) {
+                        ids.add(comprimido.id());
+                    }
+                }
+            }
+            if (lote.size() < LOTE_COMPRIMIDOS) {
+                break;
+            }
+            ContenidoComprimidoDTO ultimo = lote.get(lote.size() - 1);
+            lote = mensajeRepository.buscarComprimidosAntesDe(ultimo.fechaCreacion(), ultimo.id(),
+                    PageRequest.of(0, LOTE_COMPRIMIDOS));
+        }
+        return total;
+    }
+
+    /**
+     * Los DTO (con la vista previa, como los listados) de unos ids, en lotes de LOTE_IDS.
+     */
+    private List<MensajeResponseDTO> dtosPorIds(List<Long> ids) {
+        List<MensajeResponseDTO> mensajes = new ArrayList<>(ids.size());
+        for (int desde = 0; desde < ids.size(); desde += LOTE_IDS) {
+            mensajes.addAll(mensajeRepository.listarDTOPorIds(ids.subList(desde, Math.min(ids.size(), desde + LOTE_IDS))));
+        }
+        return mensajes;
+    }
+
+    /**
+     * Los mensajes completos de unos ids, en el mismo orden.
+     */
+    private List<MensajeResponseDTO> mensajesPorIds(List<Long> ids) {
+        Map<Long, Mensaje> porId = mensajeRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Mensaje::getId, Function.identity()));
+        return ids.stream()
+                .map(porId::get)
+                .filter(Objects::nonNull)
+                .map(this::convertirAResponseDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Los mensajes de unos ids del índice de no leídos, en el mismo orden,
+     * con una consulta IN por cada {@link #LOTE_IDS} ids. Un id que se acaba
+     * de leer o eliminar se queda fuera.
+     */
+    private List<MensajeResponseDTO> noLeidosPorIds(long[] ids) {
+        List<MensajeResponseDTO> mensajes = new ArrayList<>(ids.length);
+        for (int desde = 0; desde < ids.length; desde += LOTE_IDS) {
+            List<Long> lote = Arrays.stream(ids, desde, Math.min(ids.length, desde + LOTE_IDS)).boxed().toList();
+            mensajes.addAll(mensajeRepository.listarDTONoLeidosPorIds(lote));
+        }
+        // Los ids del índice van de mayor a menor
+        mensajes.sort(Comparator.comparing(MensajeResponseDTO::id).reversed());
+        return mensajes;
+    }
+
     private MensajeResponseDTO convertirAResponseDTO(Mensaje mensaje) {
-        MensajeResponseDTO dto = new MensajeResponseDTO();
-        dto.setId(mensaje.getId());
-        dto.setNombre(mensaje.getNombre());
-        dto.setEmail(mensaje.getEmail());
-        dto.setContenido(mensaje.getContenido());
-        dto.setFechaCreacion(mensaje.getFechaCreacion());
-        dto.setLeido(mensaje.getLeido());
-        return dto;
+        return new MensajeResponseDTO(
+                mensaje.getId(),
+                mensaje.getNombre(),
+                mensaje.getEmail(),
+                mensaje.getContenido(),
+                mensaje.getFechaCreacion(),
+                mensaje.getLeido(),
+                mensaje.getBuzon()
+        );
     }
 }
\ No newline at end of file
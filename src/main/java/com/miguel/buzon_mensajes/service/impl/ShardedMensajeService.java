@@ -0,0 +1,224 @@
+package com.miguel.buzon_mensajes.service.impl;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.datasource.ShardContext;
+import com.miguel.buzon_mensajes.datasource.ShardRouter;
+import com.miguel.buzon_mensajes.dto.EstadisticasDTO;
+import com.miguel.buzon_mensajes.dto.MensajeRequestDTO;
+import com.miguel.buzon_mensajes.dto.MensajeResponseDTO;
+import com.miguel.buzon_mensajes.dto.MensajeVersionadoDTO;
+import com.miguel.buzon_mensajes.model.Mensaje;
+import com.miguel.buzon_mensajes.service.MensajeService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Capa de enrutado por shard delante de {@link MensajeServiceImpl}.
+ *
+ * Solo existe con buzon.shards.habilitado=true y entonces es el MensajeService
+ * que reciben los controllers (@Primary). No es transaccional a propósito:
+ * fija el shard en {@link ShardContext} y después llama al servicio real,
+ * que abre su transacción ya sobre la conexión del shard correcto.
+ *
+ * - Operaciones de un solo mensaje: van directas a su shard (por buzón o por id).
+ * - Listados paginados: se piden en paralelo a todos los shards (scatter-gather)
+ *   y se mezclan por fechaCreacion descendente.
+ */
+@Service
+@Primary
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "buzon.shards", name = "habilitado", havingValue = "true")
+public class ShardedMensajeService implements MensajeService {
+
+    private static final Comparator<MensajeResponseDTO> MAS_RECIENTES_PRIMERO = Comparator
+            .comparing(MensajeResponseDTO::fechaCreacion, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(MensajeResponseDTO::id, Comparator.reverseOrder());
+
+    private final MensajeServiceImpl delegado;
+    private final ShardRouter shardRouter;
+    private final BuzonProperties propiedades;
+
+    /**
+     * Hilos virtuales: cada consulta pasa casi todo el tiempo esperando a la BD.
+     * El paralelismo real lo limita el pool Hikari de cada shard.
+     */
+    private final ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @PreDestroy
+    void cerrar() {
+        ejecutor.shutdown();
+    }
+
+    // ===== MÉTODOS CON PAGINACIÓN =====
+
+    @Override
+    public Page<MensajeResponseDTO> obtenerTodosPaginado(int page, int size) {
+        return paginaGlobal(page, size, limite -> delegado.obtenerTodosPaginado(0, limite));
+    }
+
+    @Override
+    public Page<MensajeResponseDTO> obtenerNoLeidosPaginado(int page, int size, Boolean leido) {
+        return paginaGlobal(page, size, limite -> delegado.obtenerNoLeidosPaginado(0, limite, leido));
+    }
+
+    @Override
+    public Page<MensajeResponseDTO> obtenerPorEmailPaginado(String email, int page, int size) {
+        return paginaGlobal(page, size, limite -> delegado.obtenerPorEmailPaginado(email, 0, limite));
+    }
+
+    @Override
+    public Page<MensajeResponseDTO> buscarPorContenido(String palabra, int page, int size) {
+        return paginaGlobal(page, size, limite -> delegado.buscarPorContenido(palabra, 0, limite));
+    }
+
+    // ===== MÉTODOS SIN PAGINACIÓN =====
+
+    @Override
+    public MensajeResponseDTO crear(MensajeRequestDTO request) {
+        String buzon = request.getBuzon() == null || request.getBuzon().isBlank()
+                ? Mensaje.BUZON_PRINCIPAL
+                : request.getBuzon().trim();
+        return ShardContext.ejecutarEn(shardRouter.shardDeBuzon(buzon), () -> delegado.crear(request));
+    }
+
+    @Override
+    public List<MensajeResponseDTO> obtenerTodos() {
+        return concatenar(delegado::obtenerTodos);
+    }
+
+    @Override
+    public MensajeResponseDTO obtenerPorId(Long id) {
+        return ShardContext.ejecutarEn(shardRouter.shardDeId(id), () -> delegado.obtenerPorId(id));
+    }
+
+    @Override
+    public List<MensajeResponseDTO> obtenerNoLeidos() {
+        return concatenar(delegado::obtenerNoLeidos);
+    }
+
+    @Override
+    public List<MensajeResponseDTO> obtenerPorEmail(String email) {
+        return concatenar(() -> delegado.obtenerPorEmail(email));
+    }
+
+    @Override
+    public MensajeVersionadoDTO obtenerVersionado(Long id) {
+        return ShardContext.ejecutarEn(shardRouter.shardDeId(id), () -> delegado.obtenerVersionado(id));
+    }
+
+    @Override
+    public MensajeVersionadoDTO marcarComoLeido(Long id, Long versionEsperada) {
+        return ShardContext.ejecutarEn(shardRouter.shardDeId(id), () -> delegado.marcarComoLeido(id, versionEsperada));
+    }
+
+    @Override
+    public void eliminar(Long id, Long versionEsperada) {
+        ShardContext.ejecutarEn(shardRouter.shardDeId(id), () -> delegado.eliminar(id, versionEsperada));
+    }
+
+    @Override
+    public MensajeResponseDTO restaurar(Long id) {
+        return ShardContext.ejecutarEn(shardRouter.shardDeId(id), () -> delegado.restaurar(id));
+    }
+
+    @Override
+    public Long contarNoLeidos() {
+        return enTodosLosShards(delegado::contarNoLeidos).stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Override
+    public EstadisticasDTO obtenerEstadisticas() {
+        return enTodosLosShards(delegado::obtenerEstadisticas).stream()
+                .reduce(new EstadisticasDTO(0, 0, 0), EstadisticasDTO::mas);
+    }
+
+    /**
+     * Los similares se buscan en el shard del mensaje de referencia:
+     * las campañas suelen llegar al mismo buzón.
+     */
+    @Override
+    public List<MensajeResponseDTO> buscarSimilares(Long id, int distanciaMaxima) {
+        return ShardContext.ejecutarEn(shardRouter.shardDeId(id), () -> delegado.buscarSimilares(id, distanciaMaxima));
+    }
+
+    /**
+     * Exporta shard a shard (en secuencia, para respetar el orden del flujo de salida)
+     * y el archivo en frío una sola vez al final.
+     */
+    @Override
+    public void exportar(LocalDateTime desde, Consumer<MensajeResponseDTO> destino) {
+        for (int shard = 0; shard < shardRouter.getNumeroShards(); shard++) {
+            ShardContext.ejecutarEn(shard, () -> delegado.exportarTabla(desde, destino));
+        }
+        delegado.exportarArchivo(desde, destino);
+    }
+
+    // ===== MÉTODOS PRIVADOS =====
+
+    /**
+     * Ejecuta la consulta en todos los shards en paralelo y devuelve un resultado por shard.
+     */
+    private <T> List<T> enTodosLosShards(Supplier<T> consulta) {
+        List<CompletableFuture<T>> futuros = IntStream.range(0, shardRouter.getNumeroShards())
+                .mapToObj(shard -> CompletableFuture.supplyAsync(
+                        () -> ShardContext.ejecutarEn(shard, consulta), ejecutor))
+                .toList();
+        return futuros.stream().map(CompletableFuture::join).toList();
+    }
+
+    /**
+     * Une los listados de todos los shards; con buzon.memoria.maximo-filas-listado
+     * cada shard ya devuelve como mucho ese número y aquí se recorta el total.
+     */
+    private List<MensajeResponseDTO> concatenar(Supplier<List<MensajeResponseDTO>> consulta) {
+        int maximo = propiedades.getMemoria().getMaximoFilasListado();
+        return enTodosLosShards(consulta).stream()
+                .flatMap(List::stream)
+                .sorted(MAS_RECIENTES_PRIMERO)
+                .limit(maximo > 0 ? maximo : Long.MAX_VALUE)
+                .toList();
+    }
+
+    /**
+     * Página global a partir de las primeras (page + 1) * size filas de cada shard.
+     *
+     * Cualquier fila de la página global está entre las (page + 1) * size más
+     * recientes de su propio shard, así que basta con mezclar esos prefijos.
+     * El coste crece con el número de página: pensado para las primeras páginas
+     * del panel, no para recorrer el buzón entero (para eso está la exportación).
+     */
+    private Page<MensajeResponseDTO> paginaGlobal(int page, int size,
+                                                  IntFunction<Page<MensajeResponseDTO>> consulta) {
+        // En long: con un page muy alto (page + 1) * size desbordaría el int
+        int limite = Math.toIntExact((long) (page + 1) * size);
+        List<Page<MensajeResponseDTO>> parciales = enTodosLosShards(() -> consulta.apply(limite));
+
+        long total = parciales.stream().mapToLong(Page::getTotalElements).sum();
+        List<MensajeResponseDTO> contenido = parciales.stream()
+                .flatMap(parcial -> parcial.getContent().stream())
+                .sorted(MAS_RECIENTES_PRIMERO)
+                .skip((long) page * size)
+                .limit(size)
+                .toList();
+
+        return new PageImpl<>(contenido, PageRequest.of(page, size, Sort.by("fechaCreacion").descending()), total);
+    }
+}
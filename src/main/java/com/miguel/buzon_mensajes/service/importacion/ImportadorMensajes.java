@@ -0,0 +1,355 @@
+package com.miguel.buzon_mensajes.service.importacion;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.datasource.ShardContext;
+import com.miguel.buzon_mensajes.datasource.ShardRouter;
+import com.miguel.buzon_mensajes.dto.ResultadoImportacionDTO;
+import com.miguel.buzon_mensajes.exception.ImportacionEnCursoException;
+import com.miguel.buzon_mensajes.exception.ImportacionRechazadaException;
+import com.miguel.buzon_mensajes.model.Importacion;
+import com.miguel.buzon_mensajes.model.MarcaAgua;
+import com.miguel.buzon_mensajes.model.Mensaje;
+import com.miguel.buzon_mensajes.repository.ImportacionRepository;
+import com.miguel.buzon_mensajes.repository.MarcaAguaRepository;
+import com.miguel.buzon_mensajes.service.VersionBuzon;
+import com.miguel.buzon_mensajes.service.analitica.EscritorRollups;
+import com.miguel.buzon_mensajes.service.importacion.LectorImportacion.Registro;
+import com.miguel.buzon_mensajes.service.importacion.PreparadorMensajes.Preparado;
+import com.miguel.buzon_mensajes.service.noleidos.IndiceNoLeidos;
+import com.miguel.buzon_mensajes.service.remitente.EscritorRemitentes;
+import com.miguel.buzon_mensajes.util.Normalizacion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Importación masiva de mensajes desde NDJSON o CSV.
+ *
+ * - El fichero se lee fila a fila mientras llega (no se guarda entero ni en
+ *   memoria ni en disco).
+ * - Las filas se agrupan en lotes de buzon.importacion.tamano-lote y cada
+ *   lote pasa por {@link PreparadorMensajes}, que normaliza, valida con las
+ *   mismas reglas que el formulario y calcula las huellas en paralelo. Las
+ *   inválidas se cuentan y se siguen las demás.
+ * - Las válidas se insertan de una vez con {@link EscritorMensajesJdbc} (COPY
+ *   en PostgreSQL), en la misma transacción que avanza el progreso de la
+ *   clave ({@link Importacion}) y que suma los contadores de sus remitentes
+ *   (un upsert por remitente del lote). La memoria depende del lote, no del
+ *   fichero.
+ * - Si se corta, repetir la petición con la misma clave salta las filas ya
+ *   confirmadas: ningún mensaje se importa dos veces.
+ *
+ * Los mensajes importados conservan su fechaCreacion y no generan
+ * notificaciones ni resúmenes si es anterior a la marca de ResumenJob (son
+ * históricos). En la analítica sí cuentan: con los rollups activos, cada lote
+ * suma en la misma transacción los mensajes que quedan por detrás de la marca
+ * de RollupJob (y de la reconstrucción, si ya terminó), bajo el mismo bloqueo;
+ * los posteriores los agregan esas tareas como cualquier otro.
+ * El índice de no leídos de cada shard con mensajes nuevos se invalida una vez
+ * al acabar (COPY no devuelve los ids), también si la importación falla a medias.
+ * Con sharding cada fila va al shard de su buzón, que guarda su propio progreso.
+ */
+@Slf4j
+@Service
+public class ImportadorMensajes {
+
+    public enum Formato {
+        NDJSON,
+        CSV
+    }
+
+    private final ImportacionRepository importacionRepository;
+    private final PreparadorMensajes preparador;
+    private final EscritorMensajesJdbc escritor;
+    private final EscritorRemitentes escritorRemitentes;
+    private final EscritorRollups escritorRollups;
+    private final MarcaAguaRepository marcaAguaRepository;
+    private final VersionBuzon versionBuzon;
+    private final IndiceNoLeidos indiceNoLeidos;
+    private final ObjectMapper objectMapper;
+    private final BuzonProperties propiedades;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+    private final Clock reloj;
+
+    @Autowired
+    public ImportadorMensajes(ImportacionRepository importacionRepository,
+                              PreparadorMensajes preparador,
+                              EscritorMensajesJdbc escritor,
+                              EscritorRemitentes escritorRemitentes,
+                              EscritorRollups escritorRollups,
+                              MarcaAguaRepository marcaAguaRepository,
+                              VersionBuzon versionBuzon,
+                              IndiceNoLeidos indiceNoLeidos,
+                              ObjectMapper objectMapper,
+                              BuzonProperties propiedades,
+                              TransactionTemplate transactionTemplate,
+                              ObjectProvider<ShardRouter> shardRouter) {
+        this(importacionRepository, preparador, escritor, escritorRemitentes, escritorRollups, marcaAguaRepository,
+                versionBuzon, indiceNoLeidos, objectMapper, propiedades, transactionTemplate,
+                shardRouter.getIfAvailable(), Clock.systemDefaultZone());
+    }
+
+    ImportadorMensajes(ImportacionRepository importacionRepository,
+                       PreparadorMensajes preparador,
+                       EscritorMensajesJdbc escritor,
+                       EscritorRemitentes escritorRemitentes,
+                       EscritorRollups escritorRollups,
+                       MarcaAguaRepository marcaAguaRepository,
+                       VersionBuzon versionBuzon,
+                       IndiceNoLeidos indiceNoLeidos,
+                       ObjectMapper objectMapper,
+                       BuzonProperties propiedades,
+                       TransactionTemplate transactionTemplate,
+                       ShardRouter shardRouter,
+                       Clock reloj) {
+        this.importacionRepository = importacionRepository;
+        this.preparador = preparador;
+        this.escritor = escritor;
+        this.escritorRemitentes = escritorRemitentes;
+        this.escritorRollups = escritorRollups;
+        this.marcaAguaRepository = marcaAguaRepository;
+        this.versionBuzon = versionBuzon;
+        this.indiceNoLeidos = indiceNoLeidos;
+        this.objectMapper = objectMapper;
+        this.propiedades = propiedades;
+        this.transactionTemplate = transactionTemplate;
+        this.shardRouter = shardRouter;
+        this.reloj = reloj;
+    }
+
+    /**
+     * Importa el fichero completo (o lo que quede de él con esta clave).
+     *
+     * @param clave Identificador de la importación elegido por el cliente (máx. 100 caracteres)
+     * @throws ImportacionRechazadaException si el fichero no se puede procesar
+     * @throws ImportacionEnCursoException si otra petición avanza la misma clave a la vez
+     */
+    public ResultadoImportacionDTO importar(String clave, Formato formato, InputStream entrada) {
+        if (clave == null || clave.isBlank() || clave.length() > 100) {
+            throw new ImportacionRechazadaException("La clave de importación es obligatoria (máximo 100 caracteres)");
+        }
+
+        Progreso progreso = new Progreso(clave, numeroShards());
+        for (int shard = 0; shard < progreso.confirmada.length; shard++) {
+            int s = shard;
+            progreso.confirmada[s] = enShard(s, () -> importacionRepository.findById(clave)
+                    .map(Importacion::getLineaConfirmada)
+                    .orElse(0L));
+        }
+
+        LocalDateTime ahora = LocalDateTime.now(reloj);
+        int lote = propiedades.getImportacion().getTamanoLote();
+
+        try (LectorImportacion lector = LectorImportacion.abrir(formato, entrada, objectMapper)) {
+            List<Registro> registros = new ArrayList<>(lote);
+            for (Registro registro = lector.siguiente(); registro != null; registro = lector.siguiente()) {
+                registros.add(registro);
+                if (registros.size() == lote) {
+                    procesarLote(progreso, registros, ahora);
+                    registros.clear();
+                }
+            }
+            if (!registros.isEmpty()) {
+                procesarLote(progreso, registros, ahora);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            invalidarIndices(progreso);
+        }
+
+        log.info("Importación '{}': {} filas, {} importadas, {} ya importadas, {} inválidas",
+                clave, progreso.procesados, progreso.importados, progreso.yaImportados, progreso.invalidos);
+        return new ResultadoImportacionDTO(clave, progreso.procesados, progreso.importados,
+                progreso.yaImportados, progreso.invalidos, progreso.errores);
+    }
+
+    private void procesarLote(Progreso progreso, List<Registro> registros, LocalDateTime ahora) {
+        for (Preparado preparado : preparador.preparar(registros, ahora)) {
+            progreso.procesados++;
+            if (!preparado.valido()) {
+                progreso.rechazar(preparado);
+                continue;
+            }
+            Mensaje mensaje = preparado.mensaje();
+            int shard = shardRouter == null ? 0 : shardRouter.shardDeBuzon(mensaje.getBuzon());
+            if (preparado.linea() <= progreso.confirmada[shard]) {
+                progreso.yaImportados++;
+            } else {
+                progreso.pendientes.get(shard).add(mensaje);
+            }
+        }
+        confirmar(progreso, registros.get(registros.size() - 1).linea());
+    }
+
+    /**
+     * Guarda lo pendiente de cada shard y avanza su progreso hasta la línea
+     * indicada, en una transacción por shard.
+     */
+    private void confirmar(Progreso progreso, long linea) {
+        for (int shard = 0; shard < progreso.pendientes.size(); shard++) {
+            List<Mensaje> mensajes = progreso.pendientes.get(shard);
+            if (mensajes.isEmpty()) {
+                continue;
+            }
+            int s = shard;
+            try {
+                enShard(s, () -> transactionTemplate.executeWithoutResult(status ->
+                        confirmarShard(progreso.clave, progreso.confirmada[s], linea, mensajes)));
+            } catch (DataIntegrityViolationException e) {
+                // Dos primeras ejecuciones a la vez: ambas intentaron crear la fila de progreso
+                throw new ImportacionEnCursoException(progreso.clave);
+            }
+            progreso.confirmada[s] = linea;
+            progreso.conNuevos[s] = true;
+            progreso.importados += mensajes.size();
+            mensajes.clear();
+        }
+    }
+
+    private void confirmarShard(String clave, long esperada, long linea, List<Mensaje> mensajes) {
+        Importacion importacion = importacionRepository.bloquear(clave)
+                .orElseGet(() -> new Importacion(clave, 0, 0, null));
+        if (importacion.getLineaConfirmada() != esperada) {
+            throw new ImportacionEnCursoException(clave);
+        }
+
+        escritor.insertar(mensajes);
+        escritorRemitentes.sumar(EscritorRemitentes.agrupar(mensajes));
+        if (propiedades.getRollups().isHabilitado()) {
+            sumarARollups(mensajes);
+        }
+
+        importacion.setLineaConfirmada(linea);
+        importacion.setImportados(importacion.getImportados() + mensajes.size());
+        importacion.setFechaActualizacion(LocalDateTime.now(reloj));
+        importacionRepository.save(importacion);
+        versionBuzon.incrementar();
+    }
+
+    /**
+     * Suma a los rollups los mensajes que ni RollupJob ni la reconstrucción
+     * van a recorrer ya. Bloquea las marcas en el mismo orden que ellas, así
+     * que su posición no cambia hasta que este lote confirma.
+     */
+    private void sumarARollups(List<Mensaje> mensajes) {
+        MarcaAgua marca = marcaAguaRepository.bloquear(EscritorRollups.MARCA).orElse(null);
+        if (marca == null) {
+            // RollupJob aún no ha empezado: la reconstrucción contará todo lo anterior
+            return;
+        }
+        MarcaAgua reconstruccion = marcaAguaRepository.bloquear(EscritorRollups.MARCA_RECONSTRUCCION).orElse(null);
+        boolean reconstruida = reconstruccion == null || reconstruccion.getUltimoId() == Long.MAX_VALUE;
+
+        Map<LocalDate, Long> porDia = new HashMap<>();
+        Map<EscritorRollups.RemitenteDia, Long> porRemitente = new HashMap<>();
+        for (Mensaje mensaje : mensajes) {
+            LocalDateTime fecha = mensaje.getFechaCreacion();
+            // Los ids nuevos son mayores que cualquier otro: RollupJob solo deja
+            // atrás los de fecha anterior a su marca, o igual si la completó
+            boolean trasRollupJob = fecha.isBefore(marca.getFecha())
+                    || (fecha.isEqual(marca.getFecha()) && marca.getUltimoId() == Long.MAX_VALUE);
+            boolean deReconstruccion = !reconstruida && !fecha.isAfter(reconstruccion.getFecha());
+            if (!trasRollupJob || deReconstruccion) {
+                continue;
+            }
+            LocalDate dia = fecha.toLocalDate();
+            porDia.merge(dia, 1L, Long::sum);
+            porRemitente.merge(new EscritorRollups.RemitenteDia(dia, Normalizacion.email(mensaje.getEmail())),
+                    1L, Long::sum);
+        }
+        if (!porDia.isEmpty()) {
+            escritorRollups.sumarRecibidos(porDia, porRemitente);
+        }
+    }
+
+    /**
+     * COPY no devuelve los ids: el índice de no leídos de cada shard con
+     * mensajes nuevos se vuelve a construir, una sola vez por importación.
+     */
+    private void invalidarIndices(Progreso progreso) {
+        for (int shard = 0; shard < progreso.conNuevos.length; shard++) {
+            if (progreso.conNuevos[shard]) {
+                enShard(shard, indiceNoLeidos::invalidar);
+            }
+        }
+    }
+
+    private int numeroShards() {
+        return shardRouter == null ? 1 : shardRouter.getNumeroShards();
+    }
+
+    private <T> T enShard(int shard, Supplier<T> accion) {
+        return shardRouter == null ? accion.get() : ShardContext.ejecutarEn(shard, accion);
+    }
+
+    private void enShard(int shard, Runnable accion) {
+        enShard(shard, () -> {
+            accion.run();
+            return null;
+        });
+    }
+
+    /**
+     * Estado de una importación en curso.
+     */
+    private final class Progreso {
+
+        private final String clave;
+
+        /**
+         * Última línea confirmada en cada shard.
+         */
+        private final long[] confirmada;
+
+        /**
+         * Shards en los que se ha confirmado algún lote.
+         */
+        private final boolean[] conNuevos;
+
+        /**
+         * Mensajes válidos aún sin guardar, por shard.
+         */
+        private final List<List<Mensaje>> pendientes = new ArrayList<>();
+
+        private final List<ResultadoImportacionDTO.Rechazo> errores = new ArrayList<>();
+
+        private long procesados;
+        private long importados;
+        private long yaImportados;
+        private long invalidos;
+
+        private Progreso(String clave, int shards) {
+            this.clave = clave;
+            this.confirmada = new long[shards];
+            this.conNuevos = new boolean[shards];
+            for (int i = 0; i < shards; i++) {
+                pendientes.add(new ArrayList<>());
+            }
+        }
+
+        private void rechazar(Preparado preparado) {
+            invalidos++;
+            if (errores.size() < propiedades.getImportacion().getMaximoErrores()) {
+                errores.add(new ResultadoImportacionDTO.Rechazo(preparado.linea(), preparado.motivos()));
+            }
+        }
+    }
+}
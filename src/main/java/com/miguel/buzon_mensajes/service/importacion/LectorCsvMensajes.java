@@ -0,0 +1,123 @@
+package com.miguel.buzon_mensajes.service.importacion;
+
+import com.miguel.buzon_mensajes.dto.MensajeImportacionDTO;
+import com.miguel.buzon_mensajes.exception.ImportacionRechazadaException;
+import com.miguel.buzon_mensajes.util.LectorCsv;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * CSV con cabecera. Las columnas se buscan por nombre (sin distinguir
+ * mayúsculas) y en cualquier orden:
+ * - obligatorias: nombre, email, contenido
+ * - opcionales: buzon, fechaCreacion (o fecha_creacion, ISO-8601), leido (true/false)
+ */
+class LectorCsvMensajes implements LectorImportacion {
+
+    private final Reader lector;
+    private final LectorCsv csv;
+
+    private final int columnas;
+    private final int nombre;
+    private final int email;
+    private final int contenido;
+    private final int buzon;
+    private final int fechaCreacion;
+    private final int leido;
+
+    LectorCsvMensajes(Reader lector) throws IOException {
+        this.lector = lector;
+        this.csv = new LectorCsv(lector);
+
+        List<String> cabecera = leerCsv();
+        if (cabecera == null) {
+            throw new ImportacionRechazadaException("El fichero CSV está vacío");
+        }
+        List<String> normalizada = cabecera.stream()
+                .map(c -> c.trim().toLowerCase(Locale.ROOT).replace("_", ""))
+                .toList();
+
+        this.columnas = cabecera.size();
+        this.nombre = obligatoria(normalizada, "nombre");
+        this.email = obligatoria(normalizada, "email");
+        this.contenido = obligatoria(normalizada, "contenido");
+        this.buzon = normalizada.indexOf("buzon");
+        this.fechaCreacion = normalizada.indexOf("fechacreacion");
+        this.leido = normalizada.indexOf("leido");
+    }
+
+    @Override
+    public Registro siguiente() throws IOException {
+        List<String> campos = leerCsv();
+        if (campos == null) {
+            return null;
+        }
+        long linea = csv.lineaActual();
+        if (campos.size() != columnas) {
+            return Registro.invalido(linea, null,
+                    "Se esperaban " + columnas + " columnas y hay " + campos.size());
+        }
+
+        LocalDateTime fecha;
+        try {
+            String texto = opcional(campos, fechaCreacion);
+            fecha = texto == null ? null : LocalDateTime.parse(texto);
+        } catch (DateTimeParseException e) {
+            return Registro.invalido(linea, "fechaCreacion", "No es una fecha ISO-8601: " + e.getParsedString());
+        }
+
+        Boolean estaLeido;
+        String texto = opcional(campos, leido);
+        if (texto == null) {
+            estaLeido = null;
+        } else if (texto.equalsIgnoreCase("true") || texto.equals("1")) {
+            estaLeido = true;
+        } else if (texto.equalsIgnoreCase("false") || texto.equals("0")) {
+            estaLeido = false;
+        } else {
+            return Registro.invalido(linea, "leido", "Debe ser true o false: " + texto);
+        }
+
+        return Registro.valido(linea, new MensajeImportacionDTO(
+                campos.get(nombre),
+                campos.get(email),
+                campos.get(contenido),
+                opcional(campos, buzon),
+                fecha,
+                estaLeido));
+    }
+
+    @Override
+    public void close() throws IOException {
+        lector.close();
+    }
+
+    private List<String> leerCsv() throws IOException {
+        try {
+            return csv.siguiente();
+        } catch (IllegalArgumentException e) {
+            // Una comilla sin cerrar se come el resto del fichero: no hay fila a la que culpar
+            throw new ImportacionRechazadaException(e.getMessage());
+        }
+    }
+
+    private static int obligatoria(List<String> cabecera, String columna) {
+        int indice = cabecera.indexOf(columna);
+        if (indice < 0) {
+            throw new ImportacionRechazadaException("Falta la columna obligatoria '" + columna + "' en la cabecera CSV");
+        }
+        return indice;
+    }
+
+    private static String opcional(List<String> campos, int indice) {
+        if (indice < 0 || campos.get(indice).isBlank()) {
+            return null;
+        }
+        return campos.get(indice).trim();
+    }
+}
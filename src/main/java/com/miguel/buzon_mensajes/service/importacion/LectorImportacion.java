@@ -0,0 +1,61 @@
+package com.miguel.buzon_mensajes.service.importacion;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miguel.buzon_mensajes.dto.MensajeImportacionDTO;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lee un fichero de importación fila a fila, sin cargarlo entero.
+ *
+ * Cada fila lleva la línea del fichero donde empieza: es la posición que se
+ * guarda como progreso, así que el mismo fichero da siempre los mismos números.
+ * Una fila que no se puede interpretar no corta la lectura: se devuelve con
+ * el motivo en error y sin mensaje.
+ */
+interface LectorImportacion extends Closeable {
+
+    /**
+     * Una fila leída: el mensaje, o el error y el campo que lo causó (null si
+     * es la fila entera).
+     */
+    record Registro(long linea, MensajeImportacionDTO mensaje, String campo, String error) {
+
+        static Registro valido(long linea, MensajeImportacionDTO mensaje) {
+            return new Registro(linea, mensaje, null, null);
+        }
+
+        static Registro invalido(long linea, String campo, String error) {
+            return new Registro(linea, null, campo, error);
+        }
+    }
+
+    /**
+     * Siguiente fila, o null al llegar al final.
+     */
+    Registro siguiente() throws IOException;
+
+    static LectorImportacion abrir(ImportadorMensajes.Formato formato, InputStream entrada, ObjectMapper objectMapper) throws IOException {
+        BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        saltarBom(lector);
+        return switch (formato) {
+            case NDJSON -> new LectorNdjson(lector, objectMapper.readerFor(MensajeImportacionDTO.class));
+            case CSV -> new LectorCsvMensajes(lector);
+        };
+    }
+
+    /**
+     * Algunas hojas de cálculo empiezan el fichero UTF-8 con una marca BOM.
+     */
+    private static void saltarBom(BufferedReader lector) throws IOException {
+        lector.mark(1);
+        if (lector.read() != '\uFEFF') {
+            lector.reset();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.miguel.buzon_mensajes.service.importacion;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.miguel.buzon_mensajes.dto.MensajeImportacionDTO;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Un objeto JSON por línea, como el que genera /api/mensajes/exportar.
+ * Las líneas en blanco se saltan (pero cuentan para la numeración).
+ */
+class LectorNdjson implements LectorImportacion {
+
+    private final BufferedReader lector;
+    private final ObjectReader lectorJson;
+    private long linea;
+
+    LectorNdjson(BufferedReader lector, ObjectReader lectorJson) {
+        this.lector = lector;
+        this.lectorJson = lectorJson;
+    }
+
+    @Override
+    public Registro siguiente() throws IOException {
+        String texto;
+        do {
+            texto = lector.readLine();
+            if (texto == null) {
+                return null;
+            }
+            linea++;
+        } while (texto.isBlank());
+
+        try {
+            MensajeImportacionDTO mensaje = lectorJson.readValue(texto);
+            return mensaje == null
+                    ? Registro.invalido(linea, null, "La línea no es un objeto JSON")
+                    : Registro.valido(linea, mensaje);
+        } catch (JsonMappingException e) {
+            // JSON bien formado con un valor de tipo incorrecto (fecha, booleano...)
+            String campo = e.getPath().isEmpty() ? null : e.getPath().get(0).getFieldName();
+            return Registro.invalido(linea, campo, "Valor no válido: " + e.getOriginalMessage());
+        } catch (JsonProcessingException e) {
+            return Registro.invalido(linea, null, "JSON no válido: " + e.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lector.close();
+    }
+}
@@ -0,0 +1,140 @@
+package com.miguel.buzon_mensajes.service.importacion;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.dto.MensajeImportacionDTO;
+import com.miguel.buzon_mensajes.dto.MensajeRequestDTO;
+import com.miguel.buzon_mensajes.dto.ResultadoImportacionDTO.Motivo;
+import com.miguel.buzon_mensajes.model.Mensaje;
+import com.miguel.buzon_mensajes.service.importacion.LectorImportacion.Registro;
+import com.miguel.buzon_mensajes.util.Normalizacion;
+import com.miguel.buzon_mensajes.util.SimHash;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Etapa de preparación de la importación: de las filas leídas a mensajes
+ * listos para guardar.
+ *
+ * Por cada fila normaliza los textos ({@link Normalizacion}), la valida con las
+ * reglas de MensajeRequestDTO, calcula su SimHash y, con
+ * buzon.compresion.habilitada, comprime el contenido. Es trabajo de CPU puro,
+ * independiente entre filas, así que cada lote se reparte en tramos entre un
+ * pool de buzon.importacion.paralelismo hilos (por defecto uno por núcleo) y
+ * se recompone en el orden original.
+ *
+ * El pool es propio y no el ForkJoinPool común: una importación grande no
+ * debe quitar hilos a los parallel streams del resto de la aplicación.
+ */
+@Component
+class PreparadorMensajes {
+
+    /**
+     * Por debajo de esto repartir cuesta más que lo que se gana.
+     */
+    private static final int TRAMO_MINIMO = 256;
+
+    private static final Comparator<Motivo> ORDEN_MOTIVOS = Comparator
+            .comparing(Motivo::campo, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Motivo::mensaje);
+
+    /**
+     * Resultado de una fila: el mensaje, o sus motivos de rechazo.
+     */
+    record Preparado(long linea, Mensaje mensaje, List<Motivo> motivos) {
+
+        boolean valido() {
+            return mensaje != null;
+        }
+    }
+
+    private final Validator validator;
+    private final ForkJoinPool pool;
+    private final boolean comprimir;
+
+    PreparadorMensajes(Validator validator, BuzonProperties propiedades) {
+        this.validator = validator;
+        this.comprimir = propiedades.getCompresion().isHabilitada();
+        int paralelismo = propiedades.getImportacion().getParalelismo();
+        this.pool = new ForkJoinPool(paralelismo > 0 ? paralelismo : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    void cerrar() {
+        pool.shutdown();
+    }
+
+    /**
+     * Prepara un lote de filas; el resultado va en el mismo orden.
+     *
+     * @param ahora Fecha de creación de las filas que no la traen
+     */
+    List<Preparado> preparar(List<Registro> registros, LocalDateTime ahora) {
+        int tramo = Math.max(TRAMO_MINIMO, Math.ceilDiv(registros.size(), pool.getParallelism()));
+        if (registros.size() <= tramo) {
+            return prepararTramo(registros, ahora);
+        }
+
+        List<CompletableFuture<List<Preparado>>> tramos = new ArrayList<>();
+        for (int desde = 0; desde < registros.size(); desde += tramo) {
+            List<Registro> parte = registros.subList(desde, Math.min(desde + tramo, registros.size()));
+            tramos.add(CompletableFuture.supplyAsync(() -> prepararTramo(parte, ahora), pool));
+        }
+
+        List<Preparado> preparados = new ArrayList<>(registros.size());
+        tramos.forEach(t -> preparados.addAll(t.join()));
+        return preparados;
+    }
+
+    private List<Preparado> prepararTramo(List<Registro> registros, LocalDateTime ahora) {
+        List<Preparado> preparados = new ArrayList<>(registros.size());
+        for (Registro registro : registros) {
+            preparados.add(preparar(registro, ahora));
+        }
+        return preparados;
+    }
+
+    Preparado preparar(Registro registro, LocalDateTime ahora) {
+        if (registro.error() != null) {
+            return new Preparado(registro.linea(), null, List.of(new Motivo(registro.campo(), registro.error())));
+        }
+
+        MensajeImportacionDTO dto = registro.mensaje();
+        MensajeRequestDTO peticion = new MensajeRequestDTO(
+                Normalizacion.linea(dto.nombre()),
+                Normalizacion.email(dto.email()),
+                Normalizacion.texto(dto.contenido()),
+                Normalizacion.linea(dto.buzon()));
+
+        List<ConstraintViolation<MensajeRequestDTO>> violaciones = List.copyOf(validator.validate(peticion));
+        if (!violaciones.isEmpty()) {
+            return new Preparado(registro.linea(), null, violaciones.stream()
+                    .map(v -> new Motivo(v.getPropertyPath().toString(), v.getMessage()))
+                    .sorted(ORDEN_MOTIVOS)
+                    .toList());
+        }
+
+        Mensaje mensaje = new Mensaje();
+        mensaje.setNombre(peticion.getNombre());
+        mensaje.setEmail(peticion.getEmail());
+        mensaje.setContenido(peticion.getContenido());
+        mensaje.setFechaCreacion(dto.fechaCreacion() == null ? ahora : dto.fechaCreacion());
+        mensaje.setLeido(Boolean.TRUE.equals(dto.leido()));
+        mensaje.setBuzon(peticion.getBuzon() == null || peticion.getBuzon().isEmpty()
+                ? Mensaje.BUZON_PRINCIPAL
+                : peticion.getBuzon());
+        mensaje.setSimhash(SimHash.calcular(peticion.getContenido()));
+        if (comprimir) {
+            mensaje.comprimirContenido();
+        }
+        return new Preparado(registro.linea(), mensaje, List.of());
+    }
+}
@@ -0,0 +1,74 @@
+package com.miguel.buzon_mensajes.service.memoria;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Señal de presión de memoria del heap.
+ *
+ * Se mide la generación vieja (old gen / tenured) DESPUÉS de la última recolección:
+ * la ocupación instantánea sube y baja con cada petición y no dice nada, pero lo
+ * que sobrevive a un GC es memoria realmente retenida. Si supera
+ * buzon.memoria.umbral-presion del máximo, el siguiente paso sería un OutOfMemoryError.
+ *
+ * La consulta es barata (lee contadores de la JVM), se puede llamar en cada petición.
+ */
+@Slf4j
+@Component
+public class MonitorMemoria {
+
+    private final List<MemoryPoolMXBean> generacionVieja;
+    private final double umbral;
+    private final AtomicBoolean enPresion = new AtomicBoolean();
+
+    public MonitorMemoria(BuzonProperties propiedades) {
+        this.umbral = propiedades.getMemoria().getUmbralPresion();
+        // Solo las zonas del heap con umbral de uso son de generación vieja (eden y survivor no lo admiten)
+        this.generacionVieja = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(zona -> zona.getType() == MemoryType.HEAP)
+                .filter(MemoryPoolMXBean::isUsageThresholdSupported)
+                .filter(MemoryPoolMXBean::isCollectionUsageThresholdSupported)
+                .toList();
+    }
+
+    /**
+     * Fracción (0-1) de la generación vieja ocupada tras el último GC.
+     */
+    public double ocupacionTrasGc() {
+        double maxima = 0;
+        for (MemoryPoolMXBean zona : generacionVieja) {
+            MemoryUsage uso = zona.getCollectionUsage();
+            if (uso == null) {
+                continue;
+            }
+            long limite = uso.getMax() > 0 ? uso.getMax() : Runtime.getRuntime().maxMemory();
+            maxima = Math.max(maxima, (double) uso.getUsed() / limite);
+        }
+        return maxima;
+    }
+
+    /**
+     * true si la memoria retenida supera el umbral; registra en el log cada cambio de estado.
+     */
+    public boolean bajoPresion() {
+        double ocupacion = ocupacionTrasGc();
+        boolean ahora = ocupacion >= umbral;
+        if (enPresion.getAndSet(ahora) != ahora) {
+            if (ahora) {
+                log.warn("Presión de memoria: {}% del heap retenido tras GC; se rechazan lecturas de administración",
+                        Math.round(ocupacion * 100));
+            } else {
+                log.info("Fin de la presión de memoria ({}% del heap retenido)", Math.round(ocupacion * 100));
+            }
+        }
+        return ahora;
+    }
+}
@@ -0,0 +1,356 @@
+package com.miguel.buzon_mensajes.service.noleidos;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.datasource.ShardContext;
+import com.miguel.buzon_mensajes.datasource.ShardRouter;
+import com.miguel.buzon_mensajes.util.MapaBitsRoaring;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+
+/**
+ * Ids de los mensajes sin leer, en memoria, un {@link MapaBitsRoaring} por shard.
+ *
+ * Contar los no leídos es leer la cardinalidad (sin COUNT a la tabla) y una
+ * página de no leídos son los ids de la página sacados del mapa más una
+ * consulta por id. Un millón de mensajes ocupa del orden de 130 KB.
+ *
+ * - ReconstruccionNoLeidosJob lo llena al arrancar con un recorrido por lotes
+ *   de la tabla. Hasta que termina, {@link #contar()} y {@link #pagina} devuelven
+ *   vacío y el servicio consulta la base de datos como siempre.
+ * - crear, marcarComoLeido, eliminar y restaurar lo mantienen al día, DESPUÉS
+ *   del commit (como VersionBuzon): un cambio que se deshace no lo toca.
+ *   Los cambios que llegan durante la reconstrucción se anotan y se aplican
+ *   encima del recorrido al terminar, así no se pierde ninguno.
+ * - Las importaciones insertan por JDBC sin conocer los ids: {@link #invalidar()}
+ *   descarta el mapa del shard y la tarea lo vuelve a construir.
+ *
+ * Las páginas tienen que salir en el mismo orden que las consultas
+ * (fechaCreacion y después id, de más reciente a más antiguo), y el mapa solo
+ * sabe dar los ids de mayor a menor. Es el mismo orden mientras las fechas
+ * crezcan con los ids, que es lo normal; {@link IdsShard} lo comprueba con
+ * cada id y, si no se cumple (una importación con fechas antiguas sin leer),
+ * {@link #pagina} devuelve vacío y las páginas salen de la tabla. El contador
+ * sigue valiendo. Pasado buzon.no-leidos.revision-ms se recorre de nuevo, por
+ * si los mensajes que rompían el orden ya se han leído.
+ *
+ * Vive en memoria, con el mismo límite que VersionBuzon: con varias
+ * instancias, un mensaje leído en otra no se quitaría de esta y el contador
+ * se iría desviando. Por eso con buzon.varias-instancias=true se deshabilita
+ * solo, igual que los 304 de VersionBuzon. Los mensajes del archivo en frío
+ * y las particiones retiradas son siempre leídos, no cuentan.
+ */
+@Component
+public class IndiceNoLeidos {
+
+    /**
+     * Ids más altos de cada shard de los que se guarda la fecha para comprobar el orden.
+     */
+    static final int RECIENTES = 1024;
+
+    private final boolean habilitado;
+    private final long revisionMs;
+    private final Estado[] estados;
+
+    @Autowired
+    public IndiceNoLeidos(BuzonProperties propiedades, ObjectProvider<ShardRouter> shardRouter) {
+        this(propiedades.getNoLeidos().isHabilitado() && !propiedades.isVariasInstancias(),
+                propiedades.getNoLeidos().getRevisionMs(),
+                numeroShards(shardRouter.getIfAvailable()));
+    }
+
+    IndiceNoLeidos(boolean habilitado, long revisionMs, int shards) {
+        this.habilitado = habilitado;
+        this.revisionMs = revisionMs;
+        this.estados = new Estado[shards];
+        for (int i = 0; i < shards; i++) {
+            estados[i] = new Estado();
+        }
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /**
+     * Un mensaje sin leer nuevo (o restaurado) en el shard actual.
+     */
+    public void agregar(long id, LocalDateTime fechaCreacion) {
+        alConfirmar(estadoActual(), new Cambio(id, fechaCreacion, true));
+    }
+
+    /**
+     * Un mensaje que deja de estar sin leer (leído o eliminado) en el shard actual.
+     */
+    public void quitar(long id) {
+        alConfirmar(estadoActual(), new Cambio(id, null, false));
+    }
+
+    /**
+     * El shard actual ha cambiado sin pasar por agregar/quitar: hay que reconstruirlo.
+     */
+    public void invalidar() {
+        if (!habilitado) {
+            return;
+        }
+        Estado estado = estadoActual();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    estado.invalidar();
+                }
+            });
+        } else {
+            estado.invalidar();
+        }
+    }
+
+    /**
+     * No leídos del shard actual, o vacío si el índice aún no está listo.
+     */
+    public OptionalLong contar() {
+        if (!habilitado) {
+            return OptionalLong.empty();
+        }
+        Estado estado = estadoActual();
+        synchronized (estado) {
+            return estado.ids == null ? OptionalLong.empty() : OptionalLong.of(estado.ids.cardinalidad());
+        }
+    }
+
+    /**
+     * Ids sin leer del shard actual de mayor a menor (los más nuevos primero),
+     * o vacío si el índice aún no está listo o ese orden no es el de las fechas.
+     */
+    public Optional<long[]> pagina(long saltar, int limite) {
+        if (!habilitado) {
+            return Optional.empty();
+        }
+        Estado estado = estadoActual();
+        synchronized (estado) {
+            return estado.ids == null || !estado.ids.enOrden
+                    ? Optional.empty()
+                    : Optional.of(estado.ids.mapa.descendentes(saltar, limite));
+        }
+    }
+
+    /**
+     * Memoria aproximada del mapa de un shard (0 si no está construido).
+     */
+    public long bytesAproximados(int shard) {
+        Estado estado = estados[shard];
+        synchronized (estado) {
+            return estado.ids == null ? 0 : estado.ids.mapa.bytesAproximados();
+        }
+    }
+
+    // ===== RECONSTRUCCIÓN (ReconstruccionNoLeidosJob) =====
+
+    /**
+     * Sin índice, o con uno que no está en orden: inmediatamente si no se pudo
+     * comprobar (un id antiguo restaurado) y pasada revisionMs si el desorden
+     * está en los datos.
+     */
+    public boolean necesitaReconstruir(int shard) {
+        Estado estado = estados[shard];
+        synchronized (estado) {
+            if (!habilitado || estado.cambios != null) {
+                return false;
+            }
+            IdsShard ids = estado.ids;
+            return ids == null || ids.sinComprobar
+                    || (!ids.enOrden && System.currentTimeMillis() - ids.desordenadoEn >= revisionMs);
+        }
+    }
+
+    /**
+     * Empieza a anotar los cambios del shard; devuelve la generación, que
+     * hay que pasar a {@link #terminarReconstruccion}.
+     */
+    public long empezarReconstruccion(int shard) {
+        Estado estado = estados[shard];
+        synchronized (estado) {
+            estado.cambios = new ArrayList<>();
+            return estado.generacion;
+        }
+    }
+
+    /**
+     * Aplica sobre el recorrido los cambios anotados mientras tanto y lo pone
+     * en uso. Si el shard se invalidó entre medias (una importación), se
+     * descarta: devuelve false y la siguiente ejecución empieza de nuevo.
+     */
+    public boolean terminarReconstruccion(int shard, long generacion, IdsShard recorrido) {
+        Estado estado = estados[shard];
+        synchronized (estado) {
+            List<Cambio> cambios = estado.cambios;
+            estado.cambios = null;
+            if (cambios == null || generacion != estado.generacion) {
+                return false;
+            }
+            for (Cambio cambio : cambios) {
+                recorrido.aplicar(cambio);
+            }
+            estado.ids = recorrido;
+            return true;
+        }
+    }
+
+    /**
+     * El recorrido falló: deja de anotar y el shard sigue sin índice.
+     */
+    public void abandonarReconstruccion(int shard) {
+        Estado estado = estados[shard];
+        synchronized (estado) {
+            estado.cambios = null;
+        }
+    }
+
+    private void alConfirmar(Estado estado, Cambio cambio) {
+        if (!habilitado) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    estado.aplicar(cambio);
+                }
+            });
+        } else {
+            estado.aplicar(cambio);
+        }
+    }
+
+    private Estado estadoActual() {
+        Integer shard = ShardContext.actual();
+        return estados[shard == null ? 0 : shard];
+    }
+
+    private static int numeroShards(ShardRouter shardRouter) {
+        return shardRouter == null ? 1 : shardRouter.getNumeroShards();
+    }
+
+    private record Cambio(long id, LocalDateTime fechaCreacion, boolean noLeido) {
+    }
+
+    /**
+     * Ids sin leer de un shard y si su orden es el de las fechas.
+     *
+     * Para comprobar cada id que llega hace falta la fecha de sus vecinos:
+     * se guarda la de los {@link #RECIENTES} ids más altos (los que reciben
+     * los mensajes nuevos, aunque se confirmen desordenados) y, por debajo,
+     * solo la fecha más alta de los que se han ido descartando. Un id más
+     * bajo que todos ellos (un mensaje antiguo restaurado) no se puede
+     * comprobar y se da por desordenado.
+     */
+    public static final class IdsShard {
+
+        private final MapaBitsRoaring mapa = new MapaBitsRoaring();
+        private final NavigableMap<Long, LocalDateTime> recientes = new TreeMap<>();
+
+        /**
+         * Los ids del mapa mayores que este están todos en recientes.
+         */
+        private long recientesDesde;
+
+        /**
+         * Fecha más alta de los ids descartados de recientes (null si no hay).
+         */
+        private LocalDateTime fechaDescartados;
+
+        private boolean enOrden = true;
+        private boolean sinComprobar;
+        private long desordenadoEn;
+
+        /**
+         * Un id sin leer. El recorrido los añade en orden creciente.
+         */
+        public void agregar(long id, LocalDateTime fechaCreacion) {
+            if (!mapa.agregar(id)) {
+                return;
+            }
+            if (id <= recientesDesde) {
+                desordenar(true);
+                return;
+            }
+            Map.Entry<Long, LocalDateTime> anterior = recientes.lowerEntry(id);
+            Map.Entry<Long, LocalDateTime> siguiente = recientes.higherEntry(id);
+            LocalDateTime fechaAnterior = anterior != null ? anterior.getValue() : fechaDescartados;
+            if ((fechaAnterior != null && fechaCreacion.isBefore(fechaAnterior))
+                    || (siguiente != null && siguiente.getValue().isBefore(fechaCreacion))) {
+                desordenar(false);
+            }
+            recientes.put(id, fechaCreacion);
+            if (recientes.size() > RECIENTES) {
+                Map.Entry<Long, LocalDateTime> descartado = recientes.pollFirstEntry();
+                recientesDesde = descartado.getKey();
+                if (fechaDescartados == null || fechaDescartados.isBefore(descartado.getValue())) {
+                    fechaDescartados = descartado.getValue();
+                }
+            }
+        }
+
+        public void quitar(long id) {
+            mapa.quitar(id);
+            recientes.remove(id);
+        }
+
+        public long cardinalidad() {
+            return mapa.cardinalidad();
+        }
+
+        void aplicar(Cambio cambio) {
+            if (cambio.noLeido()) {
+                agregar(cambio.id(), cambio.fechaCreacion());
+            } else {
+                quitar(cambio.id());
+            }
+        }
+
+        private void desordenar(boolean noComprobado) {
+            if (enOrden) {
+                enOrden = false;
+                desordenadoEn = System.currentTimeMillis();
+            }
+            sinComprobar |= noComprobado;
+        }
+    }
+
+    /**
+     * Ids de un shard (null hasta reconstruirlo) y, mientras se reconstruye,
+     * los cambios que hay que aplicar encima del recorrido.
+     */
+    private static final class Estado {
+
+        private IdsShard ids;
+        private List<Cambio> cambios;
+        private long generacion;
+
+        synchronized void aplicar(Cambio cambio) {
+            if (cambios != null) {
+                cambios.add(cambio);
+            }
+            if (ids != null) {
+                ids.aplicar(cambio);
+            }
+        }
+
+        synchronized void invalidar() {
+            ids = null;
+            generacion++;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.miguel.buzon_mensajes.service.notificacion;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.dto.MensajeResponseDTO;
+import com.miguel.buzon_mensajes.dto.ResumenDTO;
+import com.miguel.buzon_mensajes.model.EventoOutbox;
+import com.miguel.buzon_mensajes.model.ResumenMensajes;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Aviso por correo escrito como fichero .eml (RFC 822) en una carpeta.
+ *
+ * Hace de servidor SMTP local: un MTA (o un "pickup directory") puede
+ * recoger la carpeta y enviar los ficheros, y en desarrollo se abren con
+ * cualquier cliente de correo.
+ *
+ * El fichero se llama como el evento y se escribe de forma atómica
+ * (temporal + rename): una entrega repetida sobrescribe el mismo fichero
+ * en lugar de duplicar el aviso.
+ */
+@Component
+@ConditionalOnProperty(prefix = "buzon.notificaciones", name = {"habilitado", "correo.habilitado"}, havingValue = "true")
+public class CorreoDestino implements DestinoNotificacion {
+
+    private final Path directorio;
+    private final String de;
+    private final String para;
+
+    public CorreoDestino(BuzonProperties propiedades) throws IOException {
+        BuzonProperties.Correo correo = propiedades.getNotificaciones().getCorreo();
+        this.directorio = Files.createDirectories(Path.of(correo.getDirectorio()));
+        this.de = correo.getDe();
+        this.para = correo.getPara();
+    }
+
+    @Override
+    public String nombre() {
+        return "correo";
+    }
+
+    @Override
+    public void enviar(EventoOutbox evento, MensajeResponseDTO mensaje) throws IOException {
+        escribir(evento,
+                "Reply-To: " + sinSaltos(mensaje.email()) + "\r\n"
+                        + "Subject: Nuevo mensaje de " + sinSaltos(mensaje.nombre()) + " (" + sinSaltos(mensaje.buzon()) + ")\r\n",
+                mensaje.contenido());
+    }
+
+    @Override
+    public void enviarResumen(EventoOutbox evento, ResumenDTO resumen) throws IOException {
+        StringBuilder cuerpo = new StringBuilder()
+                .append(resumen.total()).append(" mensajes nuevos entre ")
+                .append(resumen.inicio()).append(" y ").append(resumen.fin()).append("\r\n\r\n")
+                .append("Remitentes más frecuentes:\r\n");
+        resumen.remitentes().forEach(r -> cuerpo.append("  ").append(r.email())
+                .append(": ").append(r.cuenta()).append("\r\n"));
+        cuerpo.append("\r\nÚltimos mensajes:\r\n");
+        resumen.vistasPrevias().forEach(v -> cuerpo.append("  [").append(v.fechaCreacion()).append("] ")
+                .append(v.nombre()).append(": ").append(v.texto()).append("\r\n"));
+
+        String periodo = resumen.periodo() == ResumenMensajes.Periodo.HORA ? "horario" : "diario";
+        escribir(evento,
+                "Subject: Resumen " + periodo + " de " + sinSaltos(resumen.buzon())
+                        + " (" + resumen.total() + " mensajes)\r\n",
+                cuerpo.toString());
+    }
+
+    /**
+     * Escribe el .eml con las cabeceras comunes, las propias del aviso y el cuerpo.
+     */
+    private void escribir(EventoOutbox evento, String cabeceras, String cuerpo) throws IOException {
+        String texto = "From: " + de + "\r\n"
+                + "To: " + para + "\r\n"
+                + cabeceras
+                + "Date: " + ZonedDateTime.now().format(DateTimeFormatter.RFC_1123_DATE_TIME) + "\r\n"
+                + "Message-ID: <evento-" + evento.getId() + "@buzon>\r\n"
+                + "MIME-Version: 1.0\r\n"
+                + "Content-Type: text/plain; charset=UTF-8\r\n"
+                + "Content-Transfer-Encoding: 8bit\r\n"
+                + "\r\n"
+                + cuerpo + "\r\n";
+
+        Path destino = directorio.resolve("evento-" + evento.getId() + ".eml");
+        Path temporal = directorio.resolve(destino.getFileName() + ".tmp");
+        Files.writeString(temporal, texto, StandardCharsets.UTF_8);
+        Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Evita que un nombre con saltos de línea añada cabeceras al correo.
+     */
+    private static String sinSaltos(String valor) {
+        return valor == null ? "" : valor.replaceAll("[\\r\\n]+", " ");
+    }
+}
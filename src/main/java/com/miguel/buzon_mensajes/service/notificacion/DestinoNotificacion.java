@@ -0,0 +1,35 @@
+package com.miguel.buzon_mensajes.service.notificacion;
+
+import com.miguel.buzon_mensajes.dto.MensajeResponseDTO;
+import com.miguel.buzon_mensajes.dto.ResumenDTO;
+import com.miguel.buzon_mensajes.model.EventoOutbox;
+
+/**
+ * Un canal por el que se avisa de los mensajes nuevos (webhook, correo...),
+ * uno a uno o con resúmenes periódicos.
+ *
+ * Cada destino es un bean que solo existe si está habilitado en
+ * buzon.notificaciones.*; {@link PublicadorEventos} crea un evento por
+ * cada destino registrado.
+ *
+ * La entrega es "al menos una vez": tras un fallo, o si la instancia se
+ * cae después de entregar pero antes de anotarlo, el mismo evento se vuelve
+ * a entregar. El id del evento sirve al receptor para descartar repetidos.
+ */
+public interface DestinoNotificacion {
+
+    /**
+     * Nombre corto y estable; se guarda en evento_outbox.destino.
+     */
+    String nombre();
+
+    /**
+     * Entregar el evento. Cualquier excepción cuenta como fallo y se reintenta.
+     */
+    void enviar(EventoOutbox evento, MensajeResponseDTO mensaje) throws Exception;
+
+    /**
+     * Entregar el resumen de un periodo (eventos de tipo {@link EventoOutbox#RESUMEN}).
+     */
+    void enviarResumen(EventoOutbox evento, ResumenDTO resumen) throws Exception;
+}
@@ -0,0 +1,62 @@
+package com.miguel.buzon_mensajes.service.notificacion;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.dto.MensajeResponseDTO;
+import com.miguel.buzon_mensajes.dto.ResumenDTO;
+import com.miguel.buzon_mensajes.model.EventoOutbox;
+import com.miguel.buzon_mensajes.repository.EventoOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Escribe en evento_outbox los avisos de un mensaje nuevo o de un resumen.
+ *
+ * Se llama dentro de la transacción que origina el aviso (MensajeServiceImpl#crear,
+ * ResumenJob): solo inserta filas, no contacta con nadie, así que la petición
+ * web no espera a ningún destino. Sin destinos habilitados no hace nada.
+ */
+@Component
+@RequiredArgsConstructor
+public class PublicadorEventos {
+
+    private final List<DestinoNotificacion> destinos;
+    private final EventoOutboxRepository eventoOutboxRepository;
+    private final ObjectMapper objectMapper;
+    private final BuzonProperties propiedades;
+
+    /**
+     * Aviso de un mensaje nuevo, salvo en los buzones que solo reciben resúmenes
+     * (buzon.resumenes.solo-resumen).
+     */
+    public void mensajeCreado(MensajeResponseDTO mensaje) {
+        if (propiedades.getResumenes().getSoloResumen().contains(mensaje.buzon())) {
+            return;
+        }
+        publicar(EventoOutbox.MENSAJE_CREADO, mensaje.id(), mensaje);
+    }
+
+    public void resumenCerrado(ResumenDTO resumen) {
+        publicar(EventoOutbox.RESUMEN, null, resumen);
+    }
+
+    private void publicar(String tipo, Long mensajeId, Object contenido) {
+        if (destinos.isEmpty()) {
+            return;
+        }
+
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(contenido);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el evento " + tipo, e);
+        }
+
+        eventoOutboxRepository.saveAll(destinos.stream()
+                .map(destino -> EventoOutbox.nuevo(tipo, destino.nombre(), mensajeId, payload))
+                .toList());
+    }
+}
@@ -0,0 +1,107 @@
+package com.miguel.buzon_mensajes.service.notificacion;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.dto.MensajeResponseDTO;
+import com.miguel.buzon_mensajes.dto.ResumenDTO;
+import com.miguel.buzon_mensajes.model.EventoOutbox;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.HexFormat;
+
+/**
+ * Envía cada evento por POST a buzon.notificaciones.webhook.url.
+ *
+ * El cuerpo es el payload del evento (el mensaje o el resumen en JSON). Cabeceras:
+ * - X-Buzon-Evento: id del evento, igual en todos los reintentos
+ *   (el receptor lo usa para ignorar entregas repetidas).
+ * - X-Buzon-Tipo: MENSAJE_CREADO o RESUMEN.
+ * - X-Buzon-Firma: sha256=HMAC del cuerpo, si hay secreto configurado.
+ *
+ * Cualquier respuesta que no sea 2xx cuenta como fallo y se reintenta.
+ */
+@Component
+@ConditionalOnProperty(prefix = "buzon.notificaciones", name = {"habilitado", "webhook.habilitado"}, havingValue = "true")
+public class WebhookDestino implements DestinoNotificacion {
+
+    static final String CABECERA_EVENTO = "X-Buzon-Evento";
+    static final String CABECERA_FIRMA = "X-Buzon-Firma";
+    static final String CABECERA_TIPO = "X-Buzon-Tipo";
+
+    private final URI url;
+    private final byte[] secreto;
+    private final Duration timeout;
+
+    /**
+     * Un solo cliente para todas las entregas: reutiliza las conexiones.
+     */
+    private final HttpClient cliente;
+
+    public WebhookDestino(BuzonProperties propiedades) {
+        BuzonProperties.Webhook webhook = propiedades.getNotificaciones().getWebhook();
+        this.url = URI.create(webhook.getUrl());
+        this.secreto = webhook.getSecreto() == null || webhook.getSecreto().isBlank()
+                ? null
+                : webhook.getSecreto().getBytes(StandardCharsets.UTF_8);
+        this.timeout = Duration.ofSeconds(webhook.getTimeoutSegundos());
+        this.cliente = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    @Override
+    public String nombre() {
+        return "webhook";
+    }
+
+    @Override
+    public void enviar(EventoOutbox evento, MensajeResponseDTO mensaje) throws IOException, InterruptedException {
+        publicar(evento);
+    }
+
+    @Override
+    public void enviarResumen(EventoOutbox evento, ResumenDTO resumen) throws IOException, InterruptedException {
+        publicar(evento);
+    }
+
+    private void publicar(EventoOutbox evento) throws IOException, InterruptedException {
+        byte[] cuerpo = evento.getPayload().getBytes(StandardCharsets.UTF_8);
+
+        HttpRequest.Builder peticion = HttpRequest.newBuilder(url)
+                .timeout(timeout)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .header(CABECERA_EVENTO, String.valueOf(evento.getId()))
+                .header(CABECERA_TIPO, evento.getTipo())
+                .POST(HttpRequest.BodyPublishers.ofByteArray(cuerpo));
+        if (secreto != null) {
+            peticion.header(CABECERA_FIRMA, "sha256=" + firmar(cuerpo));
+        }
+
+        HttpResponse<Void> respuesta = cliente.send(peticion.build(), HttpResponse.BodyHandlers.discarding());
+        if (respuesta.statusCode() / 100 != 2) {
+            throw new IOException("El webhook respondió " + respuesta.statusCode());
+        }
+    }
+
+    private String firmar(byte[] cuerpo) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secreto, "HmacSHA256"));
+            return HexFormat.of().formatHex(mac.doFinal(cuerpo));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 no disponible", e);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.miguel.buzon_mensajes.service.remitente;
+
+import com.miguel.buzon_mensajes.datasource.ShardContext;
+import com.miguel.buzon_mensajes.datasource.ShardRouter;
+import com.miguel.buzon_mensajes.dto.PaginaRemitentesDTO;
+import com.miguel.buzon_mensajes.dto.RemitenteDTO;
+import com.miguel.buzon_mensajes.repository.RemitenteRepository;
+import com.miguel.buzon_mensajes.util.Normalizacion;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Directorio de remitentes: lee la tabla remitente por páginas de email.
+ *
+ * La paginación es por keyset (email mayor que el último devuelto), así que
+ * cada página cuesta lo mismo sea la primera o la milésima.
+ *
+ * Con sharding un mismo remitente puede tener fila en varios shards (escribe
+ * a buzones de shards distintos): se piden los "limite" primeros de cada
+ * shard, se suman los contadores del mismo email y se devuelven los "limite"
+ * primeros del total. La mezcla ordena en Java (por código de carácter),
+ * que coincide con el orden de la base de datos si esta compara en binario
+ * (collation "C" en PostgreSQL); con otra collation, emails con puntos o
+ * guiones pueden salir en otro orden entre shards.
+ *
+ * No es transaccional a propósito: el shard se fija antes de que cada
+ * consulta abra su transacción (ver {@link ShardContext}).
+ */
+@Service
+public class DirectorioRemitentes {
+
+    private final RemitenteRepository remitenteRepository;
+    private final ShardRouter shardRouter;
+
+    @Autowired
+    public DirectorioRemitentes(RemitenteRepository remitenteRepository, ObjectProvider<ShardRouter> shardRouter) {
+        this(remitenteRepository, shardRouter.getIfAvailable());
+    }
+
+    DirectorioRemitentes(RemitenteRepository remitenteRepository, ShardRouter shardRouter) {
+        this.remitenteRepository = remitenteRepository;
+        this.shardRouter = shardRouter;
+    }
+
+    /**
+     * Remitentes con email posterior a "despues" (null para empezar) y que
+     * empiezan por "prefijo" (null para todos), en orden de email.
+     */
+    public PaginaRemitentesDTO listar(String despues, String prefijo, int limite) {
+        String cursor = despues == null ? "" : Normalizacion.email(despues);
+        String inicio = prefijo == null ? "" : Normalizacion.email(prefijo);
+        String patron = escaparLike(inicio) + "%";
+
+        List<List<RemitenteDTO>> parciales = enCadaShard(() ->
+                remitenteRepository.paginar(cursor, inicio, patron, PageRequest.of(0, limite)));
+
+        List<RemitenteDTO> pagina;
+        if (parciales.size() == 1) {
+            pagina = parciales.get(0);
+        } else {
+            TreeMap<String, RemitenteDTO> porEmail = new TreeMap<>();
+            for (List<RemitenteDTO> parcial : parciales) {
+                parcial.forEach(r -> porEmail.merge(r.email(), r, DirectorioRemitentes::sumar));
+            }
+            pagina = porEmail.values().stream().limit(limite).toList();
+        }
+        String siguiente = pagina.size() == limite ? pagina.get(pagina.size() - 1).email() : null;
+        return new PaginaRemitentesDTO(pagina, siguiente);
+    }
+
+    private static RemitenteDTO sumar(RemitenteDTO a, RemitenteDTO b) {
+        boolean bMasReciente = b.ultimoMensaje().isAfter(a.ultimoMensaje());
+        return new RemitenteDTO(
+                a.email(),
+                bMasReciente ? b.nombre() : a.nombre(),
+                b.primerMensaje().isBefore(a.primerMensaje()) ? b.primerMensaje() : a.primerMensaje(),
+                bMasReciente ? b.ultimoMensaje() : a.ultimoMensaje(),
+                a.total() + b.total(),
+                a.noLeidos() + b.noLeidos());
+    }
+
+    private static String escaparLike(String texto) {
+        return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private <T> List<T> enCadaShard(Supplier<T> consulta) {
+        if (shardRouter == null) {
+            return List.of(consulta.get());
+        }
+        List<T> resultados = new ArrayList<>(shardRouter.getNumeroShards());
+        for (int shard = 0; shard < shardRouter.getNumeroShards(); shard++) {
+            resultados.add(ShardContext.ejecutarEn(shard, consulta));
+        }
+        return resultados;
+    }
+}
@@ -0,0 +1,245 @@
+package com.miguel.buzon_mensajes.service.remitente;
+
+import com.miguel.buzon_mensajes.model.Mensaje;
+import com.miguel.buzon_mensajes.util.Normalizacion;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mantiene la tabla remitente con sentencias atómicas.
+ *
+ * A diferencia de los rollups (un solo escritor, RollupJob), aquí escriben
+ * todas las peticiones a la vez, así que no se lee la fila para luego
+ * guardarla: cada cambio es un único upsert o UPDATE que suma sobre el valor
+ * que haya en la base de datos.
+ * - PostgreSQL: INSERT ... ON CONFLICT (email) DO UPDATE, seguro con
+ *   inserciones concurrentes del mismo remitente.
+ * - Otras bases de datos (H2): MERGE INTO ... USING.
+ *
+ * Usa la conexión de la transacción en curso, así que el contador cambia si y
+ * solo si cambia el mensaje. Los lotes se ordenan por email para que dos
+ * transacciones que tocan los mismos remitentes los bloqueen en el mismo
+ * orden y no se interbloqueen.
+ */
+@Component
+@RequiredArgsConstructor
+public class EscritorRemitentes {
+
+    /**
+     * Lo que aporta un grupo de mensajes a un remitente (total y noLeidos son
+     * incrementos).
+     */
+    public record Recuento(String email, String nombre, LocalDateTime primerMensaje,
+                           LocalDateTime ultimoMensaje, long total, long noLeidos) {
+
+        public static Recuento de(Mensaje mensaje) {
+            boolean leido = Boolean.TRUE.equals(mensaje.getLeido());
+            return new Recuento(emailDe(mensaje), mensaje.getNombre(), mensaje.getFechaCreacion(),
+                    mensaje.getFechaCreacion(), 1, leido ? 0 : 1);
+        }
+
+        private Recuento mas(Recuento otro) {
+            boolean otroMasReciente = otro.ultimoMensaje.isAfter(ultimoMensaje);
+            return new Recuento(email,
+                    otroMasReciente ? otro.nombre : nombre,
+                    otro.primerMensaje.isBefore(primerMensaje) ? otro.primerMensaje : primerMensaje,
+                    otroMasReciente ? otro.ultimoMensaje : ultimoMensaje,
+                    total + otro.total,
+                    noLeidos + otro.noLeidos);
+        }
+    }
+
+    private static final String UPSERT_POSTGRES = """
+            INSERT INTO remitente AS r (email, nombre, primer_mensaje, ultimo_mensaje, total, no_leidos)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (email) DO UPDATE SET
+                nombre = CASE WHEN EXCLUDED.ultimo_mensaje >= r.ultimo_mensaje THEN EXCLUDED.nombre ELSE r.nombre END,
+                primer_mensaje = LEAST(r.primer_mensaje, EXCLUDED.primer_mensaje),
+                ultimo_mensaje = GREATEST(r.ultimo_mensaje, EXCLUDED.ultimo_mensaje),
+                total = %s,
+                no_leidos = %s
+            """;
+
+    private static final String UPSERT_MERGE = """
+            MERGE INTO remitente r
+            USING (SELECT CAST(? AS VARCHAR(150)) AS email, CAST(? AS VARCHAR(100)) AS nombre,
+                          CAST(? AS TIMESTAMP) AS primer_mensaje, CAST(? AS TIMESTAMP) AS ultimo_mensaje,
+                          CAST(? AS BIGINT) AS total, CAST(? AS BIGINT) AS no_leidos) v
+            ON r.email = v.email
+            WHEN MATCHED THEN UPDATE SET
+                nombre = CASE WHEN v.ultimo_mensaje >= r.ultimo_mensaje THEN v.nombre ELSE r.nombre END,
+                primer_mensaje = LEAST(r.primer_mensaje, v.primer_mensaje),
+                ultimo_mensaje = GREATEST(r.ultimo_mensaje, v.ultimo_mensaje),
+                total = %s,
+                no_leidos = %s
+            WHEN NOT MATCHED THEN INSERT (email, nombre, primer_mensaje, ultimo_mensaje, total, no_leidos)
+                VALUES (v.email, v.nombre, v.primer_mensaje, v.ultimo_mensaje, v.total, v.no_leidos)
+            """;
+
+    private static final String SUMAR_POSTGRES = UPSERT_POSTGRES.formatted(
+            "r.total + EXCLUDED.total", "r.no_leidos + EXCLUDED.no_leidos");
+    private static final String SUMAR_MERGE = UPSERT_MERGE.formatted("r.total + v.total", "r.no_leidos + v.no_leidos");
+
+    /**
+     * Recuento de la tabla mensaje para los remitentes de un tramo de emails.
+     */
+    private static final String RECUENTO_TRAMO = """
+            SELECT email_normalizado AS email, MAX(nombre) AS nombre,
+                   MIN(fecha_creacion) AS primer_mensaje, MAX(fecha_creacion) AS ultimo_mensaje,
+                   COUNT(*) AS total, SUM(CASE WHEN leido THEN 0 ELSE 1 END) AS no_leidos
+            FROM mensaje
+            WHERE email_normalizado > ? AND email_normalizado <= ? AND eliminado_en IS NULL
+            GROUP BY email_normalizado
+            """;
+
+    private static final String RECONTAR_POSTGRES = """
+            INSERT INTO remitente AS r (email, nombre, primer_mensaje, ultimo_mensaje, total, no_leidos)
+            %s
+            ON CONFLICT (email) DO UPDATE SET
+                nombre = CASE WHEN EXCLUDED.ultimo_mensaje >= r.ultimo_mensaje THEN EXCLUDED.nombre ELSE r.nombre END,
+                primer_mensaje = LEAST(r.primer_mensaje, EXCLUDED.primer_mensaje),
+                ultimo_mensaje = GREATEST(r.ultimo_mensaje, EXCLUDED.ultimo_mensaje),
+                total = EXCLUDED.total,
+                no_leidos = EXCLUDED.no_leidos
+            """.formatted(RECUENTO_TRAMO);
+
+    private static final String RECONTAR_MERGE = """
+            MERGE INTO remitente r
+            USING (%s) v
+            ON r.email = v.email
+            WHEN MATCHED THEN UPDATE SET
+                nombre = CASE WHEN v.ultimo_mensaje >= r.ultimo_mensaje THEN v.nombre ELSE r.nombre END,
+                primer_mensaje = LEAST(r.primer_mensaje, v.primer_mensaje),
+                ultimo_mensaje = GREATEST(r.ultimo_mensaje, v.ultimo_mensaje),
+                total = v.total,
+                no_leidos = v.no_leidos
+            WHEN NOT MATCHED THEN INSERT (email, nombre, primer_mensaje, ultimo_mensaje, total, no_leidos)
+                VALUES (v.email, v.nombre, v.primer_mensaje, v.ultimo_mensaje, v.total, v.no_leidos)
+            """.formatted(RECUENTO_TRAMO);
+
+    private static final String LEIDO = """
+            UPDATE remitente SET no_leidos = no_leidos - 1
+            WHERE email = ? AND no_leidos > 0
+            """;
+
+    private static final String ELIMINADO = """
+            UPDATE remitente SET total = total - 1, no_leidos = no_leidos - ?
+            WHERE email = ? AND total > 0
+            """;
+
+    private static final String SIN_MENSAJES = "DELETE FROM remitente WHERE email = ? AND total <= 0";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Un mensaje nuevo.
+     */
+    public void mensajeCreado(Mensaje mensaje) {
+        sumar(List.of(Recuento.de(mensaje)));
+    }
+
+    /**
+     * Primera lectura de un mensaje (las siguientes no cambian nada).
+     */
+    public void mensajeLeido(Mensaje mensaje) {
+        jdbcTemplate.update(LEIDO, emailDe(mensaje));
+    }
+
+    /**
+     * Un mensaje eliminado. Si era el último del remitente, la fila desaparece
+     * del directorio; primerMensaje y ultimoMensaje no se recalculan.
+     */
+    public void mensajeEliminado(Mensaje mensaje) {
+        String email = emailDe(mensaje);
+        jdbcTemplate.update(ELIMINADO, Boolean.TRUE.equals(mensaje.getLeido()) ? 0 : 1, email);
+        jdbcTemplate.update(SIN_MENSAJES, email);
+    }
+
+    /**
+     * Suma los recuentos a los que ya hay (o crea las filas).
+     */
+    public void sumar(Collection<Recuento> recuentos) {
+        escribir(recuentos, SUMAR_POSTGRES, SUMAR_MERGE);
+    }
+
+    /**
+     * Fija total y noLeidos de los remitentes con email en (desde, hasta] a lo
+     * que cuenta la tabla mensaje; las fechas solo amplían el intervalo que ya
+     * hubiera. Devuelve cuántos remitentes ha escrito.
+     *
+     * El recuento y la escritura son una sola sentencia, y se ejecuta dos
+     * veces: la primera deja bloqueadas las filas de esos remitentes (las
+     * crea si faltan), y la segunda cuenta con ellas ya bloqueadas. Un mensaje
+     * creado o eliminado a la vez, o bien confirmó antes y la segunda lo ve,
+     * o bien espera a esta transacción para sumar o restar sobre el valor
+     * fijado: ninguno queda contado de más ni de menos.
+     * Debe llamarse dentro de una transacción.
+     */
+    public int recontar(String desde, String hasta) {
+        return jdbcTemplate.execute((ConnectionCallback<Integer>) conexion -> {
+            String sql = conexion.isWrapperFor(PGConnection.class) ? RECONTAR_POSTGRES : RECONTAR_MERGE;
+            try (PreparedStatement sentencia = conexion.prepareStatement(sql)) {
+                sentencia.setString(1, desde);
+                sentencia.setString(2, hasta);
+                sentencia.executeUpdate();
+                return sentencia.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Un recuento por remitente a partir de una lista de mensajes.
+     */
+    public static Collection<Recuento> agrupar(List<Mensaje> mensajes) {
+        Map<String, Recuento> porEmail = new LinkedHashMap<>();
+        for (Mensaje mensaje : mensajes) {
+            Recuento recuento = Recuento.de(mensaje);
+            porEmail.merge(recuento.email(), recuento, Recuento::mas);
+        }
+        return porEmail.values();
+    }
+
+    private void escribir(Collection<Recuento> recuentos, String sqlPostgres, String sqlMerge) {
+        if (recuentos.isEmpty()) {
+            return;
+        }
+        List<Recuento> ordenados = recuentos.stream().sorted(Comparator.comparing(Recuento::email)).toList();
+        jdbcTemplate.execute((ConnectionCallback<Void>) conexion -> {
+            String sql = conexion.isWrapperFor(PGConnection.class) ? sqlPostgres : sqlMerge;
+            try (PreparedStatement sentencia = conexion.prepareStatement(sql)) {
+                for (Recuento r : ordenados) {
+                    sentencia.setString(1, r.email());
+                    sentencia.setString(2, r.nombre());
+                    sentencia.setTimestamp(3, Timestamp.valueOf(r.primerMensaje()));
+                    sentencia.setTimestamp(4, Timestamp.valueOf(r.ultimoMensaje()));
+                    sentencia.setLong(5, r.total());
+                    sentencia.setLong(6, r.noLeidos());
+                    sentencia.addBatch();
+                }
+                sentencia.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Los mensajes anteriores a email_normalizado pueden no tenerlo aún relleno.
+     */
+    private static String emailDe(Mensaje mensaje) {
+        return mensaje.getEmailNormalizado() != null
+                ? mensaje.getEmailNormalizado()
+                : Normalizacion.email(mensaje.getEmail());
+    }
+}
@@ -0,0 +1,60 @@
+package com.miguel.buzon_mensajes.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Generación y hash de claves de API.
+ *
+ * Las contraseñas de personas se guardan con BCrypt porque son cortas y
+ * adivinables: el coste (decenas de ms) frena los ataques de diccionario.
+ * Una clave de API son 32 bytes aleatorios (256 bits): no hay diccionario
+ * posible, así que basta un SHA-256, que se calcula en microsegundos y
+ * permite verificar cada petición sin sesión.
+ *
+ * Para dar de alta un cliente:
+ * <pre>
+ * java -cp target/classes com.miguel.buzon_mensajes.util.ClavesApi
+ * </pre>
+ * La clave se entrega al cliente y en application.properties solo va el hash.
+ */
+public final class ClavesApi {
+
+    private static final int BYTES_CLAVE = 32;
+
+    private static final SecureRandom ALEATORIO = new SecureRandom();
+
+    private ClavesApi() {
+    }
+
+    /**
+     * Nueva clave aleatoria en Base64 URL (43 caracteres, sin relleno).
+     */
+    public static String generar() {
+        byte[] bytes = new byte[BYTES_CLAVE];
+        ALEATORIO.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * SHA-256 de la clave en hexadecimal (minúsculas).
+     */
+    public static String hash(String clave) {
+        try {
+            byte[] resumen = MessageDigest.getInstance("SHA-256").digest(clave.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(resumen);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    public static void main(String[] args) {
+        String clave = generar();
+        System.out.println("Clave (entregar al cliente): " + clave);
+        System.out.println("buzon.api.claves[N].hash=" + hash(clave));
+    }
+}
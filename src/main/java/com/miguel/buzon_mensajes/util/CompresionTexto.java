@@ -0,0 +1,120 @@
+package com.miguel.buzon_mensajes.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresión de textos cortos (el contenido de los mensajes) con un
+ * diccionario compartido.
+ *
+ * Un mensaje de formulario tiene unos cientos de bytes: comprimido por
+ * separado, DEFLATE apenas encuentra repeticiones dentro del propio texto.
+ * Con un diccionario previo (frases habituales de los mensajes de contacto,
+ * en resources/compresion) puede referirse a él desde el primer byte, que es
+ * donde está casi toda la ganancia.
+ *
+ * Formato: un byte con la versión y después los datos.
+ * - {@link #SIN_COMPRIMIR}: el texto en UTF-8, cuando comprimir no reduce nada.
+ * - {@link #DICCIONARIO_V1}: DEFLATE sin cabecera con el diccionario v1.
+ * Los datos guardados dependen del diccionario con el que se comprimieron:
+ * un diccionario mejor entra como versión nueva y los anteriores se conservan
+ * para poder leer lo que ya hay.
+ *
+ * Ejemplo de uso:
+ * <pre>
+ * byte[] datos = CompresionTexto.comprimir("Hola, me gustaría recibir información...");
+ * String texto = CompresionTexto.descomprimir(datos);
+ * </pre>
+ */
+public final class CompresionTexto {
+
+    static final byte SIN_COMPRIMIR = 0;
+    static final byte DICCIONARIO_V1 = 1;
+
+    private static final byte[] DICCIONARIO_1 = cargar("compresion/diccionario-contenido-v1.txt");
+
+    private CompresionTexto() {
+    }
+
+    /**
+     * Comprime con el diccionario actual; si no sale más corto, guarda el texto tal cual.
+     */
+    public static byte[] comprimir(String texto) {
+        byte[] utf8 = texto.getBytes(StandardCharsets.UTF_8);
+
+        // Con nowrap no hay cabecera zlib ni suma de control: 6 bytes menos por mensaje
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setDictionary(DICCIONARIO_1);
+            deflater.setInput(utf8);
+            deflater.finish();
+            byte[] salida = new byte[utf8.length + 1];
+            int longitud = 1;
+            while (!deflater.finished() && longitud < salida.length) {
+                longitud += deflater.deflate(salida, longitud, salida.length - longitud);
+            }
+            if (deflater.finished()) {
+                salida[0] = DICCIONARIO_V1;
+                return Arrays.copyOf(salida, longitud);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        byte[] salida = new byte[utf8.length + 1];
+        salida[0] = SIN_COMPRIMIR;
+        System.arraycopy(utf8, 0, salida, 1, utf8.length);
+        return salida;
+    }
+
+    public static String descomprimir(byte[] datos) {
+        return switch (datos[0]) {
+            case SIN_COMPRIMIR -> new String(datos, 1, datos.length - 1, StandardCharsets.UTF_8);
+            case DICCIONARIO_V1 -> inflar(datos, DICCIONARIO_1);
+            default -> throw new IllegalArgumentException("Versión de compresión desconocida: " + datos[0]);
+        };
+    }
+
+    private static String inflar(byte[] datos, byte[] diccionario) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setDictionary(diccionario);
+            inflater.setInput(datos, 1, datos.length - 1);
+            // Los textos de este tipo rara vez pasan de 4 veces el tamaño comprimido
+            byte[] salida = new byte[Math.max(256, datos.length * 4)];
+            int longitud = 0;
+            while (!inflater.finished()) {
+                if (longitud == salida.length) {
+                    salida = Arrays.copyOf(salida, salida.length * 2);
+                }
+                int leidos = inflater.inflate(salida, longitud, salida.length - longitud);
+                if (leidos == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Datos comprimidos incompletos");
+                }
+                longitud += leidos;
+            }
+            return new String(salida, 0, longitud, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Datos comprimidos no válidos", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] cargar(String recurso) {
+        try (InputStream entrada = CompresionTexto.class.getClassLoader().getResourceAsStream(recurso)) {
+            if (entrada == null) {
+                throw new IllegalStateException("No se encuentra el diccionario " + recurso);
+            }
+            return entrada.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.miguel.buzon_mensajes.util;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Histograma de esperas en segundos con precisión relativa fija y memoria
+ * constante (misma idea que HdrHistogram, en su versión mínima).
+ *
+ * Los valores de 0 a 15 s tienen cubeta propia; a partir de ahí cada
+ * potencia de 2 se divide en 16 cubetas iguales, así que un valor se conoce
+ * con un error menor de 1/16 (~6 %) sea un segundo o un año. Son
+ * {@link #INDICES} contadores (menos de 4 KB) por muchos valores que se
+ * agreguen, y dos histogramas se suman contador a contador: así se combinan
+ * días, shards o lo pendiente con lo ya guardado.
+ *
+ * Ejemplo de uso:
+ * <pre>
+ * HistogramaLatencia esperas = new HistogramaLatencia();
+ * lecturas.forEach(l -> esperas.agregar(l.segundos()));
+ * Long p95 = esperas.percentil(0.95);
+ * </pre>
+ *
+ * No es seguro entre hilos: quien lo comparta debe sincronizar.
+ */
+public final class HistogramaLatencia {
+
+    private static final int BITS_SUBCUBETA = 4;
+    private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+
+    /**
+     * Valor máximo que se distingue (~68 años); los mayores cuentan como este.
+     */
+    public static final long MAXIMO = (1L << 31) - 1;
+
+    private static final int EXPONENTE_MAXIMO = 63 - Long.numberOfLeadingZeros(MAXIMO);
+
+    static final int INDICES = SUBCUBETAS + (EXPONENTE_MAXIMO - BITS_SUBCUBETA + 1) * SUBCUBETAS;
+
+    /**
+     * Cubetas de {@link #cubetas()}: la 0 es "menos de 1 s" y la k cuenta los
+     * valores entre 2^(k-1) y 2^k segundos.
+     */
+    public static final int CUBETAS = EXPONENTE_MAXIMO + 2;
+
+    private final long[] cuentas = new long[INDICES];
+    private long total;
+
+    public void agregar(long segundos) {
+        agregar(segundos, 1);
+    }
+
+    public void agregar(long segundos, long veces) {
+        cuentas[indice(segundos)] += veces;
+        total += veces;
+    }
+
+    /**
+     * Suma otro histograma a este.
+     */
+    public void sumar(HistogramaLatencia otro) {
+        for (int i = 0; i < INDICES; i++) {
+            cuentas[i] += otro.cuentas[i];
+        }
+        total += otro.total;
+    }
+
+    public HistogramaLatencia copia() {
+        HistogramaLatencia copia = new HistogramaLatencia();
+        copia.sumar(this);
+        return copia;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    /**
+     * Valor por debajo del cual queda la fracción indicada (0.5, 0.95, 0.99...)
+     * de los valores, o null si el histograma está vacío.
+     *
+     * Devuelve el límite superior de la cubeta donde cae: nunca por debajo del
+     * valor real y como mucho un 6 % por encima.
+     */
+    public Long percentil(double fraccion) {
+        if (fraccion <= 0 || fraccion > 1) {
+            throw new IllegalArgumentException("La fracción debe estar entre 0 (excluido) y 1");
+        }
+        if (total == 0) {
+            return null;
+        }
+
+        long rango = Math.max(1, (long) Math.ceil(fraccion * total));
+        long acumulado = 0;
+        for (int i = 0; i < INDICES; i++) {
+            acumulado += cuentas[i];
+            if (acumulado >= rango) {
+                return maximoDe(i);
+            }
+        }
+        return MAXIMO;
+    }
+
+    /**
+     * Cuentas agrupadas por potencias de 2 (ver {@link #CUBETAS}), para dibujar.
+     */
+    public long[] cubetas() {
+        long[] cubetas = new long[CUBETAS];
+        for (int i = 0; i < INDICES; i++) {
+            if (cuentas[i] != 0) {
+                cubetas[64 - Long.numberOfLeadingZeros(minimoDe(i))] += cuentas[i];
+            }
+        }
+        return cubetas;
+    }
+
+    /**
+     * Límite superior (exclusivo) de una cubeta de {@link #cubetas()} en
+     * segundos; null en la última, que recoge el resto.
+     */
+    public static Long limiteSegundos(int cubeta) {
+        return cubeta >= CUBETAS - 1 ? null : 1L << cubeta;
+    }
+
+    /**
+     * Forma compacta para guardar: pares (salto de índice, cuenta) de los
+     * contadores no vacíos, en varint. Un día típico ocupa unas decenas de bytes.
+     */
+    public byte[] codificar() {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        int anterior = -1;
+        for (int i = 0; i < INDICES; i++) {
+            if (cuentas[i] != 0) {
+                escribirVarint(salida, i - anterior);
+                escribirVarint(salida, cuentas[i]);
+                anterior = i;
+            }
+        }
+        return salida.toByteArray();
+    }
+
+    public static HistogramaLatencia decodificar(byte[] datos) {
+        HistogramaLatencia histograma = new HistogramaLatencia();
+        if (datos == null) {
+            return histograma;
+        }
+
+        int[] posicion = {0};
+        int indice = -1;
+        while (posicion[0] < datos.length) {
+            indice += (int) leerVarint(datos, posicion);
+            long cuenta = leerVarint(datos, posicion);
+            if (indice < 0 || indice >= INDICES) {
+                throw new IllegalArgumentException("Histograma con índice fuera de rango: " + indice);
+            }
+            histograma.cuentas[indice] += cuenta;
+            histograma.total += cuenta;
+        }
+        return histograma;
+    }
+
+    static int indice(long segundos) {
+        long valor = Math.clamp(segundos, 0, MAXIMO);
+        if (valor < SUBCUBETAS) {
+            return (int) valor;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        int subcubeta = (int) (valor >>> (exponente - BITS_SUBCUBETA)) - SUBCUBETAS;
+        return SUBCUBETAS + (exponente - BITS_SUBCUBETA) * SUBCUBETAS + subcubeta;
+    }
+
+    /**
+     * Menor valor que cae en el índice.
+     */
+    static long minimoDe(int indice) {
+        if (indice < SUBCUBETAS) {
+            return indice;
+        }
+        int desplazamiento = (indice - SUBCUBETAS) / SUBCUBETAS;
+        int subcubeta = (indice - SUBCUBETAS) % SUBCUBETAS;
+        return (long) (SUBCUBETAS + subcubeta) << desplazamiento;
+    }
+
+    /**
+     * Mayor valor que cae en el índice.
+     */
+    static long maximoDe(int indice) {
+        return minimoDe(indice + 1) - 1;
+    }
+
+    private static void escribirVarint(ByteArrayOutputStream salida, long valor) {
+        while ((valor & ~0x7FL) != 0) {
+            salida.write((int) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        salida.write((int) valor);
+    }
+
+    private static long leerVarint(byte[] datos, int[] posicion) {
+        long valor = 0;
+        for (int desplazamiento = 0; desplazamiento < 64; desplazamiento += 7) {
+            if (posicion[0] >= datos.length) {
+                throw new IllegalArgumentException("Histograma truncado");
+            }
+            byte b = datos[posicion[0]++];
+            valor |= (long) (b & 0x7F) << desplazamiento;
+            if ((b & 0x80) == 0) {
+                return valor;
+            }
+        }
+        throw new IllegalArgumentException("Varint demasiado largo");
+    }
+}
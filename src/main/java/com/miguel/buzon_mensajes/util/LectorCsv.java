@@ -0,0 +1,130 @@
+package com.miguel.buzon_mensajes.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector de CSV (RFC 4180) registro a registro, sin cargar el fichero.
+ *
+ * Admite campos entre comillas con comas, saltos de línea y comillas dobles
+ * escapadas (""), y fin de línea \n o \r\n. Solo guarda el registro en curso
+ * y un buffer fijo, así que la memoria no depende del tamaño del fichero.
+ *
+ * Ejemplo de uso:
+ * <pre>
+ * LectorCsv csv = new LectorCsv(reader);
+ * List&lt;String&gt; cabecera = csv.siguiente();
+ * for (List&lt;String&gt; campos = csv.siguiente(); campos != null; campos = csv.siguiente()) {
+ *     ...
+ * }
+ * </pre>
+ */
+public final class LectorCsv {
+
+    private final Reader entrada;
+    private final char[] buffer = new char[8192];
+    private int posicion;
+    private int limite;
+
+    private final StringBuilder campo = new StringBuilder();
+    private long linea = 1;
+    private long lineaRegistro;
+    private boolean terminado;
+
+    public LectorCsv(Reader entrada) {
+        this.entrada = entrada;
+    }
+
+    /**
+     * Siguiente registro, o null al llegar al final. Las líneas vacías se saltan.
+     *
+     * @throws IllegalArgumentException si una comilla queda sin cerrar
+     */
+    public List<String> siguiente() throws IOException {
+        while (!terminado) {
+            List<String> registro = leerRegistro();
+            if (registro != null && !(registro.size() == 1 && registro.get(0).isEmpty())) {
+                return registro;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Línea del fichero donde empieza el último registro devuelto (desde 1).
+     */
+    public long lineaActual() {
+        return lineaRegistro;
+    }
+
+    private List<String> leerRegistro() throws IOException {
+        List<String> campos = new ArrayList<>();
+        campo.setLength(0);
+        lineaRegistro = linea;
+        boolean entreComillas = false;
+        boolean hayDatos = false;
+
+        while (true) {
+            int c = leer();
+            if (c == -1) {
+                terminado = true;
+                if (entreComillas) {
+                    throw new IllegalArgumentException("Comilla sin cerrar en el registro de la línea " + lineaRegistro);
+                }
+                if (!hayDatos) {
+                    return null;
+                }
+                campos.add(campo.toString());
+                return campos;
+            }
+            hayDatos = true;
+
+            if (entreComillas) {
+                if (c != '"') {
+                    if (c == '\n') {
+                        linea++;
+                    }
+                    campo.append((char) c);
+                } else if (mirar() == '"') {
+                    leer();
+                    campo.append('"');
+                } else {
+                    entreComillas = false;
+                }
+            } else if (c == '"' && campo.isEmpty()) {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == '\n') {
+                linea++;
+                campos.add(campo.toString());
+                return campos;
+            } else if (c != '\r') {
+                campo.append((char) c);
+            }
+        }
+    }
+
+    private int leer() throws IOException {
+        int c = mirar();
+        if (c != -1) {
+            posicion++;
+        }
+        return c;
+    }
+
+    private int mirar() throws IOException {
+        if (posicion == limite) {
+            limite = entrada.read(buffer);
+            posicion = 0;
+            if (limite <= 0) {
+                limite = 0;
+                return -1;
+            }
+        }
+        return buffer[posicion];
+    }
+}
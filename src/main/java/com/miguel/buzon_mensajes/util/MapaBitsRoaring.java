@@ -0,0 +1,257 @@
+package com.miguel.buzon_mensajes.util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Conjunto de ids (long positivos) comprimido al estilo Roaring (Chambi,
+ * Lemire et al.).
+ *
+ * Los ids se reparten en bloques de 65536 por sus bits altos ({@code id >>> 16});
+ * cada bloque guarda solo los 16 bits bajos, en el contenedor que menos ocupa:
+ * - Pocos valores (hasta {@link #MAXIMO_ARRAY}): un char[] ordenado, 2 bytes por id.
+ * - Muchos: un mapa de bits de 65536 bits, 8 KB fijos por bloque.
+ * Un bloque pasa de uno a otro al cruzar {@link #MAXIMO_ARRAY}, justo donde los
+ * dos ocupan lo mismo. Los ids consecutivos (los de una tabla con IDENTITY)
+ * caen en pocos bloques, así que un millón de ids ocupa del orden de 128 KB
+ * frente a los ~50 MB de un HashSet&lt;Long&gt;.
+ *
+ * La cardinalidad se lleva al día en cada cambio: {@link #cardinalidad()} es O(1).
+ * {@link #descendentes(long, int)} salta bloques enteros por su cardinalidad,
+ * así que una página lejana no recorre los ids anteriores uno a uno.
+ *
+ * No es seguro entre hilos: quien lo comparta debe sincronizar.
+ *
+ * Ejemplo de uso:
+ * <pre>
+ * MapaBitsRoaring noLeidos = new MapaBitsRoaring();
+ * noLeidos.agregar(42L);
+ * long[] pagina = noLeidos.descendentes(0, 20); // los 20 ids más altos
+ * </pre>
+ */
+public final class MapaBitsRoaring {
+
+    /**
+     * Valores a partir de los cuales un bloque pasa a mapa de bits
+     * (4096 × 2 bytes = 8 KB, lo mismo que el mapa de bits).
+     */
+    static final int MAXIMO_ARRAY = 4096;
+
+    private static final int PALABRAS_BITMAP = 65536 / 64;
+
+    private final TreeMap<Long, Contenedor> bloques = new TreeMap<>();
+    private long cardinalidad;
+
+    /**
+     * Añade un id; devuelve false si ya estaba.
+     */
+    public boolean agregar(long id) {
+        comprobar(id);
+        Contenedor contenedor = bloques.computeIfAbsent(id >>> 16, k -> new Contenedor());
+        if (contenedor.agregar((char) id)) {
+            cardinalidad++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Quita un id; devuelve false si no estaba.
+     */
+    public boolean quitar(long id) {
+        comprobar(id);
+        Long clave = id >>> 16;
+        Contenedor contenedor = bloques.get(clave);
+        if (contenedor == null || !contenedor.quitar((char) id)) {
+            return false;
+        }
+        cardinalidad--;
+        if (contenedor.cardinalidad == 0) {
+            bloques.remove(clave);
+        }
+        return true;
+    }
+
+    public boolean contiene(long id) {
+        if (id < 0) {
+            return false;
+        }
+        Contenedor contenedor = bloques.get(id >>> 16);
+        return contenedor != null && contenedor.contiene((char) id);
+    }
+
+    public long cardinalidad() {
+        return cardinalidad;
+    }
+
+    /**
+     * Hasta {@code limite} ids de mayor a menor, saltándose los {@code saltar} más altos.
+     */
+    public long[] descendentes(long saltar, int limite) {
+        if (saltar < 0 || limite < 0) {
+            throw new IllegalArgumentException("saltar y limite no pueden ser negativos");
+        }
+        long[] resultado = new long[(int) Math.max(0, Math.min(limite, cardinalidad - saltar))];
+        int llenos = 0;
+        Iterator<Map.Entry<Long, Contenedor>> it = bloques.descendingMap().entrySet().iterator();
+        while (llenos < resultado.length && it.hasNext()) {
+            Map.Entry<Long, Contenedor> bloque = it.next();
+            Contenedor contenedor = bloque.getValue();
+            if (saltar >= contenedor.cardinalidad) {
+                saltar -= contenedor.cardinalidad;
+                continue;
+            }
+            llenos = contenedor.descendentes(bloque.getKey() << 16, (int) saltar, resultado, llenos);
+            saltar = 0;
+        }
+        return resultado;
+    }
+
+    /**
+     * Memoria aproximada que ocupa (arrays, contenedores y entradas del árbol),
+     * para los informes de tamaño.
+     */
+    public long bytesAproximados() {
+        // Entrada del TreeMap (~40), clave Long (16) y el Contenedor (~32)
+        long porBloque = 88;
+        long total = 64;
+        for (Contenedor contenedor : bloques.values()) {
+            total += porBloque + contenedor.bytesDatos();
+        }
+        return total;
+    }
+
+    private static void comprobar(long id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Los ids deben ser positivos: " + id);
+        }
+    }
+
+    /**
+     * Los 16 bits bajos de los ids de un bloque: array ordenado o mapa de bits.
+     */
+    private static final class Contenedor {
+
+        private char[] valores = new char[4];
+        private long[] bits;
+        private int cardinalidad;
+
+        boolean agregar(char valor) {
+            if (bits != null) {
+                long antes = bits[valor >>> 6];
+                bits[valor >>> 6] = antes | (1L << valor);
+                if (bits[valor >>> 6] == antes) {
+                    return false;
+                }
+                cardinalidad++;
+                return true;
+            }
+            // Los ids suelen llegar en orden creciente: añadir al final sin buscar
+            int posicion = cardinalidad > 0 && valores[cardinalidad - 1] < valor
+                    ? -(cardinalidad + 1)
+                    : Arrays.binarySearch(valores, 0, cardinalidad, valor);
+            if (posicion >= 0) {
+                return false;
+            }
+            if (cardinalidad == MAXIMO_ARRAY) {
+                aBits();
+                return agregar(valor);
+            }
+            posicion = -posicion - 1;
+            if (cardinalidad == valores.length) {
+                valores = Arrays.copyOf(valores, Math.min(MAXIMO_ARRAY, valores.length * 2));
+            }
+            System.arraycopy(valores, posicion, valores, posicion + 1, cardinalidad - posicion);
+            valores[posicion] = valor;
+            cardinalidad++;
+            return true;
+        }
+
+        boolean quitar(char valor) {
+            if (bits != null) {
+                long antes = bits[valor >>> 6];
+                bits[valor >>> 6] = antes & ~(1L << valor);
+                if (bits[valor >>> 6] == antes) {
+                    return false;
+                }
+                cardinalidad--;
+                if (cardinalidad <= MAXIMO_ARRAY) {
+                    aArray();
+                }
+                return true;
+            }
+            int posicion = Arrays.binarySearch(valores, 0, cardinalidad, valor);
+            if (posicion < 0) {
+                return false;
+            }
+            System.arraycopy(valores, posicion + 1, valores, posicion, cardinalidad - posicion - 1);
+            cardinalidad--;
+            if (cardinalidad > 0 && cardinalidad * 4 < valores.length) {
+                valores = Arrays.copyOf(valores, Math.max(4, valores.length / 2));
+            }
+            return true;
+        }
+
+        boolean contiene(char valor) {
+            if (bits != null) {
+                return (bits[valor >>> 6] & (1L << valor)) != 0;
+            }
+            return Arrays.binarySearch(valores, 0, cardinalidad, valor) >= 0;
+        }
+
+        /**
+         * Copia sus ids (base + valor) de mayor a menor en destino a partir de
+         * desde, saltándose los primeros; devuelve hasta dónde ha llenado.
+         */
+        int descendentes(long base, int saltar, long[] destino, int desde) {
+            int llenos = desde;
+            if (bits == null) {
+                for (int i = cardinalidad - 1 - saltar; i >= 0 && llenos < destino.length; i--) {
+                    destino[llenos++] = base + valores[i];
+                }
+                return llenos;
+            }
+            for (int palabra = PALABRAS_BITMAP - 1; palabra >= 0 && llenos < destino.length; palabra--) {
+                long w = bits[palabra];
+                while (w != 0 && llenos < destino.length) {
+                    int bit = 63 - Long.numberOfLeadingZeros(w);
+                    w &= ~(1L << bit);
+                    if (saltar > 0) {
+                        saltar--;
+                    } else {
+                        destino[llenos++] = base + (palabra << 6) + bit;
+                    }
+                }
+            }
+            return llenos;
+        }
+
+        long bytesDatos() {
+            return bits != null ? 16 + 8L * bits.length : 16 + 2L * valores.length;
+        }
+
+        private void aBits() {
+            bits = new long[PALABRAS_BITMAP];
+            for (int i = 0; i < cardinalidad; i++) {
+                bits[valores[i] >>> 6] |= 1L << valores[i];
+            }
+            valores = null;
+        }
+
+        private void aArray() {
+            valores = new char[MAXIMO_ARRAY];
+            int n = 0;
+            for (int palabra = 0; palabra < PALABRAS_BITMAP; palabra++) {
+                long w = bits[palabra];
+                while (w != 0) {
+                    int bit = Long.numberOfTrailingZeros(w);
+                    w &= w - 1;
+                    valores[n++] = (char) ((palabra << 6) + bit);
+                }
+            }
+            bits = null;
+        }
+    }
+}
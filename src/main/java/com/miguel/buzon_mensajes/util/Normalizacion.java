@@ -0,0 +1,95 @@
+package com.miguel.buzon_mensajes.util;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Limpieza de los textos que llegan de fuera antes de validarlos y guardarlos.
+ *
+ * - Se quitan los caracteres de control (NUL, escapes de terminal, C1...),
+ *   que no se ven pero rompen búsquedas, exportaciones CSV y el panel.
+ * - En los textos de una línea (nombre, buzón) los saltos de línea y
+ *   tabuladores pasan a ser espacios; el contenido los conserva, con \r\n
+ *   convertido a \n.
+ * - Se recortan los espacios de los extremos.
+ * - El email va además en minúsculas: el mismo remitente no aparece como
+ *   varias identidades por cómo escribió la dirección.
+ * - {@link #nombre(String)} da la forma de comparar nombres sin distinguir
+ *   mayúsculas; se guarda aparte (nombre_normalizado) y el nombre se
+ *   muestra tal como se escribió.
+ *
+ * Todas devuelven null si reciben null. Son funciones puras y sin estado,
+ * seguras entre hilos.
+ */
+public final class Normalizacion {
+
+    private static final Pattern ESPACIOS = Pattern.compile("\\s{2,}");
+
+    private Normalizacion() {
+    }
+
+    /**
+     * Texto de una sola línea (nombre, buzón...).
+     */
+    public static String linea(String texto) {
+        return limpiar(texto, false);
+    }
+
+    /**
+     * Texto libre que puede tener varias líneas (contenido).
+     */
+    public static String texto(String texto) {
+        return limpiar(texto, true);
+    }
+
+    public static String email(String email) {
+        String limpio = limpiar(email, false);
+        return limpio == null ? null : limpio.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Forma de comparación de un nombre: como {@link #linea(String)}, en
+     * minúsculas y con los espacios interiores reducidos a uno.
+     */
+    public static String nombre(String nombre) {
+        String limpio = limpiar(nombre, false);
+        return limpio == null ? null : ESPACIOS.matcher(limpio).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    private static String limpiar(String texto, boolean multilinea) {
+        if (texto == null) {
+            return null;
+        }
+        if (!necesitaLimpieza(texto)) {
+            return texto.strip();
+        }
+
+        StringBuilder limpio = new StringBuilder(texto.length());
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (!Character.isISOControl(c)) {
+                limpio.append(c);
+            } else if (!multilinea && (c == '\n' || c == '\t' || c == '\r')) {
+                limpio.append(' ');
+            } else if (multilinea && (c == '\n' || c == '\t')) {
+                limpio.append(c);
+            } else if (multilinea && c == '\r' && (i + 1 == texto.length() || texto.charAt(i + 1) != '\n')) {
+                // \r suelto (Mac antiguo) como salto de línea; el de \r\n se descarta
+                limpio.append('\n');
+            }
+        }
+        return limpio.toString().strip();
+    }
+
+    /**
+     * Camino rápido: la inmensa mayoría de los textos no tienen nada que quitar.
+     */
+    private static boolean necesitaLimpieza(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (Character.isISOControl(texto.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,133 @@
+package com.miguel.buzon_mensajes.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Huella SimHash de 64 bits para detectar mensajes casi duplicados.
+ *
+ * Dos textos parecidos (mismas palabras con pequeñas variaciones) producen
+ * huellas que difieren en pocos bits, así que la distancia de Hamming entre
+ * huellas aproxima la similitud entre contenidos.
+ *
+ * Para buscar sin recorrer toda la tabla, la huella se divide en
+ * {@link #BANDAS} bandas de 16 bits que se guardan en columnas indexadas.
+ * Por el principio del palomar, dos huellas a distancia menor que
+ * {@link #BANDAS} comparten al menos una banda idéntica, de modo que basta
+ * con buscar por igualdad en cada banda y filtrar después los candidatos.
+ *
+ * Ejemplo de uso:
+ * <pre>
+ * long huella = SimHash.calcular("Hola, quiero información del curso");
+ * int distancia = SimHash.distancia(huella, otraHuella);
+ * </pre>
+ */
+public final class SimHash {
+
+    /**
+     * Número de bandas en las que se divide la huella.
+     */
+    public static final int BANDAS = 4;
+
+    /**
+     * Distancia máxima para la que las bandas garantizan encontrar todos los similares.
+     */
+    public static final int DISTANCIA_MAXIMA_GARANTIZADA = BANDAS - 1;
+
+    /**
+     * Huella de un texto sin palabras (vacío o solo signos). No se indexa:
+     * todos esos mensajes compartirían las cuatro bandas y llenarían los
+     * candidatos de cualquier búsqueda con alguna banda a 0.
+     */
+    public static final long SIN_PALABRAS = 0L;
+
+    private static final int BITS_POR_BANDA = 64 / BANDAS;
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private SimHash() {
+    }
+
+    /**
+     * Calcula la huella SimHash de un texto.
+     *
+     * El texto se normaliza (minúsculas, sin tildes) y se divide en palabras;
+     * cada palabra vota por cada uno de los 64 bits según su hash.
+     *
+     * @param texto Contenido del mensaje
+     * @return Huella de 64 bits (0 si el texto no tiene palabras)
+     */
+    public static long calcular(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return 0L;
+        }
+
+        String normalizado = DIACRITICOS
+                .matcher(Normalizer.normalize(texto, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+
+        int[] votos = new int[64];
+        for (String palabra : SEPARADORES.split(normalizado)) {
+            if (palabra.isEmpty()) {
+                continue;
+            }
+            long hash = hash64(palabra);
+            for (int bit = 0; bit < 64; bit++) {
+                votos[bit] += ((hash >>> bit) & 1L) == 1L ? 1 : -1;
+            }
+        }
+
+        long huella = 0L;
+        for (int bit = 0; bit < 64; bit++) {
+            if (votos[bit] > 0) {
+                huella |= 1L << bit;
+            }
+        }
+        return huella;
+    }
+
+    /**
+     * Si la huella sirve para buscar similares (el texto tenía palabras).
+     */
+    public static boolean comparable(long huella) {
+        return huella != SIN_PALABRAS;
+    }
+
+    /**
+     * Extrae una banda de 16 bits de la huella.
+     *
+     * @param huella Huella SimHash
+     * @param indice Índice de la banda (0 a BANDAS - 1)
+     * @return Valor de la banda entre 0 y 65535
+     */
+    public static int banda(long huella, int indice) {
+        return (int) ((huella >>> (indice * BITS_POR_BANDA)) & 0xFFFFL);
+    }
+
+    /**
+     * Distancia de Hamming entre dos huellas (bits distintos).
+     */
+    public static int distancia(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    /**
+     * FNV-1a de 64 bits seguido del mezclador final de MurmurHash3
+     * para repartir bien los bits incluso en palabras cortas.
+     */
+    private static long hash64(String palabra) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < palabra.length(); i++) {
+            h ^= palabra.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93e185ec53bL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
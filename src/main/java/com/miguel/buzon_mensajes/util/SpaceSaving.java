@@ -0,0 +1,100 @@
+package com.miguel.buzon_mensajes.util;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Elementos más frecuentes de un flujo con memoria fija (algoritmo Space-Saving,
+ * Metwally et al.).
+ *
+ * Se vigilan como mucho {@code capacidad} elementos. Cuando llega uno nuevo y
+ * no queda sitio, sustituye al de menor cuenta y hereda esa cuenta (+1) como
+ * posible error. Propiedades que se usan aquí:
+ * - Un elemento con más de total / capacidad apariciones está siempre entre
+ *   los vigilados.
+ * - La cuenta de cada vigilado se pasa como mucho en {@code error}:
+ *   la cuenta real está entre cuenta - error y cuenta.
+ *
+ * El estado (la lista de contadores) se puede guardar y seguir alimentándolo
+ * más tarde, que es como los resúmenes continúan tras un reinicio.
+ *
+ * Ejemplo de uso:
+ * <pre>
+ * SpaceSaving remitentes = new SpaceSaving(10);
+ * mensajes.forEach(m -> remitentes.agregar(m.email()));
+ * List&lt;SpaceSaving.Contador&gt; top = remitentes.top(5);
+ * </pre>
+ */
+public final class SpaceSaving {
+
+    /**
+     * Un elemento vigilado: cuenta estimada y error máximo de esa cuenta.
+     */
+    public record Contador(String elemento, long cuenta, long error) {
+    }
+
+    private static final Comparator<Contador> MAS_FRECUENTES_PRIMERO = Comparator
+            .comparingLong(Contador::cuenta).reversed()
+            .thenComparing(Contador::elemento);
+
+    private final int capacidad;
+    private final Map<String, Contador> contadores;
+
+    public SpaceSaving(int capacidad) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad debe ser positiva");
+        }
+        this.capacidad = capacidad;
+        this.contadores = new HashMap<>(capacidad * 2);
+    }
+
+    /**
+     * Continúa a partir de un estado guardado con {@link #estado()}.
+     */
+    public SpaceSaving(int capacidad, List<Contador> estado) {
+        this(capacidad);
+        estado.stream()
+                .sorted(MAS_FRECUENTES_PRIMERO)
+                .limit(capacidad)
+                .forEach(contador -> contadores.put(contador.elemento(), contador));
+    }
+
+    public void agregar(String elemento) {
+        Contador actual = contadores.get(elemento);
+        if (actual != null) {
+            contadores.put(elemento, new Contador(elemento, actual.cuenta() + 1, actual.error()));
+            return;
+        }
+        if (contadores.size() < capacidad) {
+            contadores.put(elemento, new Contador(elemento, 1, 0));
+            return;
+        }
+
+        // Capacidad pequeña (decenas): buscar el mínimo recorriendo es más barato
+        // que mantener una estructura ordenada en cada incremento
+        Contador minimo = contadores.values().stream()
+                .min(Comparator.comparingLong(Contador::cuenta).thenComparing(Contador::elemento))
+                .orElseThrow();
+        contadores.remove(minimo.elemento());
+        contadores.put(elemento, new Contador(elemento, minimo.cuenta() + 1, minimo.cuenta()));
+    }
+
+    /**
+     * Los n más frecuentes, de más a menos.
+     */
+    public List<Contador> top(int n) {
+        return contadores.values().stream()
+                .sorted(MAS_FRECUENTES_PRIMERO)
+                .limit(n)
+                .toList();
+    }
+
+    /**
+     * Todos los contadores, para guardarlos y continuar después.
+     */
+    public List<Contador> estado() {
+        return top(capacidad);
+    }
+}
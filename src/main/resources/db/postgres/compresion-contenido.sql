@@ -0,0 +1,38 @@
+-- ===========================================
+-- CONTENIDO COMPRIMIDO DE mensaje (PostgreSQL)
+-- ===========================================
+-- Se ejecuta UNA sola vez, antes de activar buzon.compresion.habilitada:
+--   psql "$DATABASE_URL" -f compresion-contenido.sql
+--
+-- Los mensajes comprimidos dejan contenido a NULL, y ddl-auto=update nunca
+-- quita el NOT NULL de una columna que ya existe. Las columnas nuevas se
+-- crean aquí por si la aplicación aún no ha arrancado con esta versión.
+
+BEGIN;
+
+ALTER TABLE mensaje ALTER COLUMN contenido DROP NOT NULL;
+ALTER TABLE mensaje ADD COLUMN IF NOT EXISTS contenido_comprimido bytea;
+ALTER TABLE mensaje ADD COLUMN IF NOT EXISTS vista_previa varchar(200);
+
+-- Ya llega comprimido: si algún valor pasara a TOAST, que no se intente
+-- comprimir otra vez (solo se mueve fuera de la fila)
+ALTER TABLE mensaje ALTER COLUMN contenido_comprimido SET STORAGE EXTERNAL;
+
+-- La búsqueda por palabra mira si hay comprimidos y los recorre de más
+-- reciente a más antiguo: el índice solo lleva esos mensajes
+CREATE INDEX IF NOT EXISTS idx_mensaje_comprimido ON mensaje (fecha_creacion DESC, id DESC)
+    WHERE contenido_comprimido IS NOT NULL;
+
+COMMIT;
+
+-- Para medir el efecto, antes y después (con la tabla particionada, sumar
+-- las particiones: ... FROM pg_inherits WHERE inhparent = 'mensaje'::regclass):
+--
+--   SELECT pg_size_pretty(pg_table_size(c.oid))           AS tabla_con_toast,
+--          pg_size_pretty(pg_relation_size(c.reltoastrelid)) AS toast
+--   FROM pg_class c WHERE c.relname = 'mensaje';
+--
+--   SELECT count(*) FILTER (WHERE contenido_comprimido IS NOT NULL) AS comprimidos,
+--          avg(octet_length(contenido))            AS bytes_texto,
+--          avg(octet_length(contenido_comprimido)) AS bytes_comprimido
+--   FROM mensaje;
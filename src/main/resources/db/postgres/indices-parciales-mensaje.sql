@@ -0,0 +1,44 @@
+-- ===========================================
+-- ÍNDICES PARCIALES DE mensaje (PostgreSQL)
+-- ===========================================
+-- Se ejecuta UNA sola vez, después de que la aplicación haya creado la
+-- columna eliminado_en (y después de particionado-mensaje.sql, si se usa):
+--   psql "$DATABASE_URL" -f indices-parciales-mensaje.sql
+--
+-- Todas las consultas de la aplicación sobre mensaje llevan
+-- "eliminado_en IS NULL" (@SQLRestriction en la entidad), así que los índices
+-- solo necesitan las filas no eliminadas: los mensajes pendientes de purga
+-- no ocupan sitio en ellos y borrarlos no los toca. El índice de la purga es
+-- el contrario: solo las filas eliminadas.
+--
+-- Se conservan los nombres de Hibernate: con ddl-auto=update ve que ya
+-- existen y no los vuelve a crear completos.
+
+BEGIN;
+
+DROP INDEX IF EXISTS idx_mensaje_fecha_creacion;
+CREATE INDEX idx_mensaje_fecha_creacion ON mensaje (fecha_creacion)
+    WHERE eliminado_en IS NULL;
+
+DROP INDEX IF EXISTS idx_mensaje_email_normalizado;
+CREATE INDEX idx_mensaje_email_normalizado ON mensaje (email_normalizado, fecha_creacion)
+    WHERE eliminado_en IS NULL;
+
+DROP INDEX IF EXISTS idx_mensaje_nombre_normalizado;
+CREATE INDEX idx_mensaje_nombre_normalizado ON mensaje (nombre_normalizado)
+    WHERE eliminado_en IS NULL;
+
+DROP INDEX IF EXISTS idx_mensaje_simhash_b0;
+CREATE INDEX idx_mensaje_simhash_b0 ON mensaje (simhash_banda0) WHERE eliminado_en IS NULL;
+DROP INDEX IF EXISTS idx_mensaje_simhash_b1;
+CREATE INDEX idx_mensaje_simhash_b1 ON mensaje (simhash_banda1) WHERE eliminado_en IS NULL;
+DROP INDEX IF EXISTS idx_mensaje_simhash_b2;
+CREATE INDEX idx_mensaje_simhash_b2 ON mensaje (simhash_banda2) WHERE eliminado_en IS NULL;
+DROP INDEX IF EXISTS idx_mensaje_simhash_b3;
+CREATE INDEX idx_mensaje_simhash_b3 ON mensaje (simhash_banda3) WHERE eliminado_en IS NULL;
+
+DROP INDEX IF EXISTS idx_mensaje_eliminado_en;
+CREATE INDEX idx_mensaje_eliminado_en ON mensaje (eliminado_en)
+    WHERE eliminado_en IS NOT NULL;
+
+COMMIT;
@@ -0,0 +1,75 @@
+-- ===========================================
+-- CONVERSIÓN DE mensaje A TABLA PARTICIONADA (PostgreSQL)
+-- ===========================================
+-- Se ejecuta UNA sola vez, con la aplicación detenida:
+--   psql "$DATABASE_URL" -f particionado-mensaje.sql
+--
+-- Después activar: buzon.particionado.habilitado=true
+-- La tarea ParticionesMensajeJob se encarga de crear los meses siguientes.
+--
+-- Recomendado: hacer pg_dump de la tabla antes de ejecutarlo.
+-- Los índices se recrean completos: volver a ejecutar después
+-- indices-parciales-mensaje.sql.
+--
+-- Se benefician las consultas que filtran por fecha_creacion (listados por
+-- fecha, resúmenes, archivo, retención). Las búsquedas por id (ver un mensaje,
+-- marcarlo, eliminarlo) siguen mirando la clave primaria de cada partición.
+
+BEGIN;
+
+ALTER TABLE mensaje RENAME TO mensaje_sin_particionar;
+
+-- Los índices conservan su nombre al renombrar la tabla; se eliminan para que
+-- Hibernate los vuelva a crear sobre la tabla particionada.
+DROP INDEX IF EXISTS idx_mensaje_simhash_b0;
+DROP INDEX IF EXISTS idx_mensaje_simhash_b1;
+DROP INDEX IF EXISTS idx_mensaje_simhash_b2;
+DROP INDEX IF EXISTS idx_mensaje_simhash_b3;
+DROP INDEX IF EXISTS idx_mensaje_fecha_creacion;
+DROP INDEX IF EXISTS idx_mensaje_email_normalizado;
+DROP INDEX IF EXISTS idx_mensaje_nombre_normalizado;
+DROP INDEX IF EXISTS idx_mensaje_eliminado_en;
+
+-- Antes de PostgreSQL 17 una tabla particionada no admite columnas IDENTITY:
+-- el id se genera con una secuencia normal (Hibernate lo lee igual con IDENTITY).
+CREATE SEQUENCE mensaje_id_seq_particionado;
+
+CREATE TABLE mensaje (LIKE mensaje_sin_particionar INCLUDING DEFAULTS)
+    PARTITION BY RANGE (fecha_creacion);
+
+ALTER TABLE mensaje ALTER COLUMN id SET DEFAULT nextval('mensaje_id_seq_particionado');
+ALTER SEQUENCE mensaje_id_seq_particionado OWNED BY mensaje.id;
+
+-- La clave primaria de una tabla particionada debe incluir la columna de partición
+ALTER TABLE mensaje ADD PRIMARY KEY (id, fecha_creacion);
+
+-- Particiones mensuales desde el mensaje más antiguo hasta dos meses adelante
+DO $$
+DECLARE
+    mes   date := date_trunc('month', COALESCE((SELECT MIN(fecha_creacion) FROM mensaje_sin_particionar), now()));
+    final date := date_trunc('month', now()) + interval '2 months';
+BEGIN
+    WHILE mes <= final LOOP
+        EXECUTE format(
+            'CREATE TABLE %I PARTITION OF mensaje FOR VALUES FROM (%L) TO (%L)',
+            'mensaje_p' || to_char(mes, 'YYYY_MM'),
+            mes,
+            mes + interval '1 month'
+        );
+        mes := mes + interval '1 month';
+    END LOOP;
+END $$;
+
+-- Red de seguridad: filas fuera de cualquier mes creado (por ejemplo, una
+-- importación con fechas antiguas). ParticionesMensajeJob la vacía cada noche
+-- llevando sus filas a la partición de su mes, así que normalmente está vacía
+-- y crear particiones nuevas no tiene que recorrerla.
+CREATE TABLE mensaje_pdefault PARTITION OF mensaje DEFAULT;
+
+INSERT INTO mensaje SELECT * FROM mensaje_sin_particionar;
+
+SELECT setval('mensaje_id_seq_particionado', COALESCE((SELECT MAX(id) FROM mensaje), 0) + 1, false);
+
+DROP TABLE mensaje_sin_particionar;
+
+COMMIT;
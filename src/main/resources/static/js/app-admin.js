@@ -8,21 +8,43 @@ document.addEventListener('DOMContentLoaded', () => {
     const pageSize = 10;
     let currentFilter = 'all';
 
-    // Cargar estadísticas y mensajes al iniciar
-    loadStats();
-    loadMessages();
+    // Respuestas ya descargadas por URL: { etag, datos }
+    const cacheRespuestas = new Map();
+
+    // La primera página y los contadores ya vienen pintados desde el servidor
+    // (WebController.adminMensajes); solo se piden a la API si faltan.
+    const estadoInicial = window.estadoInicial;
+    if (estadoInicial && estadoInicial.pagina) {
+        const urlInicial = `/api/mensajes/paginado?page=0&size=${pageSize}`;
+        cacheRespuestas.set(urlInicial, { etag: estadoInicial.etag, datos: estadoInicial.pagina });
+        cacheRespuestas.set('/api/mensajes/estadisticas', { etag: estadoInicial.etag, datos: estadoInicial.estadisticas });
+        renderPaginacion(estadoInicial.pagina.page);
+    } else {
+        loadStats();
+        loadMessages();
+    }
+
+    // Un solo listener para los botones de todos los mensajes (también los pintados en el servidor)
+    mensajesList.addEventListener('click', async (e) => {
+        const btn = e.target.closest('button[data-action]');
+        if (!btn) return;
+
+        const id = btn.dataset.id;
+        if (btn.dataset.action === 'mark') {
+            await marcarComoLeido(id);
+        } else if (btn.dataset.action === 'delete') {
+            if (!confirm('¿Eliminar este mensaje? Esta acción no se puede deshacer.')) return;
+            await eliminarMensaje(id);
+        }
+    });
 
     // ===== CARGAR ESTADÍSTICAS =====
     async function loadStats() {
         try {
-            const res = await fetch('/api/mensajes');
+            const res = await fetchCondicional('/api/mensajes/estadisticas');
             if (!res.ok) return;
 
-            const mensajes = await res.json();
-            const total = mensajes.length;
-            const noLeidos = mensajes.filter(m => !m.leido).length;
-            const leidos = total - noLeidos;
-
+            const { total, noLeidos, leidos } = res.datos;
             document.getElementById('totalMensajes').textContent = total;
             document.getElementById('noLeidos').textContent = noLeidos;
             document.getElementById('leidos').textContent = leidos;
@@ -31,6 +53,31 @@ document.addEventListener('DOMContentLoaded', () => {
         }
     }
 
+    // ===== PETICIONES CONDICIONALES (ETag) =====
+    // Envía If-None-Match con el ETag de la última respuesta de esa URL.
+    // Si el buzón no ha cambiado el servidor responde 304 sin cuerpo
+    // y se reutilizan los datos guardados.
+    async function fetchCondicional(url) {
+        const guardada = cacheRespuestas.get(url);
+        const headers = guardada ? { 'If-None-Match': guardada.etag } : {};
+
+        // no-store: la caché HTTP del navegador no interviene, el 304 llega tal cual
+        const res = await fetch(url, { headers, cache: 'no-store' });
+        if (res.status === 304 && guardada) {
+            return { ok: true, status: 200, datos: guardada.datos };
+        }
+        if (!res.ok) {
+            return { ok: false, status: res.status };
+        }
+
+        const datos = await res.json();
+        const etag = res.headers.get('ETag');
+        if (etag) {
+            cacheRespuestas.set(url, { etag, datos });
+        }
+        return { ok: true, status: res.status, datos };
+    }
+
     // ===== CARGAR MENSAJES CON PAGINACIÓN =====
     async function loadMessages(page = 0) {
         mensajesList.innerHTML = '<p class="muted">Cargando mensajes...</p>';
@@ -45,16 +92,17 @@ document.addEventListener('DOMContentLoaded', () => {
                 url = `/api/mensajes/paginado/filtrado?leido=true&page=${page}&size=${pageSize}`;
             }
 
-            const res = await fetch(url);
+            const res = await fetchCondicional(url);
             if (!res.ok) {
                 mensajesList.innerHTML = `<p class="muted error">Error al cargar mensajes: ${res.status}</p>`;
                 return;
             }
 
-            const paginaData = await res.json();
-            currentPage = paginaData.number;
+            // Formato PagedModel: { content: [...], page: { size, number, totalElements, totalPages } }
+            const paginaData = res.datos;
+            currentPage = paginaData.page.number;
             renderMensajes(paginaData.content);
-            renderPaginacion(paginaData);
+            renderPaginacion(paginaData.page);
         } catch (err) {
             mensajesList.innerHTML = `<p class="muted error">Error de red: ${err.message}</p>`;
         }
@@ -90,28 +138,14 @@ document.addEventListener('DOMContentLoaded', () => {
         }).join('');
 
         mensajesList.innerHTML = html;
-
-        // Event listeners
-        mensajesList.querySelectorAll('button[data-action="mark"]').forEach(btn => {
-            btn.addEventListener('click', async (e) => {
-                const id = e.currentTarget.dataset.id;
-                await marcarComoLeido(id);
-            });
-        });
-
-        mensajesList.querySelectorAll('button[data-action="delete"]').forEach(btn => {
-            btn.addEventListener('click', async (e) => {
-                const id = e.currentTarget.dataset.id;
-                if (!confirm('¿Eliminar este mensaje? Esta acción no se puede deshacer.')) return;
-                await eliminarMensaje(id);
-            });
-        });
     }
 
     // ===== RENDERIZAR PAGINACIÓN =====
-    function renderPaginacion(paginaData) {
+    function renderPaginacion(pagina) {
         const paginacionDiv = document.getElementById('paginacion');
-        const { number, totalPages, first, last, totalElements } = paginaData;
+        const { number, totalPages, totalElements } = pagina;
+        const first = number === 0;
+        const last = number >= totalPages - 1;
 
         if (totalPages <= 1) {
             paginacionDiv.innerHTML = '';
@@ -0,0 +1,144 @@
+package com.miguel.buzon_mensajes;
+
+import com.miguel.buzon_mensajes.dto.MensajeResponseDTO;
+import com.miguel.buzon_mensajes.job.ReconstruccionNoLeidosJob;
+import com.miguel.buzon_mensajes.service.MensajeService;
+import com.miguel.buzon_mensajes.service.noleidos.IndiceNoLeidos;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test del perfil "constrained" con un heap pequeño y muchos datos.
+ *
+ * Carga MENSAJES mensajes de ~900 caracteres (más datos que heap) y comprueba
+ * que los listados y la exportación terminan sin OutOfMemoryError. Sin el límite
+ * de filas, obtenerTodos() intentaría cargar la tabla entera en memoria.
+ *
+ * La base de datos es un fichero H2 (una H2 en memoria viviría dentro del heap).
+ *
+ * No se ejecuta en el build normal; se lanza con su perfil Maven:
+ * <pre>
+ * ./mvnw test -Pmemoria-limitada
+ * </pre>
+ */
+@SpringBootTest
+@ActiveProfiles("constrained")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "buzon.test.memoria", matches = "true")
+@DisplayName("Tests del perfil constrained con heap pequeño")
+class MemoriaLimitadaTest {
+
+    private static final int MENSAJES = 150_000;
+    private static final int LOTE = 5_000;
+
+    /**
+     * Directorio propio por ejecución: la base de datos empieza vacía cada vez.
+     * (No se usa @TempDir porque con PER_CLASS el contexto se crea antes de inyectarlo.)
+     */
+    private static final Path DIRECTORIO = crearDirectorio();
+
+    @Autowired
+    private MensajeService mensajeService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private IndiceNoLeidos indiceNoLeidos;
+
+    @Autowired
+    private ReconstruccionNoLeidosJob reconstruccionNoLeidos;
+
+    @DynamicPropertySource
+    static void baseDeDatosEnFichero(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:h2:file:" + DIRECTORIO.resolve("buzon"));
+        registry.add("spring.datasource.driver-class-name", () -> "org.h2.Driver");
+        registry.add("buzon.archivo.directorio", () -> DIRECTORIO.resolve("archivo").toString());
+    }
+
+    private static Path crearDirectorio() {
+        try {
+            return Files.createTempDirectory("buzon-memoria");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @BeforeAll
+    void cargarDatos() {
+        String contenido = "Mensaje de prueba para medir el consumo de memoria. ".repeat(17);
+        LocalDateTime inicio = LocalDateTime.now().minusDays(30);
+
+        for (int desde = 0; desde < MENSAJES; desde += LOTE) {
+            List<Object[]> filas = new ArrayList<>(LOTE);
+            for (int i = desde; i < desde + LOTE; i++) {
+                filas.add(new Object[]{
+                        "Remitente " + i,
+                        "remitente" + (i % 1000) + "@example.com",
+                        contenido + i,
+                        Timestamp.valueOf(inicio.plusSeconds(i)),
+                        i % 3 == 0
+                });
+            }
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO mensaje (nombre, email, contenido, fecha_creacion, leido, buzon) "
+                            + "VALUES (?, ?, ?, ?, ?, 'principal')",
+                    filas);
+        }
+
+        // Insertados por JDBC, como una importación: el índice de no leídos se reconstruye
+        indiceNoLeidos.invalidar();
+        reconstruccionNoLeidos.reconstruir();
+    }
+
+    @Test
+    @DisplayName("Los listados sin paginar deben devolver solo el máximo configurado")
+    void listados_debenRespetarElLimiteDeFilas() {
+        List<MensajeResponseDTO> todos = mensajeService.obtenerTodos();
+        List<MensajeResponseDTO> noLeidos = mensajeService.obtenerNoLeidos();
+
+        assertThat(todos).hasSize(1000);
+        assertThat(noLeidos).hasSize(1000);
+        // Los más recientes primero
+        assertThat(todos.get(0).nombre()).isEqualTo("Remitente " + (MENSAJES - 1));
+    }
+
+    @Test
+    @DisplayName("La exportación debe recorrer todos los mensajes sin acumularlos")
+    void exportar_debeRecorrerTodoConMemoriaConstante() {
+        AtomicLong exportados = new AtomicLong();
+
+        mensajeService.exportar(null, dto -> exportados.incrementAndGet());
+
+        assertThat(exportados.get()).isEqualTo(MENSAJES);
+    }
+
+    @Test
+    @DisplayName("Los contadores deben funcionar sobre toda la tabla")
+    void contarNoLeidos_debeContarTodaLaTabla() {
+        long esperados = MENSAJES - (MENSAJES + 2) / 3;
+
+        assertThat(mensajeService.contarNoLeidos()).isEqualTo(esperados);
+    }
+}
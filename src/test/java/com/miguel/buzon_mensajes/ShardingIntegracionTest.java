@@ -0,0 +1,176 @@
+package com.miguel.buzon_mensajes;
+
+import com.miguel.buzon_mensajes.config.ShardingConfig;
+import com.miguel.buzon_mensajes.datasource.ShardContext;
+import com.miguel.buzon_mensajes.datasource.ShardRouter;
+import com.miguel.buzon_mensajes.dto.EstadisticasDTO;
+import com.miguel.buzon_mensajes.dto.MensajeRequestDTO;
+import com.miguel.buzon_mensajes.dto.MensajeResponseDTO;
+import com.miguel.buzon_mensajes.service.MensajeService;
+import com.miguel.buzon_mensajes.service.impl.ShardedMensajeService;
+import com.miguel.buzon_mensajes.service.noleidos.IndiceNoLeidos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test de integración del sharding con dos bases de datos H2 en memoria.
+ *
+ * Arranca la aplicación completa con buzon.shards.habilitado=true, así que
+ * cubre también la creación del esquema y del rango de ids del shard 1.
+ * Cada test empieza con las dos tablas vacías.
+ */
+@SpringBootTest(properties = {
+        "buzon.shards.habilitado=true",
+        "buzon.shards.origenes[0].url=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1",
+        "buzon.shards.origenes[0].username=sa",
+        "buzon.shards.origenes[1].url=jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1",
+        "buzon.shards.origenes[1].username=sa",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@DisplayName("Tests de integración del sharding por buzón")
+class ShardingIntegracionTest {
+
+    @Autowired
+    private MensajeService mensajeService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardingConfig.PoolsShard poolsShard;
+
+    @Autowired
+    private IndiceNoLeidos indiceNoLeidos;
+
+    private JdbcTemplate shard0;
+    private JdbcTemplate shard1;
+
+    /**
+     * Un buzón de cada shard (el reparto es por hash del nombre).
+     */
+    private String buzonShard0;
+    private String buzonShard1;
+
+    @BeforeEach
+    void setUp() {
+        shard0 = new JdbcTemplate(poolsShard.pools().get(0));
+        shard1 = new JdbcTemplate(poolsShard.pools().get(1));
+        shard0.update("DELETE FROM mensaje");
+        shard1.update("DELETE FROM mensaje");
+        // Borrado por JDBC: el índice de no leídos de cada shard se reconstruye
+        ShardContext.ejecutarEn(0, indiceNoLeidos::invalidar);
+        ShardContext.ejecutarEn(1, indiceNoLeidos::invalidar);
+
+        buzonShard0 = buzonDelShard(0);
+        buzonShard1 = buzonDelShard(1);
+    }
+
+    @Test
+    @DisplayName("El servicio activo debe ser el enrutado por shards")
+    void contexto_debeUsarElServicioEnrutado() {
+        assertThat(mensajeService).isInstanceOf(ShardedMensajeService.class);
+    }
+
+    @Test
+    @DisplayName("El shard 1 debe tener las mismas tablas de entidades que el shard 0")
+    void esquema_debeCrearseEnCadaShard() {
+        // Las de Spring Session solo se crean en el DataSource principal (shard 0)
+        List<String> entidades = tablas(shard0).stream()
+                .filter(tabla -> !tabla.startsWith("SPRING_SESSION"))
+                .toList();
+
+        assertThat(entidades).contains("MENSAJE", "REMITENTE");
+        assertThat(tablas(shard1)).containsAll(entidades);
+    }
+
+    @Test
+    @DisplayName("Un mensaje nuevo debe guardarse en el shard de su buzón y con un id de su rango")
+    void crear_debeGuardarEnElShardDelBuzon() {
+        MensajeResponseDTO enShard0 = crear(buzonShard0, "Ana");
+        MensajeResponseDTO enShard1 = crear(buzonShard1, "Luis");
+
+        assertThat(contar(shard0)).isEqualTo(1);
+        assertThat(contar(shard1)).isEqualTo(1);
+        assertThat(shardRouter.shardDeId(enShard0.id())).isZero();
+        assertThat(shardRouter.shardDeId(enShard1.id())).isEqualTo(1);
+        assertThat(enShard1.id()).isGreaterThanOrEqualTo(shardRouter.primerIdDe(1));
+
+        // La lectura por id llega al shard correcto
+        assertThat(mensajeService.obtenerPorId(enShard1.id()).nombre()).isEqualTo("Luis");
+    }
+
+    @Test
+    @DisplayName("La página global debe mezclar los shards por fecha de creación")
+    void paginaGlobal_debeMezclarLosShardsPorFecha() {
+        // Fechas intercaladas: el orden global alterna de shard
+        LocalDateTime base = LocalDateTime.of(2024, 5, 1, 12, 0);
+        for (int i = 0; i < 6; i++) {
+            MensajeResponseDTO creado = crear(i % 2 == 0 ? buzonShard0 : buzonShard1, "Remitente " + i);
+            JdbcTemplate shard = i % 2 == 0 ? shard0 : shard1;
+            shard.update("UPDATE mensaje SET fecha_creacion = ? WHERE id = ?",
+                    Timestamp.valueOf(base.plusMinutes(i)), creado.id());
+        }
+
+        Page<MensajeResponseDTO> primera = mensajeService.obtenerTodosPaginado(0, 4);
+        Page<MensajeResponseDTO> segunda = mensajeService.obtenerTodosPaginado(1, 4);
+
+        assertThat(primera.getTotalElements()).isEqualTo(6);
+        assertThat(primera.getContent()).extracting(MensajeResponseDTO::nombre)
+                .containsExactly("Remitente 5", "Remitente 4", "Remitente 3", "Remitente 2");
+        assertThat(segunda.getContent()).extracting(MensajeResponseDTO::nombre)
+                .containsExactly("Remitente 1", "Remitente 0");
+    }
+
+    @Test
+    @DisplayName("Los contadores y las estadísticas deben sumar todos los shards")
+    void contadores_debenSumarTodosLosShards() {
+        crear(buzonShard0, "Ana");
+        crear(buzonShard0, "Berta");
+        MensajeResponseDTO leido = crear(buzonShard1, "Carlos");
+        crear(buzonShard1, "Diana");
+        crear(buzonShard1, "Elena");
+
+        mensajeService.marcarComoLeido(leido.id());
+
+        assertThat(mensajeService.contarNoLeidos()).isEqualTo(4);
+        EstadisticasDTO estadisticas = mensajeService.obtenerEstadisticas();
+        assertThat(estadisticas.total()).isEqualTo(5);
+        assertThat(estadisticas.noLeidos()).isEqualTo(4);
+        assertThat(estadisticas.leidos()).isEqualTo(1);
+    }
+
+    private MensajeResponseDTO crear(String buzon, String nombre) {
+        return mensajeService.crear(new MensajeRequestDTO(
+                nombre, "remitente@example.com", "Contenido de prueba del sharding", buzon));
+    }
+
+    private String buzonDelShard(int shard) {
+        return IntStream.range(0, 1000)
+                .mapToObj(i -> "buzon-" + i)
+                .filter(buzon -> shardRouter.shardDeBuzon(buzon) == shard)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static List<String> tablas(JdbcTemplate shard) {
+        return shard.queryForList(
+                "SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = 'PUBLIC'", String.class);
+    }
+
+    private static long contar(JdbcTemplate shard) {
+        Long total = shard.queryForObject("SELECT COUNT(*) FROM mensaje", Long.class);
+        return total == null ? 0 : total;
+    }
+}
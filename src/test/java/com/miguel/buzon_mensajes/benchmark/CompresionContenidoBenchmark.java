@@ -0,0 +1,148 @@
+package com.miguel.buzon_mensajes.benchmark;
+
+import com.miguel.buzon_mensajes.util.CompresionTexto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cuánto ocupa el contenido comprimido y cuánto cuesta leerlo.
+ *
+ * El corpus son mensajes de formulario de contacto generados combinando
+ * saludos, peticiones, detalles y despedidas habituales, con nombres,
+ * números y longitudes variables (de ~80 a ~900 caracteres). Al preparar
+ * se imprime la reducción media por mensaje; los benchmarks miden, por
+ * mensaje:
+ * - texto: decodificar el UTF-8 tal cual (lo que cuesta leer contenido varchar).
+ * - descomprimir: lo que añade leer contenido_comprimido.
+ * - comprimir: lo que añade guardar un mensaje nuevo.
+ * - buscarEnComprimido: lo que cuesta cada mensaje comprimido en la búsqueda
+ *   por palabra (descomprimir y buscar en el texto).
+ *
+ * Para medir con mensajes reales, cambiar el corpus por una exportación
+ * NDJSON (GET /api/mensajes/exportar). La reducción en disco de la tabla se
+ * mide en PostgreSQL con las consultas de db/postgres/compresion-contenido.sql.
+ *
+ * Ejecutar con: ./mvnw test-compile exec:exec -Pjmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompresionContenidoBenchmark {
+
+    private static final String[] SALUDOS = {
+            "Hola, ", "Buenos días, ", "Buenas tardes, ", "Estimados señores: ", "Hola equipo, ", ""
+    };
+
+    private static final String[] PETICIONES = {
+            "me gustaría recibir más información sobre sus servicios de diseño web. ",
+            "quería saber el precio de una tienda online con unos %d productos. ",
+            "he realizado el pedido %d hace una semana y todavía no lo he recibido. ",
+            "no puedo iniciar sesión en mi cuenta, me aparece un error al cambiar la contraseña. ",
+            "estoy interesada en el curso de %d horas, ¿cuándo empieza la próxima edición? ",
+            "les escribo porque buscamos a alguien para rehacer la web de nuestra asociación. ",
+            "os mando mi currículum por si tenéis alguna vacante de prácticas. "
+    };
+
+    private static final String[] DETALLES = {
+            "Somos una empresa pequeña de %d personas y necesitaríamos tenerlo antes de verano. ",
+            "Ya he escrito dos veces por correo y no he recibido respuesta. ",
+            "¿Se puede pagar a plazos? ¿Hacen factura a nombre de la empresa? ",
+            "Adjunto el enlace a la página actual para que le echéis un vistazo: https://www.ejemplo%d.es ",
+            "Mi teléfono es 6%08d, pueden llamarme por las mañanas. ",
+            "Lo he probado desde el móvil y desde el ordenador con el mismo resultado. ",
+            "Nos han hablado muy bien de vuestro trabajo y nos gustó mucho el portfolio. "
+    };
+
+    private static final String[] DESPEDIDAS = {
+            "Muchas gracias de antemano. Un saludo, ", "Quedo a la espera de su respuesta. ",
+            "Gracias. ", "Un cordial saludo, ", "Saludos, ", ""
+    };
+
+    private static final String[] NOMBRES = {"Lucía", "Javier", "Marta", "Pablo", "Ana Belén", "Jordi", "Carmen"};
+
+    private List<byte[]> textos;
+    private List<byte[]> comprimidos;
+    private List<String> originales;
+    private int siguiente;
+
+    @Setup
+    public void preparar() {
+        Random aleatorio = new Random(42);
+        textos = new ArrayList<>();
+        comprimidos = new ArrayList<>();
+        originales = new ArrayList<>();
+        long bytesTexto = 0;
+        long bytesComprimidos = 0;
+        for (int i = 0; i < 5000; i++) {
+            String mensaje = generar(aleatorio);
+            byte[] utf8 = mensaje.getBytes(StandardCharsets.UTF_8);
+            byte[] comprimido = CompresionTexto.comprimir(mensaje);
+            originales.add(mensaje);
+            textos.add(utf8);
+            comprimidos.add(comprimido);
+            bytesTexto += utf8.length;
+            bytesComprimidos += comprimido.length;
+        }
+        System.out.printf("%nCorpus: %d mensajes, %.0f bytes de media; comprimidos %.0f bytes (%.0f %%)%n",
+                textos.size(), (double) bytesTexto / textos.size(), (double) bytesComprimidos / textos.size(),
+                100.0 * bytesComprimidos / bytesTexto);
+    }
+
+    private static String generar(Random aleatorio) {
+        StringBuilder texto = new StringBuilder(elegir(aleatorio, SALUDOS));
+        texto.append(elegir(aleatorio, PETICIONES).formatted(aleatorio.nextInt(1, 500)));
+        int detalles = aleatorio.nextInt(0, 8);
+        for (int i = 0; i < detalles; i++) {
+            texto.append(elegir(aleatorio, DETALLES).formatted(aleatorio.nextInt(1, 99_999_999)));
+        }
+        texto.append(elegir(aleatorio, DESPEDIDAS)).append(elegir(aleatorio, NOMBRES));
+        return texto.length() > 1000 ? texto.substring(0, 1000) : texto.toString();
+    }
+
+    private static String elegir(Random aleatorio, String[] opciones) {
+        return opciones[aleatorio.nextInt(opciones.length)];
+    }
+
+    private int indice() {
+        siguiente = (siguiente + 1) % textos.size();
+        return siguiente;
+    }
+
+    @Benchmark
+    public void texto(Blackhole bh) {
+        bh.consume(new String(textos.get(indice()), StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public void descomprimir(Blackhole bh) {
+        bh.consume(CompresionTexto.descomprimir(comprimidos.get(indice())));
+    }
+
+    @Benchmark
+    public void comprimir(Blackhole bh) {
+        bh.consume(CompresionTexto.comprimir(originales.get(indice())));
+    }
+
+    @Benchmark
+    public boolean buscarEnComprimido() {
+        return CompresionTexto.descomprimir(comprimidos.get(indice())).contains("presupuesto");
+    }
+}
@@ -0,0 +1,130 @@
+package com.miguel.buzon_mensajes.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.miguel.buzon_mensajes.dto.MensajeResponseDTO;
+import com.miguel.buzon_mensajes.model.Mensaje;
+import lombok.Data;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de serializar una página de mensajes, antes y después del DTO record.
+ *
+ * - anterior: entidad → DTO mutable (copia con setters) y ObjectMapper.writeValue,
+ *   que introspecciona getters y resuelve el serializador en cada llamada.
+ * - actual: record construido por la consulta, serializador propio con nombres
+ *   pre-codificados y un ObjectWriter reutilizado (como en MensajeController).
+ *
+ * Ejecutar con: ./mvnw test-compile exec:exec -Pjmh
+ * La columna gc.alloc.rate.norm es la memoria asignada por página; dividida
+ * entre "filas" da los bytes por fila.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializacionBenchmark {
+
+    @Param({"20", "100"})
+    int filas;
+
+    private List<Mensaje> entidades;
+    private List<MensajeResponseDTO> registros;
+
+    private ObjectMapper mapperAnterior;
+    private ObjectWriter escritorActual;
+
+    /**
+     * Salida que descarta los bytes: solo se mide la serialización.
+     */
+    private final OutputStream descarte = OutputStream.nullOutputStream();
+
+    @Setup
+    public void preparar() {
+        entidades = new ArrayList<>(filas);
+        registros = new ArrayList<>(filas);
+        LocalDateTime fecha = LocalDateTime.of(2025, 10, 19, 2, 40, 15);
+        for (long i = 1; i <= filas; i++) {
+            Mensaje m = new Mensaje();
+            m.setId(i);
+            m.setNombre("Remitente " + i);
+            m.setEmail("remitente" + i + "@example.com");
+            m.setContenido("Hola, me gustaría obtener más información sobre sus servicios (" + i + ")");
+            m.setFechaCreacion(fecha.plusMinutes(i));
+            m.setLeido(i % 2 == 0);
+            m.setBuzon(Mensaje.BUZON_PRINCIPAL);
+            entidades.add(m);
+            registros.add(new MensajeResponseDTO(m.getId(), m.getNombre(), m.getEmail(),
+                    m.getContenido(), m.getFechaCreacion(), m.getLeido(), m.getBuzon()));
+        }
+
+        mapperAnterior = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        ObjectMapper mapperActual = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .registerModule(new BlackbirdModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        escritorActual = mapperActual.writerFor(mapperActual.getTypeFactory()
+                .constructCollectionType(List.class, MensajeResponseDTO.class));
+    }
+
+    @Benchmark
+    public void anterior() throws IOException {
+        List<DtoAnterior> pagina = new ArrayList<>(entidades.size());
+        for (Mensaje m : entidades) {
+            DtoAnterior dto = new DtoAnterior();
+            dto.setId(m.getId());
+            dto.setNombre(m.getNombre());
+            dto.setEmail(m.getEmail());
+            dto.setContenido(m.getContenido());
+            dto.setFechaCreacion(m.getFechaCreacion());
+            dto.setLeido(m.getLeido());
+            dto.setBuzon(m.getBuzon());
+            pagina.add(dto);
+        }
+        mapperAnterior.writeValue(descarte, pagina);
+    }
+
+    @Benchmark
+    public void actual() throws IOException {
+        escritorActual.writeValue(descarte, registros);
+    }
+
+    /**
+     * Copia del DTO tal como era antes del record (JavaBean con setters).
+     */
+    @Data
+    public static class DtoAnterior {
+        private Long id;
+        private String nombre;
+        private String email;
+        private String contenido;
+        private LocalDateTime fechaCreacion;
+        private Boolean leido;
+        private String buzon;
+    }
+}
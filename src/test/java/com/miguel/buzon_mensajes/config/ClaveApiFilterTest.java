@@ -0,0 +1,115 @@
+package com.miguel.buzon_mensajes.config;
+
+import com.miguel.buzon_mensajes.util.ClavesApi;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitarios para ClaveApiFilter (sin levantar Spring Security).
+ */
+@DisplayName("Tests para ClaveApiFilter")
+class ClaveApiFilterTest {
+
+    private final String clave = ClavesApi.generar();
+
+    private ClaveApiFilter filtro;
+
+    /**
+     * Autenticación vista por el siguiente eslabón de la cadena.
+     */
+    private final AtomicReference<Authentication> autenticacionVista = new AtomicReference<>();
+
+    private final MockFilterChain cadena = new MockFilterChain(new HttpServlet() {
+        @Override
+        protected void service(HttpServletRequest req, HttpServletResponse res) {
+            autenticacionVista.set(SecurityContextHolder.getContext().getAuthentication());
+        }
+    });
+
+    @BeforeEach
+    void setUp() {
+        BuzonProperties.ClaveApi claveApi = new BuzonProperties.ClaveApi();
+        claveApi.setNombre("crm");
+        claveApi.setHash(ClavesApi.hash(clave).toUpperCase());
+
+        BuzonProperties propiedades = new BuzonProperties();
+        propiedades.getApi().getClaves().add(claveApi);
+        filtro = new ClaveApiFilter(propiedades);
+    }
+
+    @AfterEach
+    void limpiar() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Una clave válida debe autenticar con ROLE_API sin crear sesión")
+    void claveValida_debeAutenticarSinSesion() throws Exception {
+        MockHttpServletRequest request = peticionApi();
+        request.addHeader(ClaveApiFilter.CABECERA_CLAVE, clave);
+
+        filtro.doFilter(request, new MockHttpServletResponse(), cadena);
+
+        assertThat(autenticacionVista.get().getName()).isEqualTo("crm");
+        assertThat(autenticacionVista.get().getAuthorities())
+                .extracting(Object::toString)
+                .containsExactly("ROLE_API");
+        assertThat(request.getSession(false)).isNull();
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    @DisplayName("La clave también se acepta como Authorization: Bearer")
+    void claveBearer_debeAutenticar() throws Exception {
+        MockHttpServletRequest request = peticionApi();
+        request.addHeader("Authorization", "Bearer " + clave);
+
+        filtro.doFilter(request, new MockHttpServletResponse(), cadena);
+
+        assertThat(autenticacionVista.get().getName()).isEqualTo("crm");
+    }
+
+    @Test
+    @DisplayName("Una clave desconocida debe responder 401 sin seguir la cadena")
+    void claveDesconocida_debeResponder401() throws Exception {
+        MockHttpServletRequest request = peticionApi();
+        request.addHeader(ClaveApiFilter.CABECERA_CLAVE, ClavesApi.generar());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filtro.doFilter(request, response, cadena);
+
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(cadena.getRequest()).isNull();
+    }
+
+    @Test
+    @DisplayName("Sin clave la petición sigue sin autenticar (sesión del panel)")
+    void sinClave_debeSeguirSinAutenticar() throws Exception {
+        MockHttpServletRequest request = peticionApi();
+
+        filtro.doFilter(request, new MockHttpServletResponse(), cadena);
+
+        assertThat(cadena.getRequest()).isNotNull();
+        assertThat(autenticacionVista.get()).isNull();
+    }
+
+    private static MockHttpServletRequest peticionApi() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/mensajes/paginado");
+        request.setServletPath("/api/mensajes/paginado");
+        return request;
+    }
+}
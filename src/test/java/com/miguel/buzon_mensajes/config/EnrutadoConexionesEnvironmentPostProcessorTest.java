@@ -0,0 +1,52 @@
+package com.miguel.buzon_mensajes.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitarios para la desactivación de open-in-view con enrutado de conexiones.
+ */
+@DisplayName("Tests para EnrutadoConexionesEnvironmentPostProcessor")
+class EnrutadoConexionesEnvironmentPostProcessorTest {
+
+    private final EnrutadoConexionesEnvironmentPostProcessor postProcessor =
+            new EnrutadoConexionesEnvironmentPostProcessor();
+
+    @Test
+    @DisplayName("Sin shards ni réplicas no debe tocar open-in-view")
+    void postProcess_sinEnrutado_noDebeCambiarNada() {
+        MockEnvironment entorno = new MockEnvironment();
+
+        postProcessor.postProcessEnvironment(entorno, null);
+
+        assertThat(entorno.getPropertySources().contains(EnrutadoConexionesEnvironmentPostProcessor.NOMBRE_FUENTE))
+                .isFalse();
+        assertThat(entorno.getProperty("spring.jpa.open-in-view")).isNull();
+    }
+
+    @Test
+    @DisplayName("Con shards debe desactivar open-in-view aunque se haya activado a mano")
+    void postProcess_conShards_debeDesactivarOpenInView() {
+        MockEnvironment entorno = new MockEnvironment()
+                .withProperty("buzon.shards.habilitado", "true")
+                .withProperty("spring.jpa.open-in-view", "true");
+
+        postProcessor.postProcessEnvironment(entorno, null);
+
+        assertThat(entorno.getProperty("spring.jpa.open-in-view", Boolean.class)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Con réplicas debe desactivar open-in-view")
+    void postProcess_conReplicas_debeDesactivarOpenInView() {
+        MockEnvironment entorno = new MockEnvironment()
+                .withProperty("buzon.replicas.habilitado", "true");
+
+        postProcessor.postProcessEnvironment(entorno, null);
+
+        assertThat(entorno.getProperty("spring.jpa.open-in-view", Boolean.class)).isFalse();
+    }
+}
@@ -0,0 +1,122 @@
+package com.miguel.buzon_mensajes.config;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitarios para LimiteSesionesFilter.
+ *
+ * El "servlet" de la cadena crea una sesión, como haría una petición anónima
+ * que termina guardando algo en sesión.
+ */
+@DisplayName("Tests para LimiteSesionesFilter")
+class LimiteSesionesFilterTest {
+
+    private static final String IP = "203.0.113.7";
+
+    private final RelojManual reloj = new RelojManual();
+
+    private final LimiteSesionesFilter filtro = new LimiteSesionesFilter(2, Duration.ofMinutes(10), reloj);
+
+    @Test
+    @DisplayName("Superado el máximo de sesiones anónimas la IP debe recibir 429")
+    void cuandoSeSuperaElMaximo_debeResponder429() throws Exception {
+        assertThat(peticionAnonima(IP).getStatus()).isEqualTo(200);
+        assertThat(peticionAnonima(IP).getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse tercera = peticionAnonima(IP);
+
+        assertThat(tercera.getStatus()).isEqualTo(429);
+        assertThat(tercera.getHeader("Retry-After")).isNotNull();
+    }
+
+    @Test
+    @DisplayName("El límite es por IP")
+    void otraIp_noDebeVerseAfectada() throws Exception {
+        peticionAnonima(IP);
+        peticionAnonima(IP);
+
+        assertThat(peticionAnonima("198.51.100.1").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("Al empezar una ventana nueva se vuelven a permitir sesiones")
+    void nuevaVentana_debePermitirDeNuevo() throws Exception {
+        peticionAnonima(IP);
+        peticionAnonima(IP);
+
+        reloj.avanzar(Duration.ofMinutes(10));
+
+        assertThat(peticionAnonima(IP).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("Las peticiones con sesión existente no se limitan")
+    void conSesionExistente_noDebeLimitar() throws Exception {
+        peticionAnonima(IP);
+        peticionAnonima(IP);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/admin/mensajes");
+        request.setRemoteAddr(IP);
+        request.setSession(new MockHttpSession());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filtro.doFilter(request, response, new MockFilterChain());
+
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    private MockHttpServletResponse peticionAnonima(String ip) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+        request.setRemoteAddr(ip);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filtro.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) {
+                req.getSession(true);
+            }
+        }));
+        return response;
+    }
+
+    /**
+     * Reloj que solo avanza cuando el test lo pide.
+     */
+    private static class RelojManual extends Clock {
+
+        private Instant ahora = Instant.parse("2025-10-19T10:00:00Z");
+
+        void avanzar(Duration duracion) {
+            ahora = ahora.plus(duracion);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return ahora;
+        }
+    }
+}
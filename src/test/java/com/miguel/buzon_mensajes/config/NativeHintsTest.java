@@ -0,0 +1,54 @@
+package com.miguel.buzon_mensajes.config;
+
+import com.miguel.buzon_mensajes.dto.MensajeResponseDTO;
+import com.miguel.buzon_mensajes.dto.MensajeResponseDTOSerializer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitarios para las pistas de la imagen nativa.
+ *
+ * Comprueban sin compilar la imagen (que tarda minutos) que lo que se lee
+ * por reflexión o como recurso queda declarado.
+ */
+@DisplayName("Tests para NativeHints")
+class NativeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    NativeHintsTest() {
+        new NativeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    @DisplayName("Las plantillas y los recursos estáticos deben incluirse en la imagen")
+    void registerHints_debeIncluirPlantillasYEstaticos() {
+        assertThat(RuntimeHintsPredicates.resource().forResource("templates/admin.html")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("static/js/app-admin.js")).accepts(hints);
+    }
+
+    @Test
+    @DisplayName("El diccionario de compresión del contenido debe incluirse en la imagen")
+    void registerHints_debeIncluirDiccionarioDeCompresion() {
+        assertThat(RuntimeHintsPredicates.resource()
+                .forResource("compresion/diccionario-contenido-v1.txt")).accepts(hints);
+    }
+
+    @Test
+    @DisplayName("Los componentes del record de respuesta deben ser accesibles para Jackson")
+    void registerHints_debePermitirSerializarDTO() throws NoSuchMethodException {
+        assertThat(RuntimeHintsPredicates.reflection()
+                .onMethod(MensajeResponseDTO.class.getMethod("contenido"))).accepts(hints);
+    }
+
+    @Test
+    @DisplayName("El serializador propio del DTO debe poder instanciarse")
+    void registerHints_debeIncluirSerializadorDelDTO() {
+        assertThat(RuntimeHintsPredicates.reflection()
+                .onType(MensajeResponseDTOSerializer.class)).accepts(hints);
+    }
+}
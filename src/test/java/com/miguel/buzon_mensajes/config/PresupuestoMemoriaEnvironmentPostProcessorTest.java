@@ -0,0 +1,51 @@
+package com.miguel.buzon_mensajes.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitarios para el dimensionado según la memoria disponible.
+ */
+@DisplayName("Tests para PresupuestoMemoriaEnvironmentPostProcessor")
+class PresupuestoMemoriaEnvironmentPostProcessorTest {
+
+    @Test
+    @DisplayName("Con un heap pequeño debe reducir hilos y conexiones")
+    void dimensionar_cuandoHeapPequeno_debeReducirHilosYConexiones() {
+        Map<String, Object> valores = PresupuestoMemoriaEnvironmentPostProcessor.dimensionar(128);
+
+        assertThat(valores)
+                .containsEntry("server.tomcat.threads.max", 16)
+                .containsEntry("spring.datasource.hikari.maximum-pool-size", 4);
+    }
+
+    @Test
+    @DisplayName("Con un heap grande no debe superar los valores por defecto")
+    void dimensionar_cuandoHeapGrande_debeRespetarMaximos() {
+        Map<String, Object> valores = PresupuestoMemoriaEnvironmentPostProcessor.dimensionar(8192);
+
+        assertThat(valores)
+                .containsEntry("server.tomcat.threads.max", 200)
+                .containsEntry("spring.datasource.hikari.maximum-pool-size", 10);
+    }
+
+    @Test
+    @DisplayName("Las propiedades puestas a mano deben tener prioridad")
+    void postProcess_debeDejarPrioridadALasPropiedadesExistentes() {
+        MockEnvironment entorno = new MockEnvironment()
+                .withProperty("buzon.memoria.auto-dimensionar", "true")
+                .withProperty("server.tomcat.threads.max", "7");
+
+        new PresupuestoMemoriaEnvironmentPostProcessor().postProcessEnvironment(entorno, null);
+
+        assertThat(entorno.getPropertySources().get(PresupuestoMemoriaEnvironmentPostProcessor.NOMBRE_FUENTE))
+                .isInstanceOf(MapPropertySource.class);
+        assertThat(entorno.getProperty("server.tomcat.threads.max")).isEqualTo("7");
+    }
+}
@@ -0,0 +1,49 @@
+package com.miguel.buzon_mensajes.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.convert.support.GenericConversionService;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.User;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitarios para el formato comprimido de los atributos de sesión.
+ */
+@DisplayName("Tests para SesionesConfig")
+class SesionesConfigTest {
+
+    private final GenericConversionService conversion =
+            new SesionesConfig().conversionSesiones(new DefaultResourceLoader());
+
+    @Test
+    @DisplayName("El contexto de seguridad debe guardarse comprimido y leerse igual")
+    void conversion_contextoDeSeguridad_debeSobrevivirAlIdaYVuelta() {
+        User admin = new User("admin", "", AuthorityUtils.createAuthorityList("ROLE_ADMIN"));
+        SecurityContextImpl contexto = new SecurityContextImpl(
+                UsernamePasswordAuthenticationToken.authenticated(admin, null, admin.getAuthorities()));
+
+        byte[] guardado = conversion.convert(contexto, byte[].class);
+        Object leido = conversion.convert(guardado, Object.class);
+
+        assertThat(leido).isEqualTo(contexto);
+        // Más pequeño que la serialización de Java sin comprimir
+        assertThat(guardado.length).isLessThan(new SerializingConverter().convert(contexto).length);
+    }
+
+    @Test
+    @DisplayName("Comprimir y descomprimir debe devolver los mismos bytes")
+    void comprimir_debeSerReversible() {
+        byte[] datos = "atributo de sesión ".repeat(50).getBytes(StandardCharsets.UTF_8);
+
+        assertThat(SesionesConfig.descomprimir(SesionesConfig.comprimir(datos))).isEqualTo(datos);
+        assertThat(SesionesConfig.descomprimir(SesionesConfig.comprimir(new byte[0]))).isEmpty();
+    }
+}
@@ -0,0 +1,46 @@
+package com.miguel.buzon_mensajes.controller;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitarios para EtagMensaje.
+ */
+@DisplayName("Tests para EtagMensaje")
+class EtagMensajeTest {
+
+    @Test
+    @DisplayName("If-Match debe devolver la versión del mensaje de su ETag")
+    void versionEsperada_debeLeerLaVersionDelMensaje() {
+        String etag = EtagMensaje.de(123456789L, 7L);
+
+        assertThat(EtagMensaje.versionEsperada(etag)).isEqualTo(7L);
+        assertThat(EtagMensaje.versionEsperada(etag.substring(2))).isEqualTo(7L);
+    }
+
+    @Test
+    @DisplayName("Sin If-Match o con * no se debe comprobar la versión")
+    void versionEsperada_sinCabeceraOAsterisco_debeSerNull() {
+        assertThat(EtagMensaje.versionEsperada(null)).isNull();
+        assertThat(EtagMensaje.versionEsperada(" * ")).isNull();
+    }
+
+    @Test
+    @DisplayName("Un ETag que no es de un mensaje nunca debe coincidir")
+    void versionEsperada_conEtagDeListado_debeSerNinguna() {
+        assertThat(EtagMensaje.versionEsperada("W/\"abc\"")).isEqualTo(EtagMensaje.NINGUNA);
+        assertThat(EtagMensaje.versionEsperada("W/\"abc.x\"")).isEqualTo(EtagMensaje.NINGUNA);
+    }
+
+    @Test
+    @DisplayName("If-None-Match debe valer mientras no cambie la versión del buzón")
+    void vigente_debeCompararSoloLaVersionDelBuzon() {
+        String etag = EtagMensaje.de(1000L, 3L);
+
+        assertThat(EtagMensaje.vigente("W/\"otro.1\", " + etag, 1000L)).isEqualTo(etag);
+        assertThat(EtagMensaje.vigente(etag, 1001L)).isNull();
+        assertThat(EtagMensaje.vigente(null, 1000L)).isNull();
+    }
+}
@@ -0,0 +1,85 @@
+package com.miguel.buzon_mensajes.controller;
+
+import com.miguel.buzon_mensajes.dto.PaginaRemitentesDTO;
+import com.miguel.buzon_mensajes.dto.RemitenteDTO;
+import com.miguel.buzon_mensajes.service.remitente.DirectorioRemitentes;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests de GET /api/mensajes/remitentes con MockMvc (directorio simulado).
+ *
+ * Sin los filtros de seguridad: aquí se prueba el endpoint, no la clave de API.
+ */
+@WebMvcTest(RemitenteController.class)
+@AutoConfigureMockMvc(addFilters = false)
+@DisplayName("Tests para RemitenteController")
+class RemitenteControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private DirectorioRemitentes directorioRemitentes;
+
+    @Test
+    @DisplayName("Debe devolver la página del directorio con el cursor siguiente")
+    void listar_debeDevolverLaPagina() throws Exception {
+        RemitenteDTO ana = new RemitenteDTO("ana@example.com", "Ana", LocalDateTime.of(2025, 1, 10, 9, 0),
+                LocalDateTime.of(2025, 3, 10, 9, 0), 4, 1);
+        when(directorioRemitentes.listar("zoe@example.com", "an", 1))
+                .thenReturn(new PaginaRemitentesDTO(List.of(ana), "ana@example.com"));
+
+        mockMvc.perform(get("/api/mensajes/remitentes")
+                        .param("despues", "zoe@example.com")
+                        .param("prefijo", "an")
+                        .param("limite", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.remitentes[0].email").value("ana@example.com"))
+                .andExpect(jsonPath("$.remitentes[0].nombre").value("Ana"))
+                .andExpect(jsonPath("$.remitentes[0].primerMensaje").value("2025-01-10T09:00:00"))
+                .andExpect(jsonPath("$.remitentes[0].total").value(4))
+                .andExpect(jsonPath("$.remitentes[0].noLeidos").value(1))
+                .andExpect(jsonPath("$.siguiente").value("ana@example.com"));
+    }
+
+    @Test
+    @DisplayName("Sin parámetros debe pedir la primera página de 50")
+    void listar_sinParametros_debeUsarLosValoresPorDefecto() throws Exception {
+        when(directorioRemitentes.listar(null, null, 50)).thenReturn(new PaginaRemitentesDTO(List.of(), null));
+
+        mockMvc.perform(get("/api/mensajes/remitentes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.remitentes").isEmpty())
+                .andExpect(jsonPath("$.siguiente").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("El límite debe acotarse entre 1 y 500")
+    void listar_debeAcotarElLimite() throws Exception {
+        when(directorioRemitentes.listar(null, null, 500)).thenReturn(new PaginaRemitentesDTO(List.of(), null));
+        when(directorioRemitentes.listar(null, null, 1)).thenReturn(new PaginaRemitentesDTO(List.of(), null));
+
+        mockMvc.perform(get("/api/mensajes/remitentes").param("limite", "100000"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/mensajes/remitentes").param("limite", "0"))
+                .andExpect(status().isOk());
+
+        verify(directorioRemitentes).listar(null, null, 500);
+        verify(directorioRemitentes).listar(null, null, 1);
+    }
+}
@@ -0,0 +1,116 @@
+package com.miguel.buzon_mensajes.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitarios para el reparto lectura/escritura.
+ *
+ * Usan DataSources simulados: lo que se verifica es a qué pool se pide
+ * la conexión, no la replicación en sí.
+ */
+@DisplayName("Tests para ReplicaRoutingDataSource")
+class ReplicaRoutingDataSourceTest {
+
+    private DataSource primario;
+    private DataSource replica0;
+    private DataSource replica1;
+    private ReplicaRoutingDataSource enrutador;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primario = dataSourceSimulado();
+        replica0 = dataSourceSimulado();
+        replica1 = dataSourceSimulado();
+        enrutador = new ReplicaRoutingDataSource(primario, List.of(replica0, replica1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        LecturaPropia.limpiar();
+    }
+
+    @Test
+    @DisplayName("Sin réplicas disponibles las lecturas deben ir al primario")
+    void determinar_cuandoNingunaReplicaDisponible_debeUsarPrimario() {
+        assertThat(enrutador.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARIO);
+    }
+
+    @Test
+    @DisplayName("Con réplicas disponibles las lecturas deben repartirse por turnos")
+    void determinar_cuandoReplicasDisponibles_debeAlternar() {
+        enrutador.marcarDisponible(0, true);
+        enrutador.marcarDisponible(1, true);
+
+        assertThat(List.of(
+                enrutador.determineCurrentLookupKey(),
+                enrutador.determineCurrentLookupKey(),
+                enrutador.determineCurrentLookupKey()
+        )).containsExactly(0, 1, 0);
+    }
+
+    @Test
+    @DisplayName("Una réplica retrasada debe saltarse")
+    void determinar_cuandoUnaReplicaRetrasada_debeUsarLaOtra() {
+        enrutador.marcarDisponible(0, false);
+        enrutador.marcarDisponible(1, true);
+
+        assertThat(enrutador.determineCurrentLookupKey()).isEqualTo(1);
+        assertThat(enrutador.determineCurrentLookupKey()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Tras una escritura propia las lecturas deben ir al primario")
+    void determinar_cuandoLecturaPropia_debeUsarPrimario() {
+        enrutador.marcarDisponible(0, true);
+        LecturaPropia.forzarPrimario();
+
+        assertThat(enrutador.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARIO);
+    }
+
+    @Test
+    @DisplayName("Solo las conexiones de solo lectura deben pedirse a las réplicas")
+    void proxy_debeEnviarSoloLecturasALaReplica() throws SQLException {
+        enrutador.marcarDisponible(0, true);
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy();
+        proxy.setTargetDataSource(primario);
+        proxy.setReadOnlyDataSource(enrutador);
+        // Valores fijados para que el proxy no pida una conexión al primario al iniciarse
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        proxy.afterPropertiesSet();
+
+        // Lo que hace JpaTransactionManager en una transacción readOnly
+        try (Connection conexion = proxy.getConnection()) {
+            conexion.setReadOnly(true);
+            conexion.createStatement();
+        }
+        verify(replica0).getConnection();
+        verify(primario, never()).getConnection();
+
+        try (Connection conexion = proxy.getConnection()) {
+            conexion.createStatement();
+        }
+        verify(primario).getConnection();
+    }
+
+    private static DataSource dataSourceSimulado() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocacion -> mock(Connection.class));
+        return dataSource;
+    }
+}
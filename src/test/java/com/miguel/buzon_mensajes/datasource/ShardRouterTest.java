@@ -0,0 +1,51 @@
+package com.miguel.buzon_mensajes.datasource;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitarios para ShardRouter y ShardContext.
+ */
+@DisplayName("Tests para el enrutado por shard")
+class ShardRouterTest {
+
+    private final ShardRouter router = new ShardRouter(3);
+
+    @Test
+    @DisplayName("Un id generado en el rango de un shard debe volver a ese shard")
+    void shardDeId_cuandoIdDelRangoDeUnShard_debeDevolverEseShard() {
+        for (int shard = 0; shard < 3; shard++) {
+            long primerId = router.primerIdDe(shard);
+
+            assertThat(router.shardDeId(primerId)).isEqualTo(shard);
+            assertThat(router.shardDeId(primerId + 1_000_000)).isEqualTo(shard);
+        }
+    }
+
+    @Test
+    @DisplayName("Un id fuera de los rangos configurados debe ir al shard 0")
+    void shardDeId_cuandoIdFueraDeRango_debeIrAlShardPrincipal() {
+        assertThat(router.shardDeId(router.primerIdDe(7))).isZero();
+    }
+
+    @Test
+    @DisplayName("Todos los mensajes de un buzón deben ir al mismo shard")
+    void shardDeBuzon_debeSerEstableYDentroDeRango() {
+        int shard = router.shardDeBuzon("tienda-online");
+
+        assertThat(shard).isBetween(0, 2);
+        assertThat(router.shardDeBuzon("tienda-online")).isEqualTo(shard);
+    }
+
+    @Test
+    @DisplayName("ShardContext debe restaurar el shard anterior al terminar")
+    void ejecutarEn_debeRestaurarShardAnterior() {
+        Integer dentro = ShardContext.ejecutarEn(2, () ->
+                ShardContext.ejecutarEn(1, ShardContext::actual) + ShardContext.actual());
+
+        assertThat(dentro).isEqualTo(3);
+        assertThat(ShardContext.actual()).isNull();
+    }
+}
@@ -0,0 +1,99 @@
+package com.miguel.buzon_mensajes.dto;
+
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.miguel.buzon_mensajes.config.JacksonConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.JsonTest;
+import org.springframework.boot.test.json.JacksonTester;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.web.PagedModel;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests de la salida JSON de MensajeResponseDTOSerializer con el ObjectMapper
+ * de Spring Boot (incluido Blackbird, de JacksonConfig).
+ *
+ * El serializador está escrito a mano, así que se compara con lo que Jackson
+ * escribiría por sí solo para el mismo record: si un campo o el formato de
+ * fecha se desvían, la API cambiaría sin que nadie lo note.
+ */
+@JsonTest
+@Import(JacksonConfig.class)
+@DisplayName("Tests para MensajeResponseDTOSerializer")
+class MensajeResponseDTOSerializerTest {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JacksonTester<MensajeResponseDTO> json;
+
+    @Autowired
+    private JacksonTester<PagedModel<MensajeResponseDTO>> jsonPagina;
+
+    /**
+     * Mixin que anula el @JsonSerialize del record: Jackson vuelve a su serializador por defecto.
+     */
+    @JsonSerialize(using = JsonSerializer.None.class)
+    private interface SinSerializadorPropio {
+    }
+
+    @Test
+    @DisplayName("Debe escribir todos los campos con la fecha en ISO-8601")
+    void serializar_debeEscribirTodosLosCampos() throws Exception {
+        MensajeResponseDTO dto = new MensajeResponseDTO(7L, "José \"Pepe\"", "jose@example.com",
+                "Línea 1\nLínea 2 ñ", LocalDateTime.of(2025, 10, 19, 2, 40, 15), false, "principal");
+
+        assertThat(json.write(dto)).isStrictlyEqualToJson("""
+                {"id":7,"nombre":"José \\"Pepe\\"","email":"jose@example.com",
+                 "contenido":"Línea 1\\nLínea 2 ñ","fechaCreacion":"2025-10-19T02:40:15",
+                 "leido":false,"buzon":"principal"}
+                """);
+    }
+
+    @Test
+    @DisplayName("Los campos nulos deben escribirse como null, no omitirse")
+    void serializar_cuandoCamposNulos_debeEscribirNull() throws Exception {
+        MensajeResponseDTO dto = new MensajeResponseDTO(null, null, null, null, null, null, null);
+
+        assertThat(json.write(dto)).isStrictlyEqualToJson("""
+                {"id":null,"nombre":null,"email":null,"contenido":null,
+                 "fechaCreacion":null,"leido":null,"buzon":null}
+                """);
+    }
+
+    @Test
+    @DisplayName("Debe escribir lo mismo que el serializador por defecto de Jackson")
+    void serializar_debeCoincidirConElSerializadorPorDefecto() throws Exception {
+        ObjectMapper porDefecto = objectMapper.copy().addMixIn(MensajeResponseDTO.class, SinSerializadorPropio.class);
+        MensajeResponseDTO dto = new MensajeResponseDTO(123456789L, "Ana", "ana@example.com", "Hola",
+                LocalDateTime.of(2024, 2, 29, 23, 59, 1, 120_000_000), true, "ventas");
+
+        assertThat(json.write(dto)).isStrictlyEqualToJson(porDefecto.writeValueAsString(dto));
+    }
+
+    @Test
+    @DisplayName("Las páginas deben usar el sobre de PagedModel (content + page)")
+    void serializar_pagina_debeUsarElSobreDePagedModel() throws Exception {
+        MensajeResponseDTO dto = new MensajeResponseDTO(3L, "Ana", "ana@example.com", "Hola",
+                LocalDateTime.of(2025, 1, 2, 3, 4, 5), true, "principal");
+        PagedModel<MensajeResponseDTO> pagina = new PagedModel<>(
+                new PageImpl<>(List.of(dto), PageRequest.of(1, 1), 3));
+
+        assertThat(jsonPagina.write(pagina)).isStrictlyEqualToJson("""
+                {"content":[{"id":3,"nombre":"Ana","email":"ana@example.com","contenido":"Hola",
+                             "fechaCreacion":"2025-01-02T03:04:05","leido":true,"buzon":"principal"}],
+                 "page":{"size":1,"number":1,"totalElements":3,"totalPages":3}}
+                """);
+    }
+}
@@ -0,0 +1,85 @@
+package com.miguel.buzon_mensajes.job;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.model.Mensaje;
+import com.miguel.buzon_mensajes.repository.MensajeRepository;
+import com.miguel.buzon_mensajes.service.VersionBuzon;
+import com.miguel.buzon_mensajes.service.archivo.ArchivoMensajes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitarios para la recuperación de segmentos de ArchivadorMensajesJob.
+ *
+ * El archivo usa una carpeta temporal real; el repositorio está simulado.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para ArchivadorMensajesJob")
+class ArchivadorMensajesJobTest {
+
+    @TempDir
+    Path directorio;
+
+    @Mock
+    private MensajeRepository mensajeRepository;
+
+    private BuzonProperties propiedades;
+    private ArchivoMensajes archivo;
+    private ArchivadorMensajesJob job;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        propiedades = new BuzonProperties();
+        propiedades.getArchivo().setDirectorio(directorio.toString());
+        archivo = new ArchivoMensajes(propiedades);
+        job = new ArchivadorMensajesJob(mensajeRepository, archivo, propiedades,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), new VersionBuzon());
+
+        Mensaje mensaje = new Mensaje();
+        mensaje.setId(42L);
+        mensaje.setNombre("Ana");
+        mensaje.setEmail("ana@example.com");
+        mensaje.setContenido("Mensaje antiguo");
+        mensaje.setFechaCreacion(LocalDateTime.of(2024, 1, 1, 10, 0));
+        mensaje.setLeido(true);
+        archivo.escribirSegmento(List.of(mensaje));
+    }
+
+    @Test
+    @DisplayName("Un segmento pendiente cuyos mensajes ya no están en la tabla debe publicarse")
+    void recuperarPendientes_cuandoBorradoConfirmado_debePublicar() {
+        when(mensajeRepository.existsByIdIn(anyCollection())).thenReturn(false);
+
+        job.recuperarPendientes();
+
+        assertThat(archivo.buscar(42L)).isPresent();
+        assertThat(archivo.pendientes()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Un segmento pendiente cuyos mensajes siguen en la tabla debe descartarse")
+    void recuperarPendientes_cuandoBorradoSinConfirmar_debeDescartar() {
+        when(mensajeRepository.existsByIdIn(anyCollection())).thenReturn(true);
+
+        job.recuperarPendientes();
+
+        assertThat(archivo.buscar(42L)).isEmpty();
+        assertThat(directorio).isEmptyDirectory();
+    }
+}
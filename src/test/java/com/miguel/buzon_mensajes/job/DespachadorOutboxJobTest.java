@@ -0,0 +1,165 @@
+package com.miguel.buzon_mensajes.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.dto.MensajeResponseDTO;
+import com.miguel.buzon_mensajes.dto.ResumenDTO;
+import com.miguel.buzon_mensajes.model.EventoOutbox;
+import com.miguel.buzon_mensajes.repository.EventoOutboxRepository;
+import com.miguel.buzon_mensajes.service.notificacion.DestinoNotificacion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitarios para DespachadorOutboxJob (repositorio simulado, sin BD).
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para DespachadorOutboxJob")
+class DespachadorOutboxJobTest {
+
+    private static final Clock RELOJ = Clock.fixed(Instant.parse("2025-10-19T10:00:00Z"), ZoneOffset.UTC);
+    private static final LocalDateTime AHORA = LocalDateTime.now(RELOJ);
+
+    @Mock
+    private EventoOutboxRepository eventoOutboxRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final BuzonProperties propiedades = new BuzonProperties();
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    /**
+     * Destino de prueba: guarda lo recibido o falla si se le pide.
+     */
+    private final DestinoPrueba destino = new DestinoPrueba();
+
+    private DespachadorOutboxJob despachador;
+
+    @BeforeEach
+    void setUp() {
+        despachador = new DespachadorOutboxJob(eventoOutboxRepository, List.of(destino), propiedades,
+                new TransactionTemplate(transactionManager), objectMapper, null, RELOJ);
+    }
+
+    @AfterEach
+    void cerrar() {
+        despachador.cerrar();
+    }
+
+    @Test
+    @DisplayName("Una entrega correcta debe marcar el evento como enviado")
+    void entregaCorrecta_debeMarcarEnviado() throws Exception {
+        EventoOutbox evento = reclamado(7L, 0);
+
+        int reclamados = despachador.despacharLote();
+
+        assertThat(reclamados).isEqualTo(1);
+        assertThat(destino.recibidos).extracting(MensajeResponseDTO::id).containsExactly(42L);
+        verify(eventoOutboxRepository).marcarEnviados(List.of(evento.getId()), EventoOutbox.Estado.ENVIADO, AHORA);
+        verify(eventoOutboxRepository, never()).registrarFallo(any(), any(), anyInt(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Un fallo debe reprogramar el evento con espera exponencial")
+    void fallo_debeReprogramarConEspera() throws Exception {
+        destino.fallar = true;
+        reclamado(7L, 2);
+
+        despachador.despacharLote();
+
+        // Tercer intento: 5 s * 2^2
+        verify(eventoOutboxRepository).registrarFallo(eq(7L), eq(EventoOutbox.Estado.PENDIENTE), eq(3),
+                eq(AHORA.plusSeconds(20)), anyString());
+    }
+
+    @Test
+    @DisplayName("Al agotar los intentos el evento debe descartarse")
+    void ultimoIntento_debeDescartar() throws Exception {
+        destino.fallar = true;
+        reclamado(7L, propiedades.getNotificaciones().getMaximoIntentos() - 1);
+
+        despachador.despacharLote();
+
+        verify(eventoOutboxRepository).registrarFallo(eq(7L), eq(EventoOutbox.Estado.DESCARTADO),
+                eq(propiedades.getNotificaciones().getMaximoIntentos()), any(), anyString());
+    }
+
+    @Test
+    @DisplayName("La espera entre intentos se duplica hasta el máximo")
+    void esperaTras_debeDuplicarseHastaElMaximo() {
+        BuzonProperties.Notificaciones config = propiedades.getNotificaciones();
+
+        assertThat(DespachadorOutboxJob.esperaTras(1, config)).isEqualTo(Duration.ofSeconds(5));
+        assertThat(DespachadorOutboxJob.esperaTras(2, config)).isEqualTo(Duration.ofSeconds(10));
+        assertThat(DespachadorOutboxJob.esperaTras(4, config)).isEqualTo(Duration.ofSeconds(40));
+        assertThat(DespachadorOutboxJob.esperaTras(50, config)).isEqualTo(Duration.ofSeconds(3600));
+    }
+
+    /**
+     * Simula que hay un evento listo y que el reclamo se lo queda.
+     */
+    private EventoOutbox reclamado(Long id, int intentos) throws IOException {
+        MensajeResponseDTO mensaje = new MensajeResponseDTO(42L, "Ana", "ana@example.com", "Hola",
+                AHORA, false, "principal");
+        EventoOutbox evento = EventoOutbox.nuevo(EventoOutbox.MENSAJE_CREADO, destino.nombre(), 42L,
+                objectMapper.writeValueAsString(mensaje));
+        evento.setId(id);
+        evento.setIntentos(intentos);
+
+        when(eventoOutboxRepository.buscarListos(eq(EventoOutbox.Estado.PENDIENTE), eq(AHORA), any()))
+                .thenReturn(List.of(id));
+        when(eventoOutboxRepository.findByReclamo(anyString())).thenReturn(List.of(evento));
+        return evento;
+    }
+
+    private static class DestinoPrueba implements DestinoNotificacion {
+
+        private final List<MensajeResponseDTO> recibidos = new ArrayList<>();
+
+        private volatile boolean fallar;
+
+        @Override
+        public String nombre() {
+            return "prueba";
+        }
+
+        @Override
+        public synchronized void enviar(EventoOutbox evento, MensajeResponseDTO mensaje) throws IOException {
+            if (fallar) {
+                throw new IOException("destino caído");
+            }
+            recibidos.add(mensaje);
+        }
+
+        @Override
+        public void enviarResumen(EventoOutbox evento, ResumenDTO resumen) {
+        }
+    }
+}
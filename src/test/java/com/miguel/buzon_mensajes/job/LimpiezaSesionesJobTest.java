@@ -0,0 +1,85 @@
+package com.miguel.buzon_mensajes.job;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests de LimpiezaSesionesJob contra una H2 en memoria con el esquema de
+ * Spring Session: lo que se prueba es la sentencia de borrado por lotes.
+ */
+@DisplayName("Tests para LimpiezaSesionesJob")
+class LimpiezaSesionesJobTest {
+
+    private EmbeddedDatabase baseDeDatos;
+    private JdbcTemplate jdbcTemplate;
+    private LimpiezaSesionesJob job;
+
+    @BeforeEach
+    void setUp() {
+        baseDeDatos = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("org/springframework/session/jdbc/schema-h2.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(baseDeDatos);
+
+        BuzonProperties propiedades = new BuzonProperties();
+        propiedades.getSesiones().setLoteLimpieza(2);
+        job = new LimpiezaSesionesJob(jdbcTemplate, propiedades);
+    }
+
+    @AfterEach
+    void cerrar() {
+        baseDeDatos.shutdown();
+    }
+
+    @Test
+    @DisplayName("Debe borrar por lotes solo las sesiones caducadas y sus atributos")
+    void limpiar_debeBorrarSoloLasCaducadas() {
+        long ahora = System.currentTimeMillis();
+        // 5 caducadas (más de un lote de 2) y 2 vigentes
+        for (int i = 0; i < 5; i++) {
+            sesion("caducada-" + i, ahora - 60_000);
+        }
+        sesion("vigente-0", ahora + 600_000);
+        sesion("vigente-1", ahora + 600_000);
+
+        job.limpiar();
+
+        // SESSION_ID es CHAR(36): H2 lo devuelve relleno con espacios
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT RTRIM(SESSION_ID) FROM SPRING_SESSION ORDER BY SESSION_ID", String.class))
+                .containsExactly("vigente-0", "vigente-1");
+        // ON DELETE CASCADE: los atributos de las caducadas también desaparecen
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM SPRING_SESSION_ATTRIBUTES", Integer.class))
+                .isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Sin sesiones caducadas no debe borrar nada")
+    void limpiar_sinCaducadas_noDebeBorrar() {
+        sesion("vigente", System.currentTimeMillis() + 600_000);
+
+        job.limpiar();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM SPRING_SESSION", Integer.class)).isEqualTo(1);
+    }
+
+    private void sesion(String id, long caducidad) {
+        String primaria = "p-" + id;
+        jdbcTemplate.update("INSERT INTO SPRING_SESSION (PRIMARY_ID, SESSION_ID, CREATION_TIME, LAST_ACCESS_TIME, "
+                        + "MAX_INACTIVE_INTERVAL, EXPIRY_TIME) VALUES (?, ?, ?, ?, ?, ?)",
+                primaria, id, caducidad - 1_800_000, caducidad - 1_800_000, 1800, caducidad);
+        jdbcTemplate.update("INSERT INTO SPRING_SESSION_ATTRIBUTES (SESSION_PRIMARY_ID, ATTRIBUTE_NAME, ATTRIBUTE_BYTES) "
+                + "VALUES (?, ?, ?)", primaria, "SPRING_SECURITY_CONTEXT", new byte[]{1, 2, 3});
+    }
+}
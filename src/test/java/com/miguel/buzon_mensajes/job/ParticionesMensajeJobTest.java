@@ -0,0 +1,98 @@
+package com.miguel.buzon_mensajes.job;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.service.VersionBuzon;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.YearMonth;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitarios para ParticionesMensajeJob (JdbcTemplate simulado, sin BD).
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para ParticionesMensajeJob")
+class ParticionesMensajeJobTest {
+
+    private static final YearMonth MES = YearMonth.of(2020, 3);
+    private static final Date DESDE = Date.valueOf("2020-03-01");
+    private static final Date HASTA = Date.valueOf("2020-04-01");
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private ParticionesMensajeJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = new ParticionesMensajeJob(jdbcTemplate, new BuzonProperties(), new VersionBuzon(),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    }
+
+    @Test
+    @DisplayName("Sin filas del mes en la partición por defecto debe crear la partición sin más")
+    void crearParticion_sinFilasEnDefecto_debeCrearDirectamente() {
+        existe("mensaje_p2020_03", false);
+        existe(ParticionesMensajeJob.PARTICION_DEFECTO, true);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), eq(DESDE), eq(HASTA))).thenReturn(false);
+
+        job.crearParticion(MES);
+
+        verify(jdbcTemplate).execute(
+                "CREATE TABLE mensaje_p2020_03 PARTITION OF mensaje FOR VALUES FROM ('2020-03-01') TO ('2020-04-01')");
+        verify(jdbcTemplate, never()).execute("ALTER TABLE mensaje DETACH PARTITION mensaje_pdefault");
+    }
+
+    @Test
+    @DisplayName("Con filas del mes en la partición por defecto debe separarla, moverlas y volver a unirla")
+    void crearParticion_conFilasEnDefecto_debeMoverlas() {
+        existe("mensaje_p2020_03", false);
+        existe(ParticionesMensajeJob.PARTICION_DEFECTO, true);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), eq(DESDE), eq(HASTA))).thenReturn(true);
+
+        job.crearParticion(MES);
+
+        InOrder orden = inOrder(jdbcTemplate);
+        orden.verify(jdbcTemplate).execute("ALTER TABLE mensaje DETACH PARTITION mensaje_pdefault");
+        orden.verify(jdbcTemplate).execute(
+                "CREATE TABLE mensaje_p2020_03 PARTITION OF mensaje FOR VALUES FROM ('2020-03-01') TO ('2020-04-01')");
+        orden.verify(jdbcTemplate).update(
+                "INSERT INTO mensaje_p2020_03 SELECT * FROM mensaje_pdefault"
+                        + " WHERE fecha_creacion >= ? AND fecha_creacion < ?", DESDE, HASTA);
+        orden.verify(jdbcTemplate).update(
+                "DELETE FROM mensaje_pdefault WHERE fecha_creacion >= ? AND fecha_creacion < ?", DESDE, HASTA);
+        orden.verify(jdbcTemplate).execute("ALTER TABLE mensaje ATTACH PARTITION mensaje_pdefault DEFAULT");
+    }
+
+    @Test
+    @DisplayName("Si la partición ya existe no debe hacer nada")
+    void crearParticion_cuandoExiste_noDebeHacerNada() {
+        existe("mensaje_p2020_03", true);
+
+        job.crearParticion(MES);
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    private void existe(String tabla, boolean existe) {
+        when(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, tabla))
+                .thenReturn(existe);
+    }
+}
@@ -0,0 +1,109 @@
+package com.miguel.buzon_mensajes.job;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitarios para PurgaMensajesJob (JdbcTemplate simulado, sin BD).
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para PurgaMensajesJob")
+class PurgaMensajesJobTest {
+
+    private static final Clock RELOJ = Clock.fixed(Instant.parse("2025-10-19T12:00:00Z"), ZoneOffset.UTC);
+
+    /**
+     * Ahora menos los 7 días de retención por defecto.
+     */
+    private static final Timestamp LIMITE = Timestamp.valueOf(LocalDateTime.of(2025, 10, 12, 12, 0));
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final BuzonProperties propiedades = new BuzonProperties();
+
+    @BeforeEach
+    void setUp() {
+        propiedades.getPurga().setTamanoLote(100);
+        propiedades.getPurga().setPausaMs(0);
+    }
+
+    @Test
+    @DisplayName("Debe borrar lotes hasta que uno salga incompleto")
+    void purgar_debeSeguirMientrasLosLotesSalganLlenos() {
+        PurgaMensajesJob job = new PurgaMensajesJob(jdbcTemplate, propiedades, null, shard -> true, RELOJ);
+        when(jdbcTemplate.update(anyString(), eq(LIMITE), eq(LIMITE), eq(100))).thenReturn(100, 100, 30);
+
+        long borrados = job.purgarShard(0);
+
+        assertThat(borrados).isEqualTo(230);
+        verify(jdbcTemplate, times(3)).update(anyString(), eq(LIMITE), eq(LIMITE), eq(100));
+    }
+
+    @Test
+    @DisplayName("Con el pool ocupado debe dejar la purga para la siguiente ejecución")
+    void purgar_cuandoPoolOcupado_debeAplazar() {
+        AtomicInteger consultas = new AtomicInteger();
+        // Tranquilo para el primer lote; después llega tráfico
+        PurgaMensajesJob job = new PurgaMensajesJob(jdbcTemplate, propiedades, null,
+                shard -> consultas.getAndIncrement() == 0, RELOJ);
+        when(jdbcTemplate.update(anyString(), eq(LIMITE), eq(LIMITE), eq(100))).thenReturn(100);
+
+        long borrados = job.purgarShard(0);
+
+        assertThat(borrados).isEqualTo(100);
+        verify(jdbcTemplate, times(1)).update(anyString(), eq(LIMITE), eq(LIMITE), eq(100));
+    }
+
+    @Test
+    @DisplayName("Si el pool ya está ocupado al empezar no debe borrar nada")
+    void purgar_cuandoPoolOcupadoDesdeElPrincipio_noDebeBorrar() {
+        PurgaMensajesJob job = new PurgaMensajesJob(jdbcTemplate, propiedades, null, shard -> false, RELOJ);
+
+        job.purgar();
+
+        verify(jdbcTemplate, never()).update(anyString(), eq(LIMITE), eq(LIMITE), eq(100));
+    }
+
+    @Test
+    @DisplayName("Con réplicas debe vigilar el pool del primario que hay detrás del proxy")
+    void poolPrincipal_conProxyDeReplicas_debeDevolverElPrimario() {
+        try (HikariDataSource primario = new HikariDataSource()) {
+            assertThat(PurgaMensajesJob.poolPrincipal(primario)).isSameAs(primario);
+            assertThat(PurgaMensajesJob.poolPrincipal(new LazyConnectionDataSourceProxy(primario))).isSameAs(primario);
+        }
+    }
+
+    @Test
+    @DisplayName("Sin pool Hikari debe fallar al arrancar en vez de purgar sin límite")
+    void poolPrincipal_sinHikari_debeFallar() {
+        assertThatThrownBy(() -> PurgaMensajesJob.poolPrincipal(new SimpleDriverDataSource()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("SimpleDriverDataSource");
+    }
+}
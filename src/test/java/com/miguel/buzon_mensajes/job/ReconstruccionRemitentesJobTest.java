@@ -0,0 +1,131 @@
+package com.miguel.buzon_mensajes.job;
+
+import com.miguel.buzon_mensajes.repository.MarcaAguaRepository;
+import com.miguel.buzon_mensajes.service.remitente.EscritorRemitentes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests de ReconstruccionRemitentesJob contra una H2 en memoria: lo que se
+ * prueba son los tramos de emails y el recuento con upsert en una sentencia.
+ */
+@DisplayName("Tests para ReconstruccionRemitentesJob")
+class ReconstruccionRemitentesJobTest {
+
+    private static final LocalDateTime ENERO = LocalDateTime.of(2025, 1, 10, 9, 0);
+    private static final LocalDateTime MARZO = LocalDateTime.of(2025, 3, 10, 9, 0);
+
+    private EmbeddedDatabase baseDeDatos;
+    private JdbcTemplate jdbcTemplate;
+    private MarcaAguaRepository marcaAguaRepository;
+    private ReconstruccionRemitentesJob job;
+
+    @BeforeEach
+    void setUp() {
+        baseDeDatos = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .build();
+        jdbcTemplate = new JdbcTemplate(baseDeDatos);
+        jdbcTemplate.execute("""
+                CREATE TABLE mensaje (id BIGINT AUTO_INCREMENT PRIMARY KEY, nombre VARCHAR(100),
+                    email_normalizado VARCHAR(150), fecha_creacion TIMESTAMP, leido BOOLEAN,
+                    eliminado_en TIMESTAMP)
+                """);
+        jdbcTemplate.execute("""
+                CREATE TABLE remitente (email VARCHAR(150) PRIMARY KEY, nombre VARCHAR(100),
+                    primer_mensaje TIMESTAMP NOT NULL, ultimo_mensaje TIMESTAMP NOT NULL,
+                    total BIGINT NOT NULL, no_leidos BIGINT NOT NULL)
+                """);
+
+        marcaAguaRepository = mock(MarcaAguaRepository.class);
+        job = new ReconstruccionRemitentesJob(jdbcTemplate, new EscritorRemitentes(jdbcTemplate), marcaAguaRepository,
+                mock(NormalizacionMensajesJob.class),
+                new TransactionTemplate(new DataSourceTransactionManager(baseDeDatos)), null,
+                Clock.systemDefaultZone());
+    }
+
+    @AfterEach
+    void cerrar() {
+        baseDeDatos.shutdown();
+    }
+
+    @Test
+    @DisplayName("Debe fijar los contadores con lo que hay en la tabla mensaje")
+    void reconstruir_debeFijarLosContadores() {
+        mensaje("Ana", "ana@example.com", ENERO, true, null);
+        mensaje("Ana López", "ana@example.com", MARZO, false, null);
+        mensaje("Ana", "ana@example.com", MARZO, false, MARZO);
+        mensaje("Bea", "bea@example.com", ENERO, false, null);
+        // Contadores desviados: se sustituyen, no se suman
+        jdbcTemplate.update("INSERT INTO remitente VALUES (?, ?, ?, ?, ?, ?)",
+                "bea@example.com", "Bea", Timestamp.valueOf(ENERO), Timestamp.valueOf(ENERO), 7, 7);
+
+        long remitentes = job.reconstruirShard();
+
+        assertThat(remitentes).isEqualTo(2);
+        assertThat(fila("ana@example.com")).containsEntry("NOMBRE", "Ana López")
+                .containsEntry("PRIMER_MENSAJE", Timestamp.valueOf(ENERO))
+                .containsEntry("ULTIMO_MENSAJE", Timestamp.valueOf(MARZO))
+                .containsEntry("TOTAL", 2L)
+                .containsEntry("NO_LEIDOS", 1L);
+        assertThat(fila("bea@example.com")).containsEntry("TOTAL", 1L).containsEntry("NO_LEIDOS", 1L);
+        verify(marcaAguaRepository).save(any());
+    }
+
+    @Test
+    @DisplayName("Debe recorrer todos los remitentes aunque ocupen varios tramos")
+    void reconstruir_debeRecorrerVariosTramos() {
+        int remitentes = ReconstruccionRemitentesJob.LOTE * 2 + 3;
+        for (int i = 0; i < remitentes; i++) {
+            mensaje("R" + i, "r%04d@example.com".formatted(i), ENERO, false, null);
+        }
+
+        assertThat(job.reconstruirShard()).isEqualTo(remitentes);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM remitente WHERE total = 1", Integer.class))
+                .isEqualTo(remitentes);
+    }
+
+    @Test
+    @DisplayName("Con la marca ya puesta no debe recorrer nada")
+    void reconstruir_conMarca_noDebeHacerNada() {
+        mensaje("Ana", "ana@example.com", ENERO, false, null);
+        when(marcaAguaRepository.existsById(ReconstruccionRemitentesJob.MARCA)).thenReturn(true);
+
+        assertThat(job.reconstruirShard()).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM remitente", Integer.class)).isZero();
+        verify(marcaAguaRepository, never()).save(any());
+    }
+
+    private void mensaje(String nombre, String email, LocalDateTime fecha, boolean leido, LocalDateTime eliminado) {
+        jdbcTemplate.update("""
+                INSERT INTO mensaje (nombre, email_normalizado, fecha_creacion, leido, eliminado_en)
+                VALUES (?, ?, ?, ?, ?)
+                """, nombre, email, Timestamp.valueOf(fecha), leido,
+                eliminado == null ? null : Timestamp.valueOf(eliminado));
+    }
+
+    private Map<String, Object> fila(String email) {
+        return jdbcTemplate.queryForMap("SELECT * FROM remitente WHERE email = ?", email);
+    }
+}
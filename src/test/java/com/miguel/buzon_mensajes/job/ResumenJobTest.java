@@ -0,0 +1,150 @@
+package com.miguel.buzon_mensajes.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.dto.MensajeResponseDTO;
+import com.miguel.buzon_mensajes.dto.ResumenDTO;
+import com.miguel.buzon_mensajes.model.MarcaAgua;
+import com.miguel.buzon_mensajes.model.ResumenMensajes;
+import com.miguel.buzon_mensajes.repository.MarcaAguaRepository;
+import com.miguel.buzon_mensajes.repository.MensajeRepository;
+import com.miguel.buzon_mensajes.repository.ResumenMensajesRepository;
+import com.miguel.buzon_mensajes.service.notificacion.PublicadorEventos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitarios para ResumenJob (repositorios simulados, sin BD).
+ *
+ * Se llama directamente a procesarLote / cerrarTerminados, que en la tarea
+ * real se ejecutan dentro de una transacción.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para ResumenJob")
+class ResumenJobTest {
+
+    private static final Clock RELOJ = Clock.fixed(Instant.parse("2025-10-19T12:00:00Z"), ZoneOffset.UTC);
+
+    /**
+     * "Ahora" menos el margen por defecto (60 s).
+     */
+    private static final LocalDateTime HASTA = LocalDateTime.of(2025, 10, 19, 11, 59);
+
+    @Mock
+    private MensajeRepository mensajeRepository;
+
+    @Mock
+    private MarcaAguaRepository marcaAguaRepository;
+
+    @Mock
+    private ResumenMensajesRepository resumenRepository;
+
+    @Mock
+    private PublicadorEventos publicadorEventos;
+
+    private final BuzonProperties propiedades = new BuzonProperties();
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private ResumenJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = new ResumenJob(mensajeRepository, marcaAguaRepository, resumenRepository, publicadorEventos,
+                propiedades, null, objectMapper, null, RELOJ);
+    }
+
+    @Test
+    @DisplayName("La primera vez debe empezar desde ahora sin recorrer la tabla")
+    void primeraVez_noDebeLeerMensajesAntiguos() {
+        when(marcaAguaRepository.bloquear(ResumenJob.MARCA)).thenReturn(Optional.empty());
+
+        int leidos = job.procesarLote();
+
+        assertThat(leidos).isZero();
+        ArgumentCaptor<MarcaAgua> marca = ArgumentCaptor.forClass(MarcaAgua.class);
+        verify(marcaAguaRepository).save(marca.capture());
+        assertThat(marca.getValue().getFecha()).isEqualTo(HASTA);
+        verify(mensajeRepository, never()).buscarDesdeMarca(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Un lote debe sumarse al resumen de su hora y de su día y avanzar la marca")
+    void lote_debeAgregarPorPeriodoYAvanzarMarca() {
+        MarcaAgua marca = new MarcaAgua(ResumenJob.MARCA, LocalDateTime.of(2025, 10, 19, 10, 0), 5L);
+        when(marcaAguaRepository.bloquear(ResumenJob.MARCA)).thenReturn(Optional.of(marca));
+        when(resumenRepository.findByPeriodoAndInicioAndBuzon(any(), any(), any())).thenReturn(Optional.empty());
+        when(mensajeRepository.buscarDesdeMarca(any(), any(), any(), any())).thenReturn(List.of(
+                mensaje(6L, "ana@example.com", LocalDateTime.of(2025, 10, 19, 10, 15)),
+                mensaje(7L, "ANA@example.com", LocalDateTime.of(2025, 10, 19, 10, 40)),
+                mensaje(8L, "luis@example.com", LocalDateTime.of(2025, 10, 19, 11, 5))));
+
+        int leidos = job.procesarLote();
+
+        assertThat(leidos).isEqualTo(3);
+
+        // Horas 10 y 11 + el día 19
+        ArgumentCaptor<ResumenMensajes> guardados = ArgumentCaptor.forClass(ResumenMensajes.class);
+        verify(resumenRepository, times(3)).save(guardados.capture());
+        ResumenMensajes hora10 = guardados.getAllValues().stream()
+                .filter(r -> r.getPeriodo() == ResumenMensajes.Periodo.HORA && r.getInicio().getHour() == 10)
+                .findFirst().orElseThrow();
+        ResumenMensajes dia = guardados.getAllValues().stream()
+                .filter(r -> r.getPeriodo() == ResumenMensajes.Periodo.DIA)
+                .findFirst().orElseThrow();
+        assertThat(hora10.getTotal()).isEqualTo(2);
+        assertThat(hora10.getFin()).isEqualTo(LocalDateTime.of(2025, 10, 19, 11, 0));
+        assertThat(hora10.getRemitentes()).contains("\"ana@example.com\"").contains("\"cuenta\":2");
+        assertThat(dia.getTotal()).isEqualTo(3);
+
+        // Lote incompleto: no queda nada más hasta el margen
+        assertThat(marca.getFecha()).isEqualTo(HASTA);
+    }
+
+    @Test
+    @DisplayName("Los resúmenes terminados deben cerrarse y publicarse")
+    void cerrarTerminados_debePublicarResumen() {
+        MarcaAgua marca = new MarcaAgua(ResumenJob.MARCA, HASTA, Long.MAX_VALUE);
+        ResumenMensajes resumen = new ResumenMensajes();
+        resumen.setPeriodo(ResumenMensajes.Periodo.HORA);
+        resumen.setInicio(LocalDateTime.of(2025, 10, 19, 10, 0));
+        resumen.setFin(LocalDateTime.of(2025, 10, 19, 11, 0));
+        resumen.setBuzon("principal");
+        resumen.setTotal(2);
+        resumen.setRemitentes("[{\"elemento\":\"ana@example.com\",\"cuenta\":2,\"error\":0}]");
+        when(marcaAguaRepository.bloquear(ResumenJob.MARCA)).thenReturn(Optional.of(marca));
+        when(resumenRepository.findByCerradoFalseAndFinLessThanEqual(HASTA)).thenReturn(List.of(resumen));
+
+        job.cerrarTerminados();
+
+        assertThat(resumen.isCerrado()).isTrue();
+        ArgumentCaptor<ResumenDTO> publicado = ArgumentCaptor.forClass(ResumenDTO.class);
+        verify(publicadorEventos).resumenCerrado(publicado.capture());
+        assertThat(publicado.getValue().total()).isEqualTo(2);
+        assertThat(publicado.getValue().remitentes())
+                .containsExactly(new ResumenDTO.Remitente("ana@example.com", 2, 0));
+    }
+
+    private static MensajeResponseDTO mensaje(Long id, String email, LocalDateTime fecha) {
+        return new MensajeResponseDTO(id, "Ana", email, "Hola, quería información", fecha, false, "principal");
+    }
+}
@@ -0,0 +1,159 @@
+package com.miguel.buzon_mensajes.job;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.dto.MensajeResponseDTO;
+import com.miguel.buzon_mensajes.model.LatenciaLecturaDia;
+import com.miguel.buzon_mensajes.model.MarcaAgua;
+import com.miguel.buzon_mensajes.repository.LatenciaLecturaDiaRepository;
+import com.miguel.buzon_mensajes.repository.MarcaAguaRepository;
+import com.miguel.buzon_mensajes.repository.MensajeRepository;
+import com.miguel.buzon_mensajes.service.analitica.EscritorRollups;
+import com.miguel.buzon_mensajes.service.analitica.LecturasPendientes;
+import com.miguel.buzon_mensajes.util.HistogramaLatencia;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitarios para RollupJob (repositorios simulados, sin BD).
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para RollupJob")
+class RollupJobTest {
+
+    private static final Clock RELOJ = Clock.fixed(Instant.parse("2025-10-19T12:00:00Z"), ZoneOffset.UTC);
+
+    /**
+     * "Ahora" menos el margen por defecto (60 s).
+     */
+    private static final LocalDateTime HASTA = LocalDateTime.of(2025, 10, 19, 11, 59);
+
+    private static final LocalDate DIA_18 = LocalDate.of(2025, 10, 18);
+    private static final LocalDate DIA_19 = LocalDate.of(2025, 10, 19);
+
+    @Mock
+    private MensajeRepository mensajeRepository;
+
+    @Mock
+    private MarcaAguaRepository marcaAguaRepository;
+
+    @Mock
+    private EscritorRollups escritorRollups;
+
+    @Mock
+    private LatenciaLecturaDiaRepository latenciaRepository;
+
+    private final LecturasPendientes lecturasPendientes = new LecturasPendientes();
+
+    private final BuzonProperties propiedades = new BuzonProperties();
+
+    private RollupJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = new RollupJob(mensajeRepository, marcaAguaRepository, escritorRollups, lecturasPendientes,
+                latenciaRepository, propiedades, null, null, RELOJ);
+    }
+
+    @Test
+    @DisplayName("La primera vez debe empezar desde ahora y dejar el resto a la reconstrucción")
+    void primeraVez_debeFijarLimiteDeReconstruccion() {
+        when(marcaAguaRepository.bloquear(RollupJob.MARCA)).thenReturn(Optional.empty());
+
+        int leidos = job.procesarLote();
+
+        assertThat(leidos).isZero();
+        ArgumentCaptor<MarcaAgua> marcas = ArgumentCaptor.forClass(MarcaAgua.class);
+        verify(marcaAguaRepository, times(2)).save(marcas.capture());
+        assertThat(marcas.getAllValues())
+                .extracting(MarcaAgua::getNombre, MarcaAgua::getFecha, MarcaAgua::getUltimoId)
+                .containsExactly(
+                        tuple(RollupJob.MARCA, HASTA, Long.MAX_VALUE),
+                        tuple(RollupJob.MARCA_RECONSTRUCCION, HASTA, 0L));
+        verify(mensajeRepository, never()).buscarDesdeMarca(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Un lote debe sumarse por día y por remitente normalizado, como en remitente")
+    void lote_debeAgregarPorDiaYRemitente() {
+        MarcaAgua marca = new MarcaAgua(RollupJob.MARCA, LocalDateTime.of(2025, 10, 18, 23, 0), 5L);
+        when(marcaAguaRepository.bloquear(RollupJob.MARCA)).thenReturn(Optional.of(marca));
+        when(mensajeRepository.buscarDesdeMarca(any(), any(), any(), any())).thenReturn(List.of(
+                mensaje(6L, "ana@example.com", LocalDateTime.of(2025, 10, 18, 23, 30)),
+                // Fila anterior a la normalización: espacios y un carácter de control
+                mensaje(7L, " ANA@example.com\u0000", LocalDateTime.of(2025, 10, 19, 0, 10)),
+                mensaje(8L, "ana@example.com", LocalDateTime.of(2025, 10, 19, 9, 0)),
+                mensaje(9L, "luis@example.com", LocalDateTime.of(2025, 10, 19, 11, 5))));
+
+        int leidos = job.procesarLote();
+
+        assertThat(leidos).isEqualTo(4);
+        verify(escritorRollups).sumarRecibidos(
+                Map.of(DIA_18, 1L, DIA_19, 3L),
+                Map.of(new EscritorRollups.RemitenteDia(DIA_18, "ana@example.com"), 1L,
+                        new EscritorRollups.RemitenteDia(DIA_19, "ana@example.com"), 2L,
+                        new EscritorRollups.RemitenteDia(DIA_19, "luis@example.com"), 1L));
+        assertThat(marca.getFecha()).isEqualTo(HASTA);
+        assertThat(marca.getUltimoId()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    @DisplayName("Las lecturas deben volcarse por día bajo el bloqueo de la marca")
+    void lecturas_debenVolcarsePorDia() {
+        LocalDateTime lectura = LocalDateTime.of(2025, 10, 19, 10, 0);
+        lecturasPendientes.registrar(lectura.minusSeconds(30), lectura);
+        lecturasPendientes.registrar(lectura.minusMinutes(5), lectura);
+        lecturasPendientes.registrar(lectura.minusDays(1), lectura.minusDays(1).plusSeconds(10));
+        when(escritorRollups.sumarLecturas(any())).thenAnswer(invocacion -> invocacion.getArgument(0));
+
+        Map<LocalDate, HistogramaLatencia> lecturas = lecturasPendientes.vaciar();
+        HistogramaLatencia hoy = job.volcarLecturas(lecturas, DIA_19);
+
+        assertThat(lecturas).containsOnlyKeys(DIA_18, DIA_19);
+        assertThat(hoy.total()).isEqualTo(2);
+        assertThat(hoy.percentil(0.5)).isEqualTo(30L);
+        verify(marcaAguaRepository).bloquear(RollupJob.MARCA);
+        assertThat(lecturasPendientes.vaciar()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Sin lecturas pendientes debe leer lo guardado de hoy para las métricas")
+    void sinLecturas_debeLeerHistogramaGuardado() {
+        HistogramaLatencia guardado = new HistogramaLatencia();
+        guardado.agregar(120);
+        LatenciaLecturaDia fila = new LatenciaLecturaDia();
+        fila.setDia(DIA_19);
+        fila.escribir(guardado);
+        when(latenciaRepository.findById(DIA_19)).thenReturn(Optional.of(fila));
+
+        HistogramaLatencia hoy = job.volcarLecturas(Map.of(), DIA_19);
+
+        assertThat(hoy.total()).isEqualTo(1);
+        verify(escritorRollups, never()).sumarLecturas(any());
+    }
+
+    private static MensajeResponseDTO mensaje(Long id, String email, LocalDateTime fecha) {
+        return new MensajeResponseDTO(id, "Ana", email, "Hola, quería información", fecha, false, "principal");
+    }
+}
@@ -0,0 +1,80 @@
+package com.miguel.buzon_mensajes.service;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitarios para VersionBuzon.
+ *
+ * La transacción se simula activando la sincronización a mano y llamando
+ * a los callbacks como haría el gestor de transacciones.
+ */
+@DisplayName("Tests para VersionBuzon")
+class VersionBuzonTest {
+
+    private final VersionBuzon versionBuzon = new VersionBuzon();
+
+    @AfterEach
+    void limpiar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Dentro de una transacción la versión solo cambia después del commit")
+    void incrementar_dentroDeTransaccion_debeEsperarAlCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        long inicial = versionBuzon.actual();
+
+        versionBuzon.incrementar();
+        assertThat(versionBuzon.actual()).isEqualTo(inicial);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(versionBuzon.actual()).isEqualTo(inicial + 1);
+    }
+
+    @Test
+    @DisplayName("Si la transacción se deshace la versión no cambia")
+    void incrementar_cuandoRollback_noDebeCambiarVersion() {
+        TransactionSynchronizationManager.initSynchronization();
+        String etagInicial = versionBuzon.etag();
+
+        versionBuzon.incrementar();
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(versionBuzon.etag()).isEqualTo(etagInicial);
+    }
+
+    @Test
+    @DisplayName("El ETag es débil y cambia con la versión")
+    void etag_debeSerDebilYCambiarConLaVersion() {
+        String anterior = versionBuzon.etag();
+
+        versionBuzon.incrementar();
+
+        assertThat(anterior).startsWith("W/\"");
+        assertThat(versionBuzon.etag()).isNotEqualTo(anterior);
+    }
+
+    @Test
+    @DisplayName("Con varias instancias o con réplicas no se deben permitir respuestas 304")
+    void isCondicional_conVariasInstanciasOReplicas_debeSerFalse() {
+        BuzonProperties unaInstancia = new BuzonProperties();
+        BuzonProperties variasInstancias = new BuzonProperties();
+        variasInstancias.setVariasInstancias(true);
+        BuzonProperties conReplicas = new BuzonProperties();
+        conReplicas.getReplicas().setHabilitado(true);
+
+        assertThat(new VersionBuzon(unaInstancia).isCondicional()).isTrue();
+        assertThat(new VersionBuzon(variasInstancias).isCondicional()).isFalse();
+        assertThat(new VersionBuzon(conReplicas).isCondicional()).isFalse();
+    }
+}
@@ -0,0 +1,46 @@
+package com.miguel.buzon_mensajes.service.analitica;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitarios para LecturasPendientes.
+ */
+@DisplayName("Tests para LecturasPendientes")
+class LecturasPendientesTest {
+
+    private static final LocalDateTime AYER = LocalDateTime.of(2025, 3, 9, 18, 0);
+    private static final LocalDateTime HOY = LocalDateTime.of(2025, 3, 10, 9, 0);
+
+    @Test
+    @DisplayName("Sin rollups solo debe conservar las lecturas del día en curso")
+    void registrar_sinRollups_debeConservarSoloHoy() {
+        LecturasPendientes lecturas = new LecturasPendientes(new BuzonProperties());
+
+        lecturas.registrar(AYER.minusMinutes(5), AYER);
+        lecturas.registrar(HOY.minusMinutes(5), HOY);
+
+        assertThat(lecturas.delDia(HOY.toLocalDate()).total()).isEqualTo(1);
+        assertThat(lecturas.delDia(AYER.toLocalDate()).total()).isZero();
+    }
+
+    @Test
+    @DisplayName("Con rollups debe guardar todos los días hasta que RollupJob los vacíe")
+    void registrar_conRollups_debeGuardarTodosLosDias() {
+        BuzonProperties propiedades = new BuzonProperties();
+        propiedades.getRollups().setHabilitado(true);
+        LecturasPendientes lecturas = new LecturasPendientes(propiedades);
+
+        lecturas.registrar(AYER.minusMinutes(5), AYER);
+        lecturas.registrar(HOY.minusMinutes(5), HOY);
+
+        assertThat(lecturas.vaciar()).containsOnlyKeys(AYER.toLocalDate(), HOY.toLocalDate());
+        assertThat(lecturas.delDia(LocalDate.of(2025, 3, 10)).total()).isZero();
+    }
+}
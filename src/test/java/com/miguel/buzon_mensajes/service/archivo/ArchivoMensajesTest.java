@@ -0,0 +1,124 @@
+package com.miguel.buzon_mensajes.service.archivo;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.model.Mensaje;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitarios para ArchivoMensajes.
+ *
+ * Usan una carpeta temporal real: el formato de los segmentos
+ * (bloques comprimidos + índice disperso) es justo lo que se quiere probar.
+ */
+@DisplayName("Tests para ArchivoMensajes")
+class ArchivoMensajesTest {
+
+    @TempDir
+    Path directorio;
+
+    private BuzonProperties propiedades;
+    private List<Mensaje> mensajes;
+
+    @BeforeEach
+    void setUp() {
+        propiedades = new BuzonProperties();
+        propiedades.getArchivo().setDirectorio(directorio.toString());
+
+        // 200 mensajes = 4 bloques (el último incompleto)
+        LocalDateTime inicio = LocalDateTime.of(2024, 1, 1, 10, 0, 0, 123_000_000);
+        mensajes = new ArrayList<>();
+        for (long id = 1; id <= 200; id++) {
+            Mensaje mensaje = new Mensaje();
+            mensaje.setId(id * 3);
+            mensaje.setNombre("Remitente " + id);
+            mensaje.setEmail("remitente" + id + "@example.com");
+            mensaje.setContenido("Contenido archivado número " + id + " con tildes: áéíóú ñ");
+            mensaje.setFechaCreacion(inicio.plusHours(id));
+            mensaje.setLeido(true);
+            mensajes.add(mensaje);
+        }
+    }
+
+    @Test
+    @DisplayName("Un segmento registrado debe poder leerse por id")
+    void buscar_cuandoSegmentoRegistrado_debeEncontrarMensaje() throws Exception {
+        ArchivoMensajes archivo = new ArchivoMensajes(propiedades);
+        archivo.registrar(archivo.escribirSegmento(mensajes));
+
+        Mensaje encontrado = archivo.buscar(150L).orElseThrow();
+
+        assertThat(encontrado.getNombre()).isEqualTo("Remitente 50");
+        assertThat(encontrado.getContenido()).endsWith("áéíóú ñ");
+        assertThat(encontrado.getFechaCreacion()).isEqualTo(mensajes.get(49).getFechaCreacion());
+        assertThat(encontrado.getLeido()).isTrue();
+
+        // Ids dentro del rango del segmento pero que no existen
+        assertThat(archivo.buscar(151L)).isEmpty();
+        assertThat(archivo.buscar(10_000L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Los segmentos deben cargarse de disco al arrancar")
+    void cargarSegmentos_debeLeerLosIndicesExistentes() throws Exception {
+        ArchivoMensajes archivo = new ArchivoMensajes(propiedades);
+        archivo.registrar(archivo.escribirSegmento(mensajes));
+
+        ArchivoMensajes reiniciado = new ArchivoMensajes(propiedades);
+        reiniciado.cargarSegmentos();
+
+        assertThat(reiniciado.buscar(600L)).isPresent();
+    }
+
+    @Test
+    @DisplayName("Un segmento sin registrar no debe cargarse al arrancar sino quedar pendiente")
+    void cargarSegmentos_cuandoSinRegistrar_debeQuedarPendiente() throws Exception {
+        new ArchivoMensajes(propiedades).escribirSegmento(mensajes);
+
+        ArchivoMensajes reiniciado = new ArchivoMensajes(propiedades);
+        reiniciado.cargarSegmentos();
+
+        assertThat(reiniciado.buscar(600L)).isEmpty();
+        List<ArchivoMensajes.Segmento> pendientes = reiniciado.pendientes();
+        assertThat(pendientes).hasSize(1);
+        assertThat(reiniciado.ids(pendientes.get(0))).hasSize(200).startsWith(3L, 6L);
+
+        reiniciado.registrar(pendientes.get(0));
+        assertThat(reiniciado.buscar(600L)).isPresent();
+        assertThat(reiniciado.pendientes()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Un segmento descartado no debe quedar en disco ni ser visible")
+    void descartar_debeBorrarLosFicheros() throws Exception {
+        ArchivoMensajes archivo = new ArchivoMensajes(propiedades);
+        archivo.descartar(archivo.escribirSegmento(mensajes));
+
+        ArchivoMensajes reiniciado = new ArchivoMensajes(propiedades);
+        reiniciado.cargarSegmentos();
+
+        assertThat(reiniciado.buscar(3L)).isEmpty();
+        assertThat(directorio).isEmptyDirectory();
+    }
+
+    @Test
+    @DisplayName("Recorrer desde una fecha debe devolver solo los mensajes posteriores")
+    void recorrer_debeFiltrarPorFecha() throws Exception {
+        ArchivoMensajes archivo = new ArchivoMensajes(propiedades);
+        archivo.registrar(archivo.escribirSegmento(mensajes));
+
+        List<Long> ids = new ArrayList<>();
+        archivo.recorrer(mensajes.get(189).getFechaCreacion(), m -> ids.add(m.getId()));
+
+        assertThat(ids).hasSize(11).first().isEqualTo(570L);
+    }
+}
@@ -1,10 +1,24 @@
 package com.miguel.buzon_mensajes.service.impl;
 
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.dto.ContenidoComprimidoDTO;
+import com.miguel.buzon_mensajes.dto.EstadisticasDTO;
+import com.miguel.buzon_mensajes.dto.HuellaSimilarDTO;
 import com.miguel.buzon_mensajes.dto.MensajeRequestDTO;
 import com.miguel.buzon_mensajes.dto.MensajeResponseDTO;
+import com.miguel.buzon_mensajes.dto.MensajeVersionadoDTO;
 import com.miguel.buzon_mensajes.exception.MensajeNotFoundException;
+import com.miguel.buzon_mensajes.exception.VersionNoCoincideException;
+import com.miguel.buzon_mensajes.model.ContenidoComprimido;
 import com.miguel.buzon_mensajes.model.Mensaje;
 import com.miguel.buzon_mensajes.repository.MensajeRepository;
+import com.miguel.buzon_mensajes.service.VersionBuzon;
+import com.miguel.buzon_mensajes.service.analitica.LecturasPendientes;
+import com.miguel.buzon_mensajes.service.archivo.ArchivoMensajes;
+import com.miguel.buzon_mensajes.service.noleidos.IndiceNoLeidos;
+import com.miguel.buzon_mensajes.service.notificacion.PublicadorEventos;
+import com.miguel.buzon_mensajes.service.remitente.EscritorRemitentes;
+import com.miguel.buzon_mensajes.util.SimHash;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -13,17 +27,31 @@ import org.junit.jupiter.api.extension.ExtendWith;
 
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 /**
@@ -56,6 +84,49 @@ class MensajeServiceImplTest {
     @Mock
     private MensajeRepository mensajeRepository;
 
+    /**
+     * Mock del archivo en frío (por defecto no encuentra nada).
+     */
+    @Mock
+    private ArchivoMensajes archivoMensajes;
+
+    /**
+     * Propiedades reales con sus valores por defecto (sin límites de memoria).
+     */
+    @Spy
+    private BuzonProperties propiedades = new BuzonProperties();
+
+    /**
+     * Versión real del buzón (sin transacción activa se incrementa al momento).
+     */
+    @Spy
+    private VersionBuzon versionBuzon = new VersionBuzon();
+
+    /**
+     * Mock del outbox de notificaciones.
+     */
+    @Mock
+    private PublicadorEventos publicadorEventos;
+
+    /**
+     * Lecturas pendientes de volcar a los rollups (en memoria).
+     */
+    @Spy
+    private LecturasPendientes lecturasPendientes = new LecturasPendientes();
+
+    /**
+     * Contadores de la tabla remitente (SQL directo, se simula).
+     */
+    @Mock
+    private EscritorRemitentes escritorRemitentes;
+
+    /**
+     * Índice de no leídos en memoria. El mock devuelve vacío (índice sin
+     * construir): salvo que el test diga otra cosa, se consulta la tabla.
+     */
+    @Mock
+    private IndiceNoLeidos indiceNoLeidos;
+
     /**
      * Instancia del servicio que vamos a probar.
      *
@@ -144,10 +215,10 @@ class MensajeServiceImplTest {
         assertThat(resultado).isNotNull();
 
         // 4. Verificar que el DTO tiene los datos correctos
-        assertThat(resultado.getNombre()).isEqualTo(mensajeRequestDTO.getNombre());
-        assertThat(resultado.getEmail()).isEqualTo(mensajeRequestDTO.getEmail());
-        assertThat(resultado.getContenido()).isEqualTo(mensajeRequestDTO.getContenido());
-        assertThat(resultado.getLeido()).isFalse();  // Debe estar en false por defecto
+        assertThat(resultado.nombre()).isEqualTo(mensajeRequestDTO.getNombre());
+        assertThat(resultado.email()).isEqualTo(mensajeRequestDTO.getEmail());
+        assertThat(resultado.contenido()).isEqualTo(mensajeRequestDTO.getContenido());
+        assertThat(resultado.leido()).isFalse();  // Debe estar en false por defecto
 
         // 5. Verificar que se llamó al repositorio EXACTAMENTE una vez
         verify(mensajeRepository, times(1)).save(any(Mensaje.class));
@@ -195,8 +266,28 @@ class MensajeServiceImplTest {
         // .isInstanceOf(X.class)          → Verifica que la excepción es del tipo correcto
         // .hasMessageContaining("...")    → Verifica que el mensaje contiene el texto
 
-        // 4. Verificar que se intentó buscar en el repositorio
+        // 4. Verificar que se intentó buscar en el repositorio y después en el archivo
         verify(mensajeRepository, times(1)).findById(idInexistente);
+        verify(archivoMensajes, times(1)).buscar(idInexistente);
+    }
+
+    /**
+     * Test para obtenerPorId() cuando el mensaje está archivado.
+     *
+     * Escenario: El mensaje ya no está en la tabla pero sí en el archivo en frío
+     * Resultado esperado: Se devuelve desde el archivo de forma transparente
+     */
+    @Test
+    @DisplayName("Obtener mensaje archivado debe leerlo del archivo en frío")
+    void obtenerPorId_cuandoMensajeArchivado_debeLeerDelArchivo() {
+        mensaje.setLeido(true);
+        when(mensajeRepository.findById(1L)).thenReturn(Optional.empty());
+        when(archivoMensajes.buscar(1L)).thenReturn(Optional.of(mensaje));
+
+        MensajeResponseDTO resultado = mensajeService.obtenerPorId(1L);
+
+        assertThat(resultado.id()).isEqualTo(1L);
+        assertThat(resultado.leido()).isTrue();
     }
 
     /**
@@ -229,11 +320,11 @@ class MensajeServiceImplTest {
         assertThat(resultado).isNotNull();
 
         // Verificar que tiene los datos correctos
-        assertThat(resultado.getId()).isEqualTo(mensaje.getId());
-        assertThat(resultado.getNombre()).isEqualTo(mensaje.getNombre());
-        assertThat(resultado.getEmail()).isEqualTo(mensaje.getEmail());
-        assertThat(resultado.getContenido()).isEqualTo(mensaje.getContenido());
-        assertThat(resultado.getLeido()).isEqualTo(mensaje.getLeido());
+        assertThat(resultado.id()).isEqualTo(mensaje.getId());
+        assertThat(resultado.nombre()).isEqualTo(mensaje.getNombre());
+        assertThat(resultado.email()).isEqualTo(mensaje.getEmail());
+        assertThat(resultado.contenido()).isEqualTo(mensaje.getContenido());
+        assertThat(resultado.leido()).isEqualTo(mensaje.getLeido());
 
         // Verificar que se buscó en el repositorio
         verify(mensajeRepository, times(1)).findById(idExistente);
@@ -243,7 +334,7 @@ class MensajeServiceImplTest {
      * Test para marcarComoLeido() cuando el mensaje existe.
      *
      * Escenario: Cliente marca un mensaje existente como leído
-     * Resultado esperado: El mensaje se actualiza a leido=true y se guarda
+     * Resultado esperado: Un UPDATE condicional lo marca (sin leer y guardar la entidad)
      */
     @Test
     @DisplayName("Marcar mensaje como leído debe actualizar el estado")
@@ -255,36 +346,88 @@ class MensajeServiceImplTest {
 
         // El mensaje inicialmente está NO leído
         mensaje.setLeido(false);
+        mensaje.setVersion(3L);
 
-        // Configurar mock para findById (devuelve el mensaje)
-        when(mensajeRepository.findById(idExistente))
-                .thenReturn(Optional.of(mensaje));
-
-        // Configurar mock para save (devuelve el mensaje actualizado)
-        when(mensajeRepository.save(any(Mensaje.class)))
+        // Simular el UPDATE: la fila pasa a leída y sube su versión
+        when(mensajeRepository.marcarLeido(eq(idExistente), isNull(), any()))
                 .thenAnswer(invocation -> {
-                    // Simular que la BD guardó el mensaje
-                    Mensaje mensajeGuardado = invocation.getArgument(0);
-                    return mensajeGuardado;
+                    mensaje.setLeido(true);
+                    mensaje.setFechaLectura(invocation.getArgument(2));
+                    mensaje.setVersion(4L);
+                    return 1;
                 });
+        when(mensajeRepository.findById(idExistente))
+                .thenReturn(Optional.of(mensaje));
 
         // ==========================================
         // ACT
         // ==========================================
-        MensajeResponseDTO resultado = mensajeService.marcarComoLeido(idExistente);
+        MensajeVersionadoDTO resultado = mensajeService.marcarComoLeido(idExistente, null);
 
         // ==========================================
         // ASSERT
         // ==========================================
-        // Verificar que el resultado tiene leido=true
-        assertThat(resultado).isNotNull();
-        assertThat(resultado.getLeido()).isTrue();
+        // Verificar que el resultado tiene leido=true y la versión nueva
+        assertThat(resultado.mensaje().leido()).isTrue();
+        assertThat(resultado.version()).isEqualTo(4L);
 
-        // Verificar que se buscó el mensaje
-        verify(mensajeRepository, times(1)).findById(idExistente);
+        // No se guarda la entidad: el cambio lo hace el UPDATE
+        verify(mensajeRepository, never()).save(any(Mensaje.class));
 
-        // Verificar que se guardó el mensaje actualizado
-        verify(mensajeRepository, times(1)).save(any(Mensaje.class));
+        // Queda anotado cuándo se leyó
+        assertThat(mensaje.getFechaLectura()).isNotNull();
+
+        // Deja de contar como no leído en su remitente y en el índice
+        verify(escritorRemitentes).mensajeLeido(mensaje);
+        verify(indiceNoLeidos).quitar(idExistente);
+
+        // El tiempo hasta la lectura se anota aunque los rollups estén desactivados
+        verify(lecturasPendientes).registrar(mensaje.getFechaCreacion(), mensaje.getFechaLectura());
+    }
+
+    /**
+     * Test para marcarComoLeido() sobre un mensaje ya leído.
+     *
+     * Resultado esperado: no es un conflicto; se devuelve tal cual, con la
+     * fecha de la primera lectura, aunque la versión de If-Match sea antigua
+     */
+    @Test
+    @DisplayName("Volver a marcar un mensaje leído no debe cambiar nada ni dar conflicto")
+    void marcarComoLeido_cuandoYaLeido_debeSerIdempotente() {
+        LocalDateTime primeraLectura = LocalDateTime.of(2025, 10, 20, 9, 0);
+        mensaje.setLeido(true);
+        mensaje.setFechaLectura(primeraLectura);
+        mensaje.setVersion(5L);
+        when(mensajeRepository.marcarLeido(eq(1L), eq(4L), any())).thenReturn(0);
+        when(mensajeRepository.findById(1L)).thenReturn(Optional.of(mensaje));
+        long versionAnterior = versionBuzon.actual();
+
+        MensajeVersionadoDTO resultado = mensajeService.marcarComoLeido(1L, 4L);
+
+        assertThat(mensaje.getFechaLectura()).isEqualTo(primeraLectura);
+        assertThat(resultado.version()).isEqualTo(5L);
+        assertThat(versionBuzon.actual()).isEqualTo(versionAnterior);
+        // Ya no contaba como no leído en su remitente
+        verify(escritorRemitentes, never()).mensajeLeido(any());
+    }
+
+    /**
+     * Test para marcarComoLeido() con una versión que ya no es la del mensaje.
+     *
+     * Escenario: otro administrador lo cambió y sigue sin leer
+     * Resultado esperado: VersionNoCoincideException (412) y ningún efecto
+     */
+    @Test
+    @DisplayName("Marcar como leído con una versión antigua debe lanzar VersionNoCoincideException")
+    void marcarComoLeido_cuandoVersionNoCoincide_debeLanzarExcepcion() {
+        mensaje.setLeido(false);
+        mensaje.setVersion(7L);
+        when(mensajeRepository.marcarLeido(eq(1L), eq(6L), any())).thenReturn(0);
+        when(mensajeRepository.findById(1L)).thenReturn(Optional.of(mensaje));
+
+        assertThatThrownBy(() -> mensajeService.marcarComoLeido(1L, 6L))
+                .isInstanceOf(VersionNoCoincideException.class);
+        verify(escritorRemitentes, never()).mensajeLeido(any());
     }
 
     /**
@@ -302,8 +445,8 @@ class MensajeServiceImplTest {
         Long idInexistente = 999L;
 
         // Configurar mock para que diga que NO existe
-        when(mensajeRepository.existsById(idInexistente))
-                .thenReturn(false);
+        when(mensajeRepository.findById(idInexistente))
+                .thenReturn(Optional.empty());
 
         // ==========================================
         // ACT & ASSERT
@@ -313,12 +456,509 @@ class MensajeServiceImplTest {
                 .isInstanceOf(MensajeNotFoundException.class)
                 .hasMessageContaining("Mensaje no encontrado con ID: 999");
 
-        // Verificar que se verificó la existencia
-        verify(mensajeRepository, times(1)).existsById(idInexistente);
+        // Verificar que se buscó el mensaje
+        verify(mensajeRepository, times(1)).findById(idInexistente);
 
         // Verificar que NO se intentó eliminar (porque no existe)
+        verify(mensajeRepository, never()).marcarEliminado(anyLong(), any(), any());
+        verify(escritorRemitentes, never()).mensajeEliminado(any());
+    }
+
+    /**
+     * Test para eliminar() cuando el mensaje existe.
+     *
+     * Resultado esperado: se marca como eliminado (sin DELETE) y se descuenta de su remitente
+     */
+    @Test
+    @DisplayName("Eliminar un mensaje debe marcarlo y descontarlo de su remitente")
+    void eliminar_cuandoMensajeExiste_debeMarcarloYDescontarDelRemitente() {
+        when(mensajeRepository.findById(1L)).thenReturn(Optional.of(mensaje));
+        when(mensajeRepository.marcarEliminado(eq(1L), isNull(), any())).thenReturn(1);
+
+        mensajeService.eliminar(1L);
+
+        verify(mensajeRepository, never()).delete(any(Mensaje.class));
         verify(mensajeRepository, never()).deleteById(any(Long.class));
+        verify(escritorRemitentes).mensajeEliminado(mensaje);
+    }
+
+    /**
+     * Test para eliminar() cuando otra petición lo eliminó a la vez.
+     *
+     * Resultado esperado: 404 y el remitente no se descuenta dos veces
+     */
+    @Test
+    @DisplayName("Eliminar dos veces a la vez no debe descontar dos veces")
+    void eliminar_cuandoOtraPeticionLoElimino_debeLanzarExcepcion() {
+        when(mensajeRepository.findById(1L)).thenReturn(Optional.of(mensaje));
+        when(mensajeRepository.marcarEliminado(eq(1L), isNull(), any())).thenReturn(0);
+
+        assertThatThrownBy(() -> mensajeService.eliminar(1L))
+                .isInstanceOf(MensajeNotFoundException.class);
+        verify(escritorRemitentes, never()).mensajeEliminado(any());
+    }
+
+    /**
+     * Test para eliminar() con If-Match de una versión antigua.
+     *
+     * Resultado esperado: 412 sin llegar a lanzar el UPDATE
+     */
+    @Test
+    @DisplayName("Eliminar con una versión antigua debe lanzar VersionNoCoincideException")
+    void eliminar_cuandoVersionNoCoincide_debeLanzarExcepcion() {
+        mensaje.setVersion(2L);
+        when(mensajeRepository.findById(1L)).thenReturn(Optional.of(mensaje));
+
+        assertThatThrownBy(() -> mensajeService.eliminar(1L, 1L))
+                .isInstanceOf(VersionNoCoincideException.class);
+        verify(mensajeRepository, never()).marcarEliminado(anyLong(), any(), any());
+        verify(escritorRemitentes, never()).mensajeEliminado(any());
+    }
+
+    /**
+     * Test para restaurar().
+     *
+     * Resultado esperado: vuelve a contar en su remitente
+     */
+    @Test
+    @DisplayName("Restaurar un mensaje eliminado debe devolverlo y volver a contarlo")
+    void restaurar_cuandoEliminado_debeVolverAContarEnRemitente() {
+        mensaje.setEliminadoEn(LocalDateTime.of(2025, 10, 20, 9, 0));
+        when(mensajeRepository.buscarEliminado(1L)).thenReturn(Optional.of(mensaje));
+        when(mensajeRepository.restaurar(1L)).thenReturn(1);
+
+        MensajeResponseDTO resultado = mensajeService.restaurar(1L);
+
+        assertThat(resultado.id()).isEqualTo(1L);
+        verify(escritorRemitentes).mensajeCreado(mensaje);
+    }
+
+    /**
+     * Test para restaurar() de un mensaje que no está eliminado (o ya se purgó).
+     */
+    @Test
+    @DisplayName("Restaurar un mensaje no eliminado debe lanzar MensajeNotFoundException")
+    void restaurar_cuandoNoEliminado_debeLanzarExcepcion() {
+        when(mensajeRepository.buscarEliminado(1L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> mensajeService.restaurar(1L))
+                .isInstanceOf(MensajeNotFoundException.class);
+        verify(mensajeRepository, never()).restaurar(anyLong());
     }
 
+    /**
+     * Test para buscarSimilares().
+     *
+     * Escenario: Hay candidatos que comparten banda pero solo uno está cerca de verdad
+     * Resultado esperado: Solo se devuelven los que están dentro de la distancia pedida
+     */
+    @Test
+    @DisplayName("Buscar similares debe filtrar los candidatos por distancia de Hamming")
+    void buscarSimilares_debeFiltrarCandidatosPorDistancia() {
+        // ==========================================
+        // ARRANGE
+        // ==========================================
+        long huella = SimHash.calcular(mensaje.getContenido());
+        mensaje.setSimhash(huella);
+        LocalDateTime fecha = LocalDateTime.now();
+
+        Mensaje casiIgual = new Mensaje();
+        casiIgual.setId(2L);
+        casiIgual.setSimhash(huella ^ 0b101L);          // 2 bits distintos
+
+        when(mensajeRepository.findById(1L)).thenReturn(Optional.of(mensaje));
+        when(mensajeRepository.buscarCandidatosSimilares(
+                anyLong(), anyInt(), anyInt(), anyInt(), anyInt(), any()))
+                .thenReturn(List.of(
+                        new HuellaSimilarDTO(2L, fecha, casiIgual.getSimhash()),
+                        new HuellaSimilarDTO(3L, fecha, huella ^ 0xFFFF_0000_0000L)));  // 16 bits distintos, comparte bandas
+        when(mensajeRepository.findAllById(List.of(2L))).thenReturn(List.of(casiIgual));
+
+        // ==========================================
+        // ACT
+        // ==========================================
+        List<MensajeResponseDTO> resultado = mensajeService.buscarSimilares(1L, 3);
+
+        // ==========================================
+        // ASSERT
+        // ==========================================
+        assertThat(resultado)
+                .extracting(MensajeResponseDTO::id)
+                .containsExactly(2L);
+    }
 
-}
\ No newline at end of file
+    /**
+     * Test para buscarSimilares() con una plantilla muy repetida.
+     *
+     * Escenario: el primer lote de candidatos está lleno y ninguno está cerca
+     * de verdad; el similar está en el segundo lote
+     * Resultado esperado: se sigue al siguiente lote y se encuentra
+     */
+    @Test
+    @DisplayName("Buscar similares debe seguir por lotes hasta encontrar los que están lejos en el tiempo")
+    void buscarSimilares_debeRecorrerLosCandidatosPorLotes() {
+        long huella = SimHash.calcular(mensaje.getContenido());
+        mensaje.setSimhash(huella);
+        LocalDateTime fecha = LocalDateTime.now();
+        List<HuellaSimilarDTO> lejanos = LongStream.range(0, MensajeServiceImpl.LOTE_CANDIDATOS_SIMILARES)
+                .mapToObj(i -> new HuellaSimilarDTO(1000L - i, fecha, huella ^ 0xFFFF_0000_0000L))
+                .toList();
+        Mensaje antiguo = new Mensaje();
+        antiguo.setId(5L);
+        antiguo.setSimhash(huella ^ 1L);
+
+        when(mensajeRepository.findById(1L)).thenReturn(Optional.of(mensaje));
+        when(mensajeRepository.buscarCandidatosSimilares(
+                anyLong(), anyInt(), anyInt(), anyInt(), anyInt(), any())).thenReturn(lejanos);
+        when(mensajeRepository.buscarCandidatosSimilaresAntesDe(
+                eq(1L), anyInt(), anyInt(), anyInt(), anyInt(), eq(fecha), eq(501L), any()))
+                .thenReturn(List.of(new HuellaSimilarDTO(5L, fecha.minusYears(1), antiguo.getSimhash())));
+        when(mensajeRepository.findAllById(List.of(5L))).thenReturn(List.of(antiguo));
+
+        assertThat(mensajeService.buscarSimilares(1L, 3)).extracting(MensajeResponseDTO::id).containsExactly(5L);
+    }
+
+    /**
+     * Test para buscarSimilares() de un mensaje sin palabras.
+     *
+     * Escenario: El contenido son solo signos (huella vacía, sin bandas)
+     * Resultado esperado: No hay similares y no se consulta por bandas
+     */
+    @Test
+    @DisplayName("Buscar similares de un mensaje sin palabras no debe buscar candidatos")
+    void buscarSimilares_cuandoSinPalabras_debeDevolverVacio() {
+        mensaje.setContenido("?!?! ... !!!");
+        mensaje.setSimhash(SimHash.calcular(mensaje.getContenido()));
+        when(mensajeRepository.findById(1L)).thenReturn(Optional.of(mensaje));
+
+        assertThat(mensajeService.buscarSimilares(1L, 3)).isEmpty();
+        assertThat(mensaje.getSimhashBanda0()).isNull();
+        verify(mensajeRepository, never()).buscarCandidatosSimilares(
+                anyLong(), anyInt(), anyInt(), anyInt(), anyInt(), any());
+    }
+
+    /**
+     * Test: Listado con límite de filas (perfil constrained).
+     *
+     * Escenario: buzon.memoria.maximo-filas-listado=2
+     * Resultado esperado: Se pide a la BD con LIMIT en lugar de leer toda la tabla
+     */
+    @Test
+    @DisplayName("Con límite de filas obtenerTodos debe consultar solo los más recientes")
+    void obtenerTodos_cuandoHayLimite_debeConsultarConLimit() {
+        // ARRANGE
+        propiedades.getMemoria().setMaximoFilasListado(2);
+        MensajeResponseDTO dto = new MensajeResponseDTO(1L, "Juan", "juan@test.com",
+                "Hola", LocalDateTime.now(), false, "principal");
+        when(mensajeRepository.listarDTO(PageRequest.of(0, 2)))
+                .thenReturn(List.of(dto));
+
+        // ACT
+        List<MensajeResponseDTO> resultado = mensajeService.obtenerTodos();
+
+        // ASSERT
+        assertThat(resultado).hasSize(1);
+        verify(mensajeRepository, never()).listarDTO(Pageable.unpaged());
+    }
+
+    /**
+     * Test: Búsqueda por email sin distinguir mayúsculas.
+     *
+     * Escenario: Se busca " Juan@Test.COM "
+     * Resultado esperado: Se consulta la columna normalizada con "juan@test.com"
+     */
+    @Test
+    @DisplayName("Buscar por email debe usar el email normalizado")
+    void obtenerPorEmail_debeBuscarPorEmailNormalizado() {
+        MensajeResponseDTO dto = new MensajeResponseDTO(1L, "Juan", "Juan@Test.com",
+                "Hola", LocalDateTime.now(), false, "principal");
+        when(mensajeRepository.listarDTOPorEmail("juan@test.com", Pageable.unpaged()))
+                .thenReturn(List.of(dto));
+
+        List<MensajeResponseDTO> resultado = mensajeService.obtenerPorEmail(" Juan@Test.COM ");
+
+        assertThat(resultado).containsExactly(dto);
+    }
+
+    /**
+     * Test: Al asignar email y nombre se rellenan sus columnas normalizadas.
+     */
+    @Test
+    @DisplayName("El mensaje debe mantener sincronizados email y nombre normalizados")
+    void mensaje_debeRellenarColumnasNormalizadas() {
+        Mensaje nuevo = new Mensaje();
+        nuevo.setNombre("Miguel  ALVARADO");
+        nuevo.setEmail("Miguel@Example.com");
+
+        assertThat(nuevo.getNombreNormalizado()).isEqualTo("miguel alvarado");
+        assertThat(nuevo.getEmailNormalizado()).isEqualTo("miguel@example.com");
+        assertThat(nuevo.getEmail()).isEqualTo("Miguel@Example.com");
+    }
+
+    /**
+     * Test: Las escrituras cambian la versión del buzón (ETag).
+     *
+     * Escenario: Se crea un mensaje
+     * Resultado esperado: La versión cambia, así los clientes no reciben 304 con datos viejos
+     */
+    @Test
+    @DisplayName("Crear mensaje debe cambiar la versión del buzón")
+    void crear_debeIncrementarVersionBuzon() {
+        // ARRANGE
+        when(mensajeRepository.save(any(Mensaje.class))).thenReturn(mensaje);
+        String etagAnterior = versionBuzon.etag();
+
+        // ACT
+        mensajeService.crear(mensajeRequestDTO);
+
+        // ASSERT
+        assertThat(versionBuzon.etag()).isNotEqualTo(etagAnterior);
+    }
+
+    /**
+     * Test: Crear un mensaje deja su aviso en el outbox.
+     *
+     * Escenario: Se crea un mensaje
+     * Resultado esperado: Se publica el evento con el mensaje guardado (mismo id)
+     */
+    @Test
+    @DisplayName("Crear mensaje debe publicar su evento de notificación")
+    void crear_debePublicarEventoDeNotificacion() {
+        // ARRANGE
+        when(mensajeRepository.save(any(Mensaje.class))).thenReturn(mensaje);
+
+        // ACT
+        MensajeResponseDTO resultado = mensajeService.crear(mensajeRequestDTO);
+
+        // ASSERT
+        verify(publicadorEventos).mensajeCreado(resultado);
+        assertThat(resultado.id()).isEqualTo(1L);
+    }
+
+    /**
+     * Test: Crear un mensaje suma uno a su remitente.
+     */
+    @Test
+    @DisplayName("Crear mensaje debe actualizar el contador de su remitente")
+    void crear_debeActualizarRemitente() {
+        when(mensajeRepository.save(any(Mensaje.class))).thenReturn(mensaje);
+
+        mensajeService.crear(mensajeRequestDTO);
+
+        verify(escritorRemitentes).mensajeCreado(mensaje);
+    }
+
+    /**
+     * Test: Con la compresión activa, un mensaje largo se guarda comprimido.
+     *
+     * Resultado esperado: en la fila solo van los bytes y la vista previa,
+     * pero la respuesta lleva el contenido completo
+     */
+    @Test
+    @DisplayName("Crear mensaje largo con compresión debe guardarlo comprimido con su vista previa")
+    void crear_conCompresion_debeGuardarContenidoComprimido() {
+        propiedades.getCompresion().setHabilitada(true);
+        String largo = "Hola, me gustaría recibir más información sobre sus servicios. ".repeat(5);
+        when(mensajeRepository.save(any(Mensaje.class))).thenAnswer(invocation -> {
+            Mensaje guardado = invocation.getArgument(0);
+            guardado.setId(7L);
+            return guardado;
+        });
+
+        MensajeResponseDTO resultado = mensajeService.crear(
+                new MensajeRequestDTO("Ana", "ana@example.com", largo, null));
+
+        verify(mensajeRepository).save(argThat(m -> m.getContenidoComprimido() != null
+                && m.getVistaPrevia().length() == Mensaje.LONGITUD_VISTA_PREVIA
+                && m.getVistaPrevia().endsWith("…")));
+        assertThat(resultado.contenido()).isEqualTo(largo);
+    }
+
+    /**
+     * Test: Las lecturas no cambian la versión del buzón.
+     */
+    @Test
+    @DisplayName("Obtener mensaje no debe cambiar la versión del buzón")
+    void obtenerPorId_noDebeCambiarVersionBuzon() {
+        // ARRANGE
+        when(mensajeRepository.findById(1L)).thenReturn(Optional.of(mensaje));
+        long versionAnterior = versionBuzon.actual();
+
+        // ACT
+        mensajeService.obtenerPorId(1L);
+
+        // ASSERT
+        assertThat(versionBuzon.actual()).isEqualTo(versionAnterior);
+    }
+
+    /**
+     * Test: Contador de no leídos con el índice construido.
+     *
+     * Resultado esperado: la cardinalidad del índice, sin COUNT a la tabla
+     */
+    @Test
+    @DisplayName("Contar no leídos con el índice construido no debe consultar la tabla")
+    void contarNoLeidos_conIndice_noDebeConsultarLaTabla() {
+        when(indiceNoLeidos.contar()).thenReturn(OptionalLong.of(42));
+
+        assertThat(mensajeService.contarNoLeidos()).isEqualTo(42L);
+        verify(mensajeRepository, never()).countByLeido(any());
+    }
+
+    /**
+     * Test: Contador de no leídos mientras el índice se construye.
+     */
+    @Test
+    @DisplayName("Contar no leídos sin índice debe consultar la tabla")
+    void contarNoLeidos_sinIndice_debeConsultarLaTabla() {
+        when(mensajeRepository.countByLeido(false)).thenReturn(5L);
+
+        assertThat(mensajeService.contarNoLeidos()).isEqualTo(5L);
+    }
+
+    /**
+     * Test: Página de no leídos con el índice construido.
+     *
+     * Escenario: la última página; el índice da los ids 9, 7 y 4 (de mayor a
+     * menor), la consulta IN los devuelve desordenados y el 7 ya se ha leído
+     * Resultado esperado: la página sigue el orden del índice, sin el 7, y
+     * el total es el de las páginas anteriores más lo devuelto (22, no los
+     * 23 del índice, que aún contaba el 7)
+     */
+    @Test
+    @DisplayName("Última página de no leídos con el índice debe seguir su orden y cuadrar el total")
+    void obtenerNoLeidosPaginado_conIndice_debeUsarSusIds() {
+        when(indiceNoLeidos.pagina(20, 10)).thenReturn(Optional.of(new long[]{9, 7, 4}));
+        when(indiceNoLeidos.contar()).thenReturn(OptionalLong.of(23));
+        when(mensajeRepository.listarDTONoLeidosPorIds(List.of(9L, 7L, 4L))).thenReturn(List.of(
+                new MensajeResponseDTO(4L, "Ana", "ana@test.com", "Hola", LocalDateTime.now(), false, "principal"),
+                new MensajeResponseDTO(9L, "Luis", "luis@test.com", "Hola", LocalDateTime.now(), false, "principal")));
+
+        Page<MensajeResponseDTO> pagina = mensajeService.obtenerNoLeidosPaginado(2, 10, false);
+
+        assertThat(pagina.getContent()).extracting(MensajeResponseDTO::id).containsExactly(9L, 4L);
+        assertThat(pagina.getTotalElements()).isEqualTo(22);
+        assertThat(pagina.getSort()).isEqualTo(Sort.by("fechaCreacion").descending().and(Sort.by("id").descending()));
+        verify(mensajeRepository, never()).paginarDTOPorLeido(any(), any());
+    }
+
+    /**
+     * Test: Página intermedia de no leídos con el índice construido.
+     *
+     * Resultado esperado: el total es la cardinalidad del índice, sin COUNT a la tabla
+     */
+    @Test
+    @DisplayName("Página intermedia de no leídos con el índice debe dar el total del índice")
+    void obtenerNoLeidosPaginado_conIndice_debeDarElTotalDelIndice() {
+        when(indiceNoLeidos.pagina(2, 2)).thenReturn(Optional.of(new long[]{9, 4}));
+        when(indiceNoLeidos.contar()).thenReturn(OptionalLong.of(23));
+        when(mensajeRepository.listarDTONoLeidosPorIds(List.of(9L, 4L))).thenReturn(List.of(
+                new MensajeResponseDTO(9L, "Luis", "luis@test.com", "Hola", LocalDateTime.now(), false, "principal"),
+                new MensajeResponseDTO(4L, "Ana", "ana@test.com", "Hola", LocalDateTime.now(), false, "principal")));
+
+        Page<MensajeResponseDTO> pagina = mensajeService.obtenerNoLeidosPaginado(1, 2, false);
+
+        assertThat(pagina.getTotalElements()).isEqualTo(23);
+        verify(mensajeRepository, never()).countByLeido(any());
+    }
+
+    /**
+     * Test: Página de no leídos sin índice (o con sus ids fuera del orden de las fechas).
+     *
+     * Resultado esperado: la consulta ordena igual que el índice, por fecha y
+     * después por id
+     */
+    @Test
+    @DisplayName("Página de no leídos sin índice debe ordenar como el índice")
+    void obtenerNoLeidosPaginado_sinIndice_debeOrdenarComoElIndice() {
+        Pageable pageable = PageRequest.of(2, 10, Sort.by("fechaCreacion").descending().and(Sort.by("id").descending()));
+        Page<MensajeResponseDTO> esperada = new PageImpl<>(List.of(), pageable, 20);
+        when(mensajeRepository.paginarDTOPorLeido(false, pageable)).thenReturn(esperada);
+
+        assertThat(mensajeService.obtenerNoLeidosPaginado(2, 10, false)).isSameAs(esperada);
+    }
+
+    /**
+     * Test: Búsqueda por palabra sin mensajes comprimidos.
+     *
+     * Resultado esperado: una sola consulta LIKE, sin recorrer comprimidos
+     */
+    @Test
+    @DisplayName("Buscar por palabra sin comprimidos debe ser una sola consulta")
+    void buscarPorContenido_sinComprimidos_debeConsultarSoloLaTabla() {
+        Pageable pageable = PageRequest.of(1, 10, Sort.by("fechaCreacion").descending().and(Sort.by("id").descending()));
+        Page<MensajeResponseDTO> esperada = new PageImpl<>(List.of(), pageable, 10);
+        when(mensajeRepository.paginarDTOPorContenido("precio", pageable)).thenReturn(esperada);
+
+        assertThat(mensajeService.buscarPorContenido("precio", 1, 10)).isSameAs(esperada);
+        verify(mensajeRepository, never()).buscarComprimidos(any());
+    }
+
+    /**
+     * Test: Búsqueda por palabra con mensajes comprimidos.
+     *
+     * Escenario: la palabra está pasados los 200 caracteres de la vista
+     * previa de un comprimido (id 6), y no está en otro (id 4)
+     * Resultado esperado: el 6 sale mezclado por fecha con los de texto y
+     * cuenta en el total
+     */
+    @Test
+    @DisplayName("Buscar por palabra debe encontrarla en el texto completo de los comprimidos")
+    void buscarPorContenido_conComprimidos_debeBuscarEnElTextoDescomprimido() {
+        LocalDateTime ahora = LocalDateTime.of(2025, 10, 19, 12, 0);
+        String relleno = "Hola, me gustaría recibir más información sobre sus servicios. ".repeat(5);
+        when(mensajeRepository.existsByContenidoComprimidoIsNotNull()).thenReturn(true);
+        when(mensajeRepository.paginarDTOPorContenido(eq("presupuesto"), any())).thenReturn(new PageImpl<>(List.of(
+                new MensajeResponseDTO(5L, "Luis", "luis@test.com", "Un presupuesto", ahora.minusDays(1), false, "principal"),
+                new MensajeResponseDTO(2L, "Eva", "eva@test.com", "Otro presupuesto", ahora.minusDays(3), true, "principal")),
+                PageRequest.of(0, 2), 2));
+        when(mensajeRepository.buscarComprimidos(any())).thenReturn(List.of(
+                new ContenidoComprimidoDTO(6L, ahora, ContenidoComprimido.de(relleno + "¿Me pasan un presupuesto?")),
+                new ContenidoComprimidoDTO(4L, ahora.minusDays(2), ContenidoComprimido.de(relleno))));
+        when(mensajeRepository.listarDTOPorIds(List.of(6L))).thenReturn(List.of(
+                new MensajeResponseDTO(6L, "Ana", "ana@test.com", "Hola…", ahora, false, "principal")));
+
+        Page<MensajeResponseDTO> pagina = mensajeService.buscarPorContenido("presupuesto", 0, 2);
+
+        assertThat(pagina.getContent()).extracting(MensajeResponseDTO::id).containsExactly(6L, 5L);
+        assertThat(pagina.getTotalElements()).isEqualTo(3);
+        verify(mensajeRepository, never()).buscarComprimidosAntesDe(any(), any(), any());
+    }
+
+    /**
+     * Test: Eliminar y restaurar mantienen el índice de no leídos.
+     */
+    @Test
+    @DisplayName("Eliminar y restaurar un mensaje sin leer deben quitarlo y volver a añadirlo al índice")
+    void eliminarYRestaurar_debenMantenerElIndice() {
+        when(mensajeRepository.findById(1L)).thenReturn(Optional.of(mensaje));
+        when(mensajeRepository.marcarEliminado(eq(1L), isNull(), any())).thenReturn(1);
+        when(mensajeRepository.buscarEliminado(1L)).thenReturn(Optional.of(mensaje));
+        when(mensajeRepository.restaurar(1L)).thenReturn(1);
+
+        mensajeService.eliminar(1L);
+        mensajeService.restaurar(1L);
+
+        verify(indiceNoLeidos).quitar(1L);
+        verify(indiceNoLeidos).agregar(1L, mensaje.getFechaCreacion());
+    }
+
+    /**
+     * Test: Estadísticas con la tabla vacía.
+     *
+     * Escenario: SUM devuelve null cuando no hay filas
+     * Resultado esperado: Todos los contadores a 0
+     */
+    @Test
+    @DisplayName("Estadísticas con la tabla vacía deben ser cero")
+    void obtenerEstadisticas_cuandoTablaVacia_debeDevolverCeros() {
+        // ARRANGE
+        when(mensajeRepository.obtenerEstadisticas()).thenReturn(new EstadisticasDTO(0L, null));
+
+        // ACT
+        EstadisticasDTO resultado = mensajeService.obtenerEstadisticas();
+
+        // ASSERT
+        assertThat(resultado).isEqualTo(new EstadisticasDTO(0, 0, 0));
+    }
+}
@@ -0,0 +1,322 @@
+package com.miguel.buzon_mensajes.service.importacion;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.dto.ResultadoImportacionDTO;
+import com.miguel.buzon_mensajes.exception.ImportacionEnCursoException;
+import com.miguel.buzon_mensajes.exception.ImportacionRechazadaException;
+import com.miguel.buzon_mensajes.model.Importacion;
+import com.miguel.buzon_mensajes.model.MarcaAgua;
+import com.miguel.buzon_mensajes.model.Mensaje;
+import com.miguel.buzon_mensajes.repository.ImportacionRepository;
+import com.miguel.buzon_mensajes.repository.MarcaAguaRepository;
+import com.miguel.buzon_mensajes.service.VersionBuzon;
+import com.miguel.buzon_mensajes.service.analitica.EscritorRollups;
+import com.miguel.buzon_mensajes.service.noleidos.IndiceNoLeidos;
+import com.miguel.buzon_mensajes.service.remitente.EscritorRemitentes;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitarios para ImportadorMensajes (repositorio y escritor simulados, sin BD).
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para ImportadorMensajes")
+class ImportadorMensajesTest {
+
+    private static final Clock RELOJ = Clock.fixed(Instant.parse("2025-10-19T12:00:00Z"), ZoneOffset.UTC);
+
+    private static final String CLAVE = "migracion";
+
+    @Mock
+    private ImportacionRepository importacionRepository;
+
+    @Mock
+    private EscritorMensajesJdbc escritor;
+
+    @Mock
+    private EscritorRemitentes escritorRemitentes;
+
+    @Mock
+    private EscritorRollups escritorRollups;
+
+    @Mock
+    private MarcaAguaRepository marcaAguaRepository;
+
+    @Mock
+    private IndiceNoLeidos indiceNoLeidos;
+
+    private final BuzonProperties propiedades = new BuzonProperties();
+
+    /**
+     * Copia de cada lote insertado (la lista original se reutiliza).
+     */
+    private final List<List<Mensaje>> lotes = new ArrayList<>();
+
+    /**
+     * Línea confirmada en cada save del progreso.
+     */
+    private final List<Long> confirmadas = new ArrayList<>();
+
+    /**
+     * Último progreso guardado: lo que devuelve bloquear en el siguiente lote.
+     */
+    private Importacion guardada;
+
+    private ImportadorMensajes importador;
+
+    @BeforeEach
+    void setUp() {
+        TransactionTemplate transacciones = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        PreparadorMensajes preparador = new PreparadorMensajes(
+                Validation.buildDefaultValidatorFactory().getValidator(), propiedades);
+        importador = new ImportadorMensajes(importacionRepository, preparador, escritor, escritorRemitentes,
+                escritorRollups, marcaAguaRepository, new VersionBuzon(), indiceNoLeidos,
+                new ObjectMapper().findAndRegisterModules(), propiedades, transacciones, null, RELOJ);
+    }
+
+    @Test
+    @DisplayName("Debe importar las filas válidas y detallar las inválidas con su línea")
+    void ndjson_debeSepararValidasEInvalidas() {
+        sinProgresoPrevio();
+        String ndjson = """
+                {"id":7,"nombre":"Ana","email":"ana@example.com","contenido":"Hola, quería información","fechaCreacion":"2024-05-01T10:00:00","leido":true,"buzon":"ventas"}
+                {"nombre":"Luis","email":"no-es-un-email","contenido":"Consulta sobre precios"}
+
+                {no es json
+                {"nombre":"  Eva ","email":" Eva@Example.COM","contenido":"Necesito un\\u0000 presupuesto\\r\\n"}
+                """;
+
+        ResultadoImportacionDTO resultado = importador.importar(CLAVE, ImportadorMensajes.Formato.NDJSON, texto(ndjson));
+
+        assertThat(resultado.procesados()).isEqualTo(4);
+        assertThat(resultado.importados()).isEqualTo(2);
+        assertThat(resultado.invalidos()).isEqualTo(2);
+        assertThat(resultado.errores()).extracting(ResultadoImportacionDTO.Rechazo::linea).containsExactly(2L, 4L);
+        assertThat(resultado.errores().get(0).motivos())
+                .containsExactly(new ResultadoImportacionDTO.Motivo("email", "El email debe ser válido"));
+        assertThat(resultado.errores().get(1).motivos()).singleElement()
+                .satisfies(motivo -> assertThat(motivo.campo()).isNull());
+
+        assertThat(lotes).hasSize(1);
+        Mensaje ana = lotes.get(0).get(0);
+        assertThat(ana.getFechaCreacion()).isEqualTo(LocalDateTime.of(2024, 5, 1, 10, 0));
+        assertThat(ana.getLeido()).isTrue();
+        assertThat(ana.getBuzon()).isEqualTo("ventas");
+        assertThat(ana.getSimhashBanda0()).isNotNull();
+        Mensaje eva = lotes.get(0).get(1);
+        assertThat(eva.getNombre()).isEqualTo("Eva");
+        assertThat(eva.getEmail()).isEqualTo("eva@example.com");
+        assertThat(eva.getContenido()).isEqualTo("Necesito un presupuesto");
+        assertThat(eva.getFechaCreacion()).isEqualTo(LocalDateTime.now(RELOJ));
+        assertThat(eva.getBuzon()).isEqualTo(Mensaje.BUZON_PRINCIPAL);
+        assertThat(confirmadas).containsExactly(5L);
+    }
+
+    @Test
+    @DisplayName("Debe guardar por lotes y avanzar el progreso con cada uno")
+    void csv_debeConfirmarPorLotes() {
+        propiedades.getImportacion().setTamanoLote(2);
+        sinProgresoPrevio();
+        String csv = """
+                Email,Nombre,Contenido,fecha_creacion
+                a@example.com,Ana,"Primer mensaje, con coma",
+                b@example.com,Bea,Segundo mensaje de prueba,2025-01-02T03:04:05
+                c@example.com,Carlos,Tercer mensaje de prueba,
+                """;
+
+        ResultadoImportacionDTO resultado = importador.importar(CLAVE, ImportadorMensajes.Formato.CSV, texto(csv));
+
+        assertThat(resultado.importados()).isEqualTo(3);
+        assertThat(lotes).extracting(List::size).containsExactly(2, 1);
+        assertThat(lotes.get(0).get(0).getContenido()).isEqualTo("Primer mensaje, con coma");
+        assertThat(lotes.get(0).get(1).getFechaCreacion()).isEqualTo(LocalDateTime.of(2025, 1, 2, 3, 4, 5));
+        assertThat(confirmadas).containsExactly(3L, 4L);
+        verify(indiceNoLeidos, times(1)).invalidar();
+        verifyNoInteractions(escritorRollups, marcaAguaRepository);
+    }
+
+    @Test
+    @DisplayName("Con rollups debe sumar los mensajes anteriores a la marca y dejar los posteriores a RollupJob")
+    void rollups_debeSumarLoAnteriorALaMarca() {
+        propiedades.getRollups().setHabilitado(true);
+        sinProgresoPrevio();
+        when(marcaAguaRepository.bloquear(EscritorRollups.MARCA)).thenReturn(Optional.of(
+                new MarcaAgua(EscritorRollups.MARCA, LocalDateTime.of(2025, 1, 2, 10, 0), 40L)));
+        when(marcaAguaRepository.bloquear(EscritorRollups.MARCA_RECONSTRUCCION)).thenReturn(Optional.of(
+                new MarcaAgua(EscritorRollups.MARCA_RECONSTRUCCION, LocalDateTime.of(2024, 12, 1, 0, 0),
+                        Long.MAX_VALUE)));
+        String ndjson = """
+                {"nombre":"Ana","email":"Ana@example.com","contenido":"Primer mensaje de prueba","fechaCreacion":"2025-01-01T10:00:00"}
+                {"nombre":"Bea","email":"bea@example.com","contenido":"Segundo mensaje de prueba","fechaCreacion":"2025-01-01T11:00:00"}
+                {"nombre":"Ana","email":"ana@example.com","contenido":"Tercer mensaje de prueba","fechaCreacion":"2025-01-02T10:00:00"}
+                {"nombre":"Eva","email":"eva@example.com","contenido":"Cuarto mensaje de prueba","fechaCreacion":"2025-01-03T10:00:00"}
+                """;
+
+        importador.importar(CLAVE, ImportadorMensajes.Formato.NDJSON, texto(ndjson));
+
+        // El del 2 a las 10:00 empata con la marca sin completar: lo cuenta RollupJob, como el del 3
+        LocalDate dia = LocalDate.of(2025, 1, 1);
+        verify(escritorRollups).sumarRecibidos(Map.of(dia, 2L), Map.of(
+                new EscritorRollups.RemitenteDia(dia, "ana@example.com"), 1L,
+                new EscritorRollups.RemitenteDia(dia, "bea@example.com"), 1L));
+    }
+
+    @Test
+    @DisplayName("Con la reconstrucción en marcha debe dejarle los mensajes anteriores a su límite")
+    void rollups_conReconstruccionEnMarcha_debeDejarleSuTramo() {
+        propiedades.getRollups().setHabilitado(true);
+        sinProgresoPrevio();
+        when(marcaAguaRepository.bloquear(EscritorRollups.MARCA)).thenReturn(Optional.of(
+                new MarcaAgua(EscritorRollups.MARCA, LocalDateTime.of(2025, 6, 1, 0, 0), Long.MAX_VALUE)));
+        when(marcaAguaRepository.bloquear(EscritorRollups.MARCA_RECONSTRUCCION)).thenReturn(Optional.of(
+                new MarcaAgua(EscritorRollups.MARCA_RECONSTRUCCION, LocalDateTime.of(2025, 1, 1, 0, 0), 500L)));
+        String ndjson = """
+                {"nombre":"Ana","email":"ana@example.com","contenido":"Primer mensaje de prueba","fechaCreacion":"2024-12-31T10:00:00"}
+                {"nombre":"Bea","email":"bea@example.com","contenido":"Segundo mensaje de prueba","fechaCreacion":"2025-03-01T10:00:00"}
+                """;
+
+        importador.importar(CLAVE, ImportadorMensajes.Formato.NDJSON, texto(ndjson));
+
+        LocalDate dia = LocalDate.of(2025, 3, 1);
+        verify(escritorRollups).sumarRecibidos(Map.of(dia, 1L),
+                Map.of(new EscritorRollups.RemitenteDia(dia, "bea@example.com"), 1L));
+    }
+
+    @Test
+    @DisplayName("Si RollupJob aún no ha empezado no debe sumar nada a los rollups")
+    void rollups_sinMarca_noDebeSumar() {
+        propiedades.getRollups().setHabilitado(true);
+        sinProgresoPrevio();
+        when(marcaAguaRepository.bloquear(EscritorRollups.MARCA)).thenReturn(Optional.empty());
+
+        importador.importar(CLAVE, ImportadorMensajes.Formato.NDJSON, texto(
+                "{\"nombre\":\"Ana\",\"email\":\"ana@example.com\",\"contenido\":\"Primer mensaje de prueba\"}\n"));
+
+        verifyNoInteractions(escritorRollups);
+    }
+
+    @Test
+    @DisplayName("Cada lote debe sumar un recuento por remitente")
+    void lote_debeSumarUnRecuentoPorRemitente() {
+        sinProgresoPrevio();
+        String ndjson = """
+                {"nombre":"Ana","email":"ana@example.com","contenido":"Primer mensaje de prueba","fechaCreacion":"2025-01-01T10:00:00","leido":true}
+                {"nombre":"Bea","email":"bea@example.com","contenido":"Segundo mensaje de prueba","fechaCreacion":"2025-01-02T10:00:00"}
+                {"nombre":"Ana López","email":"ANA@example.com","contenido":"Tercer mensaje de prueba","fechaCreacion":"2025-01-03T10:00:00"}
+                """;
+
+        importador.importar(CLAVE, ImportadorMensajes.Formato.NDJSON, texto(ndjson));
+
+        ArgumentCaptor<Collection<EscritorRemitentes.Recuento>> recuentos = ArgumentCaptor.forClass(Collection.class);
+        verify(escritorRemitentes).sumar(recuentos.capture());
+        assertThat(recuentos.getValue()).containsExactlyInAnyOrder(
+                new EscritorRemitentes.Recuento("ana@example.com", "Ana López",
+                        LocalDateTime.of(2025, 1, 1, 10, 0), LocalDateTime.of(2025, 1, 3, 10, 0), 2, 1),
+                new EscritorRemitentes.Recuento("bea@example.com", "Bea",
+                        LocalDateTime.of(2025, 1, 2, 10, 0), LocalDateTime.of(2025, 1, 2, 10, 0), 1, 1));
+    }
+
+    @Test
+    @DisplayName("Al reanudar debe saltar las filas ya confirmadas")
+    void reanudar_debeSaltarLoConfirmado() {
+        Importacion previa = new Importacion(CLAVE, 2, 2, LocalDateTime.now(RELOJ));
+        when(importacionRepository.findById(CLAVE)).thenReturn(Optional.of(previa));
+        when(importacionRepository.bloquear(CLAVE)).thenReturn(Optional.of(previa));
+        registrarEscrituras();
+        String ndjson = """
+                {"nombre":"Ana","email":"ana@example.com","contenido":"Primer mensaje de prueba"}
+                {"nombre":"Bea","email":"bea@example.com","contenido":"Segundo mensaje de prueba"}
+                {"nombre":"Carlos","email":"carlos@example.com","contenido":"Tercer mensaje de prueba"}
+                """;
+
+        ResultadoImportacionDTO resultado = importador.importar(CLAVE, ImportadorMensajes.Formato.NDJSON, texto(ndjson));
+
+        assertThat(resultado.yaImportados()).isEqualTo(2);
+        assertThat(resultado.importados()).isEqualTo(1);
+        assertThat(lotes).hasSize(1);
+        assertThat(lotes.get(0)).extracting(Mensaje::getNombre).containsExactly("Carlos");
+        assertThat(previa.getLineaConfirmada()).isEqualTo(3);
+        assertThat(previa.getImportados()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Si otra importación ha avanzado la misma clave no debe escribir nada")
+    void otraImportacion_debeRechazarse() {
+        when(importacionRepository.findById(CLAVE)).thenReturn(Optional.empty());
+        when(importacionRepository.bloquear(CLAVE))
+                .thenReturn(Optional.of(new Importacion(CLAVE, 7, 7, LocalDateTime.now(RELOJ))));
+        String ndjson = "{\"nombre\":\"Ana\",\"email\":\"ana@example.com\",\"contenido\":\"Primer mensaje de prueba\"}\n";
+
+        assertThatThrownBy(() -> importador.importar(CLAVE, ImportadorMensajes.Formato.NDJSON, texto(ndjson)))
+                .isInstanceOf(ImportacionEnCursoException.class);
+        verify(escritor, never()).insertar(any());
+        verify(indiceNoLeidos, never()).invalidar();
+    }
+
+    @Test
+    @DisplayName("Un CSV sin las columnas obligatorias debe rechazarse entero")
+    void csvSinColumnas_debeRechazarse() {
+        when(importacionRepository.findById(CLAVE)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> importador.importar(CLAVE, ImportadorMensajes.Formato.CSV,
+                texto("nombre,email\nAna,ana@example.com\n")))
+                .isInstanceOf(ImportacionRechazadaException.class)
+                .hasMessageContaining("contenido");
+    }
+
+    private void sinProgresoPrevio() {
+        when(importacionRepository.findById(CLAVE)).thenReturn(Optional.empty());
+        when(importacionRepository.bloquear(CLAVE)).thenAnswer(inv -> Optional.ofNullable(guardada));
+        registrarEscrituras();
+    }
+
+    private void registrarEscrituras() {
+        doAnswer(inv -> {
+            lotes.add(List.copyOf(inv.<List<Mensaje>>getArgument(0)));
+            return null;
+        }).when(escritor).insertar(any());
+        doAnswer(inv -> {
+            guardada = inv.getArgument(0);
+            confirmadas.add(guardada.getLineaConfirmada());
+            return guardada;
+        }).when(importacionRepository).save(any());
+    }
+
+    private static InputStream texto(String contenido) {
+        return new ByteArrayInputStream(contenido.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,83 @@
+package com.miguel.buzon_mensajes.service.importacion;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.dto.MensajeImportacionDTO;
+import com.miguel.buzon_mensajes.dto.ResultadoImportacionDTO.Motivo;
+import com.miguel.buzon_mensajes.service.importacion.LectorImportacion.Registro;
+import com.miguel.buzon_mensajes.service.importacion.PreparadorMensajes.Preparado;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitarios para PreparadorMensajes.
+ */
+@DisplayName("Tests para PreparadorMensajes")
+class PreparadorMensajesTest {
+
+    private static final LocalDateTime AHORA = LocalDateTime.of(2025, 10, 19, 12, 0);
+
+    private PreparadorMensajes preparador;
+
+    @BeforeEach
+    void setUp() {
+        BuzonProperties propiedades = new BuzonProperties();
+        propiedades.getImportacion().setParalelismo(4);
+        preparador = new PreparadorMensajes(Validation.buildDefaultValidatorFactory().getValidator(), propiedades);
+    }
+
+    @AfterEach
+    void tearDown() {
+        preparador.cerrar();
+    }
+
+    @Test
+    @DisplayName("Un lote repartido entre varios hilos debe conservar el orden de las filas")
+    void loteGrande_debeConservarOrden() {
+        List<Registro> registros = LongStream.rangeClosed(1, 5000)
+                .mapToObj(linea -> linea % 10 == 0
+                        ? Registro.valido(linea, mensaje("sin-arroba"))
+                        : Registro.valido(linea, mensaje("usuario" + linea + "@example.com")))
+                .toList();
+
+        List<Preparado> preparados = preparador.preparar(registros, AHORA);
+
+        assertThat(preparados).extracting(Preparado::linea)
+                .containsExactlyElementsOf(LongStream.rangeClosed(1, 5000).boxed().toList());
+        assertThat(preparados).filteredOn(p -> !p.valido()).hasSize(500)
+                .allSatisfy(p -> assertThat(p.linea() % 10).isZero());
+        assertThat(preparados.get(0).mensaje().getEmail()).isEqualTo("usuario1@example.com");
+    }
+
+    @Test
+    @DisplayName("Una fila con varios problemas debe devolverlos todos, ordenados por campo")
+    void filaInvalida_debeListarTodosLosMotivos() {
+        Preparado preparado = preparador.preparar(
+                Registro.valido(7, new MensajeImportacionDTO("A", "mal", "corto", null, null, null)), AHORA);
+
+        assertThat(preparado.valido()).isFalse();
+        assertThat(preparado.motivos()).extracting(Motivo::campo).containsExactly("contenido", "email", "nombre");
+    }
+
+    @Test
+    @DisplayName("Los errores de lectura deben conservar su campo")
+    void errorDeLectura_debeConservarCampo() {
+        Preparado preparado = preparador.preparar(
+                Registro.invalido(3, "fechaCreacion", "No es una fecha ISO-8601: ayer"), AHORA);
+
+        assertThat(preparado.motivos())
+                .containsExactly(new Motivo("fechaCreacion", "No es una fecha ISO-8601: ayer"));
+    }
+
+    private static MensajeImportacionDTO mensaje(String email) {
+        return new MensajeImportacionDTO(" Ana ", email, "Hola, quería información", null, null, null);
+    }
+}
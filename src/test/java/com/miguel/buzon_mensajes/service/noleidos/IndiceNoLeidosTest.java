@@ -0,0 +1,162 @@
+package com.miguel.buzon_mensajes.service.noleidos;
+
+import com.miguel.buzon_mensajes.config.BuzonProperties;
+import com.miguel.buzon_mensajes.datasource.ShardRouter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.LocalDateTime;
+import java.util.OptionalLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests unitarios para IndiceNoLeidos (sin transacción: los cambios se aplican al momento).
+ */
+@DisplayName("Tests para IndiceNoLeidos")
+class IndiceNoLeidosTest {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final long SIN_REVISION = Long.MAX_VALUE;
+
+    private final IndiceNoLeidos indice = new IndiceNoLeidos(true, SIN_REVISION, 1);
+
+    @Test
+    @DisplayName("Sin construir no debe responder")
+    void sinConstruir_debeDevolverVacio() {
+        indice.agregar(1, fecha(1));
+
+        assertThat(indice.contar()).isEmpty();
+        assertThat(indice.pagina(0, 10)).isEmpty();
+        assertThat(indice.necesitaReconstruir(0)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Los cambios durante la reconstrucción deben aplicarse sobre el recorrido")
+    void cambiosDuranteReconstruccion_debenAplicarse() {
+        long generacion = indice.empezarReconstruccion(0);
+        assertThat(indice.necesitaReconstruir(0)).isFalse();
+
+        // El recorrido vio 1, 2 y 3 sin leer; mientras tanto se leyó el 2 y llegó el 4
+        IndiceNoLeidos.IdsShard recorrido = recorrido(1, 2, 3);
+        indice.quitar(2);
+        indice.agregar(4, fecha(4));
+
+        assertThat(indice.terminarReconstruccion(0, generacion, recorrido)).isTrue();
+        assertThat(indice.contar()).isEqualTo(OptionalLong.of(3));
+        assertThat(indice.pagina(0, 10)).hasValueSatisfying(ids -> assertThat(ids).containsExactly(4, 3, 1));
+        assertThat(indice.necesitaReconstruir(0)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Una importación durante la reconstrucción debe descartarla")
+    void invalidarDuranteReconstruccion_debeDescartarla() {
+        long generacion = indice.empezarReconstruccion(0);
+        indice.invalidar();
+
+        assertThat(indice.terminarReconstruccion(0, generacion, new IndiceNoLeidos.IdsShard())).isFalse();
+        assertThat(indice.contar()).isEmpty();
+        assertThat(indice.necesitaReconstruir(0)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Con fechas que no crecen con los ids debe contar pero no dar páginas")
+    void fechasDesordenadas_debeContarSinPaginar() {
+        // El 2 es un mensaje importado con una fecha anterior a la del 1
+        IndiceNoLeidos.IdsShard recorrido = new IndiceNoLeidos.IdsShard();
+        recorrido.agregar(1, fecha(10));
+        recorrido.agregar(2, fecha(5));
+        construir(indice, recorrido);
+
+        assertThat(indice.contar()).isEqualTo(OptionalLong.of(2));
+        assertThat(indice.pagina(0, 10)).isEmpty();
+        assertThat(indice.necesitaReconstruir(0)).isFalse();
+
+        IndiceNoLeidos revisado = new IndiceNoLeidos(true, 0, 1);
+        construir(revisado, recorrido);
+        assertThat(revisado.necesitaReconstruir(0)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Mensajes nuevos confirmados en otro orden que sus ids deben seguir dando páginas")
+    void nuevosConfirmadosDesordenados_debenSeguirEnOrden() {
+        construir(indice, recorrido(1, 2));
+
+        // El 4 confirma antes que el 3, pero sus fechas siguen el orden de los ids
+        indice.agregar(4, fecha(4));
+        indice.agregar(3, fecha(3));
+
+        assertThat(indice.pagina(0, 10)).hasValueSatisfying(ids -> assertThat(ids).containsExactly(4, 3, 2, 1));
+    }
+
+    @Test
+    @DisplayName("Un mensaje nuevo con fecha anterior a la del último debe dejar de dar páginas")
+    void nuevoConFechaAnterior_debeDejarDePaginar() {
+        construir(indice, recorrido(1, 2));
+
+        indice.agregar(3, fecha(1).minusSeconds(1));
+
+        assertThat(indice.pagina(0, 10)).isEmpty();
+        assertThat(indice.contar()).isEqualTo(OptionalLong.of(3));
+    }
+
+    @Test
+    @DisplayName("Restaurar un id más antiguo que los recientes debe pedir otro recorrido")
+    void restaurarIdAntiguo_debePedirReconstruccion() {
+        long[] ids = new long[IndiceNoLeidos.RECIENTES + 10];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i + 2;
+        }
+        construir(indice, recorrido(ids));
+
+        indice.agregar(1, fecha(1));
+
+        assertThat(indice.pagina(0, 10)).isEmpty();
+        assertThat(indice.necesitaReconstruir(0)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deshabilitado nunca debe responder ni pedir reconstrucción")
+    void deshabilitado_noDebeResponder() {
+        IndiceNoLeidos deshabilitado = new IndiceNoLeidos(false, SIN_REVISION, 1);
+
+        assertThat(deshabilitado.necesitaReconstruir(0)).isFalse();
+        assertThat(deshabilitado.contar()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Con varias instancias debe deshabilitarse aunque esté habilitado")
+    void variasInstancias_debeDeshabilitarse() {
+        BuzonProperties propiedades = new BuzonProperties();
+        propiedades.setVariasInstancias(true);
+        @SuppressWarnings("unchecked")
+        ObjectProvider<ShardRouter> sinShards = mock(ObjectProvider.class);
+
+        IndiceNoLeidos indiceVariasInstancias = new IndiceNoLeidos(propiedades, sinShards);
+
+        assertThat(indiceVariasInstancias.isHabilitado()).isFalse();
+        assertThat(indiceVariasInstancias.necesitaReconstruir(0)).isFalse();
+        assertThat(new IndiceNoLeidos(new BuzonProperties(), sinShards).isHabilitado()).isTrue();
+    }
+
+    private static void construir(IndiceNoLeidos indice, IndiceNoLeidos.IdsShard recorrido) {
+        assertThat(indice.terminarReconstruccion(0, indice.empezarReconstruccion(0), recorrido)).isTrue();
+    }
+
+    /**
+     * Recorrido con esos ids y fechas que crecen con ellos.
+     */
+    private static IndiceNoLeidos.IdsShard recorrido(long... ids) {
+        IndiceNoLeidos.IdsShard recorrido = new IndiceNoLeidos.IdsShard();
+        for (long id : ids) {
+            recorrido.agregar(id, fecha(id));
+        }
+        return recorrido;
+    }
+
+    private static LocalDateTime fecha(long id) {
+        return INICIO.plusMinutes(id);
+    }
+}
@@ -0,0 +1,86 @@
+package com.miguel.buzon_mensajes.service.remitente;
+
+import com.miguel.buzon_mensajes.datasource.ShardContext;
+import com.miguel.buzon_mensajes.datasource.ShardRouter;
+import com.miguel.buzon_mensajes.dto.PaginaRemitentesDTO;
+import com.miguel.buzon_mensajes.dto.RemitenteDTO;
+import com.miguel.buzon_mensajes.repository.RemitenteRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitarios para DirectorioRemitentes (repositorio simulado, sin BD).
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para DirectorioRemitentes")
+class DirectorioRemitentesTest {
+
+    private static final LocalDateTime ENERO = LocalDateTime.of(2025, 1, 10, 9, 0);
+    private static final LocalDateTime MARZO = LocalDateTime.of(2025, 3, 10, 9, 0);
+
+    @Mock
+    private RemitenteRepository remitenteRepository;
+
+    @Test
+    @DisplayName("Una página completa debe indicar el email desde el que seguir")
+    void paginaCompleta_debeDevolverCursorSiguiente() {
+        DirectorioRemitentes directorio = new DirectorioRemitentes(remitenteRepository, (ShardRouter) null);
+        when(remitenteRepository.paginar(eq("ana@example.com"), eq(""), eq("%"), eq(PageRequest.of(0, 2))))
+                .thenReturn(List.of(remitente("bea@example.com", 3, 1), remitente("carlos@example.com", 1, 0)));
+
+        PaginaRemitentesDTO pagina = directorio.listar(" Ana@Example.com", null, 2);
+
+        assertThat(pagina.remitentes()).extracting(RemitenteDTO::email)
+                .containsExactly("bea@example.com", "carlos@example.com");
+        assertThat(pagina.siguiente()).isEqualTo("carlos@example.com");
+    }
+
+    @Test
+    @DisplayName("El prefijo debe buscarse literal, sin comodines de LIKE")
+    void prefijo_debeEscaparComodines() {
+        DirectorioRemitentes directorio = new DirectorioRemitentes(remitenteRepository, (ShardRouter) null);
+        when(remitenteRepository.paginar(any(), any(), any(), any())).thenReturn(List.of());
+
+        PaginaRemitentesDTO pagina = directorio.listar(null, "Ana_1%", 50);
+
+        verify(remitenteRepository).paginar("", "ana_1%", "ana\\_1\\%%", PageRequest.of(0, 50));
+        assertThat(pagina.siguiente()).isNull();
+    }
+
+    @Test
+    @DisplayName("Con sharding debe sumar el mismo remitente de varios shards y cortar en el límite")
+    void sharding_debeMezclarYSumarPorEmail() {
+        DirectorioRemitentes directorio = new DirectorioRemitentes(remitenteRepository, new ShardRouter(2));
+        when(remitenteRepository.paginar(any(), any(), any(), any())).thenAnswer(inv -> ShardContext.actual() == 0
+                ? List.of(remitente("ana@example.com", 2, 1, ENERO, "Ana"), remitente("luis@example.com", 1, 1))
+                : List.of(remitente("ana@example.com", 3, 0, MARZO, "Ana López"), remitente("bea@example.com", 4, 2)));
+
+        PaginaRemitentesDTO pagina = directorio.listar(null, null, 2);
+
+        assertThat(pagina.remitentes()).containsExactly(
+                new RemitenteDTO("ana@example.com", "Ana López", ENERO, MARZO, 5, 1),
+                remitente("bea@example.com", 4, 2));
+        assertThat(pagina.siguiente()).isEqualTo("bea@example.com");
+    }
+
+    private static RemitenteDTO remitente(String email, long total, long noLeidos) {
+        return new RemitenteDTO(email, "Nombre", ENERO, ENERO, total, noLeidos);
+    }
+
+    private static RemitenteDTO remitente(String email, long total, long noLeidos, LocalDateTime fecha, String nombre) {
+        return new RemitenteDTO(email, nombre, fecha, fecha, total, noLeidos);
+    }
+}
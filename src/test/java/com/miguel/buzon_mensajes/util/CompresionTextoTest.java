@@ -0,0 +1,55 @@
+package com.miguel.buzon_mensajes.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitarios para CompresionTexto.
+ */
+@DisplayName("Tests para CompresionTexto")
+class CompresionTextoTest {
+
+    private static final String MENSAJE = """
+            Buenos días, he visto su página y me gustaría recibir más información sobre \
+            el curso de desarrollo web: cuándo empieza, si es online y cuál es el precio. \
+            También quería saber si se puede pagar a plazos. Muchas gracias de antemano. Un saludo, Lucía""";
+
+    @Test
+    @DisplayName("Un mensaje típico debe ocupar bastante menos y recuperarse igual")
+    void comprimir_mensajeTipico_debeReducirseYRecuperarse() {
+        byte[] datos = CompresionTexto.comprimir(MENSAJE);
+
+        assertThat(datos[0]).isEqualTo(CompresionTexto.DICCIONARIO_V1);
+        assertThat(datos.length).isLessThan(MENSAJE.getBytes(StandardCharsets.UTF_8).length / 2);
+        assertThat(CompresionTexto.descomprimir(datos)).isEqualTo(MENSAJE);
+    }
+
+    @Test
+    @DisplayName("Si comprimir no reduce nada debe guardarse el texto tal cual")
+    void comprimir_textoIncompresible_debeGuardarseSinComprimir() {
+        byte[] datos = CompresionTexto.comprimir("x");
+
+        assertThat(datos).containsExactly(CompresionTexto.SIN_COMPRIMIR, 'x');
+        assertThat(CompresionTexto.descomprimir(datos)).isEqualTo("x");
+    }
+
+    @Test
+    @DisplayName("Los caracteres fuera de ASCII y los emojis deben conservarse")
+    void comprimir_conEmojis_debeConservarlos() {
+        String texto = "Ñandú, pingüino y café ☕ 😀 ".repeat(20);
+
+        assertThat(CompresionTexto.descomprimir(CompresionTexto.comprimir(texto))).isEqualTo(texto);
+    }
+
+    @Test
+    @DisplayName("Una versión de formato desconocida debe rechazarse")
+    void descomprimir_versionDesconocida_debeFallar() {
+        assertThatThrownBy(() -> CompresionTexto.descomprimir(new byte[]{9, 1, 2}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
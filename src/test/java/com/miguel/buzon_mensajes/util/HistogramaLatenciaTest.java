@@ -0,0 +1,87 @@
+package com.miguel.buzon_mensajes.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitarios para HistogramaLatencia.
+ */
+@DisplayName("Tests para HistogramaLatencia")
+class HistogramaLatenciaTest {
+
+    @Test
+    @DisplayName("Los percentiles no deben quedar por debajo del real ni pasarse más de 1/16")
+    void percentiles_debenTenerErrorAcotado() {
+        HistogramaLatencia esperas = new HistogramaLatencia();
+        for (long segundos = 1; segundos <= 100_000; segundos++) {
+            esperas.agregar(segundos);
+        }
+
+        for (double fraccion : new double[]{0.50, 0.95, 0.99}) {
+            long real = (long) Math.ceil(fraccion * 100_000);
+            assertThat(esperas.percentil(fraccion))
+                    .isGreaterThanOrEqualTo(real)
+                    .isLessThanOrEqualTo(real + real / 16);
+        }
+    }
+
+    @Test
+    @DisplayName("Un histograma vacío no debe tener percentiles")
+    void vacio_noDebeTenerPercentiles() {
+        assertThat(new HistogramaLatencia().percentil(0.99)).isNull();
+    }
+
+    @Test
+    @DisplayName("Codificar y decodificar debe conservar las cuentas")
+    void codificar_debeSerReversible() {
+        HistogramaLatencia esperas = new HistogramaLatencia();
+        esperas.agregar(0);
+        esperas.agregar(45, 3);
+        esperas.agregar(86_400);
+        esperas.agregar(Long.MAX_VALUE);
+
+        HistogramaLatencia leido = HistogramaLatencia.decodificar(esperas.codificar());
+
+        assertThat(leido.total()).isEqualTo(6);
+        assertThat(leido.cubetas()).containsExactly(esperas.cubetas());
+        assertThat(leido.percentil(0.5)).isEqualTo(esperas.percentil(0.5));
+        assertThat(esperas.codificar()).hasSizeLessThan(20);
+    }
+
+    @Test
+    @DisplayName("Sumar dos histogramas debe dar lo mismo que agregarlo todo a uno")
+    void sumar_debeCombinarCuentas() {
+        HistogramaLatencia manana = new HistogramaLatencia();
+        HistogramaLatencia tarde = new HistogramaLatencia();
+        HistogramaLatencia todo = new HistogramaLatencia();
+        for (long segundos = 0; segundos < 5000; segundos += 7) {
+            (segundos % 2 == 0 ? manana : tarde).agregar(segundos);
+            todo.agregar(segundos);
+        }
+
+        manana.sumar(tarde);
+
+        assertThat(manana.total()).isEqualTo(todo.total());
+        assertThat(manana.percentil(0.95)).isEqualTo(todo.percentil(0.95));
+        assertThat(manana.cubetas()).containsExactly(todo.cubetas());
+    }
+
+    @Test
+    @DisplayName("Las cubetas deben agrupar por potencias de 2 segundos")
+    void cubetas_debenSerPotenciasDeDos() {
+        HistogramaLatencia esperas = new HistogramaLatencia();
+        esperas.agregar(0);     // < 1 s
+        esperas.agregar(3);     // [2, 4)
+        esperas.agregar(100);   // [64, 128)
+
+        long[] cubetas = esperas.cubetas();
+
+        assertThat(cubetas[0]).isEqualTo(1);
+        assertThat(cubetas[2]).isEqualTo(1);
+        assertThat(cubetas[7]).isEqualTo(1);
+        assertThat(HistogramaLatencia.limiteSegundos(7)).isEqualTo(128L);
+        assertThat(HistogramaLatencia.limiteSegundos(HistogramaLatencia.CUBETAS - 1)).isNull();
+    }
+}
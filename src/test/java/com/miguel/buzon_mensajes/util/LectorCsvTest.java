@@ -0,0 +1,79 @@
+package com.miguel.buzon_mensajes.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitarios para LectorCsv.
+ */
+@DisplayName("Tests para LectorCsv")
+class LectorCsvTest {
+
+    @Test
+    @DisplayName("Debe separar campos simples y admitir fin de línea \\r\\n")
+    void camposSimples() throws IOException {
+        LectorCsv csv = new LectorCsv(new StringReader("nombre,email\r\nAna,ana@example.com\r\n"));
+
+        assertThat(csv.siguiente()).containsExactly("nombre", "email");
+        assertThat(csv.siguiente()).containsExactly("Ana", "ana@example.com");
+        assertThat(csv.siguiente()).isNull();
+    }
+
+    @Test
+    @DisplayName("Los campos entre comillas pueden tener comas, comillas y saltos de línea")
+    void camposEntreComillas() throws IOException {
+        LectorCsv csv = new LectorCsv(new StringReader("""
+                a,b
+                "Hola, ""Ana""\","dos
+                líneas"
+                fin,""
+                """));
+
+        csv.siguiente();
+        assertThat(csv.siguiente()).containsExactly("Hola, \"Ana\"", "dos\nlíneas");
+        assertThat(csv.lineaActual()).isEqualTo(2);
+        assertThat(csv.siguiente()).containsExactly("fin", "");
+        assertThat(csv.lineaActual()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Debe saltar líneas vacías y leer la última aunque no termine en salto de línea")
+    void lineasVaciasYUltimaSinSalto() throws IOException {
+        LectorCsv csv = new LectorCsv(new StringReader("a\n\nb"));
+
+        assertThat(csv.siguiente()).containsExactly("a");
+        assertThat(csv.siguiente()).containsExactly("b");
+        assertThat(csv.lineaActual()).isEqualTo(3);
+        assertThat(csv.siguiente()).isNull();
+    }
+
+    @Test
+    @DisplayName("Una comilla sin cerrar debe rechazarse")
+    void comillaSinCerrar() throws IOException {
+        LectorCsv csv = new LectorCsv(new StringReader("a,\"sin cerrar\n"));
+
+        assertThatThrownBy(csv::siguiente)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("línea 1");
+    }
+
+    @Test
+    @DisplayName("Los registros más largos que el buffer deben leerse enteros")
+    void registroMayorQueElBuffer() throws IOException {
+        String largo = "x".repeat(20_000);
+        LectorCsv csv = new LectorCsv(new StringReader("\"" + largo + "\",fin\n"));
+
+        List<String> campos = csv.siguiente();
+
+        assertThat(campos).hasSize(2);
+        assertThat(campos.get(0)).hasSize(20_000);
+        assertThat(campos.get(1)).isEqualTo("fin");
+    }
+}
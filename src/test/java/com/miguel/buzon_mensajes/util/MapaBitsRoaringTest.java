@@ -0,0 +1,82 @@
+package com.miguel.buzon_mensajes.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitarios para MapaBitsRoaring.
+ */
+@DisplayName("Tests para MapaBitsRoaring")
+class MapaBitsRoaringTest {
+
+    @Test
+    @DisplayName("Agregar y quitar deben llevar la cardinalidad al día")
+    void agregarYQuitar_debenContar() {
+        MapaBitsRoaring mapa = new MapaBitsRoaring();
+
+        assertThat(mapa.agregar(5)).isTrue();
+        assertThat(mapa.agregar(5)).isFalse();
+        assertThat(mapa.agregar(70_000)).isTrue();
+        assertThat(mapa.quitar(6)).isFalse();
+
+        assertThat(mapa.cardinalidad()).isEqualTo(2);
+        assertThat(mapa.contiene(70_000)).isTrue();
+        assertThat(mapa.quitar(70_000)).isTrue();
+        assertThat(mapa.contiene(70_000)).isFalse();
+        assertThat(mapa.cardinalidad()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Debe dar lo mismo que un TreeSet al cruzar entre array y mapa de bits")
+    void operacionesAleatorias_debenCoincidirConTreeSet() {
+        Random aleatorio = new Random(7);
+        MapaBitsRoaring mapa = new MapaBitsRoaring();
+        TreeSet<Long> esperado = new TreeSet<>();
+
+        // ~3 bloques muy llenos: los contenedores pasan de array a bits y vuelven
+        for (int i = 0; i < 300_000; i++) {
+            long id = aleatorio.nextInt(200_000);
+            if (aleatorio.nextInt(3) == 0) {
+                assertThat(mapa.quitar(id)).isEqualTo(esperado.remove(id));
+            } else {
+                assertThat(mapa.agregar(id)).isEqualTo(esperado.add(id));
+            }
+        }
+
+        assertThat(mapa.cardinalidad()).isEqualTo(esperado.size());
+        long[] todos = esperado.descendingSet().stream().mapToLong(Long::longValue).toArray();
+        for (int saltar : new int[]{0, 1, 4096, 65_535, 70_000, todos.length - 3}) {
+            long[] pagina = mapa.descendentes(saltar, 50);
+            assertThat(pagina).containsExactly(
+                    LongStream.of(todos).skip(saltar).limit(50).toArray());
+        }
+    }
+
+    @Test
+    @DisplayName("Pasada la cardinalidad la página debe salir vacía")
+    void descendentes_masAlla_debeEstarVacio() {
+        MapaBitsRoaring mapa = new MapaBitsRoaring();
+        LongStream.rangeClosed(1, 10).forEach(mapa::agregar);
+
+        assertThat(mapa.descendentes(0, 3)).containsExactly(10, 9, 8);
+        assertThat(mapa.descendentes(8, 5)).containsExactly(2, 1);
+        assertThat(mapa.descendentes(10, 5)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Un millón de ids consecutivos debe ocupar del orden de 130 KB")
+    void millonDeIds_debeOcuparPoco() {
+        MapaBitsRoaring mapa = new MapaBitsRoaring();
+        LongStream.rangeClosed(1, 1_000_000).forEach(mapa::agregar);
+
+        assertThat(mapa.cardinalidad()).isEqualTo(1_000_000);
+        // 16 bloques de mapa de bits de 8 KB; un HashSet<Long> pasaría de 50 MB
+        assertThat(mapa.bytesAproximados()).isLessThan(140_000);
+    }
+}
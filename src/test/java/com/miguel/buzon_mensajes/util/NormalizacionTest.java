@@ -0,0 +1,46 @@
+package com.miguel.buzon_mensajes.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitarios para Normalizacion.
+ */
+@DisplayName("Tests para Normalizacion")
+class NormalizacionTest {
+
+    @Test
+    @DisplayName("El email debe quedar recortado y en minúsculas")
+    void email_debeIrEnMinusculas() {
+        assertThat(Normalizacion.email("  Ana.Garcia@Example.COM \t")).isEqualTo("ana.garcia@example.com");
+    }
+
+    @Test
+    @DisplayName("Los textos de una línea deben perder los caracteres de control")
+    void linea_debeQuitarControles() {
+        assertThat(Normalizacion.linea("Ana\u0000 Gar\u001Bcía\n")).isEqualTo("Ana García");
+    }
+
+    @Test
+    @DisplayName("El contenido debe conservar saltos de línea y tabuladores")
+    void texto_debeConservarSaltosDeLinea() {
+        assertThat(Normalizacion.texto("Hola\r\nque\ttal\u0007\rbien\u0085  "))
+                .isEqualTo("Hola\nque\ttal\nbien");
+    }
+
+    @Test
+    @DisplayName("El nombre de comparación no debe distinguir mayúsculas ni espacios repetidos")
+    void nombre_debeCompararseSinMayusculas() {
+        assertThat(Normalizacion.nombre("  MIGUEL   Alvarado ")).isEqualTo("miguel alvarado");
+        assertThat(Normalizacion.nombre("Miguel\r\nAlvarado")).isEqualTo("miguel alvarado");
+    }
+
+    @Test
+    @DisplayName("Null debe seguir siendo null")
+    void null_debeDevolverNull() {
+        assertThat(Normalizacion.email(null)).isNull();
+        assertThat(Normalizacion.texto(null)).isNull();
+    }
+}
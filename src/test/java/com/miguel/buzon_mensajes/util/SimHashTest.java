@@ -0,0 +1,67 @@
+package com.miguel.buzon_mensajes.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitarios para SimHash.
+ *
+ * Verifican las propiedades que usa la búsqueda de casi duplicados:
+ * textos parecidos dan huellas cercanas y las bandas reconstruyen la huella.
+ */
+@DisplayName("Tests para SimHash")
+class SimHashTest {
+
+    @Test
+    @DisplayName("Textos iguales salvo mayúsculas, tildes y puntuación deben tener la misma huella")
+    void calcular_cuandoSoloCambiaElFormato_debeDarMismaHuella() {
+        long a = SimHash.calcular("Hola, me interesa información sobre el curso de Java");
+        long b = SimHash.calcular("hola me interesa informacion sobre el curso de JAVA!!");
+
+        assertThat(SimHash.distancia(a, b)).isZero();
+    }
+
+    @Test
+    @DisplayName("Textos casi idénticos deben estar más cerca que textos distintos")
+    void calcular_cuandoTextosParecidos_debeDarHuellasCercanas() {
+        String base = "Gana dinero desde casa con nuestro sistema exclusivo, "
+                + "sin experiencia previa y con resultados garantizados en pocas semanas";
+        long original = SimHash.calcular(base);
+        long variante = SimHash.calcular(base + " hoy");
+        long distinto = SimHash.calcular("Quisiera saber el horario de atención de la oficina del centro");
+
+        assertThat(SimHash.distancia(original, variante))
+                .isLessThan(SimHash.distancia(original, distinto));
+    }
+
+    @Test
+    @DisplayName("Las bandas deben reconstruir la huella completa")
+    void banda_debeReconstruirLaHuella() {
+        long huella = SimHash.calcular("Mensaje de prueba para comprobar las bandas");
+
+        long reconstruida = 0L;
+        for (int i = 0; i < SimHash.BANDAS; i++) {
+            int banda = SimHash.banda(huella, i);
+            assertThat(banda).isBetween(0, 0xFFFF);
+            reconstruida |= ((long) banda) << (i * 16);
+        }
+
+        assertThat(reconstruida).isEqualTo(huella);
+    }
+
+    @Test
+    @DisplayName("Texto vacío debe dar huella 0")
+    void calcular_cuandoTextoVacio_debeDarCero() {
+        assertThat(SimHash.calcular("   ")).isZero();
+        assertThat(SimHash.calcular(null)).isZero();
+    }
+
+    @Test
+    @DisplayName("Un texto solo con signos no debe dar una huella comparable")
+    void calcular_cuandoSoloSignos_noDebeSerComparable() {
+        assertThat(SimHash.comparable(SimHash.calcular("¿¿?? !!! ...  :-)"))).isFalse();
+        assertThat(SimHash.comparable(SimHash.calcular("hola"))).isTrue();
+    }
+}
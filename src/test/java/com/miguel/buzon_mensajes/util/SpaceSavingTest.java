@@ -0,0 +1,58 @@
+package com.miguel.buzon_mensajes.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitarios para SpaceSaving.
+ */
+@DisplayName("Tests para SpaceSaving")
+class SpaceSavingTest {
+
+    @Test
+    @DisplayName("Con sitio para todos las cuentas deben ser exactas")
+    void sinDesbordar_debeContarExacto() {
+        SpaceSaving frecuentes = new SpaceSaving(5);
+        List.of("a", "b", "a", "c", "a", "b").forEach(frecuentes::agregar);
+
+        assertThat(frecuentes.top(2)).containsExactly(
+                new SpaceSaving.Contador("a", 3, 0),
+                new SpaceSaving.Contador("b", 2, 0));
+    }
+
+    @Test
+    @DisplayName("Un elemento muy frecuente no debe perderse entre muchos raros")
+    void conMuchosDistintos_debeConservarElFrecuente() {
+        SpaceSaving frecuentes = new SpaceSaving(3);
+        for (int i = 0; i < 1000; i++) {
+            frecuentes.agregar("spam@example.com");
+            frecuentes.agregar("unico" + i + "@example.com");
+        }
+
+        SpaceSaving.Contador primero = frecuentes.top(1).get(0);
+        assertThat(primero.elemento()).isEqualTo("spam@example.com");
+        assertThat(primero.cuenta() - primero.error()).isLessThanOrEqualTo(1000);
+        assertThat(primero.cuenta()).isGreaterThanOrEqualTo(1000);
+    }
+
+    @Test
+    @DisplayName("Continuar desde el estado guardado debe dar lo mismo que sin interrupción")
+    void continuarDesdeEstado_debeSerEquivalente() {
+        List<String> flujo = List.of("a", "b", "c", "a", "d", "a", "e", "b", "f", "a");
+
+        SpaceSaving seguido = new SpaceSaving(3);
+        flujo.forEach(seguido::agregar);
+
+        SpaceSaving primeraParte = new SpaceSaving(3);
+        flujo.subList(0, 5).forEach(primeraParte::agregar);
+        SpaceSaving reanudado = new SpaceSaving(3, primeraParte.estado());
+        flujo.subList(5, flujo.size()).forEach(reanudado::agregar);
+
+        assertThat(reanudado.top(1)).isEqualTo(seguido.top(1));
+        assertThat(reanudado.top(1).get(0).elemento()).isEqualTo("a");
+    }
+}